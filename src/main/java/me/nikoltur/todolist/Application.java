@@ -6,15 +6,19 @@ import org.springframework.boot.autoconfigure.EnableAutoConfiguration;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.boot.autoconfigure.orm.jpa.HibernateJpaAutoConfiguration;
 import org.springframework.context.annotation.Import;
+import org.springframework.scheduling.annotation.EnableScheduling;
 import org.springframework.transaction.annotation.EnableTransactionManagement;
 
 /**
  * Main class used to start the Spring-application.
  *
+ * Scheduling is enabled for the periodic jobs of the configurations, such as compacting the change logs and rebalancing sort keys.
+ *
  * @author Nikolas Turunen
  */
 @SpringBootApplication
 @EnableTransactionManagement
+@EnableScheduling
 @EnableAutoConfiguration(exclude = HibernateJpaAutoConfiguration.class)
 @Import(GlobalHttpRequestLoggingConfiguration.class)
 public class Application {
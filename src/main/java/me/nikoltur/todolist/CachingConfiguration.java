@@ -0,0 +1,26 @@
+package me.nikoltur.todolist;
+
+import me.nikoltur.todolist.caching.ResponseCache;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Configuration for the cache of encoded responses.
+ *
+ * The property todolist.caching.response-cache-size sets the maximum total size in bytes of the cached responses, 32 MiB by default.
+ * Responses are only invalidated by changes made through this instance, so the cache must be disabled with a size of zero when several instances share the database.
+ *
+ * @author Nikolas Turunen
+ */
+@Configuration
+public class CachingConfiguration {
+
+    @Value("${todolist.caching.response-cache-size:33554432}")
+    private long responseCacheSize;
+
+    @Bean
+    public ResponseCache responseCache() {
+        return new ResponseCache(responseCacheSize);
+    }
+}
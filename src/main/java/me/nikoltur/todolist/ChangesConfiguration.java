@@ -0,0 +1,22 @@
+package me.nikoltur.todolist;
+
+import me.nikoltur.todolist.changes.ChangeLogCompactor;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Configuration for the change logs of tasks and projects.
+ *
+ * The property todolist.changes.compaction-interval sets the delay in milliseconds between compaction runs
+ * and todolist.changes.removal-retention the time in milliseconds removals are kept, seven days by default.
+ *
+ * @author Nikolas Turunen
+ */
+@Configuration
+public class ChangesConfiguration {
+
+    @Bean
+    public ChangeLogCompactor changeLogCompactor() {
+        return new ChangeLogCompactor();
+    }
+}
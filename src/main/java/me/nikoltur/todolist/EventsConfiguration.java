@@ -0,0 +1,42 @@
+package me.nikoltur.todolist;
+
+import java.util.concurrent.Executors;
+import me.nikoltur.todolist.events.ChangeEventBroadcaster;
+import me.nikoltur.todolist.events.ChangePublisher;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Configuration for the server-sent events of changed tasks and projects.
+ *
+ * The property todolist.events.timeout sets the time in milliseconds after which clients reconnect,
+ * todolist.events.queue-capacity the number of unsent events after which a slow client is disconnected,
+ * todolist.events.send-timeout the time in milliseconds the oldest unsent event of a client may wait before the client is disconnected,
+ * todolist.events.dispatch-threads the number of threads sending events
+ * and todolist.events.heartbeat-interval the delay in milliseconds between heartbeats.
+ *
+ * @author Nikolas Turunen
+ */
+@Configuration
+public class EventsConfiguration {
+
+    @Value("${todolist.events.timeout:1800000}")
+    private long timeout;
+    @Value("${todolist.events.queue-capacity:32}")
+    private int queueCapacity;
+    @Value("${todolist.events.send-timeout:30000}")
+    private long sendTimeout;
+    @Value("${todolist.events.dispatch-threads:4}")
+    private int dispatchThreads;
+
+    @Bean(destroyMethod = "shutdown")
+    public ChangeEventBroadcaster changeEventBroadcaster() {
+        return new ChangeEventBroadcaster(Executors.newFixedThreadPool(dispatchThreads), queueCapacity, sendTimeout, timeout);
+    }
+
+    @Bean
+    public ChangePublisher changePublisher() {
+        return new ChangePublisher();
+    }
+}
@@ -1,18 +1,33 @@
 package me.nikoltur.todolist;
 
 import java.io.IOException;
+import java.sql.Connection;
 import javax.sql.DataSource;
+import me.nikoltur.todolist.queries.QueryTracker;
+import me.nikoltur.todolist.queries.SlowStatementLog;
+import me.nikoltur.todolist.queries.StatementTimingDataSource;
 import org.hibernate.SessionFactory;
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.EventType;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.flyway.FlywayMigrationInitializer;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
 import org.springframework.orm.hibernate5.HibernateTransactionManager;
 import org.springframework.orm.hibernate5.LocalSessionFactoryBean;
 
 /**
  * Hibernate configuration.
  *
+ * The statistics of Hibernate are gathered if the property todolist.queries.statistics-enabled is set, see {@link QueriesConfiguration}.
+ * The second-level cache of tasks, projects and details is turned off in the advisory locking mode, see {@link LockingConfiguration}.
+ * Each instance only evicts its own cache, so with several instances a write could load a stale entity from it and overwrite the changes of another instance.
+ *
  * @author Nikolas Turunen
  */
 @Configuration
@@ -20,16 +35,61 @@ public class HibernateConfiguration {
 
     @Autowired
     private DataSource dataSource;
+    /**
+     * Present unless migrations are disabled. Injected so that the schema is migrated before the session factory is built.
+     */
+    @Autowired(required = false)
+    private FlywayMigrationInitializer flywayMigrationInitializer;
+    @Autowired
+    private QueryTracker queryTracker;
+    @Autowired
+    private SlowStatementLog slowStatementLog;
+    @Value("${todolist.queries.statistics-enabled:false}")
+    private boolean statisticsEnabled;
+    @Value("${todolist.locking.mode:" + LockingConfiguration.LOCAL_MODE + "}")
+    private String lockingMode;
 
     @Bean
     public SessionFactory sessionFactory() throws IOException {
         LocalSessionFactoryBean sessionFactoryBean = new LocalSessionFactoryBean();
-        sessionFactoryBean.setDataSource(dataSource);
+        sessionFactoryBean.setDataSource(lazyConnectionDataSource());
         sessionFactoryBean.setConfigLocation(new ClassPathResource("hibernate.cfg.xml"));
         sessionFactoryBean.setPackagesToScan(this.getClass().getPackage().getName());
+        sessionFactoryBean.getHibernateProperties().put(AvailableSettings.STATEMENT_INSPECTOR, queryTracker);
+        sessionFactoryBean.getHibernateProperties().put(AvailableSettings.GENERATE_STATISTICS, Boolean.toString(statisticsEnabled));
+        if (LockingConfiguration.ADVISORY_MODE.equals(lockingMode)) {
+            sessionFactoryBean.getHibernateProperties().put(AvailableSettings.USE_SECOND_LEVEL_CACHE, "false");
+        }
         sessionFactoryBean.afterPropertiesSet();
 
-        return sessionFactoryBean.getObject();
+        SessionFactory sessionFactory = sessionFactoryBean.getObject();
+        EventListenerRegistry eventListenerRegistry = sessionFactory.unwrap(SessionFactoryImplementor.class).getServiceRegistry().getService(EventListenerRegistry.class);
+        eventListenerRegistry.appendListeners(EventType.POST_LOAD, queryTracker);
+        eventListenerRegistry.appendListeners(EventType.INIT_COLLECTION, queryTracker);
+
+        return sessionFactory;
+    }
+
+    /**
+     * Returns a data source checking out a pooled connection at the first statement rather than when a transaction begins,
+     * so transactions failing validation or served from the second-level cache hold no connection.
+     * With the local locking mode neither do writes waiting for a project lock, as the projects of tasks are read on a short connection of their own before locking.
+     * Advisory locks are taken with a statement, so with them the wait holds the connection of the transaction.
+     * Project locks are held until the transaction commits or rolls back, so the next holder of a lock never reads uncommitted state.
+     * The transaction manager finds the data source through the session factory.
+     * Statements are timed once a connection is checked out, so waiting for the pool is not counted as a slow statement.
+     *
+     * @return A data source checking out pooled connections lazily.
+     */
+    private DataSource lazyConnectionDataSource() {
+        LazyConnectionDataSourceProxy lazyConnectionDataSource = new LazyConnectionDataSourceProxy();
+        lazyConnectionDataSource.setTargetDataSource(new StatementTimingDataSource(dataSource, slowStatementLog));
+        // The defaults of PostgreSQL and the pool, set so that they are not read from a connection at startup.
+        lazyConnectionDataSource.setDefaultAutoCommit(true);
+        lazyConnectionDataSource.setDefaultTransactionIsolation(Connection.TRANSACTION_READ_COMMITTED);
+        lazyConnectionDataSource.afterPropertiesSet();
+
+        return lazyConnectionDataSource;
     }
 
     @Bean
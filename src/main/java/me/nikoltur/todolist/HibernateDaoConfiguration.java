@@ -1,5 +1,7 @@
 package me.nikoltur.todolist;
 
+import me.nikoltur.todolist.changes.da.ChangesDao;
+import me.nikoltur.todolist.changes.da.ChangesDaoImpl;
 import me.nikoltur.todolist.projects.da.ProjectsDao;
 import me.nikoltur.todolist.projects.da.ProjectsDaoImpl;
 import me.nikoltur.todolist.tasks.da.TasksDao;
@@ -15,6 +17,11 @@ import org.springframework.context.annotation.Configuration;
 @Configuration
 public class HibernateDaoConfiguration {
 
+    @Bean
+    public ChangesDao changesDao() {
+        return new ChangesDaoImpl();
+    }
+
     @Bean
     public ProjectsDao projectsDao() {
         return new ProjectsDaoImpl();
@@ -0,0 +1,37 @@
+package me.nikoltur.todolist;
+
+import me.nikoltur.todolist.locking.AdvisoryProjectLockManager;
+import me.nikoltur.todolist.locking.ProjectLockManager;
+import me.nikoltur.todolist.locking.StripedProjectLockManager;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Configuration for locks used to coordinate writes.
+ *
+ * The property todolist.locking.mode selects the implementation:
+ * "local" (default) coordinates writes within this process only and "advisory" uses PostgreSQL advisory locks to coordinate writes across several instances sharing one database.
+ *
+ * @author Nikolas Turunen
+ */
+@Configuration
+public class LockingConfiguration {
+
+    public static final String LOCAL_MODE = "local";
+    public static final String ADVISORY_MODE = "advisory";
+    @Value("${todolist.locking.mode:" + LOCAL_MODE + "}")
+    private String lockingMode;
+
+    @Bean
+    public ProjectLockManager projectLockManager() {
+        switch (lockingMode) {
+            case LOCAL_MODE:
+                return new StripedProjectLockManager();
+            case ADVISORY_MODE:
+                return new AdvisoryProjectLockManager();
+            default:
+                throw new IllegalArgumentException("Unknown locking mode " + lockingMode + ", expected " + LOCAL_MODE + " or " + ADVISORY_MODE);
+        }
+    }
+}
@@ -0,0 +1,36 @@
+package me.nikoltur.todolist;
+
+import me.nikoltur.todolist.metrics.MethodMetricsAdvisor;
+import me.nikoltur.todolist.metrics.MethodMetricsRegistry;
+import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Role;
+import org.springframework.core.Ordered;
+
+/**
+ * Configuration for the latency and error metrics of the resources, services and DAOs, exposed at /metrics.
+ *
+ * The advisor is an infrastructure bean so that it is applied by the same auto proxy creator as the transactions.
+ * It is ordered first so that the recorded latencies include beginning and committing the transactions.
+ *
+ * @author Nikolas Turunen
+ */
+@Configuration
+public class MetricsConfiguration {
+
+    @Bean
+    @Role(BeanDefinition.ROLE_INFRASTRUCTURE)
+    public MethodMetricsRegistry methodMetricsRegistry() {
+        return new MethodMetricsRegistry();
+    }
+
+    @Bean
+    @Role(BeanDefinition.ROLE_INFRASTRUCTURE)
+    public MethodMetricsAdvisor methodMetricsAdvisor() {
+        MethodMetricsAdvisor advisor = new MethodMetricsAdvisor(methodMetricsRegistry());
+        advisor.setOrder(Ordered.HIGHEST_PRECEDENCE);
+
+        return advisor;
+    }
+}
@@ -0,0 +1,21 @@
+package me.nikoltur.todolist;
+
+import me.nikoltur.todolist.ordering.SortKeyRebalancer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Configuration for the ordering of tasks and projects.
+ *
+ * The property todolist.ordering.rebalance-interval sets the delay in milliseconds between rebalancing runs.
+ *
+ * @author Nikolas Turunen
+ */
+@Configuration
+public class OrderingConfiguration {
+
+    @Bean
+    public SortKeyRebalancer sortKeyRebalancer() {
+        return new SortKeyRebalancer();
+    }
+}
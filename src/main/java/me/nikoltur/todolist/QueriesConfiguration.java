@@ -0,0 +1,62 @@
+package me.nikoltur.todolist;
+
+import javax.sql.DataSource;
+import me.nikoltur.todolist.queries.QueryBudgetInterceptor;
+import me.nikoltur.todolist.queries.QueryTracker;
+import me.nikoltur.todolist.queries.SlowStatementLog;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurerAdapter;
+
+/**
+ * Configuration for the statistics of queries and the budgets of statements per request.
+ *
+ * The property todolist.queries.statistics-enabled turns on the statistics of Hibernate and the tracking of the queries of each request, off by default.
+ * Requests making more statements than their budget are logged as warnings.
+ * The property todolist.queries.default-budget sets the budget of endpoints, 10 statements by default,
+ * and todolist.queries.budgets overrides it for single endpoints, for example "TasksResource.getTasks:4,ProjectsResource.getProjects:2".
+ *
+ * Statements taking longer than todolist.queries.slow-statement-threshold milliseconds, 500 by default, are logged with the types of their parameters.
+ * The property todolist.queries.log-parameter-values logs the values of the parameters instead, off by default since they may be personal data.
+ * The property todolist.queries.explain-sample-rate sets the share of the slow selects whose plans are logged, 0 by default so that none are explained.
+ *
+ * @author Nikolas Turunen
+ */
+@Configuration
+public class QueriesConfiguration extends WebMvcConfigurerAdapter {
+
+    @Autowired
+    private DataSource dataSource;
+    @Value("${todolist.queries.statistics-enabled:false}")
+    private boolean statisticsEnabled;
+    @Value("${todolist.queries.default-budget:10}")
+    private int defaultBudget;
+    @Value("${todolist.queries.budgets:}")
+    private String budgets;
+    @Value("${todolist.queries.slow-statement-threshold:500}")
+    private long slowStatementThreshold;
+    @Value("${todolist.queries.explain-sample-rate:0}")
+    private double explainSampleRate;
+    @Value("${todolist.queries.log-parameter-values:false}")
+    private boolean logParameterValues;
+
+    @Bean
+    public QueryTracker queryTracker() {
+        return new QueryTracker();
+    }
+
+    @Bean(destroyMethod = "shutdown")
+    public SlowStatementLog slowStatementLog() {
+        return new SlowStatementLog(dataSource, slowStatementThreshold, explainSampleRate, logParameterValues);
+    }
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        if (statisticsEnabled) {
+            registry.addInterceptor(new QueryBudgetInterceptor(queryTracker(), defaultBudget, QueryBudgetInterceptor.parseBudgets(budgets)));
+        }
+    }
+}
@@ -1,5 +1,9 @@
 package me.nikoltur.todolist;
 
+import me.nikoltur.todolist.batch.BatchService;
+import me.nikoltur.todolist.batch.BatchServiceImpl;
+import me.nikoltur.todolist.changes.ChangesService;
+import me.nikoltur.todolist.changes.ChangesServiceImpl;
 import me.nikoltur.todolist.projects.ProjectsService;
 import me.nikoltur.todolist.projects.ProjectsServiceImpl;
 import me.nikoltur.todolist.tasks.TasksService;
@@ -15,6 +19,16 @@ import org.springframework.context.annotation.Configuration;
 @Configuration
 public class ServicesConfiguration {
 
+    @Bean
+    public BatchService batchService() {
+        return new BatchServiceImpl();
+    }
+
+    @Bean
+    public ChangesService changesService() {
+        return new ChangesServiceImpl();
+    }
+
     @Bean
     public ProjectsService projectsService() {
         return new ProjectsServiceImpl();
@@ -0,0 +1,147 @@
+package me.nikoltur.todolist.batch;
+
+import java.util.List;
+
+/**
+ * Operation of a batch. The parameters have the same names as the request parameters of the corresponding endpoints and only the parameters required by the type are used.
+ *
+ * @author Nikolas Turunen
+ */
+public class BatchOperation {
+
+    private BatchOperationType type;
+    private Integer projectId;
+    private Integer projectId2;
+    private Integer taskId;
+    private Integer taskId2;
+    private String task;
+    private String newTask;
+    private String detail;
+    private Integer newParentTaskId;
+    private Integer newProjectId;
+    private String name;
+    private String newName;
+    private Integer index;
+    private List<Integer> taskIds;
+    private List<Integer> projectIds;
+
+    public BatchOperationType getType() {
+        return type;
+    }
+
+    public void setType(BatchOperationType type) {
+        this.type = type;
+    }
+
+    public Integer getProjectId() {
+        return projectId;
+    }
+
+    public void setProjectId(Integer projectId) {
+        this.projectId = projectId;
+    }
+
+    public Integer getProjectId2() {
+        return projectId2;
+    }
+
+    public void setProjectId2(Integer projectId2) {
+        this.projectId2 = projectId2;
+    }
+
+    public Integer getTaskId() {
+        return taskId;
+    }
+
+    public void setTaskId(Integer taskId) {
+        this.taskId = taskId;
+    }
+
+    public Integer getTaskId2() {
+        return taskId2;
+    }
+
+    public void setTaskId2(Integer taskId2) {
+        this.taskId2 = taskId2;
+    }
+
+    public String getTask() {
+        return task;
+    }
+
+    public void setTask(String task) {
+        this.task = task;
+    }
+
+    public String getNewTask() {
+        return newTask;
+    }
+
+    public void setNewTask(String newTask) {
+        this.newTask = newTask;
+    }
+
+    public String getDetail() {
+        return detail;
+    }
+
+    public void setDetail(String detail) {
+        this.detail = detail;
+    }
+
+    public Integer getNewParentTaskId() {
+        return newParentTaskId;
+    }
+
+    public void setNewParentTaskId(Integer newParentTaskId) {
+        this.newParentTaskId = newParentTaskId;
+    }
+
+    public Integer getNewProjectId() {
+        return newProjectId;
+    }
+
+    public void setNewProjectId(Integer newProjectId) {
+        this.newProjectId = newProjectId;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    public String getNewName() {
+        return newName;
+    }
+
+    public void setNewName(String newName) {
+        this.newName = newName;
+    }
+
+    public Integer getIndex() {
+        return index;
+    }
+
+    public void setIndex(Integer index) {
+        this.index = index;
+    }
+
+    public List<Integer> getTaskIds() {
+        return taskIds;
+    }
+
+    public void setTaskIds(List<Integer> taskIds) {
+        this.taskIds = taskIds;
+    }
+
+    public List<Integer> getProjectIds() {
+        return projectIds;
+    }
+
+    public void setProjectIds(List<Integer> projectIds) {
+        this.projectIds = projectIds;
+    }
+}
@@ -0,0 +1,25 @@
+package me.nikoltur.todolist.batch;
+
+/**
+ * Thrown to indicate that an operation of a batch failed and none of the operations of the batch were applied.
+ * The cause is the exception thrown by the failed operation.
+ *
+ * @author Nikolas Turunen
+ */
+public class BatchOperationFailedException extends RuntimeException {
+
+    public BatchOperationFailedException() {
+    }
+
+    public BatchOperationFailedException(String message) {
+        super(message);
+    }
+
+    public BatchOperationFailedException(String message, Throwable cause) {
+        super(message, cause);
+    }
+
+    public BatchOperationFailedException(Throwable cause) {
+        super(cause);
+    }
+}
@@ -0,0 +1,30 @@
+package me.nikoltur.todolist.batch;
+
+/**
+ * Result of a successfully executed operation of a batch.
+ *
+ * @author Nikolas Turunen
+ */
+public class BatchOperationResult {
+
+    private final int index;
+    private final BatchOperationType type;
+
+    public BatchOperationResult(int index, BatchOperationType type) {
+        this.index = index;
+        this.type = type;
+    }
+
+    /**
+     * Returns the index of the operation in the batch.
+     *
+     * @return The index of the operation in the batch.
+     */
+    public int getIndex() {
+        return index;
+    }
+
+    public BatchOperationType getType() {
+        return type;
+    }
+}
@@ -0,0 +1,84 @@
+package me.nikoltur.todolist.batch;
+
+/**
+ * Type of an operation of a batch. Each type corresponds to one of the task or project endpoints.
+ *
+ * @author Nikolas Turunen
+ */
+public enum BatchOperationType {
+
+    /**
+     * Creates a task. Requires projectId and task.
+     */
+    CREATE_TASK,
+    /**
+     * Removes a task. Requires taskId.
+     */
+    REMOVE_TASK,
+    /**
+     * Edits a task. Requires taskId and newTask.
+     */
+    EDIT_TASK,
+    /**
+     * Creates a detail for a task. Requires taskId and detail.
+     */
+    CREATE_DETAIL,
+    /**
+     * Swaps the positions of two tasks. Requires taskId and taskId2.
+     */
+    SWAP_TASKS,
+    /**
+     * Marks a task as completed. Requires taskId.
+     */
+    COMPLETE_TASK,
+    /**
+     * Marks a task as not completed. Requires taskId.
+     */
+    UNCOMPLETE_TASK,
+    /**
+     * Moves a task. Requires taskId, optionally newParentTaskId or newProjectId.
+     */
+    MOVE_TASK,
+    /**
+     * Moves a task to an index among its siblings. Requires taskId and index.
+     */
+    MOVE_TASK_TO_INDEX,
+    /**
+     * Orders every sibling of the first task. Requires taskIds.
+     */
+    REORDER_TASKS,
+    /**
+     * Creates a project. Requires name.
+     */
+    CREATE_PROJECT,
+    /**
+     * Removes a project. Requires projectId.
+     */
+    REMOVE_PROJECT,
+    /**
+     * Renames a project. Requires projectId and newName.
+     */
+    RENAME_PROJECT,
+    /**
+     * Swaps the positions of two projects. Requires projectId and projectId2.
+     */
+    SWAP_PROJECTS,
+    /**
+     * Moves a project to an index. Requires projectId and index.
+     */
+    MOVE_PROJECT_TO_INDEX,
+    /**
+     * Orders every project. Requires projectIds.
+     */
+    REORDER_PROJECTS;
+
+    /**
+     * Returns true if operations of this type change the list of projects.
+     *
+     * @return True if operations of this type change the list of projects.
+     */
+    public boolean isProjectListOperation() {
+        return this == CREATE_PROJECT || this == REMOVE_PROJECT || this == RENAME_PROJECT || this == SWAP_PROJECTS
+                || this == MOVE_PROJECT_TO_INDEX || this == REORDER_PROJECTS;
+    }
+}
@@ -0,0 +1,36 @@
+package me.nikoltur.todolist.batch;
+
+import java.util.List;
+import me.nikoltur.todolist.RestControllerConfiguration;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.web.bind.annotation.CrossOrigin;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+/**
+ * Rest-resource to execute several task and project operations with one request.
+ *
+ * @author Nikolas Turunen
+ */
+@RestController
+@RequestMapping(RestControllerConfiguration.CONTEXT_PATH)
+@CrossOrigin
+public class BatchResource {
+
+    private static final String BASE_PATH = "/batch";
+    @Autowired
+    private BatchService batchService;
+
+    /**
+     * Executes the specified operations in order within a single transaction. Either every operation is applied or none of them are.
+     *
+     * @param operations Operations to be executed.
+     * @return A list containing the result of each operation in the order of the operations.
+     */
+    @PostMapping(BASE_PATH)
+    public List<BatchOperationResult> execute(@RequestBody List<BatchOperation> operations) {
+        return batchService.execute(operations);
+    }
+}
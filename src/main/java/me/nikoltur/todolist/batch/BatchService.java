@@ -0,0 +1,29 @@
+package me.nikoltur.todolist.batch;
+
+import java.util.List;
+
+/**
+ * Service to execute several task and project operations at once.
+ *
+ * @author Nikolas Turunen
+ */
+public interface BatchService {
+
+    /**
+     * Maximum number of operations in a batch.
+     */
+    public static final int MAX_OPERATIONS = 1000;
+
+    /**
+     * Executes the specified operations in order within a single transaction.
+     * The locks of every project the operations touch are acquired once before the first operation.
+     * Either every operation is applied or, if any of them fails, none of them are.
+     *
+     * @param operations Operations to be executed.
+     * @return A list containing the result of each operation in the order of the operations.
+     * @throws BatchOperationFailedException Thrown if any of the operations fails. The cause is the exception thrown by the failed operation.
+     * @throws NullPointerException Thrown if the specified operations or any of them is null.
+     * @throws IllegalArgumentException Thrown if there are no operations, more than {@link #MAX_OPERATIONS} operations or an operation without a type.
+     */
+    public List<BatchOperationResult> execute(List<BatchOperation> operations);
+}
@@ -0,0 +1,268 @@
+package me.nikoltur.todolist.batch;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import javax.transaction.Transactional;
+import me.nikoltur.todolist.locking.ProjectLock;
+import me.nikoltur.todolist.locking.ProjectLockManager;
+import me.nikoltur.todolist.projects.ProjectsService;
+import me.nikoltur.todolist.tasks.TasksService;
+import me.nikoltur.todolist.tasks.da.TasksDao;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+/**
+ * Implementation executing the operations with the task and project services.
+ *
+ * Thread safe. The services join the transaction of the batch and acquire the locks already held by the batch again, which the locks allow.
+ *
+ * @author Nikolas Turunen
+ */
+@Service
+public class BatchServiceImpl implements BatchService {
+
+    @Autowired
+    private TasksService tasksService;
+    @Autowired
+    private ProjectsService projectsService;
+    @Autowired
+    private TasksDao tasksDao;
+    @Autowired
+    private ProjectLockManager projectLockManager;
+
+    @Override
+    @Transactional(rollbackOn = Exception.class)
+    public List<BatchOperationResult> execute(List<BatchOperation> operations) {
+        validateOperations(operations);
+
+        try (ProjectLock ignored = lockProjectsOf(operations)) {
+            List<BatchOperationResult> results = new ArrayList<>(operations.size());
+            for (BatchOperation operation : operations) {
+                int index = results.size();
+                try {
+                    execute(operation);
+                } catch (RuntimeException ex) {
+                    throw new BatchOperationFailedException("Operation " + index + " (" + operation.getType() + ") failed: " + ex.getMessage(), ex);
+                }
+
+                results.add(new BatchOperationResult(index, operation.getType()));
+            }
+
+            return results;
+        }
+    }
+
+    /**
+     * Validates the specified operations.
+     *
+     * @param operations Operations to be validated.
+     * @throws NullPointerException Thrown if the specified operations or any of them is null.
+     * @throws IllegalArgumentException Thrown if the specified operations are not valid.
+     */
+    private void validateOperations(List<BatchOperation> operations) {
+        if (operations == null) {
+            throw new NullPointerException("Operations cannot be null");
+        }
+
+        if (operations.isEmpty() || operations.size() > MAX_OPERATIONS) {
+            throw new IllegalArgumentException("Batch must contain between 1 and " + MAX_OPERATIONS + " operations");
+        }
+
+        for (BatchOperation operation : operations) {
+            if (operation == null) {
+                throw new NullPointerException("Operation cannot be null");
+            }
+
+            if (operation.getType() == null) {
+                throw new IllegalArgumentException("Type of every operation must be specified");
+            }
+        }
+    }
+
+    /**
+     * Locks the list of projects if any of the specified operations changes it, and the projects of every task and project the specified operations refer to.
+     * The projects of tasks are first read outside the transaction, so that waiting for the locks of the projects holds no connection if the transaction has not made any statements yet.
+     * The projects of tasks that do not exist are not locked, the operations referring to them fail when they are executed.
+     *
+     * @param operations Operations to be executed.
+     * @return The acquired lock.
+     */
+    private ProjectLock lockProjectsOf(List<BatchOperation> operations) {
+        boolean changesProjectList = operations.stream().anyMatch(operation -> operation.getType().isProjectListOperation());
+        // The project list lock must be acquired before the lock of any project.
+        ProjectLock projectListLock = changesProjectList ? projectLockManager.lockProjectList() : () -> {
+        };
+
+        try {
+            Set<Integer> projectIds = new HashSet<>();
+            Set<Integer> taskIds = new HashSet<>();
+            for (BatchOperation operation : operations) {
+                addIdsOf(operation, projectIds, taskIds);
+            }
+
+            Map<Integer, Integer> projectIdsOfTasks = tasksDao.getCommittedProjectIdsOf(taskIds);
+            while (true) {
+                Set<Integer> lockedProjectIds = new HashSet<>(projectIds);
+                lockedProjectIds.addAll(projectIdsOfTasks.values());
+
+                ProjectLock projectsLock = projectLockManager.lockProjects(lockedProjectIds);
+                Map<Integer, Integer> currentProjectIdsOfTasks = new HashMap<>();
+                for (int taskId : taskIds) {
+                    Integer projectId = tasksDao.getProjectIdOf(taskId);
+                    if (projectId != null) {
+                        currentProjectIdsOfTasks.put(taskId, projectId);
+                    }
+                }
+
+                if (currentProjectIdsOfTasks.equals(projectIdsOfTasks)) {
+                    return () -> {
+                        projectsLock.close();
+                        projectListLock.close();
+                    };
+                }
+
+                // One of the tasks was moved to another project while waiting for the locks.
+                // Released rather than kept until the end of the transaction, so that the next attempt acquires its locks in order.
+                projectsLock.release();
+                projectIdsOfTasks = currentProjectIdsOfTasks;
+            }
+        } catch (RuntimeException | Error ex) {
+            projectListLock.close();
+            throw ex;
+        }
+    }
+
+    /**
+     * Adds the ids of the projects the specified operation touches to the specified set, and the ids of the tasks whose projects it touches to the other specified set.
+     *
+     * @param operation Operation to be executed.
+     * @param projectIds Set to add the ids of the projects to.
+     * @param taskIds Set to add the ids of the tasks to.
+     */
+    private void addIdsOf(BatchOperation operation, Set<Integer> projectIds, Set<Integer> taskIds) {
+        switch (operation.getType()) {
+            case CREATE_TASK:
+            case REMOVE_PROJECT:
+                addIfNotNull(projectIds, operation.getProjectId());
+                break;
+            case MOVE_TASK:
+                addIfNotNull(projectIds, operation.getNewProjectId());
+                addIfNotNull(taskIds, operation.getNewParentTaskId());
+                addIfNotNull(taskIds, operation.getTaskId());
+                break;
+            case SWAP_TASKS:
+                addIfNotNull(taskIds, operation.getTaskId2());
+                addIfNotNull(taskIds, operation.getTaskId());
+                break;
+            case REORDER_TASKS:
+                // Every task of a new order must be a sibling of the first one.
+                if (operation.getTaskIds() != null && !operation.getTaskIds().isEmpty()) {
+                    addIfNotNull(taskIds, operation.getTaskIds().get(0));
+                }
+                break;
+            case CREATE_PROJECT:
+            case RENAME_PROJECT:
+            case SWAP_PROJECTS:
+            case MOVE_PROJECT_TO_INDEX:
+            case REORDER_PROJECTS:
+                // Only the list of projects is locked.
+                break;
+            default:
+                addIfNotNull(taskIds, operation.getTaskId());
+                break;
+        }
+    }
+
+    /**
+     * Adds the specified value to the specified set if the value is not null.
+     *
+     * @param set Set to add the value to.
+     * @param value Value to be added.
+     */
+    private void addIfNotNull(Set<Integer> set, Integer value) {
+        if (value != null) {
+            set.add(value);
+        }
+    }
+
+    /**
+     * Executes the specified operation.
+     *
+     * @param operation Operation to be executed.
+     * @throws IllegalArgumentException Thrown if a parameter required by the type of the operation is missing.
+     */
+    private void execute(BatchOperation operation) {
+        switch (operation.getType()) {
+            case CREATE_TASK:
+                tasksService.createTask(require(operation.getProjectId(), "projectId"), operation.getTask());
+                break;
+            case REMOVE_TASK:
+                tasksService.removeTask(require(operation.getTaskId(), "taskId"));
+                break;
+            case EDIT_TASK:
+                tasksService.editTask(require(operation.getTaskId(), "taskId"), operation.getNewTask());
+                break;
+            case CREATE_DETAIL:
+                tasksService.createDetail(require(operation.getTaskId(), "taskId"), operation.getDetail());
+                break;
+            case SWAP_TASKS:
+                tasksService.swapPositionsOfTasks(require(operation.getTaskId(), "taskId"), require(operation.getTaskId2(), "taskId2"));
+                break;
+            case COMPLETE_TASK:
+                tasksService.completeTask(require(operation.getTaskId(), "taskId"));
+                break;
+            case UNCOMPLETE_TASK:
+                tasksService.uncompleteTask(require(operation.getTaskId(), "taskId"));
+                break;
+            case MOVE_TASK:
+                tasksService.moveTask(require(operation.getTaskId(), "taskId"), operation.getNewParentTaskId(), operation.getNewProjectId());
+                break;
+            case MOVE_TASK_TO_INDEX:
+                tasksService.moveTaskToIndex(require(operation.getTaskId(), "taskId"), require(operation.getIndex(), "index"));
+                break;
+            case REORDER_TASKS:
+                tasksService.reorderTasks(operation.getTaskIds());
+                break;
+            case CREATE_PROJECT:
+                projectsService.createProject(operation.getName());
+                break;
+            case REMOVE_PROJECT:
+                projectsService.removeProject(require(operation.getProjectId(), "projectId"));
+                break;
+            case RENAME_PROJECT:
+                projectsService.renameProject(require(operation.getProjectId(), "projectId"), operation.getNewName());
+                break;
+            case SWAP_PROJECTS:
+                projectsService.swapPositionsOfProjects(require(operation.getProjectId(), "projectId"), require(operation.getProjectId2(), "projectId2"));
+                break;
+            case MOVE_PROJECT_TO_INDEX:
+                projectsService.moveProjectToIndex(require(operation.getProjectId(), "projectId"), require(operation.getIndex(), "index"));
+                break;
+            case REORDER_PROJECTS:
+                projectsService.reorderProjects(operation.getProjectIds());
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown operation type " + operation.getType());
+        }
+    }
+
+    /**
+     * Returns the specified value of a parameter required by an operation.
+     *
+     * @param value Value to be returned.
+     * @param name Name of the parameter.
+     * @return The specified value.
+     * @throws IllegalArgumentException Thrown if the specified value is null.
+     */
+    private int require(Integer value, String name) {
+        if (value == null) {
+            throw new IllegalArgumentException("Parameter " + name + " is required");
+        }
+
+        return value;
+    }
+}
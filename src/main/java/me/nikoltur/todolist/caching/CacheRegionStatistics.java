@@ -0,0 +1,57 @@
+package me.nikoltur.todolist.caching;
+
+/**
+ * Statistics of a region of the second-level cache.
+ *
+ * @author Nikolas Turunen
+ */
+public class CacheRegionStatistics {
+
+    private final String name;
+    private final long size;
+    private final long hits;
+    private final long misses;
+    private final long evictions;
+
+    public CacheRegionStatistics(String name, long size, long hits, long misses, long evictions) {
+        this.name = name;
+        this.size = size;
+        this.hits = hits;
+        this.misses = misses;
+        this.evictions = evictions;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public long getSize() {
+        return size;
+    }
+
+    public long getHits() {
+        return hits;
+    }
+
+    public long getMisses() {
+        return misses;
+    }
+
+    public long getEvictions() {
+        return evictions;
+    }
+
+    /**
+     * Returns the share of lookups that were found in the region. Zero if there have been no lookups.
+     *
+     * @return The share of lookups that were found in the region.
+     */
+    public double getHitRatio() {
+        long lookups = hits + misses;
+        if (lookups == 0) {
+            return 0;
+        }
+
+        return (double) hits / lookups;
+    }
+}
@@ -0,0 +1,75 @@
+package me.nikoltur.todolist.caching;
+
+import java.util.ArrayList;
+import java.util.List;
+import me.nikoltur.todolist.RestControllerConfiguration;
+import net.sf.ehcache.CacheManager;
+import net.sf.ehcache.Ehcache;
+import net.sf.ehcache.statistics.StatisticsGateway;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.web.bind.annotation.CrossOrigin;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+/**
+ * Rest-resource to access the statistics of the second-level cache.
+ *
+ * @author Nikolas Turunen
+ */
+@RestController
+@RequestMapping(RestControllerConfiguration.CONTEXT_PATH)
+@CrossOrigin
+public class CacheStatisticsResource {
+
+    /**
+     * Name of the cache manager of the second-level cache, set in ehcache.xml.
+     */
+    public static final String CACHE_MANAGER_NAME = "todolist";
+    private static final String BASE_PATH = "/cache";
+    private final String cacheManagerName;
+    @Autowired
+    private ResponseCache responseCache;
+
+    public CacheStatisticsResource() {
+        this(CACHE_MANAGER_NAME);
+    }
+
+    CacheStatisticsResource(String cacheManagerName) {
+        this.cacheManagerName = cacheManagerName;
+    }
+
+    /**
+     * Returns the statistics of each region of the second-level cache. Empty if the cache has not been started.
+     *
+     * @return The statistics of each region of the second-level cache.
+     */
+    @GetMapping(BASE_PATH + "/statistics")
+    public List<CacheRegionStatistics> getStatistics() {
+        List<CacheRegionStatistics> statistics = new ArrayList<>();
+
+        CacheManager cacheManager = CacheManager.getCacheManager(cacheManagerName);
+        if (cacheManager == null) {
+            return statistics;
+        }
+
+        for (String name : cacheManager.getCacheNames()) {
+            Ehcache cache = cacheManager.getEhcache(name);
+            StatisticsGateway cacheStatistics = cache.getStatistics();
+
+            statistics.add(new CacheRegionStatistics(name, cache.getSize(), cacheStatistics.cacheHitCount(), cacheStatistics.cacheMissCount(), cacheStatistics.cacheEvictedCount()));
+        }
+
+        return statistics;
+    }
+
+    /**
+     * Returns the statistics of the cache of encoded responses.
+     *
+     * @return The statistics of the cache of encoded responses.
+     */
+    @GetMapping(BASE_PATH + "/responses/statistics")
+    public ResponseCacheStatistics getResponseStatistics() {
+        return responseCache.getStatistics();
+    }
+}
@@ -0,0 +1,30 @@
+package me.nikoltur.todolist.caching;
+
+/**
+ * Encoded response body of the tasks of a project with the revision of the tasks.
+ *
+ * @author Nikolas Turunen
+ */
+public class CachedResponse {
+
+    private final long revision;
+    private final byte[] body;
+
+    public CachedResponse(long revision, byte[] body) {
+        this.revision = revision;
+        this.body = body;
+    }
+
+    public long getRevision() {
+        return revision;
+    }
+
+    /**
+     * Returns the encoded body. The array is shared and must not be modified.
+     *
+     * @return The encoded body.
+     */
+    public byte[] getBody() {
+        return body;
+    }
+}
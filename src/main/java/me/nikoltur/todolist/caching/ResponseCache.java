@@ -0,0 +1,214 @@
+package me.nikoltur.todolist.caching;
+
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Bounded cache of the encoded response bodies of the listings of the tasks of projects, so unchanged tasks are sent without being read or serialized again.
+ *
+ * The cache is bounded by the total size of the bodies and evicts the least recently used bodies first.
+ * Bodies are invalidated when the transactions changing the tasks commit.
+ * A body read before an invalidation of its project is not cached, so a slow reader cannot cache tasks older than a commit it missed.
+ *
+ * Thread safe.
+ *
+ * @author Nikolas Turunen
+ */
+public class ResponseCache {
+
+    /**
+     * Estimated size in bytes of an entry besides its body.
+     */
+    static final int ENTRY_OVERHEAD = 96;
+    /**
+     * Number of invalidation counters the projects are spread over.
+     */
+    private static final int STRIPES = 64;
+    private final long maximumSize;
+    private final LinkedHashMap<Integer, CachedResponse> responses = new LinkedHashMap<>(16, 0.75f, true);
+    private final AtomicLongArray invalidations = new AtomicLongArray(STRIPES);
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private long size;
+
+    /**
+     * Creates a new cache.
+     *
+     * @param maximumSize Maximum total size in bytes of the cached responses. Zero to cache nothing.
+     */
+    public ResponseCache(long maximumSize) {
+        this.maximumSize = maximumSize;
+    }
+
+    /**
+     * Returns the cached response of the specified project.
+     *
+     * @param projectId Id of the project.
+     * @return The cached response of the specified project, or null if none is cached.
+     */
+    public CachedResponse get(int projectId) {
+        CachedResponse response;
+        synchronized (this) {
+            response = responses.get(projectId);
+        }
+
+        if (response == null) {
+            misses.increment();
+        } else {
+            hits.increment();
+        }
+
+        return response;
+    }
+
+    /**
+     * Returns the stamp to be passed to {@link #put(int, long, long, byte[])} for a response of the specified project.
+     * Must be called before the revision and the tasks of the response are read.
+     *
+     * @param projectId Id of the project.
+     * @return The stamp of the specified project.
+     */
+    public long getStamp(int projectId) {
+        return invalidations.get(stripeOf(projectId));
+    }
+
+    /**
+     * Caches the specified response of the specified project, unless the project has been invalidated since the specified stamp was taken.
+     *
+     * @param projectId Id of the project.
+     * @param stamp Stamp returned by {@link #getStamp(int)} before the response was read.
+     * @param revision Revision of the tasks in the response.
+     * @param body Encoded body of the response. Must not be modified afterwards.
+     */
+    public void put(int projectId, long stamp, long revision, byte[] body) {
+        long weight = weightOf(body);
+        if (weight > maximumSize) {
+            return;
+        }
+
+        synchronized (this) {
+            // Checked under the lock so that an invalidation cannot slip in between the check and the insertion.
+            if (invalidations.get(stripeOf(projectId)) != stamp) {
+                return;
+            }
+
+            CachedResponse previous = responses.put(projectId, new CachedResponse(revision, body));
+            if (previous != null) {
+                size -= weightOf(previous.getBody());
+            }
+
+            size += weight;
+            evictToMaximumSize();
+        }
+    }
+
+    /**
+     * Invalidates the response of the specified project once the current transaction commits, or immediately if there is no transaction.
+     *
+     * @param projectId Id of the project.
+     */
+    public void invalidateAfterCommit(int projectId) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            invalidate(projectId);
+
+            return;
+        }
+
+        PendingInvalidations pendingInvalidations = (PendingInvalidations) TransactionSynchronizationManager.getResource(this);
+        if (pendingInvalidations == null) {
+            pendingInvalidations = new PendingInvalidations();
+            TransactionSynchronizationManager.bindResource(this, pendingInvalidations);
+            TransactionSynchronizationManager.registerSynchronization(pendingInvalidations);
+        }
+
+        pendingInvalidations.projectIds.add(projectId);
+    }
+
+    /**
+     * Invalidates the response of the specified project.
+     *
+     * @param projectId Id of the project.
+     */
+    public synchronized void invalidate(int projectId) {
+        invalidations.incrementAndGet(stripeOf(projectId));
+
+        CachedResponse response = responses.remove(projectId);
+        if (response != null) {
+            size -= weightOf(response.getBody());
+        }
+    }
+
+    /**
+     * Returns the statistics of the cache.
+     *
+     * @return The statistics of the cache.
+     */
+    public ResponseCacheStatistics getStatistics() {
+        int entries;
+        long currentSize;
+        synchronized (this) {
+            entries = responses.size();
+            currentSize = size;
+        }
+
+        return new ResponseCacheStatistics(entries, currentSize, maximumSize, hits.sum(), misses.sum(), evictions.sum());
+    }
+
+    /**
+     * Evicts the least recently used responses until the total size is within the maximum size.
+     */
+    private void evictToMaximumSize() {
+        Iterator<Map.Entry<Integer, CachedResponse>> iterator = responses.entrySet().iterator();
+        while (size > maximumSize && iterator.hasNext()) {
+            size -= weightOf(iterator.next().getValue().getBody());
+            iterator.remove();
+            evictions.increment();
+        }
+    }
+
+    /**
+     * Returns the estimated memory footprint of an entry with the specified body.
+     *
+     * @param body Body of the entry.
+     * @return The estimated memory footprint in bytes.
+     */
+    private static long weightOf(byte[] body) {
+        return body.length + ENTRY_OVERHEAD;
+    }
+
+    /**
+     * Returns the index of the invalidation counter of the specified project.
+     *
+     * @param projectId Id of the project.
+     * @return The index of the invalidation counter.
+     */
+    private static int stripeOf(int projectId) {
+        return Math.floorMod(projectId, STRIPES);
+    }
+
+    /**
+     * Projects invalidated by a transaction, invalidated when the transaction commits.
+     */
+    private class PendingInvalidations extends TransactionSynchronizationAdapter {
+
+        private final Set<Integer> projectIds = new HashSet<>();
+
+        @Override
+        public void afterCommit() {
+            projectIds.forEach(ResponseCache.this::invalidate);
+        }
+
+        @Override
+        public void afterCompletion(int status) {
+            TransactionSynchronizationManager.unbindResourceIfPossible(ResponseCache.this);
+        }
+    }
+}
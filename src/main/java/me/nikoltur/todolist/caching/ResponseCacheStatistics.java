@@ -0,0 +1,68 @@
+package me.nikoltur.todolist.caching;
+
+/**
+ * Statistics of the cache of encoded responses.
+ *
+ * @author Nikolas Turunen
+ */
+public class ResponseCacheStatistics {
+
+    private final int entries;
+    private final long size;
+    private final long maximumSize;
+    private final long hits;
+    private final long misses;
+    private final long evictions;
+
+    public ResponseCacheStatistics(int entries, long size, long maximumSize, long hits, long misses, long evictions) {
+        this.entries = entries;
+        this.size = size;
+        this.maximumSize = maximumSize;
+        this.hits = hits;
+        this.misses = misses;
+        this.evictions = evictions;
+    }
+
+    public int getEntries() {
+        return entries;
+    }
+
+    /**
+     * Returns the estimated memory footprint of the cached responses in bytes.
+     *
+     * @return The estimated memory footprint of the cached responses in bytes.
+     */
+    public long getSize() {
+        return size;
+    }
+
+    public long getMaximumSize() {
+        return maximumSize;
+    }
+
+    public long getHits() {
+        return hits;
+    }
+
+    public long getMisses() {
+        return misses;
+    }
+
+    public long getEvictions() {
+        return evictions;
+    }
+
+    /**
+     * Returns the share of lookups that were found in the cache. Zero if there have been no lookups.
+     *
+     * @return The share of lookups that were found in the cache.
+     */
+    public double getHitRatio() {
+        long lookups = hits + misses;
+        if (lookups == 0) {
+            return 0;
+        }
+
+        return (double) hits / lookups;
+    }
+}
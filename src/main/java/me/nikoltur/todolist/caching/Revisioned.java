@@ -0,0 +1,30 @@
+package me.nikoltur.todolist.caching;
+
+/**
+ * Value read together with the revision it was read at.
+ *
+ * The revision is read before the value in the same transaction, so a concurrent change can only make the revision older than the value.
+ * An ETag of the revision therefore never hides a change of the value.
+ * Shared loads read and return the revision with the value, so callers joining a load that began before a change do not pair its value with the newer revision.
+ *
+ * @param <V> Type of the value. Values are shared between callers, so they should be immutable.
+ * @author Nikolas Turunen
+ */
+public class Revisioned<V> {
+
+    private final long revision;
+    private final V value;
+
+    public Revisioned(long revision, V value) {
+        this.revision = revision;
+        this.value = value;
+    }
+
+    public long getRevision() {
+        return revision;
+    }
+
+    public V getValue() {
+        return value;
+    }
+}
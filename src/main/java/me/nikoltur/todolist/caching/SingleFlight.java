@@ -0,0 +1,116 @@
+package me.nikoltur.todolist.caching;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Coalesces concurrent loads of the same key into one load whose result is shared by every caller.
+ *
+ * Callers arriving while a load of their key is in flight wait for it instead of starting their own.
+ * A key must be forgotten when its data changes, so callers arriving after the change start a new load instead of sharing one that may have read the old data.
+ *
+ * A loader should begin its own transaction, so callers waiting for the load hold no connection.
+ * The load then does not see the uncommitted changes of the transaction of any caller, so callers in a transaction must read directly instead of sharing a load.
+ *
+ * Thread safe.
+ *
+ * @param <K> Type of the keys.
+ * @param <V> Type of the loaded values. Values are shared between callers, so they should be immutable.
+ * @author Nikolas Turunen
+ */
+public class SingleFlight<K, V> {
+
+    private final ConcurrentMap<K, CompletableFuture<V>> flights = new ConcurrentHashMap<>();
+    private final LongAdder coalescedLoads = new LongAdder();
+
+    /**
+     * Returns the value of the specified key, loaded with the specified loader unless a load of the key is already in flight.
+     *
+     * @param key Key of the value.
+     * @param loader Loader of the value.
+     * @return The value of the specified key.
+     * @throws RuntimeException Thrown if the load fails, to every caller sharing the load.
+     */
+    public V load(K key, Supplier<V> loader) {
+        CompletableFuture<V> flight = new CompletableFuture<>();
+        CompletableFuture<V> existingFlight = flights.putIfAbsent(key, flight);
+        if (existingFlight != null) {
+            coalescedLoads.increment();
+
+            return await(existingFlight);
+        }
+
+        V value;
+        try {
+            value = loader.get();
+        } catch (RuntimeException | Error ex) {
+            flights.remove(key, flight);
+            flight.completeExceptionally(ex);
+            throw ex;
+        }
+
+        // Removed before completion, so no caller joins a load that has already finished.
+        flights.remove(key, flight);
+        flight.complete(value);
+
+        return value;
+    }
+
+    /**
+     * Forgets the load of the specified key in flight once the current transaction commits, or immediately if there is no transaction.
+     * Callers already waiting for the load still get its value.
+     *
+     * @param key Key whose data has been changed.
+     */
+    public void forgetAfterCommit(K key) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            flights.remove(key);
+
+            return;
+        }
+
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+            @Override
+            public void afterCommit() {
+                flights.remove(key);
+            }
+        });
+    }
+
+    /**
+     * Returns the number of loads that were served by a load already in flight.
+     *
+     * @return The number of coalesced loads.
+     */
+    public long getCoalescedLoads() {
+        return coalescedLoads.sum();
+    }
+
+    /**
+     * Waits for the specified load and returns its value.
+     *
+     * @param flight Load in flight.
+     * @return The loaded value.
+     */
+    private V await(CompletableFuture<V> flight) {
+        try {
+            return flight.join();
+        } catch (CompletionException ex) {
+            Throwable cause = ex.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+
+            throw ex;
+        }
+    }
+}
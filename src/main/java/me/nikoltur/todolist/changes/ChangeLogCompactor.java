@@ -0,0 +1,45 @@
+package me.nikoltur.todolist.changes;
+
+import java.util.Date;
+import me.nikoltur.todolist.changes.da.ChangesDao;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Purges old removals from the change logs in the background.
+ *
+ * Changes of existing tasks and projects replace each other as they are written, so only removals accumulate.
+ * Clients that synchronized before a purged removal are told to reload.
+ *
+ * @author Nikolas Turunen
+ */
+public class ChangeLogCompactor {
+
+    private static final Logger logger = LoggerFactory.getLogger(ChangeLogCompactor.class);
+    @Autowired
+    private ChangesDao changesDao;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+    @Value("${todolist.changes.removal-retention:604800000}")
+    private long removalRetention;
+
+    /**
+     * Purges the removals older than the retention time.
+     */
+    @Scheduled(initialDelayString = "${todolist.changes.compaction-interval:3600000}", fixedDelayString = "${todolist.changes.compaction-interval:3600000}")
+    public void compact() {
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+
+        Date before = new Date(System.currentTimeMillis() - removalRetention);
+        int purgedRemovals = transactionTemplate.execute(status -> changesDao.purgeRemovalsBefore(before));
+
+        if (purgedRemovals > 0) {
+            logger.info("Purged {} removals from the change logs", purgedRemovals);
+        }
+    }
+}
@@ -0,0 +1,49 @@
+package me.nikoltur.todolist.changes;
+
+import me.nikoltur.todolist.RestControllerConfiguration;
+import me.nikoltur.todolist.changes.da.ProjectChanges;
+import me.nikoltur.todolist.changes.da.TaskChanges;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.web.bind.annotation.CrossOrigin;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+/**
+ * Rest-resource to follow the changes of tasks and projects.
+ *
+ * @author Nikolas Turunen
+ */
+@RestController
+@RequestMapping(RestControllerConfiguration.CONTEXT_PATH)
+@CrossOrigin
+public class ChangesResource {
+
+    private static final String BASE_PATH = "/changes";
+    @Autowired
+    private ChangesService changesService;
+
+    /**
+     * Returns the changes of the tasks of the specified project after the specified revision.
+     *
+     * @param projectId Id of the project.
+     * @param since Revision of the tasks the client has, the ETag of the listing of the tasks or the revision of the previous changes.
+     * @return The changes of the tasks of the specified project after the specified revision.
+     */
+    @GetMapping(BASE_PATH)
+    public TaskChanges getTaskChanges(@RequestParam("projectId") int projectId, @RequestParam("since") long since) {
+        return changesService.getTaskChanges(projectId, since);
+    }
+
+    /**
+     * Returns the changes of the list of projects after the specified revision.
+     *
+     * @param since Revision of the list of projects the client has, the ETag of the listing of the projects or the revision of the previous changes.
+     * @return The changes of the list of projects after the specified revision.
+     */
+    @GetMapping(BASE_PATH + "/projects")
+    public ProjectChanges getProjectChanges(@RequestParam("since") long since) {
+        return changesService.getProjectChanges(since);
+    }
+}
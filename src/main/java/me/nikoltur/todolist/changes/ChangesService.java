@@ -0,0 +1,35 @@
+package me.nikoltur.todolist.changes;
+
+import me.nikoltur.todolist.changes.da.ProjectChanges;
+import me.nikoltur.todolist.changes.da.TaskChanges;
+import me.nikoltur.todolist.projects.ProjectDoesNotExistException;
+
+/**
+ * Service to synchronize clients with the changes of tasks and projects.
+ *
+ * The revisions are the ones sent as the ETags of the listings of tasks and projects, so a client can load a listing once and then follow its changes.
+ *
+ * @author Nikolas Turunen
+ */
+public interface ChangesService {
+
+    /**
+     * Returns the changes of the tasks of the specified project after the specified revision.
+     *
+     * @param projectId Id of the project.
+     * @param since Revision of the tasks the client has.
+     * @return The changes of the tasks of the specified project after the specified revision.
+     * @throws ProjectDoesNotExistException Thrown if a project with the specified projectId does not exist.
+     * @throws IllegalArgumentException Thrown if the specified projectId is negative or zero or the specified since is negative.
+     */
+    public TaskChanges getTaskChanges(int projectId, long since);
+
+    /**
+     * Returns the changes of the list of projects after the specified revision.
+     *
+     * @param since Revision of the list of projects the client has.
+     * @return The changes of the list of projects after the specified revision.
+     * @throws IllegalArgumentException Thrown if the specified since is negative.
+     */
+    public ProjectChanges getProjectChanges(long since);
+}
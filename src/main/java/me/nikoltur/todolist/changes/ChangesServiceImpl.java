@@ -0,0 +1,86 @@
+package me.nikoltur.todolist.changes;
+
+import java.util.Collections;
+import javax.transaction.Transactional;
+import me.nikoltur.todolist.changes.da.ChangesDao;
+import me.nikoltur.todolist.changes.da.ProjectChanges;
+import me.nikoltur.todolist.changes.da.TaskChanges;
+import me.nikoltur.todolist.projects.ProjectDoesNotExistException;
+import me.nikoltur.todolist.projects.da.Project;
+import me.nikoltur.todolist.projects.da.ProjectsDao;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+/**
+ * Database implementation.
+ *
+ * The revision is read before the changes and the compacted revision after them.
+ * A change committed in between is returned again with the next changes, and a purge in between requires a reload, so no change is ever missed.
+ *
+ * @author Nikolas Turunen
+ */
+@Service
+public class ChangesServiceImpl implements ChangesService {
+
+    @Autowired
+    private ChangesDao changesDao;
+    @Autowired
+    private ProjectsDao projectsDao;
+
+    @Override
+    @Transactional(rollbackOn = Exception.class)
+    public TaskChanges getTaskChanges(int projectId, long since) {
+        if (projectId <= 0) {
+            throw new IllegalArgumentException("Project id must be greater than zero");
+        }
+
+        validateSince(since);
+
+        Project project = projectsDao.getById(projectId);
+        if (project == null) {
+            throw new ProjectDoesNotExistException("No project with the id " + projectId + " exists");
+        }
+
+        long revision = projectsDao.getRevisionOf(projectId);
+        if (since > revision) {
+            return new TaskChanges(revision, true, Collections.emptyList(), Collections.emptyList());
+        }
+
+        TaskChanges changes = changesDao.getTaskChangesOf(projectId, since, revision);
+        if (since < changesDao.getCompactedRevisionOf(projectId)) {
+            return new TaskChanges(revision, true, Collections.emptyList(), Collections.emptyList());
+        }
+
+        return changes;
+    }
+
+    @Override
+    @Transactional(rollbackOn = Exception.class)
+    public ProjectChanges getProjectChanges(long since) {
+        validateSince(since);
+
+        long revision = projectsDao.getListRevision();
+        if (since > revision) {
+            return new ProjectChanges(revision, true, Collections.emptyList(), Collections.emptyList());
+        }
+
+        ProjectChanges changes = changesDao.getProjectChanges(since, revision);
+        if (since < changesDao.getCompactedListRevision()) {
+            return new ProjectChanges(revision, true, Collections.emptyList(), Collections.emptyList());
+        }
+
+        return changes;
+    }
+
+    /**
+     * Validates the specified revision the client has.
+     *
+     * @param since Revision to be validated.
+     * @throws IllegalArgumentException Thrown if the specified revision is negative.
+     */
+    private void validateSince(long since) {
+        if (since < 0) {
+            throw new IllegalArgumentException("Revision must not be negative");
+        }
+    }
+}
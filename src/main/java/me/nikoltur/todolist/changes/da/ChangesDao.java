@@ -0,0 +1,101 @@
+package me.nikoltur.todolist.changes.da;
+
+import java.util.Date;
+import java.util.List;
+
+/**
+ * Data-access object for the change logs of tasks and projects.
+ *
+ * Changes are recorded at the current revision of the project or the list of projects, so the revision must be incremented before the changes of a write are recorded.
+ * Each task and project keeps only its latest change.
+ *
+ * @author Nikolas Turunen
+ */
+public interface ChangesDao {
+
+    /**
+     * Records the specified task as changed in the specified project at the current revision of the project.
+     * A task that has been moved to another project or removed is recorded as removed from the specified project.
+     *
+     * @param projectId Id of the project.
+     * @param taskId Id of the changed task.
+     */
+    public void recordTaskChange(int projectId, int taskId);
+
+    /**
+     * Records the specified tasks as changed in the specified project at the current revision of the project.
+     *
+     * @param projectId Id of the project.
+     * @param taskIds Ids of the changed tasks.
+     */
+    public void recordTaskChanges(int projectId, List<Integer> taskIds);
+
+    /**
+     * Records the task with the specified path and all of its details as changed in the specified project at the current revision of the project.
+     *
+     * @param projectId Id of the project.
+     * @param path Path of the changed task.
+     */
+    public void recordTaskChangesOfSubtree(int projectId, String path);
+
+    /**
+     * Records all tasks of the specified project as changed at the current revision of the project.
+     *
+     * @param projectId Id of the project.
+     */
+    public void recordTaskChangesOf(int projectId);
+
+    /**
+     * Returns the changes of the tasks of the specified project after the specified revision.
+     *
+     * @param projectId Id of the project.
+     * @param since Revision after which the changes are returned.
+     * @param revision Current revision of the project, returned with the changes.
+     * @return The changes of the tasks of the specified project after the specified revision.
+     */
+    public TaskChanges getTaskChangesOf(int projectId, long since, long revision);
+
+    /**
+     * Returns the revision of the specified project up to which removals of tasks may have been purged.
+     *
+     * @param projectId Id of the project.
+     * @return The revision up to which removals of tasks may have been purged. Zero if nothing has been purged.
+     */
+    public long getCompactedRevisionOf(int projectId);
+
+    /**
+     * Records the specified project as changed at the current revision of the list of projects.
+     *
+     * @param projectId Id of the changed project.
+     */
+    public void recordProjectChange(int projectId);
+
+    /**
+     * Records all projects as changed at the current revision of the list of projects.
+     */
+    public void recordProjectChanges();
+
+    /**
+     * Returns the changes of the list of projects after the specified revision.
+     *
+     * @param since Revision after which the changes are returned.
+     * @param revision Current revision of the list of projects, returned with the changes.
+     * @return The changes of the list of projects after the specified revision.
+     */
+    public ProjectChanges getProjectChanges(long since, long revision);
+
+    /**
+     * Returns the revision of the list of projects up to which removals of projects may have been purged.
+     *
+     * @return The revision up to which removals of projects may have been purged. Zero if nothing has been purged.
+     */
+    public long getCompactedListRevision();
+
+    /**
+     * Purges the recorded removals of tasks and projects made before the specified time and advances the compacted revisions past them.
+     *
+     * @param before Time before which the removals are purged.
+     * @return The number of purged removals.
+     */
+    public int purgeRemovalsBefore(Date before);
+}
@@ -0,0 +1,208 @@
+package me.nikoltur.todolist.changes.da;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.stream.Collectors;
+import javax.persistence.FlushModeType;
+import javax.persistence.TemporalType;
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.hibernate.query.NativeQuery;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Repository;
+
+/**
+ * Database implementation.
+ *
+ * The change logs are compacted as they are written: a change of a task or project replaces its previous change.
+ * Removals stay as rows of tasks and projects that no longer exist until they are purged.
+ *
+ * @author Nikolas Turunen
+ */
+@Repository
+public class ChangesDaoImpl implements ChangesDao {
+
+    /**
+     * The change logs are not mapped to entities, so their statements are synchronized with this query space only.
+     * Without a query space Hibernate would invalidate every region of the second-level cache on each write.
+     */
+    private static final String CHANGES_QUERY_SPACE = "changes";
+    private static final String INSERT_TASK_CHANGES = "insert into task_changes (project_id, task_id, revision, changed_at)"
+            + " select r.project_id, c.task_id, r.revision, now() from project_revisions r, ";
+    private static final String UPSERT_TASK_CHANGES = " where r.project_id = :projectId"
+            + " on conflict (project_id, task_id) do update set revision = excluded.revision, changed_at = excluded.changed_at";
+    private static final String INSERT_PROJECT_CHANGES = "insert into project_changes (project_id, revision, changed_at)"
+            + " select c.project_id, r.revision, now() from project_list_revision r, ";
+    private static final String UPSERT_PROJECT_CHANGES = " on conflict (project_id) do update set revision = excluded.revision, changed_at = excluded.changed_at";
+    @Autowired
+    private SessionFactory sessionFactory;
+
+    @Override
+    public void recordTaskChange(int projectId, int taskId) {
+        NativeQuery<?> query = createQuery(INSERT_TASK_CHANGES + "(values (:taskId)) as c(task_id)" + UPSERT_TASK_CHANGES);
+        query.setParameter("projectId", projectId);
+        query.setParameter("taskId", taskId);
+
+        query.executeUpdate();
+    }
+
+    @Override
+    public void recordTaskChanges(int projectId, List<Integer> taskIds) {
+        // The ids are passed as a single parameter, so the size of the statement does not depend on the number of tasks.
+        NativeQuery<?> query = createQuery(INSERT_TASK_CHANGES + "unnest(cast(string_to_array(:taskIds, ',') as integer[])) as c(task_id)" + UPSERT_TASK_CHANGES);
+        query.setParameter("projectId", projectId);
+        query.setParameter("taskIds", taskIds.stream().map(String::valueOf).collect(Collectors.joining(",")));
+
+        query.executeUpdate();
+    }
+
+    @Override
+    public void recordTaskChangesOfSubtree(int projectId, String path) {
+        NativeQuery<?> query = createQuery(INSERT_TASK_CHANGES
+                + "(select id as task_id from tasks where project_id = :projectId and path like :pathPrefix) as c" + UPSERT_TASK_CHANGES);
+        query.setParameter("projectId", projectId);
+        // Paths contain only digits and slashes, so they need no escaping in the pattern.
+        query.setParameter("pathPrefix", path + "%");
+
+        query.executeUpdate();
+    }
+
+    @Override
+    public void recordTaskChangesOf(int projectId) {
+        NativeQuery<?> query = createQuery(INSERT_TASK_CHANGES + "(select id as task_id from tasks where project_id = :projectId) as c" + UPSERT_TASK_CHANGES);
+        query.setParameter("projectId", projectId);
+
+        query.executeUpdate();
+    }
+
+    @Override
+    public TaskChanges getTaskChangesOf(int projectId, long since, long revision) {
+        // Tasks are joined only if they are still in the project, so tasks removed or moved to other projects are left without columns.
+        // Ordering by path puts parents before their details.
+        NativeQuery<?> query = createQuery("select c.task_id, t.id, t.parent_task_id, t.task, t.completed, t.sort_key from task_changes c"
+                + " left join tasks t on t.id = c.task_id and t.project_id = c.project_id"
+                + " where c.project_id = :projectId and c.revision > :since order by t.path");
+        query.setParameter("projectId", projectId);
+        query.setParameter("since", since);
+        query.setFlushMode(FlushModeType.COMMIT);
+
+        List<TaskChange> tasks = new ArrayList<>();
+        List<Integer> removedTaskIds = new ArrayList<>();
+        for (Object row : query.getResultList()) {
+            Object[] columns = (Object[]) row;
+            if (columns[1] == null) {
+                removedTaskIds.add(((Number) columns[0]).intValue());
+            } else {
+                Integer parentTaskId = columns[2] == null ? null : ((Number) columns[2]).intValue();
+                tasks.add(new TaskChange(((Number) columns[1]).intValue(), parentTaskId, (String) columns[3], (Boolean) columns[4], ((Number) columns[5]).longValue()));
+            }
+        }
+
+        return new TaskChanges(revision, false, tasks, removedTaskIds);
+    }
+
+    @Override
+    public long getCompactedRevisionOf(int projectId) {
+        NativeQuery<?> query = createQuery("select compacted_revision from project_revisions where project_id = :projectId");
+        query.setParameter("projectId", projectId);
+
+        return getRevision(query);
+    }
+
+    @Override
+    public void recordProjectChange(int projectId) {
+        NativeQuery<?> query = createQuery(INSERT_PROJECT_CHANGES + "(values (:projectId)) as c(project_id)" + UPSERT_PROJECT_CHANGES);
+        query.setParameter("projectId", projectId);
+
+        query.executeUpdate();
+    }
+
+    @Override
+    public void recordProjectChanges() {
+        NativeQuery<?> query = createQuery(INSERT_PROJECT_CHANGES + "(select id as project_id from projects) as c" + UPSERT_PROJECT_CHANGES);
+
+        query.executeUpdate();
+    }
+
+    @Override
+    public ProjectChanges getProjectChanges(long since, long revision) {
+        NativeQuery<?> query = createQuery("select c.project_id, p.id, p.name, p.sort_key from project_changes c"
+                + " left join projects p on p.id = c.project_id where c.revision > :since order by p.sort_key");
+        query.setParameter("since", since);
+        query.setFlushMode(FlushModeType.COMMIT);
+
+        List<ProjectChange> projects = new ArrayList<>();
+        List<Integer> removedProjectIds = new ArrayList<>();
+        for (Object row : query.getResultList()) {
+            Object[] columns = (Object[]) row;
+            if (columns[1] == null) {
+                removedProjectIds.add(((Number) columns[0]).intValue());
+            } else {
+                projects.add(new ProjectChange(((Number) columns[1]).intValue(), (String) columns[2], ((Number) columns[3]).longValue()));
+            }
+        }
+
+        return new ProjectChanges(revision, false, projects, removedProjectIds);
+    }
+
+    @Override
+    public long getCompactedListRevision() {
+        return getRevision(createQuery("select compacted_revision from project_list_revision"));
+    }
+
+    @Override
+    public int purgeRemovalsBefore(Date before) {
+        // A removal is purged together with advancing the compacted revision past it, so a client never misses a removal without being told to reload.
+        NativeQuery<?> taskQuery = createQuery("with purged as ("
+                + "delete from task_changes c where c.changed_at < :before"
+                + " and not exists (select 1 from tasks t where t.id = c.task_id and t.project_id = c.project_id)"
+                + " returning c.project_id, c.revision"
+                + "), compacted as ("
+                + "update project_revisions r set compacted_revision = p.revision"
+                + " from (select project_id, max(revision) as revision from purged group by project_id) as p"
+                + " where r.project_id = p.project_id and r.compacted_revision < p.revision"
+                + ") select count(*) from purged");
+        taskQuery.setParameter("before", before, TemporalType.TIMESTAMP);
+
+        NativeQuery<?> projectQuery = createQuery("with purged as ("
+                + "delete from project_changes c where c.changed_at < :before"
+                + " and not exists (select 1 from projects p where p.id = c.project_id)"
+                + " returning c.revision"
+                + "), compacted as ("
+                + "update project_list_revision r set compacted_revision = p.revision"
+                + " from (select max(revision) as revision from purged) as p where r.compacted_revision < p.revision"
+                + ") select count(*) from purged");
+        projectQuery.setParameter("before", before, TemporalType.TIMESTAMP);
+
+        return ((Number) taskQuery.getSingleResult()).intValue() + ((Number) projectQuery.getSingleResult()).intValue();
+    }
+
+    /**
+     * Creates a native query on the change logs.
+     *
+     * @param sql Statement of the query.
+     * @return The created query.
+     */
+    private NativeQuery<?> createQuery(String sql) {
+        Session session = sessionFactory.getCurrentSession();
+        NativeQuery<?> query = session.createNativeQuery(sql);
+        query.addSynchronizedQuerySpace(CHANGES_QUERY_SPACE);
+
+        return query;
+    }
+
+    /**
+     * Returns the revision selected by the specified query.
+     *
+     * @param query Query selecting at most one revision.
+     * @return The selected revision. Zero if no revision was selected.
+     */
+    private long getRevision(NativeQuery<?> query) {
+        query.setFlushMode(FlushModeType.COMMIT);
+
+        List<?> revisions = query.getResultList();
+
+        return revisions.isEmpty() ? 0 : ((Number) revisions.get(0)).longValue();
+    }
+}
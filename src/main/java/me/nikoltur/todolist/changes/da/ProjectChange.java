@@ -0,0 +1,36 @@
+package me.nikoltur.todolist.changes.da;
+
+/**
+ * Read-only state of a changed project at the time the changes were read.
+ *
+ * @author Nikolas Turunen
+ */
+public class ProjectChange {
+
+    private final int id;
+    private final String name;
+    private final long sortKey;
+
+    public ProjectChange(int id, String name, long sortKey) {
+        this.id = id;
+        this.name = name;
+        this.sortKey = sortKey;
+    }
+
+    public int getId() {
+        return id;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Returns the key the project is ordered by.
+     *
+     * @return The key the project is ordered by.
+     */
+    public long getSortKey() {
+        return sortKey;
+    }
+}
@@ -0,0 +1,60 @@
+package me.nikoltur.todolist.changes.da;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Read-only changes of the list of projects since a revision.
+ *
+ * @author Nikolas Turunen
+ */
+public class ProjectChanges {
+
+    private final long revision;
+    private final boolean reloadRequired;
+    private final List<ProjectChange> projects;
+    private final List<Integer> removedProjectIds;
+
+    public ProjectChanges(long revision, boolean reloadRequired, List<ProjectChange> projects, List<Integer> removedProjectIds) {
+        this.revision = revision;
+        this.reloadRequired = reloadRequired;
+        this.projects = Collections.unmodifiableList(projects);
+        this.removedProjectIds = Collections.unmodifiableList(removedProjectIds);
+    }
+
+    /**
+     * Returns the revision the changes lead to, from which the next changes are to be requested.
+     *
+     * @return The revision the changes lead to.
+     */
+    public long getRevision() {
+        return revision;
+    }
+
+    /**
+     * Returns true if the changes since the requested revision are no longer known and all projects must be loaded again.
+     *
+     * @return True if all projects must be loaded again.
+     */
+    public boolean isReloadRequired() {
+        return reloadRequired;
+    }
+
+    /**
+     * Returns the current states of the projects created or changed since the requested revision.
+     *
+     * @return The current states of the created or changed projects.
+     */
+    public List<ProjectChange> getProjects() {
+        return projects;
+    }
+
+    /**
+     * Returns the ids of the projects removed since the requested revision.
+     *
+     * @return The ids of the removed projects.
+     */
+    public List<Integer> getRemovedProjectIds() {
+        return removedProjectIds;
+    }
+}
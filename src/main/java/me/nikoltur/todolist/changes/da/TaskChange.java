@@ -0,0 +1,49 @@
+package me.nikoltur.todolist.changes.da;
+
+/**
+ * Read-only state of a changed task at the time the changes were read.
+ * The details of the task are not included, changed details are changes of their own.
+ *
+ * @author Nikolas Turunen
+ */
+public class TaskChange {
+
+    private final int id;
+    private final Integer parentTaskId;
+    private final String taskString;
+    private final boolean completed;
+    private final long sortKey;
+
+    public TaskChange(int id, Integer parentTaskId, String taskString, boolean completed, long sortKey) {
+        this.id = id;
+        this.parentTaskId = parentTaskId;
+        this.taskString = taskString;
+        this.completed = completed;
+        this.sortKey = sortKey;
+    }
+
+    public int getId() {
+        return id;
+    }
+
+    public Integer getParentTaskId() {
+        return parentTaskId;
+    }
+
+    public String getTaskString() {
+        return taskString;
+    }
+
+    public boolean isCompleted() {
+        return completed;
+    }
+
+    /**
+     * Returns the key the task is ordered by among its siblings.
+     *
+     * @return The key the task is ordered by among its siblings.
+     */
+    public long getSortKey() {
+        return sortKey;
+    }
+}
@@ -0,0 +1,61 @@
+package me.nikoltur.todolist.changes.da;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Read-only changes of the tasks of a project since a revision.
+ *
+ * @author Nikolas Turunen
+ */
+public class TaskChanges {
+
+    private final long revision;
+    private final boolean reloadRequired;
+    private final List<TaskChange> tasks;
+    private final List<Integer> removedTaskIds;
+
+    public TaskChanges(long revision, boolean reloadRequired, List<TaskChange> tasks, List<Integer> removedTaskIds) {
+        this.revision = revision;
+        this.reloadRequired = reloadRequired;
+        this.tasks = Collections.unmodifiableList(tasks);
+        this.removedTaskIds = Collections.unmodifiableList(removedTaskIds);
+    }
+
+    /**
+     * Returns the revision the changes lead to, from which the next changes are to be requested.
+     *
+     * @return The revision the changes lead to.
+     */
+    public long getRevision() {
+        return revision;
+    }
+
+    /**
+     * Returns true if the changes since the requested revision are no longer known and all tasks must be loaded again.
+     *
+     * @return True if all tasks must be loaded again.
+     */
+    public boolean isReloadRequired() {
+        return reloadRequired;
+    }
+
+    /**
+     * Returns the current states of the tasks created or changed since the requested revision, parents before their details.
+     *
+     * @return The current states of the created or changed tasks.
+     */
+    public List<TaskChange> getTasks() {
+        return tasks;
+    }
+
+    /**
+     * Returns the ids of the tasks removed from the project since the requested revision, including tasks moved to other projects.
+     * The details of a removed task are listed as well, at every level.
+     *
+     * @return The ids of the removed tasks.
+     */
+    public List<Integer> getRemovedTaskIds() {
+        return removedTaskIds;
+    }
+}
@@ -0,0 +1,348 @@
+package me.nikoltur.todolist.events;
+
+import java.io.IOException;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.LongSupplier;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+/**
+ * Pushes the revisions of changed tasks and projects to subscribed clients as server-sent events.
+ *
+ * Subscriptions are asynchronous requests, so idle subscribers hold no request thread.
+ * Events are queued per subscriber in a bounded queue and sent by a shared executor, so publishing never waits for a client.
+ * A subscriber whose queue is full, or whose oldest unsent event has waited longer than the send timeout, is too slow to keep up and is disconnected;
+ * it reconnects and catches up through the changes. The event being sent counts as unsent, so a send blocked on a stalled connection also disconnects the subscriber.
+ * The emitter of a disconnected subscriber is completed by the thread sending its events, since a blocked send holds the emitter and completing it would wait for the send.
+ * Heartbeats keep idle connections open through proxies and reveal closed connections.
+ *
+ * Thread safe.
+ *
+ * @author Nikolas Turunen
+ */
+public class ChangeEventBroadcaster {
+
+    /**
+     * Name of the events of the tasks of a project, with the new revision of the tasks as the data.
+     */
+    public static final String TASKS_EVENT = "tasks";
+    /**
+     * Name of the events of the list of projects, with the new revision of the list as the data.
+     */
+    public static final String PROJECTS_EVENT = "projects";
+    private static final Logger logger = LoggerFactory.getLogger(ChangeEventBroadcaster.class);
+    private final ConcurrentMap<Integer, Set<Subscriber>> subscribersOfProjects = new ConcurrentHashMap<>();
+    private final Set<Subscriber> subscribersOfProjectList = ConcurrentHashMap.newKeySet();
+    private final ExecutorService executor;
+    private final int queueCapacity;
+    private final long sendTimeout;
+    private final long timeout;
+
+    /**
+     * Creates a new broadcaster.
+     *
+     * @param executor Executor sending the events, shut down with the broadcaster.
+     * @param queueCapacity Maximum number of events waiting to be sent to a subscriber before the subscriber is disconnected.
+     * @param sendTimeout Time in milliseconds the oldest unsent event of a subscriber may wait before the subscriber is disconnected.
+     * @param timeout Time in milliseconds after which a subscription ends and the client reconnects.
+     */
+    public ChangeEventBroadcaster(ExecutorService executor, int queueCapacity, long sendTimeout, long timeout) {
+        this.executor = executor;
+        this.queueCapacity = queueCapacity;
+        this.sendTimeout = sendTimeout;
+        this.timeout = timeout;
+    }
+
+    /**
+     * Subscribes to the revisions of the tasks of the specified project.
+     * The first event is the current revision, so changes made before the subscription are not missed.
+     *
+     * @param projectId Id of the project.
+     * @param currentRevision Supplier of the current revision of the tasks, called after the subscription has been registered.
+     * @return Emitter of the events of the subscription.
+     */
+    public SseEmitter subscribeToProject(int projectId, LongSupplier currentRevision) {
+        Subscriber subscriber = new Subscriber(createEmitter(), TASKS_EVENT, queueCapacity);
+        subscriber.unsubscribe = () -> subscribersOfProjects.computeIfPresent(projectId, (id, subscribers) -> {
+            subscribers.remove(subscriber);
+
+            return subscribers.isEmpty() ? null : subscribers;
+        });
+
+        // Adding within compute cannot race with the removal of the set of the last subscriber.
+        subscribersOfProjects.compute(projectId, (id, subscribers) -> {
+            Set<Subscriber> newSubscribers = subscribers == null ? ConcurrentHashMap.newKeySet() : subscribers;
+            newSubscribers.add(subscriber);
+
+            return newSubscribers;
+        });
+
+        return start(subscriber, currentRevision);
+    }
+
+    /**
+     * Subscribes to the revisions of the list of projects.
+     * The first event is the current revision, so changes made before the subscription are not missed.
+     *
+     * @param currentRevision Supplier of the current revision of the list of projects, called after the subscription has been registered.
+     * @return Emitter of the events of the subscription.
+     */
+    public SseEmitter subscribeToProjectList(LongSupplier currentRevision) {
+        Subscriber subscriber = new Subscriber(createEmitter(), PROJECTS_EVENT, queueCapacity);
+        subscriber.unsubscribe = () -> subscribersOfProjectList.remove(subscriber);
+        subscribersOfProjectList.add(subscriber);
+
+        return start(subscriber, currentRevision);
+    }
+
+    /**
+     * Creates the emitter of a new subscription.
+     *
+     * @return The emitter of a new subscription.
+     */
+    protected SseEmitter createEmitter() {
+        return new SseEmitter(timeout);
+    }
+
+    /**
+     * Returns the current time in milliseconds, used to measure how long events have waited.
+     *
+     * @return The current time in milliseconds.
+     */
+    protected long currentTimeMillis() {
+        return System.currentTimeMillis();
+    }
+
+    /**
+     * Sends the current revision to the specified registered subscriber and ends its subscription with the emitter.
+     *
+     * @param subscriber Registered subscriber.
+     * @param currentRevision Supplier of the current revision.
+     * @return Emitter of the subscriber.
+     */
+    private SseEmitter start(Subscriber subscriber, LongSupplier currentRevision) {
+        subscriber.emitter.onCompletion(subscriber.unsubscribe);
+        subscriber.emitter.onTimeout(subscriber.unsubscribe);
+
+        long revision;
+        try {
+            revision = currentRevision.getAsLong();
+        } catch (RuntimeException ex) {
+            subscriber.unsubscribe.run();
+            throw ex;
+        }
+
+        offer(subscriber, revision);
+
+        return subscriber.emitter;
+    }
+
+    /**
+     * Publishes the specified new revision of the tasks of the specified project to its subscribers.
+     *
+     * @param projectId Id of the project.
+     * @param revision New revision of the tasks.
+     */
+    public void publishTasksChanged(int projectId, long revision) {
+        Set<Subscriber> subscribers = subscribersOfProjects.get(projectId);
+        if (subscribers != null) {
+            for (Subscriber subscriber : subscribers) {
+                offer(subscriber, revision);
+            }
+        }
+    }
+
+    /**
+     * Publishes the specified new revision of the list of projects to its subscribers.
+     *
+     * @param revision New revision of the list of projects.
+     */
+    public void publishProjectsChanged(long revision) {
+        for (Subscriber subscriber : subscribersOfProjectList) {
+            offer(subscriber, revision);
+        }
+    }
+
+    /**
+     * Sends a heartbeat to every subscriber.
+     * Subscribers whose oldest unsent event has waited longer than the send timeout are disconnected instead,
+     * so stalled subscribers are found even when nothing changes.
+     */
+    @Scheduled(initialDelayString = "${todolist.events.heartbeat-interval:15000}", fixedDelayString = "${todolist.events.heartbeat-interval:15000}")
+    public void sendHeartbeats() {
+        for (Set<Subscriber> subscribers : subscribersOfProjects.values()) {
+            for (Subscriber subscriber : subscribers) {
+                offer(subscriber, null);
+            }
+        }
+
+        for (Subscriber subscriber : subscribersOfProjectList) {
+            offer(subscriber, null);
+        }
+    }
+
+    /**
+     * Returns the number of open subscriptions.
+     *
+     * @return The number of open subscriptions.
+     */
+    public int getSubscriberCount() {
+        return subscribersOfProjects.values().stream().mapToInt(Set::size).sum() + subscribersOfProjectList.size();
+    }
+
+    /**
+     * Ends every subscription. Clients reconnect to another instance or once this instance has been restarted.
+     */
+    public void shutdown() {
+        for (Set<Subscriber> subscribers : subscribersOfProjects.values()) {
+            subscribers.forEach(Subscriber::disconnect);
+        }
+
+        subscribersOfProjectList.forEach(Subscriber::disconnect);
+        executor.shutdown();
+    }
+
+    /**
+     * Queues the specified revision to be sent to the specified subscriber,
+     * or disconnects the subscriber if its oldest unsent event has waited longer than the send timeout or its queue is full.
+     *
+     * @param subscriber Subscriber to send the revision to.
+     * @param revision Revision to be sent. Null to send a heartbeat.
+     */
+    private void offer(Subscriber subscriber, Long revision) {
+        long now = currentTimeMillis();
+        QueuedEvent oldest = subscriber.oldestUnsentEvent();
+        if (oldest != null && now - oldest.queuedAt > sendTimeout) {
+            logger.debug("Disconnecting a subscriber whose oldest unsent event has waited for {} ms", now - oldest.queuedAt);
+            subscriber.disconnect();
+
+            return;
+        }
+
+        // A heartbeat is queued as a revision of -1.
+        if (!subscriber.queue.offer(new QueuedEvent(revision == null ? -1 : revision, now))) {
+            logger.debug("Disconnecting a subscriber with {} unsent events", queueCapacity);
+            subscriber.disconnect();
+
+            return;
+        }
+
+        if (subscriber.scheduled.compareAndSet(false, true)) {
+            executor.execute(() -> send(subscriber));
+        }
+    }
+
+    /**
+     * Sends the queued events of the specified subscriber.
+     *
+     * @param subscriber Subscriber whose events are sent.
+     */
+    private void send(Subscriber subscriber) {
+        do {
+            QueuedEvent event;
+            while (!subscriber.disconnected && (event = subscriber.queue.poll()) != null) {
+                subscriber.sending = event;
+                try {
+                    if (event.revision < 0) {
+                        subscriber.emitter.send(SseEmitter.event().comment("heartbeat"));
+                    } else {
+                        subscriber.emitter.send(SseEmitter.event().name(subscriber.eventName).data(event.revision));
+                    }
+                } catch (IOException | IllegalStateException ex) {
+                    // The client has gone away or the subscription has already ended.
+                    subscriber.disconnect();
+                } finally {
+                    subscriber.sending = null;
+                }
+            }
+
+            if (subscriber.disconnected) {
+                // The flag stays set, so no other run sends to the completed emitter.
+                subscriber.emitter.complete();
+
+                return;
+            }
+
+            subscriber.scheduled.set(false);
+            // An event queued or a disconnection made after the loop ended but before the flag was cleared is handled by this run.
+        } while ((!subscriber.queue.isEmpty() || subscriber.disconnected) && subscriber.scheduled.compareAndSet(false, true));
+    }
+
+    /**
+     * Event waiting to be sent to a subscriber.
+     */
+    private static class QueuedEvent {
+
+        /**
+         * Revision to be sent, -1 for a heartbeat.
+         */
+        private final long revision;
+        /**
+         * Time in milliseconds the event was queued.
+         */
+        private final long queuedAt;
+
+        private QueuedEvent(long revision, long queuedAt) {
+            this.revision = revision;
+            this.queuedAt = queuedAt;
+        }
+    }
+
+    /**
+     * Subscription of a single client.
+     */
+    private static class Subscriber {
+
+        private final SseEmitter emitter;
+        private final String eventName;
+        private final BlockingQueue<QueuedEvent> queue;
+        /**
+         * Whether a run sending the events has been scheduled. The run completes the emitter once the subscriber has been disconnected.
+         */
+        private final AtomicBoolean scheduled = new AtomicBoolean();
+        /**
+         * Event being sent, null if no send is in progress.
+         */
+        private volatile QueuedEvent sending;
+        private volatile boolean disconnected;
+        private Runnable unsubscribe;
+
+        private Subscriber(SseEmitter emitter, String eventName, int queueCapacity) {
+            this.emitter = emitter;
+            this.eventName = eventName;
+            this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        }
+
+        /**
+         * Returns the oldest event that has not been sent yet, the one being sent if a send is in progress.
+         *
+         * @return The oldest unsent event, or null if every event has been sent.
+         */
+        private QueuedEvent oldestUnsentEvent() {
+            QueuedEvent event = sending;
+
+            return event != null ? event : queue.peek();
+        }
+
+        /**
+         * Ends the subscription without waiting for a send in progress.
+         * The emitter is completed here if no run sending the events has been scheduled, otherwise by that run.
+         */
+        private void disconnect() {
+            unsubscribe.run();
+            disconnected = true;
+            queue.clear();
+            if (scheduled.compareAndSet(false, true)) {
+                emitter.complete();
+            }
+        }
+    }
+}
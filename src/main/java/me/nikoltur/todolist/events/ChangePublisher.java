@@ -0,0 +1,93 @@
+package me.nikoltur.todolist.events;
+
+import java.util.HashMap;
+import java.util.Map;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Publishes new revisions of tasks and projects to the subscribers of their changes once the changes have been committed.
+ *
+ * Within a transaction only the last revision of each project and of the list of projects is published, after commit,
+ * so subscribers never reload before the changes are visible and a batch of operations is announced once.
+ * Nothing is published if the transaction is rolled back.
+ *
+ * @author Nikolas Turunen
+ */
+public class ChangePublisher {
+
+    @Autowired
+    private ChangeEventBroadcaster broadcaster;
+
+    /**
+     * Publishes the specified new revision of the tasks of the specified project.
+     *
+     * @param projectId Id of the project.
+     * @param revision New revision of the tasks.
+     */
+    public void publishTasksChanged(int projectId, long revision) {
+        PendingChanges pendingChanges = getPendingChanges();
+        if (pendingChanges == null) {
+            broadcaster.publishTasksChanged(projectId, revision);
+        } else {
+            pendingChanges.revisionsOfProjects.merge(projectId, revision, Math::max);
+        }
+    }
+
+    /**
+     * Publishes the specified new revision of the list of projects.
+     *
+     * @param revision New revision of the list of projects.
+     */
+    public void publishProjectsChanged(long revision) {
+        PendingChanges pendingChanges = getPendingChanges();
+        if (pendingChanges == null) {
+            broadcaster.publishProjectsChanged(revision);
+        } else if (pendingChanges.listRevision == null || pendingChanges.listRevision < revision) {
+            pendingChanges.listRevision = revision;
+        }
+    }
+
+    /**
+     * Returns the changes pending for the commit of the current transaction.
+     *
+     * @return The changes pending for the commit of the current transaction, or null if there is no transaction to wait for.
+     */
+    private PendingChanges getPendingChanges() {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return null;
+        }
+
+        PendingChanges pendingChanges = (PendingChanges) TransactionSynchronizationManager.getResource(this);
+        if (pendingChanges == null) {
+            pendingChanges = new PendingChanges();
+            TransactionSynchronizationManager.bindResource(this, pendingChanges);
+            TransactionSynchronizationManager.registerSynchronization(pendingChanges);
+        }
+
+        return pendingChanges;
+    }
+
+    /**
+     * Revisions changed by a transaction, published when the transaction commits.
+     */
+    private class PendingChanges extends TransactionSynchronizationAdapter {
+
+        private final Map<Integer, Long> revisionsOfProjects = new HashMap<>();
+        private Long listRevision;
+
+        @Override
+        public void afterCommit() {
+            revisionsOfProjects.forEach(broadcaster::publishTasksChanged);
+            if (listRevision != null) {
+                broadcaster.publishProjectsChanged(listRevision);
+            }
+        }
+
+        @Override
+        public void afterCompletion(int status) {
+            TransactionSynchronizationManager.unbindResourceIfPossible(ChangePublisher.this);
+        }
+    }
+}
@@ -0,0 +1,53 @@
+package me.nikoltur.todolist.events;
+
+import me.nikoltur.todolist.RestControllerConfiguration;
+import me.nikoltur.todolist.projects.ProjectsService;
+import me.nikoltur.todolist.tasks.TasksService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.web.bind.annotation.CrossOrigin;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+/**
+ * Rest-resource pushing the revisions of changed tasks and projects as server-sent events.
+ * Clients load the changes after the revision they have when they receive a newer revision.
+ *
+ * @author Nikolas Turunen
+ */
+@RestController
+@RequestMapping(RestControllerConfiguration.CONTEXT_PATH)
+@CrossOrigin
+public class EventsResource {
+
+    private static final String BASE_PATH = "/events";
+    @Autowired
+    private ChangeEventBroadcaster broadcaster;
+    @Autowired
+    private TasksService tasksService;
+    @Autowired
+    private ProjectsService projectsService;
+
+    /**
+     * Subscribes to the revisions of the tasks of the specified project.
+     *
+     * @param projectId Id of the project.
+     * @return Emitter sending a tasks event with the current revision and then one with each new revision.
+     */
+    @GetMapping(BASE_PATH)
+    public SseEmitter subscribeToProject(@RequestParam("projectId") int projectId) {
+        return broadcaster.subscribeToProject(projectId, () -> tasksService.getRevision(projectId));
+    }
+
+    /**
+     * Subscribes to the revisions of the list of projects.
+     *
+     * @return Emitter sending a projects event with the current revision and then one with each new revision.
+     */
+    @GetMapping(BASE_PATH + "/projects")
+    public SseEmitter subscribeToProjectList() {
+        return broadcaster.subscribeToProjectList(projectsService::getRevision);
+    }
+}
@@ -0,0 +1,128 @@
+package me.nikoltur.todolist.locking;
+
+import java.sql.Connection;
+import java.sql.Savepoint;
+import java.util.Collection;
+import java.util.TreeSet;
+import javax.persistence.Query;
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+
+/**
+ * PostgreSQL implementation backed by transaction level advisory locks.
+ * Coordinates writes across every instance connected to the same database.
+ *
+ * The locks are acquired in the current transaction and held until it commits or rolls back, so closing the returned lock does nothing.
+ * A savepoint is set before the locks are acquired and releasing the returned lock rolls back to it, which releases the locks acquired after it.
+ * Must only be used within a transaction.
+ *
+ * Thread safe.
+ *
+ * @author Nikolas Turunen
+ */
+public class AdvisoryProjectLockManager implements ProjectLockManager {
+
+    /**
+     * Key space of the locks of projects. The second key of a project lock is the id of the project.
+     */
+    static final int PROJECT_KEY_SPACE = 1;
+    /**
+     * Key space of the lock of the list of projects.
+     */
+    static final int PROJECT_LIST_KEY_SPACE = 2;
+    @Autowired
+    private SessionFactory sessionFactory;
+
+    @Override
+    public ProjectLock lockProject(int projectId) {
+        Savepoint savepoint = setSavepoint();
+        acquire(PROJECT_KEY_SPACE, projectId);
+
+        return new SavepointLock(savepoint);
+    }
+
+    @Override
+    public ProjectLock lockProjects(int projectId, int projectId2) {
+        Savepoint savepoint = setSavepoint();
+        // Always lock the project with the lower id first so that the lock order is the same for every instance.
+        acquire(PROJECT_KEY_SPACE, Math.min(projectId, projectId2));
+        if (projectId != projectId2) {
+            acquire(PROJECT_KEY_SPACE, Math.max(projectId, projectId2));
+        }
+
+        return new SavepointLock(savepoint);
+    }
+
+    @Override
+    public ProjectLock lockProjects(Collection<Integer> projectIds) {
+        Savepoint savepoint = setSavepoint();
+        // Always lock the projects in the order of their ids so that the lock order is the same for every instance.
+        for (int projectId : new TreeSet<>(projectIds)) {
+            acquire(PROJECT_KEY_SPACE, projectId);
+        }
+
+        return new SavepointLock(savepoint);
+    }
+
+    @Override
+    public ProjectLock lockProjectList() {
+        Savepoint savepoint = setSavepoint();
+        acquire(PROJECT_LIST_KEY_SPACE, 0);
+
+        return new SavepointLock(savepoint);
+    }
+
+    /**
+     * Sets a savepoint in the current transaction.
+     *
+     * @return The savepoint.
+     */
+    private Savepoint setSavepoint() {
+        return sessionFactory.getCurrentSession().doReturningWork(Connection::setSavepoint);
+    }
+
+    /**
+     * Acquires the advisory lock with the specified keys in the current transaction, waiting until it is available.
+     *
+     * @param keySpace First key of the lock.
+     * @param key Second key of the lock.
+     */
+    private void acquire(int keySpace, int key) {
+        Session session = sessionFactory.getCurrentSession();
+        // pg_advisory_xact_lock returns void which cannot be mapped to a Java type, so a constant is selected instead.
+        Query query = session.createNativeQuery("select 1 from (select pg_advisory_xact_lock(:keySpace, :key)) as acquired");
+        query.setParameter("keySpace", keySpace);
+        query.setParameter("key", key);
+
+        query.getSingleResult();
+    }
+
+    /**
+     * Lock held until the end of the transaction, or until the transaction is rolled back to the savepoint set before it was acquired.
+     */
+    private class SavepointLock implements ProjectLock {
+
+        private final Savepoint savepoint;
+
+        /**
+         * Creates a lock released by rolling back to the specified savepoint.
+         *
+         * @param savepoint Savepoint set before the lock was acquired.
+         */
+        private SavepointLock(Savepoint savepoint) {
+            this.savepoint = savepoint;
+        }
+
+        @Override
+        public void close() {
+            // Released when the transaction ends.
+        }
+
+        @Override
+        public void release() {
+            // Only reads have been made since the savepoint, so rolling back to it only releases the locks acquired after it.
+            sessionFactory.getCurrentSession().doWork(connection -> connection.rollback(savepoint));
+        }
+    }
+}
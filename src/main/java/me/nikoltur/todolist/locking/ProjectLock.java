@@ -0,0 +1,24 @@
+package me.nikoltur.todolist.locking;
+
+/**
+ * Lock held on one or more projects. Released by closing it.
+ *
+ * @author Nikolas Turunen
+ */
+public interface ProjectLock extends AutoCloseable {
+
+    /**
+     * Releases the lock, or if a transaction is active and the lock is held until it ends, does nothing.
+     */
+    @Override
+    public void close();
+
+    /**
+     * Releases the lock immediately, even if a transaction is active.
+     * Used to back off from a lock acquired for a project that turned out to be stale, so that the locks of the next attempt are acquired in order.
+     * Must only be called before anything has been written while holding the lock, and at most once.
+     */
+    public default void release() {
+        close();
+    }
+}
@@ -0,0 +1,51 @@
+package me.nikoltur.todolist.locking;
+
+import java.util.Collection;
+
+/**
+ * Manages locks used to serialize writes to the tasks of a project and to the list of projects.
+ * Writes to different projects can proceed in parallel.
+ * The locks are released when the returned lock is closed or, if a transaction is active, when it commits or rolls back, whichever is later.
+ * Changes written while holding a lock are therefore visible to the next holder.
+ *
+ * When several locks are needed the project list lock must be acquired before the lock of any project.
+ *
+ * @author Nikolas Turunen
+ */
+public interface ProjectLockManager {
+
+    /**
+     * Acquires the lock of the specified project, waiting until it is available.
+     *
+     * @param projectId Id of the project.
+     * @return The acquired lock. Must be closed to release the lock.
+     */
+    public ProjectLock lockProject(int projectId);
+
+    /**
+     * Acquires the locks of both specified projects, waiting until they are available.
+     * The locks are always acquired in the same order regardless of the order of the arguments so that two threads locking the same projects cannot deadlock.
+     *
+     * @param projectId Id of the first project.
+     * @param projectId2 Id of the second project. May be equal to the first project id.
+     * @return The acquired lock. Must be closed to release the locks of both projects.
+     */
+    public ProjectLock lockProjects(int projectId, int projectId2);
+
+    /**
+     * Acquires the locks of all specified projects, waiting until they are available.
+     * The locks are always acquired in the same order regardless of the order of the ids so that two threads locking overlapping sets of projects cannot deadlock.
+     *
+     * @param projectIds Ids of the projects. May contain duplicates.
+     * @return The acquired lock. Must be closed to release the locks of all projects.
+     */
+    public ProjectLock lockProjects(Collection<Integer> projectIds);
+
+    /**
+     * Acquires the lock of the list of projects, waiting until it is available.
+     * Used by writes that change the set of projects or their order.
+     *
+     * @return The acquired lock. Must be closed to release the lock.
+     */
+    public ProjectLock lockProjectList();
+}
@@ -0,0 +1,190 @@
+package me.nikoltur.todolist.locking;
+
+import java.util.ArrayDeque;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.locks.ReentrantLock;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * In-process implementation backed by a fixed set of lock stripes.
+ * Only coordinates writes within one process. Use {@link AdvisoryProjectLockManager} when several instances share one database.
+ * Each project id maps to one stripe, so projects sharing a stripe serialize with each other but the number of locks stays bounded.
+ *
+ * Locks acquired within a transaction are held until the transaction completes, so the next writer sees the committed changes.
+ * Closing the returned lock only releases the locks when no transaction is active, releasing it releases them immediately.
+ *
+ * Thread safe.
+ *
+ * @author Nikolas Turunen
+ */
+public class StripedProjectLockManager implements ProjectLockManager {
+
+    public static final int DEFAULT_STRIPES = 64;
+    private final ReentrantLock[] stripes;
+    private final ReentrantLock projectListLock = new ReentrantLock();
+
+    public StripedProjectLockManager() {
+        this(DEFAULT_STRIPES);
+    }
+
+    /**
+     * Creates a lock manager with the specified number of stripes.
+     *
+     * @param stripes Number of stripes.
+     * @throws IllegalArgumentException Thrown if the specified number of stripes is negative or zero.
+     */
+    public StripedProjectLockManager(int stripes) {
+        if (stripes <= 0) {
+            throw new IllegalArgumentException("Number of stripes must be greater than zero");
+        }
+
+        this.stripes = new ReentrantLock[stripes];
+        for (int i = 0; i < stripes; i++) {
+            this.stripes[i] = new ReentrantLock();
+        }
+    }
+
+    @Override
+    public ProjectLock lockProject(int projectId) {
+        ReentrantLock lock = stripes[stripeOf(projectId)];
+        lock.lock();
+
+        return releaseOnTransactionEnd(lock::unlock);
+    }
+
+    @Override
+    public ProjectLock lockProjects(int projectId, int projectId2) {
+        int stripe = stripeOf(projectId);
+        int stripe2 = stripeOf(projectId2);
+        if (stripe == stripe2) {
+            return lockProject(projectId);
+        }
+
+        // Always lock the stripe with the lower index first so that the lock order is the same for every thread.
+        ReentrantLock first = stripes[Math.min(stripe, stripe2)];
+        ReentrantLock second = stripes[Math.max(stripe, stripe2)];
+
+        first.lock();
+        try {
+            second.lock();
+        } catch (RuntimeException | Error ex) {
+            first.unlock();
+            throw ex;
+        }
+
+        return releaseOnTransactionEnd(() -> {
+            second.unlock();
+            first.unlock();
+        });
+    }
+
+    @Override
+    public ProjectLock lockProjects(Collection<Integer> projectIds) {
+        Set<Integer> lockedStripes = new TreeSet<>();
+        for (int projectId : projectIds) {
+            lockedStripes.add(stripeOf(projectId));
+        }
+
+        // Always lock the stripes in the order of their indices so that the lock order is the same for every thread.
+        Deque<ReentrantLock> acquired = new ArrayDeque<>(lockedStripes.size());
+        try {
+            for (int stripe : lockedStripes) {
+                stripes[stripe].lock();
+                acquired.push(stripes[stripe]);
+            }
+        } catch (RuntimeException | Error ex) {
+            unlockAll(acquired);
+            throw ex;
+        }
+
+        return releaseOnTransactionEnd(() -> unlockAll(acquired));
+    }
+
+    /**
+     * Releases the specified locks in the order they are in the specified deque.
+     *
+     * @param locks Locks to be released, the lock acquired last first.
+     */
+    private void unlockAll(Deque<ReentrantLock> locks) {
+        for (ReentrantLock lock : locks) {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public ProjectLock lockProjectList() {
+        projectListLock.lock();
+
+        return releaseOnTransactionEnd(projectListLock::unlock);
+    }
+
+    /**
+     * Defers the release of acquired locks to the end of the current transaction if one is active.
+     * The synchronizations of a transaction run on the thread that began it, which is the thread holding the locks.
+     *
+     * @param release Releases the acquired locks.
+     * @return The specified lock if no transaction is active, otherwise a lock doing nothing when closed.
+     */
+    private ProjectLock releaseOnTransactionEnd(ProjectLock release) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return release;
+        }
+
+        TransactionLock lock = new TransactionLock(release);
+        TransactionSynchronizationManager.registerSynchronization(lock);
+
+        return lock;
+    }
+
+    /**
+     * Returns the index of the stripe of the specified project.
+     * Consecutive project ids map to different stripes.
+     *
+     * @param projectId Id of the project.
+     * @return The index of the stripe of the specified project.
+     */
+    int stripeOf(int projectId) {
+        return Math.floorMod(projectId, stripes.length);
+    }
+
+    /**
+     * Lock acquired within a transaction, released when the transaction completes unless it has been released before.
+     * Only used by the thread holding the locks.
+     */
+    private static class TransactionLock extends TransactionSynchronizationAdapter implements ProjectLock {
+
+        private final ProjectLock release;
+        private boolean released;
+
+        /**
+         * Creates a lock released by the specified lock.
+         *
+         * @param release Releases the acquired locks.
+         */
+        private TransactionLock(ProjectLock release) {
+            this.release = release;
+        }
+
+        @Override
+        public void close() {
+            // Released when the transaction completes.
+        }
+
+        @Override
+        public void release() {
+            if (!released) {
+                released = true;
+                release.close();
+            }
+        }
+
+        @Override
+        public void afterCompletion(int status) {
+            release();
+        }
+    }
+}
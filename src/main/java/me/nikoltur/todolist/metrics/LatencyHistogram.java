@@ -0,0 +1,146 @@
+package me.nikoltur.todolist.metrics;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Histogram of latencies in nanoseconds with buckets of logarithmically growing width, in the manner of HdrHistogram.
+ *
+ * Latencies below {@value #SUB_BUCKETS} nanoseconds are counted exactly, and each higher power of two is split into {@value #SUB_BUCKETS} buckets,
+ * so a recorded latency is reported with a relative error of at most 1 / {@value #SUB_BUCKETS}.
+ *
+ * Recording is lock-free and does not allocate, so it can be done on every call of a hot path.
+ * Snapshots are not atomic with recording, so a snapshot taken during recording may miss the latest latencies.
+ *
+ * Thread safe.
+ *
+ * @author Nikolas Turunen
+ */
+public class LatencyHistogram {
+
+    /**
+     * Number of bits of precision of the buckets.
+     */
+    static final int SUB_BUCKET_BITS = 5;
+    /**
+     * Number of buckets each power of two is split into.
+     */
+    static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    /**
+     * Number of buckets needed to cover every non-negative long.
+     */
+    static final int BUCKETS = SUB_BUCKETS + (63 - SUB_BUCKET_BITS) * SUB_BUCKETS;
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+    // Adders only allocate their cells the first time they are contended.
+    private final LongAdder totalNanos = new LongAdder();
+
+    /**
+     * Records the specified latency.
+     *
+     * @param nanos Latency in nanoseconds. Negative latencies are recorded as zero.
+     */
+    public void record(long nanos) {
+        long latency = Math.max(nanos, 0);
+
+        counts.incrementAndGet(indexOf(latency));
+        totalNanos.add(latency);
+    }
+
+    /**
+     * Returns a snapshot of the recorded latencies.
+     *
+     * @return A snapshot of the recorded latencies.
+     */
+    public Snapshot snapshot() {
+        long[] snapshotCounts = new long[BUCKETS];
+        long count = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            snapshotCounts[i] = counts.get(i);
+            count += snapshotCounts[i];
+        }
+
+        return new Snapshot(snapshotCounts, count, totalNanos.sum());
+    }
+
+    /**
+     * Returns the index of the bucket of the specified latency.
+     *
+     * @param nanos Non-negative latency in nanoseconds.
+     * @return The index of the bucket of the specified latency.
+     */
+    static int indexOf(long nanos) {
+        if (nanos < SUB_BUCKETS) {
+            return (int) nanos;
+        }
+
+        int shift = 63 - Long.numberOfLeadingZeros(nanos) - SUB_BUCKET_BITS;
+        // The highest bit is always set, so only the bits below it select the sub-bucket.
+        int subBucket = (int) (nanos >>> shift) - SUB_BUCKETS;
+
+        return SUB_BUCKETS + shift * SUB_BUCKETS + subBucket;
+    }
+
+    /**
+     * Returns the highest latency counted in the bucket with the specified index.
+     *
+     * @param index Index of the bucket.
+     * @return The highest latency in nanoseconds counted in the bucket.
+     */
+    static long highestValueOf(int index) {
+        if (index < SUB_BUCKETS) {
+            return index;
+        }
+
+        int shift = (index - SUB_BUCKETS) / SUB_BUCKETS;
+        long lowest = (long) (SUB_BUCKETS + (index - SUB_BUCKETS) % SUB_BUCKETS) << shift;
+
+        return lowest + (1L << shift) - 1;
+    }
+
+    /**
+     * Recorded latencies at one point in time.
+     */
+    public static class Snapshot {
+
+        private final long[] counts;
+        private final long count;
+        private final long totalNanos;
+
+        private Snapshot(long[] counts, long count, long totalNanos) {
+            this.counts = counts;
+            this.count = count;
+            this.totalNanos = totalNanos;
+        }
+
+        public long getCount() {
+            return count;
+        }
+
+        public long getTotalNanos() {
+            return totalNanos;
+        }
+
+        /**
+         * Returns the latency below or at which the specified share of the recorded latencies are.
+         *
+         * @param quantile Share of the latencies, between 0 and 1.
+         * @return The latency in nanoseconds at the specified quantile, as the highest latency of its bucket. Zero if nothing has been recorded.
+         */
+        public long getValueAtQuantile(double quantile) {
+            if (count == 0) {
+                return 0;
+            }
+
+            long rank = Math.max(1, (long) Math.ceil(quantile * count));
+            long seen = 0;
+            for (int i = 0; i < counts.length; i++) {
+                seen += counts[i];
+                if (seen >= rank) {
+                    return highestValueOf(i);
+                }
+            }
+
+            return highestValueOf(counts.length - 1);
+        }
+    }
+}
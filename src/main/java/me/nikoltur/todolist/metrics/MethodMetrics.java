@@ -0,0 +1,63 @@
+package me.nikoltur.todolist.metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Latencies and errors of calls of one method.
+ *
+ * Thread safe.
+ *
+ * @author Nikolas Turunen
+ */
+public class MethodMetrics {
+
+    private final String layer;
+    private final String name;
+    private final LatencyHistogram latencies = new LatencyHistogram();
+    private final LongAdder errors = new LongAdder();
+
+    /**
+     * Creates metrics for a method.
+     *
+     * @param layer Layer of the method: resource, service or dao.
+     * @param name Name of the method, prefixed with the name of its class.
+     */
+    public MethodMetrics(String layer, String name) {
+        this.layer = layer;
+        this.name = name;
+    }
+
+    public String getLayer() {
+        return layer;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public LatencyHistogram getLatencies() {
+        return latencies;
+    }
+
+    /**
+     * Returns the number of calls that threw an exception.
+     *
+     * @return The number of calls that threw an exception.
+     */
+    public long getErrors() {
+        return errors.sum();
+    }
+
+    /**
+     * Records a call of the method.
+     *
+     * @param nanos Duration of the call in nanoseconds.
+     * @param failed Whether the call threw an exception.
+     */
+    public void record(long nanos, boolean failed) {
+        latencies.record(nanos);
+        if (failed) {
+            errors.increment();
+        }
+    }
+}
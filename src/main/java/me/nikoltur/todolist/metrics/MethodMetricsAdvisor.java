@@ -0,0 +1,63 @@
+package me.nikoltur.todolist.metrics;
+
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import org.springframework.aop.support.StaticMethodMatcherPointcutAdvisor;
+import org.springframework.boot.autoconfigure.web.ErrorController;
+import org.springframework.util.ClassUtils;
+
+/**
+ * Advisor that applies a {@link MethodMetricsInterceptor} to the public methods of the resources, services and DAOs.
+ *
+ * The layer of a class is taken from its name: resources end with "Resource", services with "ServiceImpl" and DAOs with "DaoImpl".
+ * The error resource is left out since a proxy of its interface would hide its mappings, and so is the resource exposing the metrics.
+ *
+ * @author Nikolas Turunen
+ */
+public class MethodMetricsAdvisor extends StaticMethodMatcherPointcutAdvisor {
+
+    public static final String RESOURCE_LAYER = "resource";
+    public static final String SERVICE_LAYER = "service";
+    public static final String DAO_LAYER = "dao";
+    private static final String BASE_PACKAGE = "me.nikoltur.todolist.";
+
+    /**
+     * Creates an advisor recording to the specified registry.
+     *
+     * @param registry Registry to record the calls to.
+     */
+    public MethodMetricsAdvisor(MethodMetricsRegistry registry) {
+        super(new MethodMetricsInterceptor(registry));
+    }
+
+    @Override
+    public boolean matches(Method method, Class<?> targetClass) {
+        return layerOf(targetClass) != null && Modifier.isPublic(method.getModifiers()) && method.getDeclaringClass() != Object.class;
+    }
+
+    /**
+     * Returns the layer of the specified class.
+     *
+     * @param targetClass Class to return the layer of.
+     * @return The layer of the specified class, or null if its methods are not instrumented.
+     */
+    static String layerOf(Class<?> targetClass) {
+        Class<?> userClass = ClassUtils.getUserClass(targetClass);
+        String name = userClass.getName();
+        if (!name.startsWith(BASE_PACKAGE) || userClass == MetricsResource.class) {
+            return null;
+        }
+
+        if (name.endsWith("Resource") && !ErrorController.class.isAssignableFrom(userClass)) {
+            return RESOURCE_LAYER;
+        }
+        if (name.endsWith("ServiceImpl")) {
+            return SERVICE_LAYER;
+        }
+        if (name.endsWith("DaoImpl")) {
+            return DAO_LAYER;
+        }
+
+        return null;
+    }
+}
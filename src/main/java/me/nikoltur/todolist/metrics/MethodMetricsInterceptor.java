@@ -0,0 +1,58 @@
+package me.nikoltur.todolist.metrics;
+
+import org.aopalliance.intercept.MethodInterceptor;
+import org.aopalliance.intercept.MethodInvocation;
+import org.springframework.aop.support.AopUtils;
+
+/**
+ * Interceptor that records the duration of each call and whether it threw an exception.
+ *
+ * @author Nikolas Turunen
+ */
+public class MethodMetricsInterceptor implements MethodInterceptor {
+
+    private final MethodMetricsRegistry registry;
+
+    /**
+     * Creates an interceptor recording to the specified registry.
+     *
+     * @param registry Registry to record the calls to.
+     */
+    public MethodMetricsInterceptor(MethodMetricsRegistry registry) {
+        this.registry = registry;
+    }
+
+    @Override
+    public Object invoke(MethodInvocation invocation) throws Throwable {
+        long start = System.nanoTime();
+        boolean failed = true;
+        try {
+            Object result = invocation.proceed();
+            failed = false;
+
+            return result;
+        } finally {
+            long duration = System.nanoTime() - start;
+
+            metricsOf(invocation).record(duration, failed);
+        }
+    }
+
+    /**
+     * Returns the metrics of the method of the specified invocation, registering them on the first call of the method.
+     *
+     * @param invocation Invocation to return the metrics of.
+     * @return The metrics of the method of the specified invocation.
+     */
+    private MethodMetrics metricsOf(MethodInvocation invocation) {
+        // Looked up first since registering locks a bin of the map even when the method already has metrics.
+        MethodMetrics metrics = registry.getMetrics(invocation.getMethod());
+        if (metrics != null) {
+            return metrics;
+        }
+
+        Class<?> targetClass = AopUtils.getTargetClass(invocation.getThis());
+
+        return registry.register(invocation.getMethod(), MethodMetricsAdvisor.layerOf(targetClass), targetClass);
+    }
+}
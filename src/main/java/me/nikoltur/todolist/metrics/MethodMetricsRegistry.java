@@ -0,0 +1,54 @@
+package me.nikoltur.todolist.metrics;
+
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Registry of the metrics of the instrumented methods.
+ *
+ * Thread safe.
+ *
+ * @author Nikolas Turunen
+ */
+public class MethodMetricsRegistry {
+
+    private final ConcurrentMap<Method, MethodMetrics> metrics = new ConcurrentHashMap<>();
+
+    /**
+     * Returns the metrics of the specified method.
+     *
+     * @param method Method to return the metrics of.
+     * @return The metrics of the specified method, or null if it has not been registered.
+     */
+    public MethodMetrics getMetrics(Method method) {
+        return metrics.get(method);
+    }
+
+    /**
+     * Registers metrics for the specified method unless it already has them.
+     *
+     * @param method Method to register the metrics of.
+     * @param layer Layer of the method: resource, service or dao.
+     * @param targetClass Class the method is called on.
+     * @return The metrics of the specified method.
+     */
+    public MethodMetrics register(Method method, String layer, Class<?> targetClass) {
+        return metrics.computeIfAbsent(method, key -> new MethodMetrics(layer, targetClass.getSimpleName() + "." + method.getName()));
+    }
+
+    /**
+     * Returns the metrics of every method called so far, ordered by the names of the methods.
+     *
+     * @return The metrics of every method called so far.
+     */
+    public List<MethodMetrics> getAllMetrics() {
+        List<MethodMetrics> allMetrics = new ArrayList<>(metrics.values());
+        allMetrics.sort(Comparator.comparing(MethodMetrics::getName));
+
+        return allMetrics;
+    }
+}
@@ -0,0 +1,105 @@
+package me.nikoltur.todolist.metrics;
+
+import java.util.List;
+import java.util.Locale;
+import me.nikoltur.todolist.RestControllerConfiguration;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.web.bind.annotation.CrossOrigin;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+/**
+ * Rest-resource to access the latencies and errors of the resources, services and DAOs in the text format of Prometheus.
+ *
+ * The latencies are exposed as a summary with the 0.5, 0.99 and 0.999 quantiles since the start of the instance,
+ * and the throughput and error rate follow from the rates of its count and of the error counter.
+ * Counters of the statements, entity loads and collection fetches of Hibernate are included when its statistics are enabled.
+ *
+ * @author Nikolas Turunen
+ */
+@RestController
+@RequestMapping(RestControllerConfiguration.CONTEXT_PATH)
+@CrossOrigin
+public class MetricsResource {
+
+    /**
+     * Content type of the text format of Prometheus.
+     */
+    public static final String CONTENT_TYPE = "text/plain; version=0.0.4; charset=utf-8";
+    private static final String BASE_PATH = "/metrics";
+    private static final String DURATION_METRIC = "todolist_method_duration_seconds";
+    private static final String ERRORS_METRIC = "todolist_method_errors_total";
+    private static final double[] QUANTILES = {0.5, 0.99, 0.999};
+    @Autowired
+    private MethodMetricsRegistry registry;
+    @Autowired
+    private SessionFactory sessionFactory;
+
+    /**
+     * Returns the metrics of every method called so far.
+     *
+     * @return The metrics of every method called so far in the text format of Prometheus.
+     */
+    @GetMapping(value = BASE_PATH, produces = CONTENT_TYPE)
+    public String getMetrics() {
+        List<MethodMetrics> allMetrics = registry.getAllMetrics();
+        StringBuilder builder = new StringBuilder();
+
+        builder.append("# HELP ").append(DURATION_METRIC).append(" Duration of calls of resource, service and DAO methods.\n");
+        builder.append("# TYPE ").append(DURATION_METRIC).append(" summary\n");
+        for (MethodMetrics metrics : allMetrics) {
+            LatencyHistogram.Snapshot snapshot = metrics.getLatencies().snapshot();
+            String labels = "layer=\"" + metrics.getLayer() + "\",method=\"" + metrics.getName() + "\"";
+
+            for (double quantile : QUANTILES) {
+                builder.append(DURATION_METRIC).append('{').append(labels).append(",quantile=\"").append(quantile).append("\"} ")
+                        .append(toSeconds(snapshot.getValueAtQuantile(quantile))).append('\n');
+            }
+            builder.append(DURATION_METRIC).append("_sum{").append(labels).append("} ").append(toSeconds(snapshot.getTotalNanos())).append('\n');
+            builder.append(DURATION_METRIC).append("_count{").append(labels).append("} ").append(snapshot.getCount()).append('\n');
+        }
+
+        builder.append("# HELP ").append(ERRORS_METRIC).append(" Calls of resource, service and DAO methods that threw an exception.\n");
+        builder.append("# TYPE ").append(ERRORS_METRIC).append(" counter\n");
+        for (MethodMetrics metrics : allMetrics) {
+            builder.append(ERRORS_METRIC).append("{layer=\"").append(metrics.getLayer()).append("\",method=\"").append(metrics.getName()).append("\"} ")
+                    .append(metrics.getErrors()).append('\n');
+        }
+
+        Statistics statistics = sessionFactory.getStatistics();
+        if (statistics.isStatisticsEnabled()) {
+            appendCounter(builder, "todolist_hibernate_statements_total", "Statements prepared by Hibernate.", statistics.getPrepareStatementCount());
+            appendCounter(builder, "todolist_hibernate_entity_loads_total", "Entities loaded by Hibernate.", statistics.getEntityLoadCount());
+            appendCounter(builder, "todolist_hibernate_collection_fetches_total", "Collections fetched lazily by Hibernate.", statistics.getCollectionFetchCount());
+        }
+
+        return builder.toString();
+    }
+
+    /**
+     * Appends a counter without labels.
+     *
+     * @param builder Builder to append the counter to.
+     * @param name Name of the counter.
+     * @param help Description of the counter.
+     * @param value Value of the counter.
+     */
+    private static void appendCounter(StringBuilder builder, String name, String help, long value) {
+        builder.append("# HELP ").append(name).append(' ').append(help).append('\n');
+        builder.append("# TYPE ").append(name).append(" counter\n");
+        builder.append(name).append(' ').append(value).append('\n');
+    }
+
+    /**
+     * Formats the specified duration in seconds.
+     *
+     * @param nanos Duration in nanoseconds.
+     * @return The duration in seconds.
+     */
+    private static String toSeconds(long nanos) {
+        return String.format(Locale.ROOT, "%.9f", nanos / 1e9);
+    }
+}
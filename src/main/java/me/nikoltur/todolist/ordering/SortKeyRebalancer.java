@@ -0,0 +1,84 @@
+package me.nikoltur.todolist.ordering;
+
+import java.util.List;
+import me.nikoltur.todolist.caching.ResponseCache;
+import me.nikoltur.todolist.changes.da.ChangesDao;
+import me.nikoltur.todolist.events.ChangePublisher;
+import me.nikoltur.todolist.locking.ProjectLock;
+import me.nikoltur.todolist.locking.ProjectLockManager;
+import me.nikoltur.todolist.projects.da.ProjectsDao;
+import me.nikoltur.todolist.tasks.da.TasksDao;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Spreads out crowded sort keys in the background.
+ *
+ * Appending and swapping never run out of room between keys, but keys can become crowded over time if rows are inserted between existing keys.
+ * Each project is rebalanced in its own transaction while holding the lock of the project, so writes to other projects are not blocked.
+ * The new sort keys are recorded as changes, so synchronized clients order new items consistently with the existing ones.
+ *
+ * @author Nikolas Turunen
+ */
+public class SortKeyRebalancer {
+
+    private static final Logger logger = LoggerFactory.getLogger(SortKeyRebalancer.class);
+    @Autowired
+    private TasksDao tasksDao;
+    @Autowired
+    private ProjectsDao projectsDao;
+    @Autowired
+    private ChangesDao changesDao;
+    @Autowired
+    private ChangePublisher changePublisher;
+    @Autowired
+    private ResponseCache responseCache;
+    @Autowired
+    private ProjectLockManager projectLockManager;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    /**
+     * Rebalances the sort keys of the tasks of every project with crowded sort keys and the sort keys of the projects if they are crowded.
+     */
+    @Scheduled(initialDelayString = "${todolist.ordering.rebalance-interval:3600000}", fixedDelayString = "${todolist.ordering.rebalance-interval:3600000}")
+    public void rebalance() {
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+
+        List<Integer> projectIds = transactionTemplate.execute(status -> tasksDao.getProjectIdsWithCrowdedSortKeys(SortKeys.MINIMUM_GAP));
+        for (int projectId : projectIds) {
+            transactionTemplate.execute(status -> {
+                try (ProjectLock ignored = projectLockManager.lockProject(projectId)) {
+                    tasksDao.rebalanceSortKeysOf(projectId);
+                    changePublisher.publishTasksChanged(projectId, projectsDao.incrementRevisionOf(projectId));
+                    responseCache.invalidateAfterCommit(projectId);
+                    changesDao.recordTaskChangesOf(projectId);
+                }
+
+                return null;
+            });
+        }
+
+        boolean projectsRebalanced = transactionTemplate.execute(status -> {
+            try (ProjectLock ignored = projectLockManager.lockProjectList()) {
+                if (!projectsDao.hasCrowdedSortKeys(SortKeys.MINIMUM_GAP)) {
+                    return false;
+                }
+
+                projectsDao.rebalanceSortKeys();
+                changePublisher.publishProjectsChanged(projectsDao.incrementListRevision());
+                changesDao.recordProjectChanges();
+
+                return true;
+            }
+        });
+
+        if (!projectIds.isEmpty() || projectsRebalanced) {
+            logger.info("Rebalanced sort keys of tasks of {} projects, rebalanced sort keys of projects: {}", projectIds.size(), projectsRebalanced);
+        }
+    }
+}
@@ -0,0 +1,117 @@
+package me.nikoltur.todolist.ordering;
+
+import java.util.List;
+
+/**
+ * Sort keys used to order tasks and projects among their siblings.
+ *
+ * Sort keys are sparse: new keys are placed {@link #GAP} apart, so adding, removing or moving an item only changes the key of that item.
+ * The position of an item is derived from its index among its siblings when they are loaded.
+ * Keys that have become crowded are spread out again by rebalancing, see {@link SortKeyRebalancer}.
+ *
+ * @author Nikolas Turunen
+ */
+public final class SortKeys {
+
+    /**
+     * Distance between the keys of consecutive items after they have been appended or rebalanced.
+     */
+    public static final long GAP = 1L << 16;
+    /**
+     * Siblings with keys closer to each other than this are rebalanced.
+     */
+    public static final long MINIMUM_GAP = 1L << 8;
+    /**
+     * Number of sort keys of neighbours needed to move an item to an index, see {@link #forIndex(int, java.util.List, long)}.
+     */
+    public static final int NEIGHBOURS = 2;
+
+    private SortKeys() {
+    }
+
+    /**
+     * Returns the sort key for an item placed after the item with the specified sort key.
+     *
+     * @param sortKey Sort key of the preceding item. Zero if there is no preceding item.
+     * @return The sort key for an item placed after the item with the specified sort key.
+     */
+    public static long after(long sortKey) {
+        return sortKey + GAP;
+    }
+
+    /**
+     * Returns true if a sort key fits strictly between the specified sort keys.
+     *
+     * @param before Sort key of the preceding item.
+     * @param after Sort key of the following item.
+     * @return True if a sort key fits strictly between the specified sort keys.
+     */
+    public static boolean hasRoomBetween(long before, long after) {
+        return after - before >= 2;
+    }
+
+    /**
+     * Returns the sort key for an item placed between the items with the specified sort keys.
+     * The key is halfway between the keys, so that as much room as possible is left on both sides.
+     *
+     * @param before Sort key of the preceding item. Null if there is no preceding item.
+     * @param after Sort key of the following item. Null if there is no following item.
+     * @return The sort key for an item placed between the items with the specified sort keys.
+     * @throws IllegalArgumentException Thrown if there is no room between the specified sort keys.
+     */
+    public static long between(Long before, Long after) {
+        if (after == null) {
+            return after(before == null ? 0 : before);
+        }
+
+        if (before == null) {
+            return after - GAP;
+        }
+
+        if (!hasRoomBetween(before, after)) {
+            throw new IllegalArgumentException("No room between the sort keys " + before + " and " + after);
+        }
+
+        return before + (after - before) / 2;
+    }
+
+    /**
+     * Returns the index of the first sibling whose sort key is needed to move an item to the specified index, see {@link #forIndex(int, java.util.List, long)}.
+     *
+     * @param index New index of the item among its siblings.
+     * @return The index of the first sibling whose sort key is needed, among the siblings other than the item.
+     */
+    public static int firstNeighbourOf(int index) {
+        return Math.max(index - 1, 0);
+    }
+
+    /**
+     * Returns the sort key for an item moved to the specified index among its siblings.
+     *
+     * @param index New index of the item among its siblings.
+     * @param neighbourSortKeys Sort keys of the siblings other than the item in ascending order,
+     * at most {@link #NEIGHBOURS} of them starting from the index returned by {@link #firstNeighbourOf(int)}.
+     * @param currentSortKey Current sort key of the item, kept if the item has no siblings.
+     * @return The sort key for the item. Null if the sort keys of the new neighbours are too close to fit a key between them.
+     * @throws IllegalArgumentException Thrown if the specified index is greater than the index of the last sibling.
+     */
+    public static Long forIndex(int index, List<Long> neighbourSortKeys, long currentSortKey) {
+        if (index > 0 && neighbourSortKeys.isEmpty()) {
+            throw new IllegalArgumentException("Index " + index + " is greater than the index of the last sibling");
+        }
+
+        // Except when moving to the start, the first neighbour is the sibling that is going to precede the item.
+        Long before = index == 0 ? null : neighbourSortKeys.get(0);
+        int indexOfAfter = index == 0 ? 0 : 1;
+        Long after = neighbourSortKeys.size() > indexOfAfter ? neighbourSortKeys.get(indexOfAfter) : null;
+        if (before == null && after == null) {
+            return currentSortKey;
+        }
+
+        if (before != null && after != null && !hasRoomBetween(before, after)) {
+            return null;
+        }
+
+        return between(before, after);
+    }
+}
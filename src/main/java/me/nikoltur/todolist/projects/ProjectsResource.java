@@ -1,15 +1,19 @@
 package me.nikoltur.todolist.projects;
 
 import java.util.List;
+import javax.servlet.http.HttpServletResponse;
 import me.nikoltur.todolist.RestControllerConfiguration;
-import me.nikoltur.todolist.projects.da.Project;
+import me.nikoltur.todolist.caching.Revisioned;
+import me.nikoltur.todolist.projects.da.ProjectView;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
 import org.springframework.web.bind.annotation.CrossOrigin;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
 
 /**
  * Rest-resource to access and manage projects.
@@ -27,12 +31,23 @@ public class ProjectsResource {
 
     /**
      * Returns a list of all projects ordered by their position.
+     * The revision of the list is sent as the ETag, and if it matches the ETag of the request, the projects are not read and the response is 304 Not Modified.
+     * Otherwise the ETag is replaced by the revision the projects were read at, which a concurrent change can only make older than the current revision.
      *
-     * @return A list of all projects ordered by their position.
+     * @param webRequest Current request.
+     * @param response Response to send the revision of the returned projects with.
+     * @return A list of all projects ordered by their position. Null if the list has not been modified.
      */
     @GetMapping(BASE_PATH)
-    public List<Project> getProjects() {
-        return projectsService.getProjects();
+    public List<ProjectView> getProjects(WebRequest webRequest, HttpServletResponse response) {
+        if (webRequest.checkNotModified(Long.toString(projectsService.getRevision()))) {
+            return null;
+        }
+
+        Revisioned<List<ProjectView>> projects = projectsService.getProjects();
+        response.setHeader(HttpHeaders.ETAG, "\"" + projects.getRevision() + "\"");
+
+        return projects.getValue();
     }
 
     /**
@@ -76,4 +91,25 @@ public class ProjectsResource {
     public void swapPositionsOfProjects(@RequestParam("projectId") int projectId, @RequestParam("projectId2") int projectId2) {
         projectsService.swapPositionsOfProjects(projectId, projectId2);
     }
+
+    /**
+     * Moves the specified project to the specified index.
+     *
+     * @param projectId Id of the project.
+     * @param index New index of the project.
+     */
+    @PostMapping(BASE_PATH + "/movetoindex")
+    public void moveProjectToIndex(@RequestParam("projectId") int projectId, @RequestParam("index") int index) {
+        projectsService.moveProjectToIndex(projectId, index);
+    }
+
+    /**
+     * Orders all projects as in the specified list.
+     *
+     * @param projectIds Ids of every project in their new order.
+     */
+    @PostMapping(BASE_PATH + "/reorder")
+    public void reorderProjects(@RequestParam("projectIds") List<Integer> projectIds) {
+        projectsService.reorderProjects(projectIds);
+    }
 }
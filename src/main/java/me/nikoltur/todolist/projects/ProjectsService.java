@@ -1,7 +1,8 @@
 package me.nikoltur.todolist.projects;
 
 import java.util.List;
-import me.nikoltur.todolist.projects.da.Project;
+import me.nikoltur.todolist.caching.Revisioned;
+import me.nikoltur.todolist.projects.da.ProjectView;
 
 /**
  * Service to access and control projects.
@@ -11,11 +12,19 @@ import me.nikoltur.todolist.projects.da.Project;
 public interface ProjectsService {
 
     /**
-     * Returns a list containing all projects ordered by their position.
+     * Returns a list containing read-only views of all projects ordered by their position, with the revision the list was read at.
      *
-     * @return A list containing all projects ordered by their position.
+     * @return A list containing read-only views of all projects ordered by their position, with the revision of the list.
      */
-    public List<Project> getProjects();
+    public Revisioned<List<ProjectView>> getProjects();
+
+    /**
+     * Returns the revision of the list of projects.
+     * The revision is incremented by every change of the list of projects, so listings of the projects at the same revision are equal.
+     *
+     * @return The revision of the list of projects.
+     */
+    public long getRevision();
 
     /**
      * Creates a new project with the specified name.
@@ -58,4 +67,26 @@ public interface ProjectsService {
      * @throws IllegalArgumentException Thrown if the specified projectId or projectId2 is invalid. Or if the specified projectId equals the specified projectId2.
      */
     public void swapPositionsOfProjects(int projectId, int projectId2);
+
+    /**
+     * Moves the specified project to the specified index among all projects.
+     * Only the sort key of the project is changed, unless the sort keys of its new neighbours are too close to fit a key between them.
+     * In that case the sort keys of all projects are spread out first.
+     *
+     * @param projectId Id of the project.
+     * @param index New index of the project.
+     * @throws ProjectDoesNotExistException Thrown if no project with the specified projectId exists.
+     * @throws IllegalArgumentException Thrown if the specified projectId is invalid. Or if the specified index is negative or greater than the index of the last project.
+     */
+    public void moveProjectToIndex(int projectId, int index);
+
+    /**
+     * Orders all projects as in the specified list.
+     *
+     * @param projectIds Ids of every project in their new order.
+     * @throws NullPointerException Thrown if the specified projectIds or any of them is null.
+     * @throws IllegalArgumentException Thrown if the specified projectIds is empty or contains an invalid id or the same id more than once.
+     * Or if the specified projectIds are not the ids of every project.
+     */
+    public void reorderProjects(List<Integer> projectIds);
 }
@@ -1,104 +1,166 @@
 package me.nikoltur.todolist.projects;
 
+import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Objects;
 import javax.transaction.Transactional;
+import me.nikoltur.todolist.caching.ResponseCache;
+import me.nikoltur.todolist.caching.Revisioned;
+import me.nikoltur.todolist.caching.SingleFlight;
+import me.nikoltur.todolist.changes.da.ChangesDao;
+import me.nikoltur.todolist.events.ChangePublisher;
+import me.nikoltur.todolist.locking.ProjectLock;
+import me.nikoltur.todolist.locking.ProjectLockManager;
+import me.nikoltur.todolist.ordering.SortKeys;
 import me.nikoltur.todolist.projects.da.Project;
+import me.nikoltur.todolist.projects.da.ProjectView;
 import me.nikoltur.todolist.projects.da.ProjectsDao;
 import me.nikoltur.todolist.tasks.da.TasksDao;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
 /**
  * Database implementation.
  *
- * Thread safe.
+ * Thread safe. Writes are serialized by the lock of the list of projects.
  *
  * @author Nikolas Turunen
  */
 @Service
 public class ProjectsServiceImpl implements ProjectsService {
 
+    /**
+     * Key of the loads of the list of projects.
+     */
+    private static final String PROJECT_LIST = "projects";
+    private final SingleFlight<String, Revisioned<List<ProjectView>>> projectLoads = new SingleFlight<>();
     @Autowired
     private ProjectsDao projectsDao;
     @Autowired
     private TasksDao tasksDao;
+    @Autowired
+    private ChangesDao changesDao;
+    @Autowired
+    private ProjectLockManager projectLockManager;
+    @Autowired
+    private ChangePublisher changePublisher;
+    @Autowired
+    private ResponseCache responseCache;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Override
+    public Revisioned<List<ProjectView>> getProjects() {
+        if (TransactionSynchronizationManager.isActualTransactionActive()) {
+            return readProjects();
+        }
+
+        return projectLoads.load(PROJECT_LIST, () -> new TransactionTemplate(transactionManager).execute(status -> readProjects()));
+    }
+
+    /**
+     * Reads every project with the revision of the list of projects.
+     *
+     * @return An unmodifiable list containing every project, with the revision of the list.
+     */
+    private Revisioned<List<ProjectView>> readProjects() {
+        long revision = projectsDao.getListRevision();
+
+        return new Revisioned<>(revision, Collections.unmodifiableList(projectsDao.getAll()));
+    }
 
     @Override
     @Transactional(rollbackOn = Exception.class)
-    public List<Project> getProjects() {
-        return projectsDao.getAll();
+    public long getRevision() {
+        return projectsDao.getListRevision();
     }
 
     @Override
     @Transactional(rollbackOn = Exception.class)
-    public synchronized void createProject(String name) {
+    public void createProject(String name) {
         validateName(name);
 
-        verifyProjectDoesNotExist(name);
+        try (ProjectLock ignored = projectLockManager.lockProjectList()) {
+            verifyProjectDoesNotExist(name);
 
-        int position = projectsDao.getAll().size();
+            long sortKey = projectsDao.getNextSortKey();
 
-        Project project = new Project();
-        project.setName(name);
-        project.setPosition(position);
+            Project project = new Project();
+            project.setName(name);
+            project.setSortKey(sortKey);
 
-        projectsDao.save(project);
+            projectsDao.save(project);
+            recordChange(project.getId());
+        }
     }
 
     @Override
     @Transactional(rollbackOn = Exception.class)
-    public synchronized void removeProject(int projectId) {
+    public void removeProject(int projectId) {
         validateId(projectId);
 
-        Project project = projectsDao.getById(projectId);
-        if (project == null) {
-            throw new ProjectDoesNotExistException("Project with the id " + projectId + " does not exist");
-        }
-
-        if (!tasksDao.getAllOf(project.getId()).isEmpty()) {
-            throw new ProjectHasTasksException("Project with the id " + projectId + " cannot be removed because there are tasks referencing to it");
-        }
-
-        projectsDao.remove(project);
-
-        decrementPositionsOfProjectsWithHigherPosition(project.getPosition());
-    }
+        try (ProjectLock ignored = projectLockManager.lockProjectList(); ProjectLock ignoredProjectLock = projectLockManager.lockProject(projectId)) {
+            Project project = projectsDao.getById(projectId);
+            if (project == null) {
+                throw new ProjectDoesNotExistException("Project with the id " + projectId + " does not exist");
+            }
 
-    /**
-     * Decrements positions of all projects that have a higher position than the specified position.
-     *
-     * @param position Position threshold.
-     */
-    private void decrementPositionsOfProjectsWithHigherPosition(int position) {
-        List<Project> projects = projectsDao.getAll();
-        for (Project project : projects) {
-            if (project.getPosition() > position) {
-                project.setPosition(project.getPosition() - 1);
-                projectsDao.save(project);
+            if (tasksDao.existsInProject(projectId)) {
+                throw new ProjectHasTasksException("Project with the id " + projectId + " cannot be removed because there are tasks referencing to it");
             }
+
+            // The other projects keep their sort keys, so the positions of the following projects close the gap without being updated.
+            projectsDao.remove(project);
+            recordChange(projectId);
+            responseCache.invalidateAfterCommit(projectId);
         }
     }
 
     @Override
     @Transactional(rollbackOn = Exception.class)
-    public synchronized void renameProject(int projectId, String newName) {
+    public void renameProject(int projectId, String newName) {
         validateId(projectId);
         validateName(newName);
 
-        Project project = projectsDao.getById(projectId);
-        if (project == null) {
-            throw new ProjectDoesNotExistException("No project with the id " + projectId + " exists");
-        }
+        try (ProjectLock ignored = projectLockManager.lockProjectList()) {
+            Project project = projectsDao.getById(projectId);
+            if (project == null) {
+                throw new ProjectDoesNotExistException("No project with the id " + projectId + " exists");
+            }
 
-        if (project.getName().equals(newName)) {
-            return;
-        }
+            if (project.getName().equals(newName)) {
+                return;
+            }
 
-        verifyProjectDoesNotExist(newName);
+            verifyProjectDoesNotExist(newName);
 
-        project.setName(newName);
+            project.setName(newName);
 
-        projectsDao.save(project);
+            projectsDao.save(project);
+            recordChange(projectId);
+        }
+    }
+
+    /**
+     * Increments the revision of the list of projects and records the specified project as changed at the new revision.
+     *
+     * @param projectId Id of the changed project.
+     */
+    private void recordChange(int projectId) {
+        incrementListRevision();
+        changesDao.recordProjectChange(projectId);
+    }
+
+    /**
+     * Increments the revision of the list of projects, and once the transaction commits, invalidates the loading list and publishes the new revision.
+     */
+    private void incrementListRevision() {
+        changePublisher.publishProjectsChanged(projectsDao.incrementListRevision());
+        projectLoads.forgetAfterCommit(PROJECT_LIST);
     }
 
     /**
@@ -116,7 +178,7 @@ public class ProjectsServiceImpl implements ProjectsService {
 
     @Override
     @Transactional(rollbackOn = Exception.class)
-    public synchronized void swapPositionsOfProjects(int projectId, int projectId2) {
+    public void swapPositionsOfProjects(int projectId, int projectId2) {
         validateId(projectId);
         validateId(projectId2);
 
@@ -124,28 +186,123 @@ public class ProjectsServiceImpl implements ProjectsService {
             throw new IllegalArgumentException("Project cannot swap position with itself");
         }
 
-        Project project1 = projectsDao.getById(projectId);
-        if (project1 == null) {
-            throw new ProjectDoesNotExistException("Project with the name " + projectId + " does not exist");
+        try (ProjectLock ignored = projectLockManager.lockProjectList()) {
+            Project project1 = projectsDao.getById(projectId);
+            if (project1 == null) {
+                throw new ProjectDoesNotExistException("Project with the name " + projectId + " does not exist");
+            }
+
+            Project project2 = projectsDao.getById(projectId2);
+            if (project2 == null) {
+                throw new ProjectDoesNotExistException("Project with the name " + projectId2 + " does not exist");
+            }
+
+            if (projectsDao.hasProjectsBetween(project1.getSortKey(), project2.getSortKey())) {
+                throw new IllegalArgumentException("The specified second project must be either previous or next from the specified first project");
+            }
+
+            long sortKeyOfProject1 = project1.getSortKey();
+            project1.setSortKey(project2.getSortKey());
+            project2.setSortKey(sortKeyOfProject1);
+
+            projectsDao.save(project1);
+            projectsDao.save(project2);
+            recordChange(projectId);
+            changesDao.recordProjectChange(projectId2);
+        }
+    }
+
+    @Override
+    @Transactional(rollbackOn = Exception.class)
+    public void moveProjectToIndex(int projectId, int index) {
+        validateId(projectId);
+        if (index < 0) {
+            throw new IllegalArgumentException("Index must not be negative");
+        }
+
+        try (ProjectLock ignored = projectLockManager.lockProjectList()) {
+            Project project = projectsDao.getById(projectId);
+            if (project == null) {
+                throw new ProjectDoesNotExistException("No project with the id " + projectId + " exists");
+            }
+
+            Long sortKey = getSortKeyForIndex(project, index);
+            boolean rebalanced = sortKey == null;
+            if (rebalanced) {
+                projectsDao.rebalanceSortKeys();
+
+                // The rebalancing cleared the session.
+                project = projectsDao.getById(projectId);
+                sortKey = getSortKeyForIndex(project, index);
+            }
+
+            project.setSortKey(sortKey);
+            projectsDao.save(project);
+            if (rebalanced) {
+                // The rebalancing changed the sort keys of every project.
+                incrementListRevision();
+                changesDao.recordProjectChanges();
+            } else {
+                recordChange(projectId);
+            }
+        }
+    }
+
+    /**
+     * Returns the sort key placing the specified project at the specified index.
+     * Reads at most the sort keys of the two projects that are going to be next to the project.
+     *
+     * @param project Project to be moved.
+     * @param index New index of the project.
+     * @return The sort key placing the specified project at the specified index. Null if the sort keys of the new neighbours are too close to fit a key between them.
+     * @throws IllegalArgumentException Thrown if the specified index is greater than the index of the last project.
+     */
+    private Long getSortKeyForIndex(Project project, int index) {
+        List<Long> neighbourSortKeys = projectsDao.getSortKeys(project.getId(), SortKeys.firstNeighbourOf(index), SortKeys.NEIGHBOURS);
+
+        return SortKeys.forIndex(index, neighbourSortKeys, project.getSortKey());
+    }
+
+    @Override
+    @Transactional(rollbackOn = Exception.class)
+    public void reorderProjects(List<Integer> projectIds) {
+        validateIds(projectIds);
+
+        try (ProjectLock ignored = projectLockManager.lockProjectList()) {
+            List<Integer> allProjectIds = projectsDao.getIds();
+            if (allProjectIds.size() != projectIds.size() || !new HashSet<>(allProjectIds).containsAll(projectIds)) {
+                throw new IllegalArgumentException("The specified project ids must be the ids of every project");
+            }
+
+            projectsDao.applyOrder(projectIds);
+            incrementListRevision();
+            changesDao.recordProjectChanges();
         }
+    }
 
-        Project project2 = projectsDao.getById(projectId2);
-        if (project2 == null) {
-            throw new ProjectDoesNotExistException("Project with the name " + projectId2 + " does not exist");
+    /**
+     * Validates the specified projectIds of a new order of projects.
+     *
+     * @param projectIds Project ids to be validated.
+     * @throws NullPointerException Thrown if the specified projectIds or any of them is null.
+     * @throws IllegalArgumentException Thrown if the specified projectIds are not valid.
+     */
+    private void validateIds(List<Integer> projectIds) {
+        if (projectIds == null) {
+            throw new NullPointerException("Project ids must not be null");
         }
 
-        boolean project2IsPreviousFromProject1 = project2.getPosition() == project1.getPosition() + 1;
-        boolean project2IsNextFromProject = project2.getPosition() == project1.getPosition() - 1;
-        if (!project2IsPreviousFromProject1 && !project2IsNextFromProject) {
-            throw new IllegalArgumentException("The specified second project must be either previous or next from the specified first project");
+        if (projectIds.isEmpty()) {
+            throw new IllegalArgumentException("Project ids must not be empty");
         }
 
-        int positionOfProject1 = project1.getPosition();
-        project1.setPosition(project2.getPosition());
-        project2.setPosition(positionOfProject1);
+        for (Integer projectId : projectIds) {
+            validateId(Objects.requireNonNull(projectId, "Project id must not be null"));
+        }
 
-        projectsDao.save(project1);
-        projectsDao.save(project2);
+        if (new HashSet<>(projectIds).size() != projectIds.size()) {
+            throw new IllegalArgumentException("Project ids must not contain the same id more than once");
+        }
     }
 
     /**
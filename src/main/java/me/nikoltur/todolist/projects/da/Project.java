@@ -1,12 +1,17 @@
 package me.nikoltur.todolist.projects.da;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import java.io.Serializable;
+import javax.persistence.Cacheable;
 import javax.persistence.Column;
 import javax.persistence.Entity;
 import javax.persistence.GeneratedValue;
 import javax.persistence.GenerationType;
 import javax.persistence.Id;
+import javax.persistence.SequenceGenerator;
 import javax.persistence.Table;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 /**
  * Represents a project.
@@ -14,17 +19,20 @@ import javax.persistence.Table;
  * @author Nikolas Turunen
  */
 @Entity
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
 @Table(name = "projects")
 public class Project implements Serializable {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "projects_id_seq")
+    @SequenceGenerator(name = "projects_id_seq", sequenceName = "projects_id_seq", allocationSize = 50)
     @Column(name = "id", nullable = false)
     private int id;
     @Column(name = "name", nullable = false, unique = true)
     private String name;
-    @Column(name = "position", nullable = false)
-    private int position;
+    @Column(name = "sort_key", nullable = false)
+    private long sortKey;
 
     public int getId() {
         return id;
@@ -38,11 +46,17 @@ public class Project implements Serializable {
         this.name = name;
     }
 
-    public int getPosition() {
-        return position;
+    /**
+     * Returns the key the project is ordered by.
+     *
+     * @return The key the project is ordered by.
+     */
+    @JsonIgnore
+    public long getSortKey() {
+        return sortKey;
     }
 
-    public void setPosition(int position) {
-        this.position = position;
+    public void setSortKey(long sortKey) {
+        this.sortKey = sortKey;
     }
 }
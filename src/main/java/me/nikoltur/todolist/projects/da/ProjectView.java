@@ -0,0 +1,36 @@
+package me.nikoltur.todolist.projects.da;
+
+/**
+ * Read-only view of a project.
+ *
+ * @author Nikolas Turunen
+ */
+public class ProjectView {
+
+    private final int id;
+    private final String name;
+    private final int position;
+
+    public ProjectView(int id, String name, int position) {
+        this.id = id;
+        this.name = name;
+        this.position = position;
+    }
+
+    public int getId() {
+        return id;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Returns the position of the project among all projects.
+     *
+     * @return The position of the project among all projects.
+     */
+    public int getPosition() {
+        return position;
+    }
+}
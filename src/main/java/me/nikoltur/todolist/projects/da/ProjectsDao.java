@@ -10,11 +10,12 @@ import java.util.List;
 public interface ProjectsDao {
 
     /**
-     * Returns a list containing all projects ordered by their position.
+     * Returns a list containing read-only views of all projects ordered by their position.
+     * The projects are not loaded into the session.
      *
-     * @return A list containing all projects ordered by their position.
+     * @return A list containing read-only views of all projects ordered by their position.
      */
-    public List<Project> getAll();
+    public List<ProjectView> getAll();
 
     /**
      * Returns the project with the specified name. Null if no project with the specified name exists.
@@ -32,6 +33,98 @@ public interface ProjectsDao {
      */
     public Project getById(int projectId);
 
+    /**
+     * Returns the sort key for a project appended after the last project.
+     * Computed by the database without loading the projects.
+     *
+     * @return The sort key for a project appended after the last project.
+     */
+    public long getNextSortKey();
+
+    /**
+     * Returns true if there are projects ordered between the specified sort keys.
+     *
+     * @param sortKey First sort key, exclusive.
+     * @param sortKey2 Second sort key, exclusive. May be lower than the first sort key.
+     * @return True if there are projects ordered between the specified sort keys.
+     */
+    public boolean hasProjectsBetween(long sortKey, long sortKey2);
+
+    /**
+     * Returns true if there are projects with sort keys closer to each other than the specified minimumGap.
+     *
+     * @param minimumGap Minimum gap between the sort keys of projects.
+     * @return True if there are projects with crowded sort keys.
+     */
+    public boolean hasCrowdedSortKeys(long minimumGap);
+
+    /**
+     * Spreads out the sort keys of all projects so that they are again a full gap apart.
+     * The order of the projects is unchanged. Executed as a single update regardless of the number of projects.
+     * The session is flushed and cleared, so projects loaded before must be loaded again.
+     */
+    public void rebalanceSortKeys();
+
+    /**
+     * Returns the sort keys of the projects in ascending order, leaving out the specified project, starting from the specified offset.
+     * Projects with equal sort keys are ordered by their ids as in the listing, so the offset is a position of the listing.
+     *
+     * @param excludedProjectId Id of the project to leave out.
+     * @param offset Index of the first sort key to return among the remaining projects.
+     * @param limit Maximum number of sort keys to return.
+     * @return A list containing the sort keys of the projects in ascending order.
+     */
+    public List<Long> getSortKeys(int excludedProjectId, int offset, int limit);
+
+    /**
+     * Returns the ids of all projects.
+     *
+     * @return A list containing the ids of all projects.
+     */
+    public List<Integer> getIds();
+
+    /**
+     * Sets the sort keys of the specified projects so that they are ordered as in the specified list, a full gap apart.
+     * Executed as a single update regardless of the number of projects.
+     * The session is flushed and cleared, so projects loaded before must be loaded again.
+     *
+     * @param projectIds Ids of the projects in their new order.
+     */
+    public void applyOrder(List<Integer> projectIds);
+
+    /**
+     * Returns the revision of the tasks of the specified project.
+     * The revision is read without reading the tasks.
+     *
+     * @param projectId Id of the project.
+     * @return The revision of the tasks of the specified project. Zero if the tasks have not been changed.
+     */
+    public long getRevisionOf(int projectId);
+
+    /**
+     * Increments the revision of the tasks of the specified project.
+     * The project must be locked, so that the revision is not incremented concurrently.
+     *
+     * @param projectId Id of the project.
+     * @return The incremented revision.
+     */
+    public long incrementRevisionOf(int projectId);
+
+    /**
+     * Returns the revision of the list of projects.
+     *
+     * @return The revision of the list of projects.
+     */
+    public long getListRevision();
+
+    /**
+     * Increments the revision of the list of projects.
+     * The list of projects must be locked, so that the revision is not incremented concurrently.
+     *
+     * @return The incremented revision.
+     */
+    public long incrementListRevision();
+
     /**
      * Saves the specified project.
      *
@@ -1,10 +1,17 @@
 package me.nikoltur.todolist.projects.da;
 
+import java.util.ArrayList;
 import java.util.List;
+import java.util.stream.Collectors;
+import javax.persistence.FlushModeType;
 import javax.persistence.NoResultException;
+import javax.persistence.Query;
 import javax.persistence.TypedQuery;
+import me.nikoltur.todolist.ordering.SortKeys;
 import org.hibernate.Session;
 import org.hibernate.SessionFactory;
+import org.hibernate.query.NativeQuery;
+import org.hibernate.type.IntegerType;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Repository;
 
@@ -16,16 +23,25 @@ import org.springframework.stereotype.Repository;
 @Repository
 public class ProjectsDaoImpl implements ProjectsDao {
 
+    private static final String REVISIONS_QUERY_SPACE = "project_revisions";
     @Autowired
     private SessionFactory sessionFactory;
 
     @Override
-    public List<Project> getAll() {
+    public List<ProjectView> getAll() {
         Session session = sessionFactory.getCurrentSession();
 
-        TypedQuery<Project> query = session.createQuery("from Project p order by p.position");
+        // Only the columns of the views are selected, so no entities are loaded into the session and nothing is flushed before the query.
+        Query query = session.createQuery("select p.id, p.name from Project p order by p.sortKey, p.id");
+        query.setFlushMode(FlushModeType.COMMIT);
 
-        return query.getResultList();
+        List<ProjectView> projects = new ArrayList<>();
+        for (Object row : query.getResultList()) {
+            Object[] columns = (Object[]) row;
+            projects.add(new ProjectView((Integer) columns[0], (String) columns[1], projects.size()));
+        }
+
+        return projects;
     }
 
     @Override
@@ -44,14 +60,151 @@ public class ProjectsDaoImpl implements ProjectsDao {
     @Override
     public Project getById(int projectId) {
         Session session = sessionFactory.getCurrentSession();
-        TypedQuery<Project> query = session.createQuery("from Project p where p.id = :projectId");
+
+        return session.get(Project.class, projectId);
+    }
+
+    @Override
+    public long getNextSortKey() {
+        Session session = sessionFactory.getCurrentSession();
+        TypedQuery<Long> query = session.createQuery("select coalesce(max(p.sortKey), 0) from Project p", Long.class);
+
+        return SortKeys.after(query.getSingleResult());
+    }
+
+    @Override
+    public boolean hasProjectsBetween(long sortKey, long sortKey2) {
+        Session session = sessionFactory.getCurrentSession();
+        TypedQuery<Integer> query = session.createQuery("select p.id from Project p where p.sortKey > :lowerSortKey and p.sortKey < :higherSortKey", Integer.class);
+        query.setParameter("lowerSortKey", Math.min(sortKey, sortKey2));
+        query.setParameter("higherSortKey", Math.max(sortKey, sortKey2));
+        query.setMaxResults(1);
+
+        return !query.getResultList().isEmpty();
+    }
+
+    @Override
+    public boolean hasCrowdedSortKeys(long minimumGap) {
+        Session session = sessionFactory.getCurrentSession();
+        NativeQuery<?> query = session.createNativeQuery("select 1 as crowded from ("
+                + "select sort_key - lag(sort_key) over (order by sort_key) as gap from projects"
+                + ") as gaps where gap < :minimumGap");
+        query.addScalar("crowded", IntegerType.INSTANCE);
+        query.setParameter("minimumGap", minimumGap);
+        query.setMaxResults(1);
+
+        return !query.getResultList().isEmpty();
+    }
+
+    @Override
+    public void rebalanceSortKeys() {
+        Session session = sessionFactory.getCurrentSession();
+        NativeQuery<?> query = session.createNativeQuery("update projects p set sort_key = r.rank * :gap from ("
+                + "select id, row_number() over (order by sort_key, id) as rank from projects"
+                + ") as r where p.id = r.id and p.sort_key <> r.rank * :gap");
+        query.setParameter("gap", SortKeys.GAP);
+
+        executeBulkUpdate(session, query);
+    }
+
+    @Override
+    public List<Long> getSortKeys(int excludedProjectId, int offset, int limit) {
+        Session session = sessionFactory.getCurrentSession();
+        TypedQuery<Long> query = session.createQuery("select p.sortKey from Project p where p.id<>:excludedProjectId order by p.sortKey, p.id", Long.class);
+        query.setParameter("excludedProjectId", excludedProjectId);
+        query.setFirstResult(offset);
+        query.setMaxResults(limit);
+
+        return query.getResultList();
+    }
+
+    @Override
+    public List<Integer> getIds() {
+        Session session = sessionFactory.getCurrentSession();
+        TypedQuery<Integer> query = session.createQuery("select p.id from Project p", Integer.class);
+
+        return query.getResultList();
+    }
+
+    @Override
+    public void applyOrder(List<Integer> projectIds) {
+        Session session = sessionFactory.getCurrentSession();
+        // The ids are passed as a single parameter, so the size of the statement does not depend on the number of projects.
+        NativeQuery<?> query = session.createNativeQuery("update projects p set sort_key = o.rank * :gap"
+                + " from unnest(cast(string_to_array(:projectIds, ',') as integer[])) with ordinality as o(id, rank) where p.id = o.id");
+        query.setParameter("gap", SortKeys.GAP);
+        query.setParameter("projectIds", projectIds.stream().map(String::valueOf).collect(Collectors.joining(",")));
+
+        executeBulkUpdate(session, query);
+    }
+
+    @Override
+    public long getRevisionOf(int projectId) {
+        Session session = sessionFactory.getCurrentSession();
+        NativeQuery<?> query = session.createNativeQuery("select revision from project_revisions where project_id = :projectId");
         query.setParameter("projectId", projectId);
 
-        try {
-            return query.getSingleResult();
-        } catch (NoResultException ignored) {
-            return null;
-        }
+        return getRevision(query);
+    }
+
+    @Override
+    public long incrementRevisionOf(int projectId) {
+        Session session = sessionFactory.getCurrentSession();
+        NativeQuery<?> query = session.createNativeQuery("insert into project_revisions (project_id, revision) values (:projectId, 1)"
+                + " on conflict (project_id) do update set revision = project_revisions.revision + 1 returning revision");
+        query.setParameter("projectId", projectId);
+
+        return getRevision(query);
+    }
+
+    @Override
+    public long getListRevision() {
+        Session session = sessionFactory.getCurrentSession();
+        NativeQuery<?> query = session.createNativeQuery("select revision from project_list_revision");
+
+        return getRevision(query);
+    }
+
+    @Override
+    public long incrementListRevision() {
+        Session session = sessionFactory.getCurrentSession();
+        NativeQuery<?> query = session.createNativeQuery("update project_list_revision set revision = revision + 1 returning revision");
+
+        return getRevision(query);
+    }
+
+    /**
+     * Returns the revision selected or returned by the specified query.
+     * Increments return the new revision, so they are executed as queries as well.
+     *
+     * @param query Query selecting or returning at most one revision.
+     * @return The selected revision. Zero if no revision was selected.
+     */
+    private long getRevision(NativeQuery<?> query) {
+        // The revisions are not mapped to entities, so nothing in the session has to be flushed before the query.
+        // Executed as a query, an increment does not invalidate the second-level cache either.
+        query.addSynchronizedQuerySpace(REVISIONS_QUERY_SPACE);
+        query.setFlushMode(FlushModeType.COMMIT);
+
+        List<?> revisions = query.getResultList();
+
+        return revisions.isEmpty() ? 0 : ((Number) revisions.get(0)).longValue();
+    }
+
+    /**
+     * Executes the specified native update of the sort keys of projects.
+     * The session is flushed before and cleared after the update, so no project in the session is left with a stale sort key that a later flush would write back.
+     *
+     * @param session Current session.
+     * @param query Update to be executed.
+     */
+    private void executeBulkUpdate(Session session, NativeQuery<?> query) {
+        // Limits the invalidation of the second-level cache to projects.
+        query.addSynchronizedEntityClass(Project.class);
+
+        session.flush();
+        query.executeUpdate();
+        session.clear();
     }
 
     @Override
@@ -0,0 +1,126 @@
+package me.nikoltur.todolist.queries;
+
+import java.util.HashMap;
+import java.util.Map;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.util.ClassUtils;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.handler.HandlerInterceptorAdapter;
+
+/**
+ * Interceptor that tracks the queries of each request and logs a warning when a request makes more statements than the budget of its endpoint.
+ *
+ * Endpoints are named by the simple name of their resource and the name of their method, for example TasksResource.getTasks.
+ * The warning lists the statements and fetched collections that were repeated most, which points out N+1 selects.
+ *
+ * @author Nikolas Turunen
+ */
+public class QueryBudgetInterceptor extends HandlerInterceptorAdapter {
+
+    private static final Logger logger = LoggerFactory.getLogger(QueryBudgetInterceptor.class);
+    private static final int LOGGED_SHAPES = 5;
+    private final QueryTracker queryTracker;
+    private final int defaultBudget;
+    private final Map<String, Integer> budgets;
+
+    /**
+     * Creates an interceptor enforcing the specified budgets.
+     *
+     * @param queryTracker Tracker of the queries of the current thread.
+     * @param defaultBudget Maximum number of statements of endpoints without a budget of their own.
+     * @param budgets Maximum numbers of statements by the names of their endpoints.
+     */
+    public QueryBudgetInterceptor(QueryTracker queryTracker, int defaultBudget, Map<String, Integer> budgets) {
+        this.queryTracker = queryTracker;
+        this.defaultBudget = defaultBudget;
+        this.budgets = new HashMap<>(budgets);
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        if (handler instanceof HandlerMethod) {
+            queryTracker.start();
+        }
+
+        return true;
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex) {
+        RequestQueries queries = queryTracker.stop();
+        if (queries == null) {
+            return;
+        }
+
+        String endpoint = getEndpointName((HandlerMethod) handler);
+        int budget = getBudget(endpoint);
+        if (queries.getStatements() > budget) {
+            logger.warn("{} made {} statements, over its budget of {}, with {} entity loads and {} collection fetches. Most repeated: {}",
+                    endpoint, queries.getStatements(), budget, queries.getEntityLoads(), queries.getCollectionFetches(), queries.getMostRepeatedShapes(LOGGED_SHAPES));
+        }
+    }
+
+    @Override
+    public void afterConcurrentHandlingStarted(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        // The request continues on another thread, such as subscriptions to events, so its queries are no longer tracked.
+        queryTracker.stop();
+    }
+
+    /**
+     * Returns the budget of the specified endpoint.
+     *
+     * @param endpoint Name of the endpoint.
+     * @return The maximum number of statements of the endpoint.
+     */
+    int getBudget(String endpoint) {
+        return budgets.getOrDefault(endpoint, defaultBudget);
+    }
+
+    /**
+     * Returns the name of the endpoint of the specified handler.
+     *
+     * @param handlerMethod Handler of a request.
+     * @return The name of the endpoint, the simple name of its resource followed by a dot and the name of its method.
+     */
+    static String getEndpointName(HandlerMethod handlerMethod) {
+        return ClassUtils.getUserClass(handlerMethod.getBeanType()).getSimpleName() + "." + handlerMethod.getMethod().getName();
+    }
+
+    /**
+     * Parses budgets of endpoints from a comma-separated list of endpoint names and budgets separated by colons,
+     * for example "TasksResource.getTasks:4,ProjectsResource.getProjects:2".
+     *
+     * @param budgets Comma-separated budgets. May be empty.
+     * @return The budgets by the names of their endpoints.
+     * @throws IllegalArgumentException Thrown if a budget is not an endpoint name and a non-negative number separated by a colon.
+     */
+    public static Map<String, Integer> parseBudgets(String budgets) {
+        Map<String, Integer> parsedBudgets = new HashMap<>();
+        for (String budget : budgets.split(",")) {
+            if (budget.trim().isEmpty()) {
+                continue;
+            }
+
+            String[] parts = budget.split(":");
+            if (parts.length != 2) {
+                throw new IllegalArgumentException("Invalid query budget " + budget + ", expected an endpoint and a number of statements separated by a colon");
+            }
+            int statements;
+            try {
+                statements = Integer.parseInt(parts[1].trim());
+            } catch (NumberFormatException ex) {
+                throw new IllegalArgumentException("Invalid number of statements in query budget " + budget, ex);
+            }
+            if (statements < 0) {
+                throw new IllegalArgumentException("Number of statements in query budget " + budget + " is negative");
+            }
+
+            parsedBudgets.put(parts[0].trim(), statements);
+        }
+
+        return parsedBudgets;
+    }
+}
@@ -0,0 +1,73 @@
+package me.nikoltur.todolist.queries;
+
+import org.hibernate.HibernateException;
+import org.hibernate.event.spi.InitializeCollectionEvent;
+import org.hibernate.event.spi.InitializeCollectionEventListener;
+import org.hibernate.event.spi.PostLoadEvent;
+import org.hibernate.event.spi.PostLoadEventListener;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+/**
+ * Tracks the statements, entity loads and collection fetches made by the current thread between {@link #start()} and {@link #stop()}.
+ *
+ * Installed into Hibernate as the statement inspector and as a listener of loads and collection initializations.
+ * Threads that are not tracking only pay for looking up a thread local.
+ *
+ * Thread safe.
+ *
+ * @author Nikolas Turunen
+ */
+public class QueryTracker implements StatementInspector, PostLoadEventListener, InitializeCollectionEventListener {
+
+    private final ThreadLocal<RequestQueries> current = new ThreadLocal<>();
+
+    /**
+     * Starts tracking the queries of the current thread, discarding any earlier tracking.
+     *
+     * @return The queries of the current thread, updated until tracking is stopped.
+     */
+    public RequestQueries start() {
+        RequestQueries queries = new RequestQueries();
+        current.set(queries);
+
+        return queries;
+    }
+
+    /**
+     * Stops tracking the queries of the current thread.
+     *
+     * @return The queries of the current thread since tracking was started, or null if it was not tracking.
+     */
+    public RequestQueries stop() {
+        RequestQueries queries = current.get();
+        current.remove();
+
+        return queries;
+    }
+
+    @Override
+    public String inspect(String sql) {
+        RequestQueries queries = current.get();
+        if (queries != null) {
+            queries.recordStatement(sql);
+        }
+
+        return sql;
+    }
+
+    @Override
+    public void onPostLoad(PostLoadEvent event) {
+        RequestQueries queries = current.get();
+        if (queries != null) {
+            queries.recordEntityLoad();
+        }
+    }
+
+    @Override
+    public void onInitializeCollection(InitializeCollectionEvent event) throws HibernateException {
+        RequestQueries queries = current.get();
+        if (queries != null) {
+            queries.recordCollectionFetch(event.getCollection().getRole());
+        }
+    }
+}
@@ -0,0 +1,96 @@
+package me.nikoltur.todolist.queries;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Statements, entity loads and collection fetches made while handling one request.
+ *
+ * Not thread safe, each instance is only used by the thread handling its request.
+ *
+ * @author Nikolas Turunen
+ */
+public class RequestQueries {
+
+    /**
+     * Maximum number of distinct statements and fetched collections counted separately, so a request cannot grow them without bound.
+     */
+    static final int MAX_SHAPES = 50;
+    private final Map<String, Integer> shapeCounts = new HashMap<>();
+    private int statements;
+    private int entityLoads;
+    private int collectionFetches;
+
+    /**
+     * Records a prepared statement.
+     *
+     * @param sql SQL of the statement, with placeholders for its parameters.
+     */
+    public void recordStatement(String sql) {
+        statements++;
+        recordShape(sql);
+    }
+
+    /**
+     * Records an entity loaded from the database or the second-level cache.
+     */
+    public void recordEntityLoad() {
+        entityLoads++;
+    }
+
+    /**
+     * Records a lazily fetched collection.
+     *
+     * @param role Role of the collection, for example the details of tasks.
+     */
+    public void recordCollectionFetch(String role) {
+        collectionFetches++;
+        recordShape(role);
+    }
+
+    public int getStatements() {
+        return statements;
+    }
+
+    public int getEntityLoads() {
+        return entityLoads;
+    }
+
+    public int getCollectionFetches() {
+        return collectionFetches;
+    }
+
+    /**
+     * Returns the statements and fetched collections that were repeated most, each prefixed with the number of times it was repeated.
+     *
+     * @param limit Maximum number of shapes to return.
+     * @return The most repeated statements and fetched collections, most repeated first.
+     */
+    public List<String> getMostRepeatedShapes(int limit) {
+        List<Map.Entry<String, Integer>> entries = new ArrayList<>(shapeCounts.entrySet());
+        entries.sort(Map.Entry.<String, Integer>comparingByValue().reversed());
+
+        List<String> shapes = new ArrayList<>();
+        for (Map.Entry<String, Integer> entry : entries.subList(0, Math.min(limit, entries.size()))) {
+            shapes.add(entry.getValue() + "x " + entry.getKey());
+        }
+
+        return shapes;
+    }
+
+    /**
+     * Counts a statement or fetched collection.
+     *
+     * @param shape SQL of the statement or role of the collection.
+     */
+    private void recordShape(String shape) {
+        Integer count = shapeCounts.get(shape);
+        if (count != null) {
+            shapeCounts.put(shape, count + 1);
+        } else if (shapeCounts.size() < MAX_SHAPES) {
+            shapeCounts.put(shape, 1);
+        }
+    }
+}
@@ -0,0 +1,178 @@
+package me.nikoltur.todolist.queries;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Locale;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import javax.sql.DataSource;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Log of statements that took longer than a threshold to execute.
+ *
+ * Slow statements are logged as warnings with the types of their bound parameters, or with their values if enabled, since the values may be personal data.
+ * Slow batches are logged with the number of statements in them.
+ * A sampled share of the slow selects is explained with EXPLAIN (ANALYZE, BUFFERS) in the background and the plans are written to the logger {@value #PLANS_LOGGER}.
+ * Explaining executes the select again, so it is done in a read-only transaction that is rolled back, on a connection of its own.
+ * Statements to explain are dropped while {@value #QUEUE_CAPACITY} are already waiting, so a slow database is not loaded further.
+ *
+ * Thread safe.
+ *
+ * @author Nikolas Turunen
+ */
+public class SlowStatementLog {
+
+    /**
+     * Name of the logger the plans of slow selects are written to.
+     */
+    public static final String PLANS_LOGGER = "me.nikoltur.todolist.queries.plans";
+    private static final Logger logger = LoggerFactory.getLogger(SlowStatementLog.class);
+    private static final Logger plansLogger = LoggerFactory.getLogger(PLANS_LOGGER);
+    private static final int QUEUE_CAPACITY = 16;
+    private static final int EXPLAIN_TIMEOUT_SECONDS = 30;
+    private final DataSource dataSource;
+    private final long thresholdNanos;
+    private final double explainSampleRate;
+    private final boolean logParameterValues;
+    private final ThreadPoolExecutor executor;
+
+    /**
+     * Creates a log of slow statements.
+     *
+     * @param dataSource Data source to take the connections explaining statements from.
+     * @param thresholdMillis Time in milliseconds after which a statement is slow.
+     * @param explainSampleRate Share of the slow selects to explain, between 0 and 1. Nothing is explained with 0.
+     * @param logParameterValues True to log the values of the bound parameters, false to log only their types.
+     * @throws IllegalArgumentException Thrown if the threshold is negative or the sample rate is not between 0 and 1.
+     */
+    public SlowStatementLog(DataSource dataSource, long thresholdMillis, double explainSampleRate, boolean logParameterValues) {
+        if (thresholdMillis < 0) {
+            throw new IllegalArgumentException("Threshold of slow statements is negative");
+        }
+        if (explainSampleRate < 0 || explainSampleRate > 1) {
+            throw new IllegalArgumentException("Sample rate of explained statements " + explainSampleRate + " is not between 0 and 1");
+        }
+
+        this.dataSource = dataSource;
+        this.thresholdNanos = TimeUnit.MILLISECONDS.toNanos(thresholdMillis);
+        this.explainSampleRate = explainSampleRate;
+        this.logParameterValues = logParameterValues;
+        this.executor = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(QUEUE_CAPACITY), new ThreadPoolExecutor.DiscardPolicy());
+    }
+
+    /**
+     * Records an executed statement, logging it if it was slow.
+     *
+     * @param sql SQL of the statement.
+     * @param parameters Bound parameters of the statement by their indices. Empty for statements without parameters.
+     * @param nanos Time in nanoseconds the statement took to execute.
+     */
+    public void statementExecuted(String sql, Map<Integer, Object> parameters, long nanos) {
+        if (nanos < thresholdNanos) {
+            return;
+        }
+
+        logger.warn("Statement took {} ms: {} with parameters {}", TimeUnit.NANOSECONDS.toMillis(nanos), sql, describe(parameters));
+
+        if (isExplainable(sql) && explainSampleRate > 0 && ThreadLocalRandom.current().nextDouble() < explainSampleRate) {
+            // Copied since the caller may clear the parameters for the next execution.
+            SortedMap<Integer, Object> boundParameters = new TreeMap<>(parameters);
+            executor.execute(() -> explain(sql, boundParameters));
+        }
+    }
+
+    /**
+     * Records an executed batch, logging it if it was slow.
+     * Batches are not explained, since they only consist of writes.
+     *
+     * @param sql SQL of the statements of the batch.
+     * @param batchSize Number of statements in the batch.
+     * @param nanos Time in nanoseconds the batch took to execute.
+     */
+    public void batchExecuted(String sql, int batchSize, long nanos) {
+        if (nanos >= thresholdNanos) {
+            logger.warn("Batch of {} statements took {} ms: {}", batchSize, TimeUnit.NANOSECONDS.toMillis(nanos), sql);
+        }
+    }
+
+    /**
+     * Stops explaining statements. Statements waiting to be explained are dropped.
+     */
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * Explains the specified select and writes its plan to the log of plans.
+     *
+     * @param sql SQL of the select.
+     * @param parameters Bound parameters of the select by their indices.
+     */
+    private void explain(String sql, SortedMap<Integer, Object> parameters) {
+        try (Connection connection = dataSource.getConnection()) {
+            connection.setAutoCommit(false);
+            connection.setReadOnly(true);
+            try (PreparedStatement statement = connection.prepareStatement("EXPLAIN (ANALYZE, BUFFERS) " + sql)) {
+                statement.setQueryTimeout(EXPLAIN_TIMEOUT_SECONDS);
+                for (Map.Entry<Integer, Object> parameter : parameters.entrySet()) {
+                    statement.setObject(parameter.getKey(), parameter.getValue());
+                }
+
+                StringBuilder plan = new StringBuilder();
+                try (ResultSet resultSet = statement.executeQuery()) {
+                    while (resultSet.next()) {
+                        plan.append('\n').append(resultSet.getString(1));
+                    }
+                }
+
+                plansLogger.info("Plan of {} with parameters {}:{}", sql, describe(parameters), plan);
+            } finally {
+                connection.rollback();
+                connection.setReadOnly(false);
+            }
+        } catch (SQLException | RuntimeException ex) {
+            logger.warn("Could not explain statement " + sql, ex);
+        }
+    }
+
+    /**
+     * Returns the specified parameters as they are logged: with their values if enabled, otherwise with the simple names of their types.
+     *
+     * @param parameters Bound parameters by their indices.
+     * @return The parameters to log.
+     */
+    Map<Integer, Object> describe(Map<Integer, Object> parameters) {
+        if (logParameterValues) {
+            return parameters;
+        }
+
+        Map<Integer, Object> types = new TreeMap<>();
+        for (Map.Entry<Integer, Object> parameter : parameters.entrySet()) {
+            types.put(parameter.getKey(), parameter.getValue() == null ? null : parameter.getValue().getClass().getSimpleName());
+        }
+
+        return types;
+    }
+
+    /**
+     * Returns whether the specified statement can be explained without side effects.
+     * Only selects are explained, and not those taking locks, since analyzing them would wait for the locks again.
+     *
+     * @param sql SQL of the statement.
+     * @return True if the statement can be explained, false otherwise.
+     */
+    static boolean isExplainable(String sql) {
+        String normalized = sql.trim().toLowerCase(Locale.ROOT);
+
+        return normalized.startsWith("select") && !normalized.contains(" for update") && !normalized.contains(" for share") && !normalized.contains("pg_advisory");
+    }
+}
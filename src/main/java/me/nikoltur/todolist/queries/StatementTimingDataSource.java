@@ -0,0 +1,175 @@
+package me.nikoltur.todolist.queries;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Map;
+import java.util.TreeMap;
+import javax.sql.DataSource;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+/**
+ * Data source timing the execution of each statement of its connections and reporting it to a {@link SlowStatementLog}.
+ *
+ * Statements and prepared statements are timed from the start to the end of their execute methods, so reading the rows of a result set is not included.
+ * The parameters bound to prepared statements are kept so that slow statements can be logged and explained with them.
+ * Batches are reported with the number of statements added to them, since the parameters kept are only those of the last statement.
+ *
+ * @author Nikolas Turunen
+ */
+public class StatementTimingDataSource extends DelegatingDataSource {
+
+    private final SlowStatementLog slowStatementLog;
+
+    /**
+     * Creates a data source timing the statements of the connections of the specified data source.
+     *
+     * @param targetDataSource Data source to take the connections from.
+     * @param slowStatementLog Log to report the executed statements to.
+     */
+    public StatementTimingDataSource(DataSource targetDataSource, SlowStatementLog slowStatementLog) {
+        super(targetDataSource);
+        this.slowStatementLog = slowStatementLog;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return wrap(super.getConnection());
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return wrap(super.getConnection(username, password));
+    }
+
+    /**
+     * Wraps the specified connection so that its statements are timed.
+     *
+     * @param connection Connection to wrap.
+     * @return A connection timing its statements.
+     */
+    private Connection wrap(Connection connection) {
+        return (Connection) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[]{Connection.class}, (proxy, method, args) -> {
+            if (isIdentityMethod(method)) {
+                return invokeIdentityMethod(proxy, method, args);
+            }
+
+            Object result = invoke(connection, method, args);
+
+            if (method.getName().equals("prepareStatement")) {
+                return Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[]{PreparedStatement.class}, new TimedStatementHandler((Statement) result, (String) args[0]));
+            }
+            if (method.getName().equals("createStatement")) {
+                return Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[]{Statement.class}, new TimedStatementHandler((Statement) result, null));
+            }
+
+            return result;
+        });
+    }
+
+    /**
+     * Returns whether the specified method is equals or hashCode, which have to be answered by a proxy itself so that it equals only itself.
+     *
+     * @param method Method invoked on a proxy.
+     * @return True if the method is equals or hashCode, false otherwise.
+     */
+    private static boolean isIdentityMethod(Method method) {
+        return method.getName().equals("equals") && method.getParameterCount() == 1 || method.getName().equals("hashCode") && method.getParameterCount() == 0;
+    }
+
+    /**
+     * Invokes equals or hashCode on the specified proxy by identity.
+     *
+     * @param proxy Proxy the method was invoked on.
+     * @param method Equals or hashCode.
+     * @param args Arguments of the method.
+     * @return The result of the method.
+     */
+    private static Object invokeIdentityMethod(Object proxy, Method method, Object[] args) {
+        return method.getName().equals("equals") ? proxy == args[0] : System.identityHashCode(proxy);
+    }
+
+    /**
+     * Invokes the specified method, throwing the exceptions it throws as they are.
+     *
+     * @param target Object to invoke the method on.
+     * @param method Method to invoke.
+     * @param args Arguments of the method.
+     * @return The result of the method.
+     * @throws Throwable Thrown if the method throws.
+     */
+    private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException ex) {
+            throw ex.getCause();
+        }
+    }
+
+    /**
+     * Handler of a statement that records its bound parameters and times its executions.
+     */
+    private class TimedStatementHandler implements InvocationHandler {
+
+        private final Statement statement;
+        private final String sql;
+        private final Map<Integer, Object> parameters = new TreeMap<>();
+        private int batchSize;
+
+        /**
+         * Creates a handler of the specified statement.
+         *
+         * @param statement Statement to handle.
+         * @param sql SQL of a prepared statement, or null if the SQL is given when the statement is executed.
+         */
+        TimedStatementHandler(Statement statement, String sql) {
+            this.statement = statement;
+            this.sql = sql;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            if (isIdentityMethod(method)) {
+                return invokeIdentityMethod(proxy, method, args);
+            }
+
+            String name = method.getName();
+            if (name.equals("executeBatch") || name.equals("executeLargeBatch")) {
+                long start = System.nanoTime();
+                try {
+                    return StatementTimingDataSource.invoke(statement, method, args);
+                } finally {
+                    slowStatementLog.batchExecuted(sql != null ? sql : "batch", batchSize, System.nanoTime() - start);
+                    // Executing a batch empties it.
+                    batchSize = 0;
+                }
+            }
+            if (name.startsWith("execute")) {
+                long start = System.nanoTime();
+                try {
+                    return StatementTimingDataSource.invoke(statement, method, args);
+                } finally {
+                    String executedSql = sql != null ? sql : (String) args[0];
+                    slowStatementLog.statementExecuted(executedSql, parameters, System.nanoTime() - start);
+                }
+            }
+
+            if (name.startsWith("set") && args != null && args.length >= 2 && args[0] instanceof Integer) {
+                parameters.put((Integer) args[0], name.equals("setNull") ? null : args[1]);
+            } else if (name.equals("clearParameters")) {
+                parameters.clear();
+            } else if (name.equals("addBatch")) {
+                batchSize++;
+            } else if (name.equals("clearBatch")) {
+                batchSize = 0;
+            }
+
+            return StatementTimingDataSource.invoke(statement, method, args);
+        }
+    }
+}
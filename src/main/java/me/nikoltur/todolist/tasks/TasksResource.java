@@ -1,15 +1,24 @@
 package me.nikoltur.todolist.tasks;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.IOException;
 import java.util.List;
+import javax.servlet.http.HttpServletResponse;
 import me.nikoltur.todolist.RestControllerConfiguration;
-import me.nikoltur.todolist.tasks.da.Task;
+import me.nikoltur.todolist.caching.CachedResponse;
+import me.nikoltur.todolist.caching.ResponseCache;
+import me.nikoltur.todolist.caching.Revisioned;
+import me.nikoltur.todolist.tasks.da.TaskPage;
+import me.nikoltur.todolist.tasks.da.TaskView;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
 import org.springframework.web.bind.annotation.CrossOrigin;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
 
 /**
  * Rest-resource to access and manage tasks.
@@ -24,16 +33,67 @@ public class TasksResource {
     private static final String BASE_PATH = "/tasks";
     @Autowired
     private TasksService tasksService;
+    @Autowired
+    private ResponseCache responseCache;
+    @Autowired
+    private ObjectMapper objectMapper;
 
     /**
-     * Returns a list containing tasks of the specified project ordered by their position.
+     * Writes a list containing tasks of the specified project ordered by their position as JSON to the response.
+     * The revision the tasks were read at is sent as the ETag, and if it matches the ETag of the request, the response is 304 Not Modified.
+     * The encoded list is cached until the tasks change, so unchanged tasks are sent without reading or serializing them.
      *
      * @param projectId Id of the project.
-     * @return A list containing tasks of the specified project ordered by their position.
+     * @param webRequest Current request.
+     * @param response Response to write the tasks to.
+     * @throws IOException Thrown if writing the response fails.
      */
     @GetMapping(BASE_PATH)
-    public List<Task> getTasks(@RequestParam("projectId") int projectId) {
-        return tasksService.getTasks(projectId);
+    public void getTasks(@RequestParam("projectId") int projectId, WebRequest webRequest, HttpServletResponse response) throws IOException {
+        CachedResponse cachedResponse = responseCache.get(projectId);
+        if (cachedResponse == null) {
+            // The stamp is taken first, so tasks read before a concurrent commit are not cached over its invalidation.
+            long stamp = responseCache.getStamp(projectId);
+            // The tasks come with the revision they were read at, so the ETag and the cached entry never claim a revision newer than the tasks.
+            Revisioned<List<TaskView>> tasks = tasksService.getTasks(projectId);
+
+            cachedResponse = new CachedResponse(tasks.getRevision(), objectMapper.writeValueAsBytes(tasks.getValue()));
+            responseCache.put(projectId, stamp, tasks.getRevision(), cachedResponse.getBody());
+        }
+
+        if (webRequest.checkNotModified(Long.toString(cachedResponse.getRevision()))) {
+            return;
+        }
+
+        response.setContentType(MediaType.APPLICATION_JSON_UTF8_VALUE);
+        response.setContentLength(cachedResponse.getBody().length);
+        response.getOutputStream().write(cachedResponse.getBody());
+    }
+
+    /**
+     * Returns a page of the top-level tasks of the specified project ordered by their position, with the details of the tasks at every level.
+     *
+     * @param projectId Id of the project.
+     * @param cursor Cursor of the page, as returned with the previous page. The first page if not specified.
+     * @param limit Maximum number of top-level tasks on the page.
+     * @return A page of the top-level tasks of the specified project.
+     */
+    @GetMapping(BASE_PATH + "/page")
+    public TaskPage getTaskPage(@RequestParam("projectId") int projectId, @RequestParam(name = "cursor", required = false) String cursor, @RequestParam(name = "limit", defaultValue = "50") int limit) {
+        return tasksService.getTaskPage(projectId, cursor, limit);
+    }
+
+    /**
+     * Writes the specified project and all of its tasks as JSON to the response while the tasks are read.
+     *
+     * @param projectId Id of the project.
+     * @param response Response to write the project to.
+     * @throws IOException Thrown if writing the response fails.
+     */
+    @GetMapping(BASE_PATH + "/export")
+    public void exportTasks(@RequestParam("projectId") int projectId, HttpServletResponse response) throws IOException {
+        response.setContentType(MediaType.APPLICATION_JSON_UTF8_VALUE);
+        tasksService.exportTasks(projectId, response.getOutputStream());
     }
 
     /**
@@ -90,6 +150,27 @@ public class TasksResource {
         tasksService.swapPositionsOfTasks(taskId, taskId2);
     }
 
+    /**
+     * Moves the specified task to the specified index among its siblings.
+     *
+     * @param taskId Id of the task.
+     * @param index New index of the task among its siblings.
+     */
+    @PostMapping(BASE_PATH + "/movetoindex")
+    public void moveTaskToIndex(@RequestParam("taskId") int taskId, @RequestParam("index") int index) {
+        tasksService.moveTaskToIndex(taskId, index);
+    }
+
+    /**
+     * Orders the specified tasks as in the specified list. The tasks must be every sibling of the first task.
+     *
+     * @param taskIds Ids of the tasks in their new order.
+     */
+    @PostMapping(BASE_PATH + "/reorder")
+    public void reorderTasks(@RequestParam("taskIds") List<Integer> taskIds) {
+        tasksService.reorderTasks(taskIds);
+    }
+
     /**
      * Sets the specified task as completed.
      *
@@ -1,8 +1,12 @@
 package me.nikoltur.todolist.tasks;
 
+import java.io.IOException;
+import java.io.OutputStream;
 import java.util.List;
+import me.nikoltur.todolist.caching.Revisioned;
 import me.nikoltur.todolist.projects.ProjectDoesNotExistException;
-import me.nikoltur.todolist.tasks.da.Task;
+import me.nikoltur.todolist.tasks.da.TaskPage;
+import me.nikoltur.todolist.tasks.da.TaskView;
 
 /**
  * Service to access and control tasks.
@@ -12,14 +16,58 @@ import me.nikoltur.todolist.tasks.da.Task;
 public interface TasksService {
 
     /**
-     * Return a list containing tasks of the specified project ordered by their position.
+     * Maximum number of top-level tasks on a page.
+     */
+    public static final int MAX_PAGE_SIZE = 100;
+
+    /**
+     * Return a list containing read-only views of the tasks of the specified project ordered by their position, with the revision the tasks were read at.
+     * The views contain the details of the tasks at every level and do not depend on the transaction.
+     *
+     * @param projectId Id of the project.
+     * @return A list containing read-only views of the tasks of the specified project ordered by their position, with the revision of the tasks.
+     * @throws ProjectDoesNotExistException Thrown if a project with the specified projectId does not exist.
+     * @throws IllegalArgumentException Thrown if the specified projectId is negative or zero.
+     */
+    public Revisioned<List<TaskView>> getTasks(int projectId);
+
+    /**
+     * Returns the revision of the tasks of the specified project.
+     * The revision is incremented by every change of the tasks of the project, so listings of the tasks at the same revision are equal.
+     *
+     * @param projectId Id of the project.
+     * @return The revision of the tasks of the specified project.
+     * @throws ProjectDoesNotExistException Thrown if a project with the specified projectId does not exist.
+     * @throws IllegalArgumentException Thrown if the specified projectId is negative or zero.
+     */
+    public long getRevision(int projectId);
+
+    /**
+     * Returns a page of read-only views of the top-level tasks of the specified project ordered by their position, with the details of the tasks at every level.
+     * The next page is requested with the cursor of the returned page until the returned page has no cursor.
      *
      * @param projectId Id of the project.
-     * @return A list containing tasks of the specified project ordered by their position.
+     * @param cursor Cursor of the page, as returned with the previous page. Null for the first page.
+     * @param limit Maximum number of top-level tasks on the page.
+     * @return A page of read-only views of the top-level tasks of the specified project.
+     * @throws ProjectDoesNotExistException Thrown if a project with the specified projectId does not exist.
+     * @throws IllegalArgumentException Thrown if the specified projectId is negative or zero, the specified cursor is invalid
+     * or the specified limit is not between one and {@link #MAX_PAGE_SIZE}.
+     */
+    public TaskPage getTaskPage(int projectId, String cursor, int limit);
+
+    /**
+     * Writes the specified project and all of its tasks as JSON to the specified output stream.
+     * The tasks are written as a flat list one at a time while they are read, parent tasks before their details, so projects of any size can be exported.
+     * The output stream is not closed.
+     *
+     * @param projectId Id of the project.
+     * @param outputStream Output stream to write the project to.
+     * @throws IOException Thrown if writing to the output stream fails.
      * @throws ProjectDoesNotExistException Thrown if a project with the specified projectId does not exist.
      * @throws IllegalArgumentException Thrown if the specified projectId is negative or zero.
      */
-    public List<Task> getTasks(int projectId);
+    public void exportTasks(int projectId, OutputStream outputStream) throws IOException;
 
     /**
      * Creates a new task for the specified project.
@@ -33,7 +81,7 @@ public interface TasksService {
     public void createTask(int projectId, String taskString);
 
     /**
-     * Removes the specified task.
+     * Removes the specified task and its details at every level.
      *
      * @param taskId Id of the task to be removed.
      * @throws TaskDoesNotExistException Thrown if no task with the specified taskId exists.
@@ -77,6 +125,31 @@ public interface TasksService {
      */
     public void swapPositionsOfTasks(int taskId, int taskId2);
 
+    /**
+     * Moves the specified task to the specified index among its siblings.
+     * Only the sort key of the task is changed, unless the sort keys of its new neighbours are too close to fit a key between them.
+     * In that case the sort keys of the project are spread out first.
+     *
+     * @param taskId Id of the task.
+     * @param index New index of the task among its siblings.
+     * @throws TaskDoesNotExistException Thrown if no task with the specified taskId exists.
+     * @throws IllegalArgumentException Thrown if the specified taskId is negative or zero.
+     * Or if the specified index is negative or greater than the index of the last sibling.
+     */
+    public void moveTaskToIndex(int taskId, int index);
+
+    /**
+     * Orders the specified tasks as in the specified list.
+     * The tasks must be every sibling of the first task, that is every top-level task of a project or every detail of a task.
+     *
+     * @param taskIds Ids of the tasks in their new order.
+     * @throws TaskDoesNotExistException Thrown if the first task of the specified taskIds does not exist.
+     * @throws NullPointerException Thrown if the specified taskIds or any of them is null.
+     * @throws IllegalArgumentException Thrown if the specified taskIds is empty or contains an id that is negative or zero or appears more than once.
+     * Or if the specified taskIds are not every sibling of the first task.
+     */
+    public void reorderTasks(List<Integer> taskIds);
+
     /**
      * Sets the specified task as completed.
      *
@@ -1,34 +1,101 @@
 package me.nikoltur.todolist.tasks;
 
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 import javax.transaction.Transactional;
+import me.nikoltur.todolist.caching.ResponseCache;
+import me.nikoltur.todolist.caching.Revisioned;
+import me.nikoltur.todolist.caching.SingleFlight;
+import me.nikoltur.todolist.changes.da.ChangesDao;
+import me.nikoltur.todolist.events.ChangePublisher;
+import me.nikoltur.todolist.locking.ProjectLock;
+import me.nikoltur.todolist.locking.ProjectLockManager;
+import me.nikoltur.todolist.ordering.SortKeys;
 import me.nikoltur.todolist.projects.ProjectDoesNotExistException;
 import me.nikoltur.todolist.projects.da.Project;
 import me.nikoltur.todolist.projects.da.ProjectsDao;
 import me.nikoltur.todolist.tasks.da.Task;
+import me.nikoltur.todolist.tasks.da.TaskCursor;
+import me.nikoltur.todolist.tasks.da.TaskPage;
+import me.nikoltur.todolist.tasks.da.TaskView;
 import me.nikoltur.todolist.tasks.da.TasksDao;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
 /**
  * Database implementation.
  *
- * Thread safe.
+ * Thread safe. Writes are serialized per project, so writes to different projects can proceed in parallel.
  *
  * @author Nikolas Turunen
  */
 @Service
 public class TasksServiceImpl implements TasksService {
 
+    /**
+     * Factory of the generators writing exports. Leaves the output streams open for their owners to close.
+     */
+    private static final JsonFactory JSON_FACTORY = new JsonFactory().disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+    private final SingleFlight<Integer, Revisioned<List<TaskView>>> taskLoads = new SingleFlight<>();
     @Autowired
     private TasksDao tasksDao;
     @Autowired
+    private ChangesDao changesDao;
+    @Autowired
     private ProjectsDao projectsDao;
+    @Autowired
+    private ProjectLockManager projectLockManager;
+    @Autowired
+    private ChangePublisher changePublisher;
+    @Autowired
+    private ResponseCache responseCache;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Override
+    public Revisioned<List<TaskView>> getTasks(int projectId) {
+        validateProjectId(projectId);
+
+        if (TransactionSynchronizationManager.isActualTransactionActive()) {
+            return readTasks(projectId);
+        }
+
+        return taskLoads.load(projectId, () -> new TransactionTemplate(transactionManager).execute(status -> readTasks(projectId)));
+    }
+
+    /**
+     * Reads the tasks of the specified project with their revision.
+     *
+     * @param projectId Id of the project.
+     * @return An unmodifiable list containing the tasks of the specified project, with the revision of the tasks.
+     * @throws ProjectDoesNotExistException Thrown if no project with the specified projectId exists.
+     */
+    private Revisioned<List<TaskView>> readTasks(int projectId) {
+        Project project = projectsDao.getById(projectId);
+        if (project == null) {
+            throw new ProjectDoesNotExistException("No project with the id " + projectId + " exists");
+        }
+
+        long revision = projectsDao.getRevisionOf(projectId);
+
+        return new Revisioned<>(revision, Collections.unmodifiableList(tasksDao.getTreeOf(projectId)));
+    }
 
     @Override
     @Transactional(rollbackOn = Exception.class)
-    public List<Task> getTasks(int projectId) {
+    public long getRevision(int projectId) {
         validateProjectId(projectId);
 
         Project project = projectsDao.getById(projectId);
@@ -36,126 +103,183 @@ public class TasksServiceImpl implements TasksService {
             throw new ProjectDoesNotExistException("No project with the id " + projectId + " exists");
         }
 
-        return tasksDao.getAllOf(projectId);
+        return projectsDao.getRevisionOf(projectId);
     }
 
     @Override
     @Transactional(rollbackOn = Exception.class)
-    public synchronized void createTask(int projectId, String taskString) {
+    public TaskPage getTaskPage(int projectId, String cursor, int limit) {
         validateProjectId(projectId);
-        validateTaskString(taskString);
+        validateLimit(limit);
+        TaskCursor taskCursor = cursor == null ? null : TaskCursor.fromToken(cursor);
 
         Project project = projectsDao.getById(projectId);
         if (project == null) {
             throw new ProjectDoesNotExistException("No project with the id " + projectId + " exists");
         }
 
-        int position = getTasks(projectId).size();
+        return tasksDao.getPageOf(projectId, taskCursor, limit);
+    }
 
-        Task task = new Task();
-        task.setProjectId(projectId);
-        task.setTaskString(taskString);
-        task.setPosition(position);
+    @Override
+    @Transactional(rollbackOn = Exception.class)
+    public void exportTasks(int projectId, OutputStream outputStream) throws IOException {
+        validateProjectId(projectId);
 
-        tasksDao.save(task);
+        Project project = projectsDao.getById(projectId);
+        if (project == null) {
+            throw new ProjectDoesNotExistException("No project with the id " + projectId + " exists");
+        }
+
+        try (JsonGenerator generator = JSON_FACTORY.createGenerator(outputStream)) {
+            generator.writeStartObject();
+            generator.writeObjectFieldStart("project");
+            generator.writeNumberField("id", project.getId());
+            generator.writeStringField("name", project.getName());
+            generator.writeEndObject();
+
+            generator.writeArrayFieldStart("tasks");
+            tasksDao.scrollTasksOf(projectId, (id, parentTaskId, taskString, completed, sortKey) -> {
+                generator.writeStartObject();
+                generator.writeNumberField("id", id);
+                generator.writeFieldName("parentTaskId");
+                if (parentTaskId == null) {
+                    generator.writeNull();
+                } else {
+                    generator.writeNumber(parentTaskId);
+                }
+                generator.writeStringField("taskString", taskString);
+                generator.writeBooleanField("completed", completed);
+                generator.writeNumberField("sortKey", sortKey);
+                generator.writeEndObject();
+            });
+            generator.writeEndArray();
+            generator.writeEndObject();
+        }
     }
 
     /**
-     * Validates the specified projectId.
+     * Validates the specified limit of a page.
      *
-     * @param projectId Project id to be validated.
-     * @throws IllegalArgumentException Thrown if the specified projectId is not valid.
+     * @param limit Limit to be validated.
+     * @throws IllegalArgumentException Thrown if the specified limit is not valid.
      */
-    private void validateProjectId(int projectId) {
-        if (projectId <= 0) {
-            throw new IllegalArgumentException("Project id must be greater than zero");
+    private void validateLimit(int limit) {
+        if (limit <= 0 || limit > MAX_PAGE_SIZE) {
+            throw new IllegalArgumentException("Limit must be between 1 and " + MAX_PAGE_SIZE);
         }
     }
 
     @Override
     @Transactional(rollbackOn = Exception.class)
-    public synchronized void removeTask(int taskId) {
-        validateTaskId(taskId);
+    public void createTask(int projectId, String taskString) {
+        validateProjectId(projectId);
+        validateTaskString(taskString);
 
-        Task task = tasksDao.getById(taskId);
+        try (ProjectLock ignored = projectLockManager.lockProject(projectId)) {
+            Project project = projectsDao.getById(projectId);
+            if (project == null) {
+                throw new ProjectDoesNotExistException("No project with the id " + projectId + " exists");
+            }
 
-        if (task == null) {
-            throw new TaskDoesNotExistException("No task with id " + taskId + " exists");
-        }
+            long sortKey = tasksDao.getNextSortKeyOf(projectId, null);
 
-        tasksDao.remove(task);
+            Task task = new Task();
+            task.setProjectId(projectId);
+            task.setTaskString(taskString);
+            task.setSortKey(sortKey);
 
-        decrementPositionsOfTasksWithHigherPosition(task.getPosition(), getTasksWith(task));
+            saveWithPath(task, "");
+            recordChange(projectId, task.getId());
+        }
     }
 
     /**
-     * Gets a list containing tasks that are under the same project or have the same parent task.
+     * Validates the specified projectId.
      *
-     * @param task Task.
-     * @return A list containing tasks that are under the same project or have the same parent task.
+     * @param projectId Project id to be validated.
+     * @throws IllegalArgumentException Thrown if the specified projectId is not valid.
      */
-    private List<Task> getTasksWith(Task task) {
-        List<Task> remainingTasks;
-        if (task.getParentTaskId() == null) {
-            // If parent task id is null it means that the task is at the top level.
-            remainingTasks = tasksDao.getAllOf(task.getProjectId());
-        } else {
-            // Otherwise the task is a task detail. Get the details of the parent task to get all the details on the same level.
-            remainingTasks = tasksDao.getById(task.getParentTaskId()).getDetails();
+    private void validateProjectId(int projectId) {
+        if (projectId <= 0) {
+            throw new IllegalArgumentException("Project id must be greater than zero");
         }
-
-        return remainingTasks;
     }
 
-    /**
-     * Decrements positions of tasks in the specified list of tasks that have a higher position than the specified positionThreshold.
-     *
-     * @param positionThreshold Position threshold.
-     * @param tasks Tasks to be iterated.
-     */
-    private void decrementPositionsOfTasksWithHigherPosition(int positionThreshold, List<Task> tasks) {
-        for (Task remainingTask : tasks) {
-            if (remainingTask.getPosition() > positionThreshold) {
-                remainingTask.setPosition(remainingTask.getPosition() - 1);
-                tasksDao.save(remainingTask);
+    @Override
+    @Transactional(rollbackOn = Exception.class)
+    public void removeTask(int taskId) {
+        validateTaskId(taskId);
+
+        try (ProjectLock ignored = lockProjectOfTask(taskId)) {
+            Task task = tasksDao.getById(taskId);
+
+            if (task == null) {
+                throw new TaskDoesNotExistException("No task with id " + taskId + " exists");
             }
+
+            // Every task of the subtree is recorded as removed, while the details can still be selected by the path of the task.
+            recordChangesOfSubtree(task.getProjectId(), task.getPath());
+            // The siblings keep their sort keys, so the positions of the following tasks close the gap without being updated.
+            tasksDao.removeSubtree(task.getPath());
         }
     }
 
     @Override
     @Transactional(rollbackOn = Exception.class)
-    public synchronized void editTask(int taskId, String newTask) {
+    public void editTask(int taskId, String newTask) {
         validateTaskId(taskId);
         validateTaskString(newTask);
 
-        Task task = tasksDao.getById(taskId);
-        if (task == null) {
-            throw new TaskDoesNotExistException("No task with id " + taskId + " exists");
-        }
+        try (ProjectLock ignored = lockProjectOfTask(taskId)) {
+            Task task = tasksDao.getById(taskId);
+            if (task == null) {
+                throw new TaskDoesNotExistException("No task with id " + taskId + " exists");
+            }
 
-        task.setTaskString(newTask);
+            task.setTaskString(newTask);
 
-        tasksDao.save(task);
+            tasksDao.save(task);
+            recordChange(task.getProjectId(), taskId);
+        }
     }
 
     @Override
     @Transactional(rollbackOn = Exception.class)
-    public synchronized void createDetail(int taskId, String detail) {
+    public void createDetail(int taskId, String detail) {
         validateTaskId(taskId);
         validateTaskString(detail);
 
-        Task parentTask = tasksDao.getById(taskId);
-        if (parentTask == null) {
-            throw new TaskDoesNotExistException("No task with id " + taskId + " exists");
-        }
+        try (ProjectLock ignored = lockProjectOfTask(taskId)) {
+            Task parentTask = tasksDao.getById(taskId);
+            if (parentTask == null) {
+                throw new TaskDoesNotExistException("No task with id " + taskId + " exists");
+            }
+
+            long sortKey = tasksDao.getNextSortKeyOf(parentTask.getProjectId(), taskId);
 
-        int position = parentTask.getDetails().size();
+            Task task = new Task();
+            task.setProjectId(parentTask.getProjectId());
+            task.setParentTaskId(taskId);
+            task.setTaskString(detail);
+            task.setSortKey(sortKey);
 
-        Task task = new Task();
-        task.setProjectId(parentTask.getProjectId());
-        task.setParentTaskId(taskId);
-        task.setTaskString(detail);
-        task.setPosition(position);
+            saveWithPath(task, parentTask.getPath());
+            recordChange(parentTask.getProjectId(), task.getId());
+        }
+    }
+
+    /**
+     * Saves the specified new task and sets its path to the specified path of its parent task followed by the id of the task.
+     *
+     * @param task New task to be saved.
+     * @param pathOfParentTask Path of the parent task of the task. Empty if the task is a top-level task.
+     */
+    private void saveWithPath(Task task, String pathOfParentTask) {
+        // The id is taken before saving so that the path is complete when the row is inserted, setting it after saving would update the row again at flush.
+        int id = tasksDao.nextId();
+        task.setId(id);
+        task.setPath(pathOfParentTask + id + "/");
 
         tasksDao.save(task);
     }
@@ -174,7 +298,7 @@ public class TasksServiceImpl implements TasksService {
 
     @Override
     @Transactional(rollbackOn = Exception.class)
-    public synchronized void swapPositionsOfTasks(int taskId, int taskId2) {
+    public void swapPositionsOfTasks(int taskId, int taskId2) {
         validateTaskId(taskId);
         validateTaskId(taskId2);
 
@@ -182,179 +306,380 @@ public class TasksServiceImpl implements TasksService {
             throw new IllegalArgumentException("Cannot swap position with itself");
         }
 
-        Task task1 = tasksDao.getById(taskId);
-        if (task1 == null) {
-            throw new TaskDoesNotExistException("No task with id " + taskId + " exists");
-        }
+        try (ProjectLock ignored = lockProjectOfTask(taskId)) {
+            Task task1 = tasksDao.getById(taskId);
+            if (task1 == null) {
+                throw new TaskDoesNotExistException("No task with id " + taskId + " exists");
+            }
 
-        Task task2 = tasksDao.getById(taskId2);
-        if (task2 == null) {
-            throw new TaskDoesNotExistException("No task with id " + taskId2 + " exists");
-        }
+            Task task2 = tasksDao.getById(taskId2);
+            if (task2 == null) {
+                throw new TaskDoesNotExistException("No task with id " + taskId2 + " exists");
+            }
+
+            if (!Objects.equals(task1.getProjectId(), task2.getProjectId())) {
+                throw new IllegalArgumentException("Project ids of the specified tasks must be equal");
+            }
+
+            if (!Objects.equals(task1.getParentTaskId(), task2.getParentTaskId())) {
+                throw new IllegalArgumentException("Parent task ids of the specified tasks must be equal");
+            }
+
+            if (tasksDao.hasTasksBetween(task1.getProjectId(), task1.getParentTaskId(), task1.getSortKey(), task2.getSortKey())) {
+                throw new IllegalArgumentException("The specified second task must be either previous or next from the specified first task");
+            }
 
-        if (!Objects.equals(task1.getProjectId(), task2.getProjectId())) {
-            throw new IllegalArgumentException("Project ids of the specified tasks must be equal");
+            long sortKeyOfTask1 = task1.getSortKey();
+            task1.setSortKey(task2.getSortKey());
+            task2.setSortKey(sortKeyOfTask1);
+
+            tasksDao.save(task1);
+            tasksDao.save(task2);
+            incrementRevisionOf(task1.getProjectId());
+            changesDao.recordTaskChanges(task1.getProjectId(), Arrays.asList(taskId, taskId2));
         }
+    }
 
-        if (!Objects.equals(task1.getParentTaskId(), task2.getParentTaskId())) {
-            throw new IllegalArgumentException("Parent task ids of the specified tasks must be equal");
+    @Override
+    @Transactional(rollbackOn = Exception.class)
+    public void moveTaskToIndex(int taskId, int index) {
+        validateTaskId(taskId);
+        if (index < 0) {
+            throw new IllegalArgumentException("Index must not be negative");
         }
 
-        boolean task2IsPreviousFromTask1 = task2.getPosition() == task1.getPosition() + 1;
-        boolean task2IsNextFromTask1 = task2.getPosition() == task1.getPosition() - 1;
-        if (!task2IsPreviousFromTask1 && !task2IsNextFromTask1) {
-            throw new IllegalArgumentException("The specified second task must be either previous or next from the specified first task");
+        try (ProjectLock ignored = lockProjectOfTask(taskId)) {
+            Task task = tasksDao.getById(taskId);
+            if (task == null) {
+                throw new TaskDoesNotExistException("No task with id " + taskId + " exists");
+            }
+
+            Long sortKey = getSortKeyForIndex(task, index);
+            boolean rebalanced = sortKey == null;
+            if (rebalanced) {
+                tasksDao.rebalanceSortKeysOf(task.getProjectId());
+
+                // The rebalancing cleared the session.
+                task = tasksDao.getById(taskId);
+                sortKey = getSortKeyForIndex(task, index);
+            }
+
+            task.setSortKey(sortKey);
+            tasksDao.save(task);
+            incrementRevisionOf(task.getProjectId());
+            if (rebalanced) {
+                // The rebalancing changed the sort keys of every task of the project.
+                changesDao.recordTaskChangesOf(task.getProjectId());
+            } else {
+                changesDao.recordTaskChange(task.getProjectId(), taskId);
+            }
         }
+    }
 
-        int positionOfTask1 = task1.getPosition();
-        task1.setPosition(task2.getPosition());
-        task2.setPosition(positionOfTask1);
+    /**
+     * Returns the sort key placing the specified task at the specified index among its siblings.
+     * Reads at most the sort keys of the two siblings that are going to be next to the task.
+     *
+     * @param task Task to be moved.
+     * @param index New index of the task among its siblings.
+     * @return The sort key placing the specified task at the specified index. Null if the sort keys of the new neighbours are too close to fit a key between them.
+     * @throws IllegalArgumentException Thrown if the specified index is greater than the index of the last sibling.
+     */
+    private Long getSortKeyForIndex(Task task, int index) {
+        List<Long> neighbourSortKeys = tasksDao.getSortKeysOfSiblings(task.getProjectId(), task.getParentTaskId(), task.getId(), SortKeys.firstNeighbourOf(index), SortKeys.NEIGHBOURS);
 
-        tasksDao.save(task1);
-        tasksDao.save(task2);
+        return SortKeys.forIndex(index, neighbourSortKeys, task.getSortKey());
     }
 
     @Override
     @Transactional(rollbackOn = Exception.class)
-    public synchronized void completeTask(int taskId) {
-        validateTaskId(taskId);
+    public void reorderTasks(List<Integer> taskIds) {
+        validateTaskIds(taskIds);
+
+        int firstTaskId = taskIds.get(0);
+        try (ProjectLock ignored = lockProjectOfTask(firstTaskId)) {
+            Task firstTask = tasksDao.getById(firstTaskId);
+            if (firstTask == null) {
+                throw new TaskDoesNotExistException("No task with id " + firstTaskId + " exists");
+            }
 
-        Task task = tasksDao.getById(taskId);
-        if (task == null) {
-            throw new TaskDoesNotExistException("No task with id " + taskId + " exists");
+            List<Integer> siblingIds = tasksDao.getIdsOfSiblings(firstTask.getProjectId(), firstTask.getParentTaskId());
+            if (siblingIds.size() != taskIds.size() || !new HashSet<>(siblingIds).containsAll(taskIds)) {
+                throw new IllegalArgumentException("The specified task ids must be every sibling of the first task");
+            }
+
+            tasksDao.applyOrder(taskIds);
+            incrementRevisionOf(firstTask.getProjectId());
+            changesDao.recordTaskChanges(firstTask.getProjectId(), taskIds);
         }
+    }
 
-        if (task.isCompleted()) {
-            throw new TaskAlreadyCompletedException("The specified task is already completed");
+    /**
+     * Validates the specified taskIds of a new order of tasks.
+     *
+     * @param taskIds Task ids to be validated.
+     * @throws NullPointerException Thrown if the specified taskIds or any of them is null.
+     * @throws IllegalArgumentException Thrown if the specified taskIds are not valid.
+     */
+    private void validateTaskIds(List<Integer> taskIds) {
+        if (taskIds == null) {
+            throw new NullPointerException("Task ids cannot be null");
         }
 
-        task.setCompleted(true);
-        tasksDao.save(task);
+        if (taskIds.isEmpty()) {
+            throw new IllegalArgumentException("Task ids cannot be empty");
+        }
+
+        for (Integer taskId : taskIds) {
+            validateTaskId(Objects.requireNonNull(taskId, "Task id cannot be null"));
+        }
+
+        if (new HashSet<>(taskIds).size() != taskIds.size()) {
+            throw new IllegalArgumentException("Task ids cannot contain the same id more than once");
+        }
     }
 
     @Override
     @Transactional(rollbackOn = Exception.class)
-    public synchronized void uncompleteTask(int taskId) {
+    public void completeTask(int taskId) {
         validateTaskId(taskId);
 
-        Task task = tasksDao.getById(taskId);
-        if (task == null) {
-            throw new TaskDoesNotExistException("No task with id " + taskId + " exists");
-        }
+        try (ProjectLock ignored = lockProjectOfTask(taskId)) {
+            Task task = tasksDao.getById(taskId);
+            if (task == null) {
+                throw new TaskDoesNotExistException("No task with id " + taskId + " exists");
+            }
 
-        if (!task.isCompleted()) {
-            throw new TaskNotCompletedException("The specified task is not marked as completed");
-        }
+            if (task.isCompleted()) {
+                throw new TaskAlreadyCompletedException("The specified task is already completed");
+            }
 
-        task.setCompleted(false);
-        tasksDao.save(task);
+            task.setCompleted(true);
+            tasksDao.save(task);
+            recordChange(task.getProjectId(), taskId);
+        }
     }
 
     @Override
     @Transactional(rollbackOn = Exception.class)
-    public synchronized void moveTask(int taskId, Integer newParentTaskId, Integer newProjectId) {
+    public void uncompleteTask(int taskId) {
         validateTaskId(taskId);
 
-        Task task = tasksDao.getById(taskId);
-        if (task == null) {
-            throw new TaskDoesNotExistException("No task with id " + taskId + " exists");
-        }
+        try (ProjectLock ignored = lockProjectOfTask(taskId)) {
+            Task task = tasksDao.getById(taskId);
+            if (task == null) {
+                throw new TaskDoesNotExistException("No task with id " + taskId + " exists");
+            }
 
-        int currentProjectId = task.getProjectId();
+            if (!task.isCompleted()) {
+                throw new TaskNotCompletedException("The specified task is not marked as completed");
+            }
 
-        int newPosition;
+            task.setCompleted(false);
+            tasksDao.save(task);
+            recordChange(task.getProjectId(), taskId);
+        }
+    }
+
+    @Override
+    @Transactional(rollbackOn = Exception.class)
+    public void moveTask(int taskId, Integer newParentTaskId, Integer newProjectId) {
+        validateTaskId(taskId);
         if (newParentTaskId != null) {
             if (taskId == newParentTaskId) {
                 throw new IllegalArgumentException("Cannot move task to be a detail of itself");
             }
 
             validateTaskId(newParentTaskId);
-            Task newParentTask = tasksDao.getById(newParentTaskId);
-            if (newParentTask == null) {
-                throw new TaskDoesNotExistException("No task with id " + newParentTaskId + " exists");
-            }
-
-            if (isTaskLowerInHierarchy(task, newParentTask)) {
-                throw new IllegalArgumentException("The new parent task cannot be a detail of the task lower in the hierarchy");
-            }
+        }
 
-            if (task.getParentTaskId() != null && task.getParentTaskId() == (int) newParentTaskId) {
-                throw new IllegalArgumentException("Task is already a detail of the new parent task");
+        try (ProjectLock ignored = lockProjectsOfMove(taskId, newParentTaskId, newProjectId)) {
+            Task task = tasksDao.getById(taskId);
+            if (task == null) {
+                throw new TaskDoesNotExistException("No task with id " + taskId + " exists");
             }
 
-            task.setProjectId(newParentTask.getProjectId());
+            int newProjectIdOfTask;
+            String newPath;
+            long newSortKey;
+            if (newParentTaskId != null) {
+                Task newParentTask = tasksDao.getById(newParentTaskId);
+                if (newParentTask == null) {
+                    throw new TaskDoesNotExistException("No task with id " + newParentTaskId + " exists");
+                }
 
-            updateProjectIdsOfTasksLowerInHierarchy(task, newParentTask.getProjectId());
+                if (newParentTask.getPath().startsWith(task.getPath())) {
+                    throw new IllegalArgumentException("The new parent task cannot be a detail of the task lower in the hierarchy");
+                }
 
-            newPosition = newParentTask.getDetails().size();
-        } else {
-            if (newProjectId == null && task.getParentTaskId() == null) {
-                throw new TaskDoesNotHaveParentException("Task does not have a parent task to clear");
-            }
+                if (task.getParentTaskId() != null && task.getParentTaskId() == (int) newParentTaskId) {
+                    throw new IllegalArgumentException("Task is already a detail of the new parent task");
+                }
 
-            if (newProjectId != null) {
-                Project newProject = projectsDao.getById(newProjectId);
-                if (newProject == null) {
-                    throw new ProjectDoesNotExistException("No project with the id " + newProjectId + " exists");
+                newProjectIdOfTask = newParentTask.getProjectId();
+                newPath = newParentTask.getPath() + task.getId() + "/";
+                newSortKey = tasksDao.getNextSortKeyOf(newParentTask.getProjectId(), newParentTaskId);
+            } else {
+                if (newProjectId == null && task.getParentTaskId() == null) {
+                    throw new TaskDoesNotHaveParentException("Task does not have a parent task to clear");
                 }
 
-                List<Task> tasksOfNewProject = tasksDao.getAllOf(newProjectId);
-                newPosition = tasksOfNewProject.size();
+                if (newProjectId != null) {
+                    Project newProject = projectsDao.getById(newProjectId);
+                    if (newProject == null) {
+                        throw new ProjectDoesNotExistException("No project with the id " + newProjectId + " exists");
+                    }
+
+                    newProjectIdOfTask = newProjectId;
+                    newSortKey = tasksDao.getNextSortKeyOf(newProjectId, null);
+                } else {
+                    newProjectIdOfTask = task.getProjectId();
+                    newSortKey = tasksDao.getNextSortKeyOf(task.getProjectId(), null);
+                }
 
-                task.setProjectId(newProjectId);
+                newPath = task.getId() + "/";
+            }
 
-                updateProjectIdsOfTasksLowerInHierarchy(task, newProjectId);
+            if (newProjectIdOfTask == task.getProjectId()) {
+                tasksDao.moveSubtree(task.getPath(), newPath, newProjectIdOfTask);
+                recordChange(task.getProjectId(), taskId);
             } else {
-                List<Task> tasksOfProject = tasksDao.getAllOf(task.getProjectId());
-                newPosition = tasksOfProject.size();
+                // In the current project the task and its details are recorded as removed before they are moved out of it.
+                recordChangesOfSubtree(task.getProjectId(), task.getPath());
+                tasksDao.moveSubtree(task.getPath(), newPath, newProjectIdOfTask);
+                // In the new project the details are new as well.
+                recordChangesOfSubtree(newProjectIdOfTask, newPath);
             }
-        }
 
-        if (task.getParentTaskId() != null) {
-            decrementPositionsOfTasksWithHigherPosition(task.getPosition(), tasksDao.getById(task.getParentTaskId()).getDetails());
-        } else {
-            decrementPositionsOfTasksWithHigherPosition(task.getPosition(), tasksDao.getAllOf(currentProjectId));
+            task.setProjectId(newProjectIdOfTask);
+            task.setPath(newPath);
+            task.setParentTaskId(newParentTaskId);
+            task.setSortKey(newSortKey);
+
+            tasksDao.save(task);
         }
+    }
 
-        task.setParentTaskId(newParentTaskId);
-        task.setPosition(newPosition);
+    /**
+     * Increments the revision of the specified project and records the specified task as changed at the new revision.
+     *
+     * @param projectId Id of the project.
+     * @param taskId Id of the changed task.
+     */
+    private void recordChange(int projectId, int taskId) {
+        incrementRevisionOf(projectId);
+        changesDao.recordTaskChange(projectId, taskId);
+    }
 
-        tasksDao.save(task);
+    /**
+     * Increments the revision of the specified project and records the task with the specified path and all of its details as changed at the new revision.
+     *
+     * @param projectId Id of the project.
+     * @param path Path of the changed task.
+     */
+    private void recordChangesOfSubtree(int projectId, String path) {
+        incrementRevisionOf(projectId);
+        changesDao.recordTaskChangesOfSubtree(projectId, path);
     }
 
     /**
-     * Searches if the specified taskSearched is a detail of the specified task but lower in the hierarchy.
+     * Increments the revision of the specified project, and once the transaction commits, invalidates the cached and loading tasks of the project and publishes the new revision.
      *
-     * @param task Task to start the search from.
-     * @param taskSearched Task to be searched lower in the hierarchy.
-     * @return true if the specified taskSearched is a detail of the specified task but lower in the hierarchy.
+     * @param projectId Id of the project.
      */
-    private boolean isTaskLowerInHierarchy(Task task, Task taskSearched) {
-        for (Task detail : task.getDetails()) {
-            if (taskSearched.getId() == detail.getId()) {
-                return true;
+    private void incrementRevisionOf(int projectId) {
+        changePublisher.publishTasksChanged(projectId, projectsDao.incrementRevisionOf(projectId));
+        responseCache.invalidateAfterCommit(projectId);
+        taskLoads.forgetAfterCommit(projectId);
+    }
+
+    /**
+     * Locks the project of the specified task.
+     * The project is first read outside the transaction, so that waiting for the lock holds no connection if the transaction has not made any statements yet.
+     *
+     * @param taskId Id of the task.
+     * @return The acquired lock.
+     * @throws TaskDoesNotExistException Thrown if no task with the specified taskId exists.
+     */
+    private ProjectLock lockProjectOfTask(int taskId) {
+        Integer projectId = tasksDao.getCommittedProjectIdsOf(Collections.singleton(taskId)).get(taskId);
+        while (true) {
+            if (projectId == null) {
+                throw new TaskDoesNotExistException("No task with id " + taskId + " exists");
             }
 
-            if (isTaskLowerInHierarchy(detail, taskSearched)) {
-                return true;
+            ProjectLock lock = projectLockManager.lockProject(projectId);
+            Integer currentProjectId = tasksDao.getProjectIdOf(taskId);
+            if (Objects.equals(projectId, currentProjectId)) {
+                return lock;
             }
-        }
 
-        return false;
+            // The task was moved to another project while waiting for the lock, or earlier in this transaction.
+            // Released rather than kept until the end of the transaction, so that the next attempt acquires its lock in order.
+            lock.release();
+            projectId = currentProjectId;
+        }
     }
 
     /**
-     * Updates project ids of tasks lower in the hierarchy of the specified task to the specified new project id.
+     * Locks the current project of the specified task and the project the task is going to be moved to.
+     * The projects are first read outside the transaction, so that waiting for the locks holds no connection if the transaction has not made any statements yet.
      *
-     * @param task Task.
-     * @param newProjectId New project id for the tasks.
+     * @param taskId Id of the task to be moved.
+     * @param newParentTaskId Id of the new parent task. Null if the task is moved to the top level.
+     * @param newProjectId New project id for the task if the specified new parent task id is null. Null to keep the project unchanged.
+     * @return The acquired lock.
+     * @throws TaskDoesNotExistException Thrown if the task to be moved or the new parent task (if not null) does not exist.
      */
-    private void updateProjectIdsOfTasksLowerInHierarchy(Task task, int newProjectId) {
-        for (Task detail : task.getDetails()) {
-            detail.setProjectId(newProjectId);
-            tasksDao.save(detail);
+    private ProjectLock lockProjectsOfMove(int taskId, Integer newParentTaskId, Integer newProjectId) {
+        Map<Integer, Integer> projectIdsOfTasks = tasksDao.getCommittedProjectIdsOf(newParentTaskId == null ? Collections.singleton(taskId) : Arrays.asList(taskId, newParentTaskId));
+        while (true) {
+            Integer currentProjectId = projectIdsOfTasks.get(taskId);
+            if (currentProjectId == null) {
+                throw new TaskDoesNotExistException("No task with id " + taskId + " exists");
+            }
+
+            int targetProjectId;
+            if (newParentTaskId != null) {
+                Integer projectIdOfNewParentTask = projectIdsOfTasks.get(newParentTaskId);
+                if (projectIdOfNewParentTask == null) {
+                    throw new TaskDoesNotExistException("No task with id " + newParentTaskId + " exists");
+                }
+
+                targetProjectId = projectIdOfNewParentTask;
+            } else if (newProjectId != null) {
+                targetProjectId = newProjectId;
+            } else {
+                targetProjectId = currentProjectId;
+            }
+
+            ProjectLock lock = projectLockManager.lockProjects(currentProjectId, targetProjectId);
+            Map<Integer, Integer> currentProjectIdsOfTasks = new HashMap<>();
+            putIfNotNull(currentProjectIdsOfTasks, taskId, tasksDao.getProjectIdOf(taskId));
+            if (newParentTaskId != null) {
+                putIfNotNull(currentProjectIdsOfTasks, newParentTaskId, tasksDao.getProjectIdOf(newParentTaskId));
+            }
+            if (currentProjectIdsOfTasks.equals(projectIdsOfTasks)) {
+                return lock;
+            }
 
-            updateProjectIdsOfTasksLowerInHierarchy(detail, newProjectId);
+            // One of the tasks was moved to another project while waiting for the locks, or earlier in this transaction.
+            // Released rather than kept until the end of the transaction, so that the next attempt acquires its locks in order.
+            lock.release();
+            projectIdsOfTasks = currentProjectIdsOfTasks;
+        }
+    }
+
+    /**
+     * Puts the specified value to the specified map by the specified key if the value is not null.
+     *
+     * @param map Map to put the value to.
+     * @param key Key of the value.
+     * @param value Value to be put.
+     */
+    private void putIfNotNull(Map<Integer, Integer> map, int key, Integer value) {
+        if (value != null) {
+            map.put(key, value);
         }
     }
 
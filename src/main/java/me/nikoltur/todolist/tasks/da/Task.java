@@ -1,8 +1,10 @@
 package me.nikoltur.todolist.tasks.da;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import java.io.Serializable;
 import java.util.List;
 import javax.persistence.CascadeType;
+import javax.persistence.Cacheable;
 import javax.persistence.Column;
 import javax.persistence.Entity;
 import javax.persistence.GeneratedValue;
@@ -12,6 +14,11 @@ import javax.persistence.JoinColumn;
 import javax.persistence.OneToMany;
 import javax.persistence.OrderBy;
 import javax.persistence.Table;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.GenericGenerator;
+import org.hibernate.annotations.Parameter;
+import org.hibernate.id.enhanced.SequenceStyleGenerator;
 
 /**
  * Represents a task of a project.
@@ -19,11 +26,17 @@ import javax.persistence.Table;
  * @author Nikolas Turunen
  */
 @Entity
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
 @Table(name = "tasks")
 public class Task implements Serializable {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "tasks_id_seq")
+    @GenericGenerator(name = "tasks_id_seq", strategy = "me.nikoltur.todolist.tasks.da.TaskIdGenerator", parameters = {
+        @Parameter(name = SequenceStyleGenerator.SEQUENCE_PARAM, value = "tasks_id_seq"),
+        @Parameter(name = SequenceStyleGenerator.INCREMENT_PARAM, value = "50"),
+        @Parameter(name = SequenceStyleGenerator.OPT_PARAM, value = "pooled")})
     @Column(name = "id")
     private int id;
     @Column(name = "project_id", nullable = false)
@@ -32,12 +45,15 @@ public class Task implements Serializable {
     private String taskString;
     @Column(name = "parent_task_id")
     private Integer parentTaskId;
+    @Column(name = "path", nullable = false)
+    private String path;
     @OneToMany(cascade = CascadeType.REMOVE)
     @JoinColumn(name = "parent_task_id", referencedColumnName = "id")
-    @OrderBy("position")
+    @OrderBy("sortKey")
+    @Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
     private List<Task> details;
-    @Column(name = "position", nullable = false)
-    private int position;
+    @Column(name = "sort_key", nullable = false)
+    private long sortKey;
     @Column(name = "completed", nullable = false)
     private boolean completed;
 
@@ -45,6 +61,15 @@ public class Task implements Serializable {
         return id;
     }
 
+    /**
+     * Sets the id of a new task to an id taken with {@link TasksDao#nextId()}. The id of a task saved without one is generated when it is saved.
+     *
+     * @param id Id of the new task.
+     */
+    public void setId(int id) {
+        this.id = id;
+    }
+
     public Integer getProjectId() {
         return projectId;
     }
@@ -69,16 +94,37 @@ public class Task implements Serializable {
         this.parentTaskId = parentTaskId;
     }
 
+    /**
+     * Returns the ids of the tasks from the top-level task down to this task, each followed by a slash.
+     * For example the path of a detail with the id 9 under the task 5 under the top-level task 1 is "1/5/9/".
+     *
+     * @return The ids of the tasks from the top-level task down to this task.
+     */
+    @JsonIgnore
+    public String getPath() {
+        return path;
+    }
+
+    public void setPath(String path) {
+        this.path = path;
+    }
+
     public List<Task> getDetails() {
         return details;
     }
 
-    public int getPosition() {
-        return position;
+    /**
+     * Returns the key the task is ordered by among its siblings.
+     *
+     * @return The key the task is ordered by among its siblings.
+     */
+    @JsonIgnore
+    public long getSortKey() {
+        return sortKey;
     }
 
-    public void setPosition(int position) {
-        this.position = position;
+    public void setSortKey(long sortKey) {
+        this.sortKey = sortKey;
     }
 
     public boolean isCompleted() {
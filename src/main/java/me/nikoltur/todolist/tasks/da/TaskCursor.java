@@ -0,0 +1,83 @@
+package me.nikoltur.todolist.tasks.da;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Position of a page of top-level tasks in the list of top-level tasks of a project.
+ *
+ * A cursor refers to the last top-level task of the previous page by its sort key and id, so the next page continues after it
+ * even if tasks are added or removed between the requests. Clients handle cursors only as opaque tokens.
+ *
+ * @author Nikolas Turunen
+ */
+public class TaskCursor {
+
+    private static final String SEPARATOR = ":";
+    private final long sortKey;
+    private final int id;
+    private final int position;
+
+    /**
+     * Creates a cursor pointing after the specified task.
+     *
+     * @param sortKey Sort key of the last task of the previous page.
+     * @param id Id of the last task of the previous page.
+     * @param position Position of the first task of the next page.
+     */
+    public TaskCursor(long sortKey, int id, int position) {
+        this.sortKey = sortKey;
+        this.id = id;
+        this.position = position;
+    }
+
+    /**
+     * Parses a cursor from a token created with {@link #toToken() toToken}.
+     *
+     * @param token Token of the cursor.
+     * @return The cursor of the specified token.
+     * @throws IllegalArgumentException Thrown if the specified token is not a valid cursor.
+     */
+    public static TaskCursor fromToken(String token) {
+        TaskCursor cursor;
+        try {
+            String[] parts = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8).split(SEPARATOR);
+            cursor = parts.length == 3 ? new TaskCursor(Long.parseLong(parts[0]), Integer.parseInt(parts[1]), Integer.parseInt(parts[2])) : null;
+        } catch (IllegalArgumentException ex) {
+            throw new IllegalArgumentException("Invalid cursor", ex);
+        }
+
+        if (cursor == null || cursor.position < 0) {
+            throw new IllegalArgumentException("Invalid cursor");
+        }
+
+        return cursor;
+    }
+
+    /**
+     * Returns the cursor as an opaque token.
+     *
+     * @return The cursor as an opaque token.
+     */
+    public String toToken() {
+        String cursor = sortKey + SEPARATOR + id + SEPARATOR + position;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(cursor.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public long getSortKey() {
+        return sortKey;
+    }
+
+    public int getId() {
+        return id;
+    }
+
+    /**
+     * Returns the position of the first task of the next page.
+     *
+     * @return The position of the first task of the next page.
+     */
+    public int getPosition() {
+        return position;
+    }
+}
@@ -0,0 +1,24 @@
+package me.nikoltur.todolist.tasks.da;
+
+import java.io.Serializable;
+import org.hibernate.HibernateException;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.id.enhanced.SequenceStyleGenerator;
+
+/**
+ * Generator of the ids of tasks from the pooled tasks_id_seq sequence that keeps an id already taken with {@link TasksDao#nextId()}.
+ * A task saved with its id taken in advance can be inserted with its complete path, which contains the id.
+ *
+ * @author Nikolas Turunen
+ */
+public class TaskIdGenerator extends SequenceStyleGenerator {
+
+    @Override
+    public Serializable generate(SharedSessionContractImplementor session, Object object) throws HibernateException {
+        if (object instanceof Task && ((Task) object).getId() > 0) {
+            return ((Task) object).getId();
+        }
+
+        return super.generate(session, object);
+    }
+}
@@ -0,0 +1,33 @@
+package me.nikoltur.todolist.tasks.da;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Read-only page of the top-level tasks of a project, with the views of the details of every task at every level.
+ *
+ * @author Nikolas Turunen
+ */
+public class TaskPage {
+
+    private final List<TaskView> tasks;
+    private final String nextCursor;
+
+    public TaskPage(List<TaskView> tasks, String nextCursor) {
+        this.tasks = Collections.unmodifiableList(tasks);
+        this.nextCursor = nextCursor;
+    }
+
+    public List<TaskView> getTasks() {
+        return tasks;
+    }
+
+    /**
+     * Returns the cursor of the next page. Null if this is the last page.
+     *
+     * @return The cursor of the next page if there is one. Null otherwise.
+     */
+    public String getNextCursor() {
+        return nextCursor;
+    }
+}
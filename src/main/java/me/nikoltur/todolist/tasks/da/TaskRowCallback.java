@@ -0,0 +1,24 @@
+package me.nikoltur.todolist.tasks.da;
+
+import java.io.IOException;
+
+/**
+ * Receives the tasks of a project one at a time while they are read from the database.
+ *
+ * @author Nikolas Turunen
+ */
+@FunctionalInterface
+public interface TaskRowCallback {
+
+    /**
+     * Called for each task read.
+     *
+     * @param id Id of the task.
+     * @param parentTaskId Id of the parent task of the task. Null for top-level tasks.
+     * @param taskString Task string of the task.
+     * @param completed True if the task is completed.
+     * @param sortKey Key the task is ordered by among its siblings.
+     * @throws IOException Thrown if the task could not be written.
+     */
+    public void onRow(int id, Integer parentTaskId, String taskString, boolean completed, long sortKey) throws IOException;
+}
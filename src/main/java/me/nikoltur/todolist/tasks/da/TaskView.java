@@ -0,0 +1,69 @@
+package me.nikoltur.todolist.tasks.da;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Read-only view of a task and its details.
+ *
+ * Views are assembled from projections of the task columns, so reading them does not load managed entities.
+ *
+ * @author Nikolas Turunen
+ */
+public class TaskView {
+
+    private final int id;
+    private final Integer projectId;
+    private final String taskString;
+    private final Integer parentTaskId;
+    private final List<TaskView> details;
+    private final int position;
+    private final boolean completed;
+
+    @JsonCreator
+    public TaskView(@JsonProperty("id") int id, @JsonProperty("projectId") Integer projectId, @JsonProperty("taskString") String taskString, @JsonProperty("parentTaskId") Integer parentTaskId,
+            @JsonProperty("details") List<TaskView> details, @JsonProperty("position") int position, @JsonProperty("completed") boolean completed) {
+        this.id = id;
+        this.projectId = projectId;
+        this.taskString = taskString;
+        this.parentTaskId = parentTaskId;
+        this.details = Collections.unmodifiableList(details);
+        this.position = position;
+        this.completed = completed;
+    }
+
+    public int getId() {
+        return id;
+    }
+
+    public Integer getProjectId() {
+        return projectId;
+    }
+
+    public String getTaskString() {
+        return taskString;
+    }
+
+    public Integer getParentTaskId() {
+        return parentTaskId;
+    }
+
+    public List<TaskView> getDetails() {
+        return details;
+    }
+
+    /**
+     * Returns the position of the task among its siblings.
+     *
+     * @return The position of the task among its siblings.
+     */
+    public int getPosition() {
+        return position;
+    }
+
+    public boolean isCompleted() {
+        return completed;
+    }
+}
@@ -1,6 +1,9 @@
 package me.nikoltur.todolist.tasks.da;
 
+import java.io.IOException;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 
 /**
  * Data-access object for Task-entity.
@@ -17,6 +20,37 @@ public interface TasksDao {
      */
     public List<Task> getAllOf(int projectId);
 
+    /**
+     * Returns a list containing read-only views of the top-level tasks of the specified project ordered by their position, with the views of the details of every task at every level.
+     * The whole tree is read with a single query regardless of its depth, without loading the tasks into the session.
+     *
+     * @param projectId Id of the project.
+     * @return A list containing read-only views of the top-level tasks of the specified project ordered by their position.
+     */
+    public List<TaskView> getTreeOf(int projectId);
+
+    /**
+     * Returns a page of read-only views of the top-level tasks of the specified project ordered by their position, with the views of the details of every task at every level.
+     * The page starts after the specified cursor and is read without loading the tasks into the session, so its cost depends on the size of the page rather than the size of the project.
+     *
+     * @param projectId Id of the project.
+     * @param cursor Cursor of the page. Null for the first page.
+     * @param limit Maximum number of top-level tasks on the page.
+     * @return A page of read-only views of the top-level tasks of the specified project.
+     */
+    public TaskPage getPageOf(int projectId, TaskCursor cursor, int limit);
+
+    /**
+     * Reads every task of the specified project and passes each of them to the specified callback as soon as it is read.
+     * The tasks are fetched from a forward-only cursor in batches and are not loaded into the session, so the memory used does not grow with the number of tasks.
+     * Parent tasks are read before their details.
+     *
+     * @param projectId Id of the project.
+     * @param callback Callback to receive the tasks.
+     * @throws IOException Thrown if the callback throws.
+     */
+    public void scrollTasksOf(int projectId, TaskRowCallback callback) throws IOException;
+
     /**
      * Returns the task with the specified taskId;
      *
@@ -25,6 +59,119 @@ public interface TasksDao {
      */
     public Task getById(int taskId);
 
+    /**
+     * Returns the project id of the task with the specified taskId. Null if no task with the specified taskId exists.
+     * The project id is always read from the database, even if the task has already been loaded.
+     *
+     * @param taskId Id of the task.
+     * @return The project id of the task with the specified taskId if it exists. Null otherwise.
+     */
+    public Integer getProjectIdOf(int taskId);
+
+    /**
+     * Returns the committed project ids of the tasks with the specified taskIds by the ids of the tasks. Tasks that do not exist are left out.
+     * The project ids are read outside the current transaction on a connection of its own, which is returned to the pool before this method returns,
+     * so a transaction that has not made any statements yet still holds no connection afterwards.
+     *
+     * @param taskIds Ids of the tasks.
+     * @return A map containing the committed project ids of the existing tasks by the ids of the tasks.
+     */
+    public Map<Integer, Integer> getCommittedProjectIdsOf(Collection<Integer> taskIds);
+
+    /**
+     * Returns true if the specified project has any tasks.
+     *
+     * @param projectId Id of the project.
+     * @return True if the specified project has any tasks.
+     */
+    public boolean existsInProject(int projectId);
+
+    /**
+     * Returns the sort key for a task appended after the last of the specified siblings.
+     * Computed by the database without loading the siblings.
+     *
+     * @param projectId Id of the project of the siblings.
+     * @param parentTaskId Id of the parent task of the siblings. Null if the siblings are top-level tasks.
+     * @return The sort key for a task appended after the last of the specified siblings.
+     */
+    public long getNextSortKeyOf(int projectId, Integer parentTaskId);
+
+    /**
+     * Moves the task with the specified path and every task lower in its hierarchy under the specified newPath and to the specified project.
+     * Executed as a single update regardless of the size of the hierarchy.
+     *
+     * @param path Current path of the task.
+     * @param newPath New path of the task.
+     * @param newProjectId Id of the project of the task and the tasks lower in its hierarchy after the move.
+     */
+    public void moveSubtree(String path, String newPath, int newProjectId);
+
+    /**
+     * Returns true if there are tasks ordered between the specified sort keys among the specified siblings.
+     *
+     * @param projectId Id of the project of the siblings.
+     * @param parentTaskId Id of the parent task of the siblings. Null if the siblings are top-level tasks.
+     * @param sortKey First sort key, exclusive.
+     * @param sortKey2 Second sort key, exclusive. May be lower than the first sort key.
+     * @return True if there are tasks ordered between the specified sort keys.
+     */
+    public boolean hasTasksBetween(int projectId, Integer parentTaskId, long sortKey, long sortKey2);
+
+    /**
+     * Returns the sort keys of the specified siblings in ascending order, leaving out the specified task, starting from the specified offset.
+     * Siblings with equal sort keys are ordered by their ids as in the listings, so the offset is a position of the listing.
+     *
+     * @param projectId Id of the project of the siblings.
+     * @param parentTaskId Id of the parent task of the siblings. Null if the siblings are top-level tasks.
+     * @param excludedTaskId Id of the task to leave out.
+     * @param offset Index of the first sort key to return among the remaining siblings.
+     * @param limit Maximum number of sort keys to return.
+     * @return A list containing the sort keys of the specified siblings in ascending order.
+     */
+    public List<Long> getSortKeysOfSiblings(int projectId, Integer parentTaskId, int excludedTaskId, int offset, int limit);
+
+    /**
+     * Returns the ids of the specified siblings.
+     *
+     * @param projectId Id of the project of the siblings.
+     * @param parentTaskId Id of the parent task of the siblings. Null if the siblings are top-level tasks.
+     * @return A list containing the ids of the specified siblings.
+     */
+    public List<Integer> getIdsOfSiblings(int projectId, Integer parentTaskId);
+
+    /**
+     * Sets the sort keys of the specified tasks so that they are ordered as in the specified list, a full gap apart.
+     * Executed as a single update regardless of the number of tasks.
+     * The session is flushed and cleared, so tasks loaded before must be loaded again.
+     *
+     * @param taskIds Ids of the tasks in their new order.
+     */
+    public void applyOrder(List<Integer> taskIds);
+
+    /**
+     * Returns a list containing the ids of the projects that have siblings with sort keys closer to each other than the specified minimumGap.
+     *
+     * @param minimumGap Minimum gap between the sort keys of siblings.
+     * @return A list containing the ids of the projects that have siblings with crowded sort keys.
+     */
+    public List<Integer> getProjectIdsWithCrowdedSortKeys(long minimumGap);
+
+    /**
+     * Spreads out the sort keys of the tasks of the specified project so that siblings are again a full gap apart.
+     * The order of the tasks is unchanged. Executed as a single update regardless of the number of tasks.
+     * The session is flushed and cleared, so tasks loaded before must be loaded again.
+     *
+     * @param projectId Id of the project.
+     */
+    public void rebalanceSortKeysOf(int projectId);
+
+    /**
+     * Takes the next id for a new task from the sequence of task ids.
+     *
+     * @return An id that no other task has or will be given.
+     */
+    public int nextId();
+
     /**
      * Saves the specified task.
      *
@@ -33,9 +180,11 @@ public interface TasksDao {
     public void save(Task task);
 
     /**
-     * Removes the specified task.
+     * Removes the task with the specified path and every task lower in its hierarchy.
+     * Executed as a single delete regardless of the size of the hierarchy, so the tasks are not loaded.
+     * Clears the session and evicts the cached tasks and details, so tasks read before the removal must be read again.
      *
-     * @param task Task to be removed.
+     * @param path Path of the task to be removed.
      */
-    public void remove(Task task);
+    public void removeSubtree(String path);
 }
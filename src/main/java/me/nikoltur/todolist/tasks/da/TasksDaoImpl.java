@@ -1,10 +1,26 @@
 package me.nikoltur.todolist.tasks.da;
 
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import javax.persistence.FlushModeType;
 import javax.persistence.NoResultException;
+import javax.persistence.Query;
 import javax.persistence.TypedQuery;
+import me.nikoltur.todolist.ordering.SortKeys;
+import org.hibernate.ScrollMode;
+import org.hibernate.ScrollableResults;
 import org.hibernate.Session;
 import org.hibernate.SessionFactory;
+import org.hibernate.StatelessSession;
+import org.hibernate.engine.spi.SessionImplementor;
+import org.hibernate.query.NativeQuery;
+import org.hibernate.type.IntegerType;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Repository;
 
@@ -16,22 +32,176 @@ import org.springframework.stereotype.Repository;
 @Repository
 public class TasksDaoImpl implements TasksDao {
 
+    private static final String DETAILS_ROLE = Task.class.getName() + ".details";
+    /**
+     * Number of rows fetched from the database at a time when scrolling through tasks.
+     */
+    private static final int SCROLL_FETCH_SIZE = 1000;
     @Autowired
     private SessionFactory sessionFactory;
 
     @Override
     public List<Task> getAllOf(int projectId) {
         Session session = sessionFactory.getCurrentSession();
-        TypedQuery<Task> query = session.createQuery("from Task t where t.projectId=:projectId and t.parentTaskId is null order by t.position");
+        TypedQuery<Task> query = session.createQuery("from Task t where t.projectId=:projectId and t.parentTaskId is null order by t.sortKey");
         query.setParameter("projectId", projectId);
 
         return query.getResultList();
     }
 
+    @Override
+    public List<TaskView> getTreeOf(int projectId) {
+        Session session = sessionFactory.getCurrentSession();
+        // Only the columns of the views are selected, so no entities are loaded into the session and nothing is flushed before the query.
+        Query query = session.createQuery("select t.id, t.parentTaskId, t.taskString, t.completed from Task t where t.projectId=:projectId order by t.sortKey, t.id");
+        query.setParameter("projectId", projectId);
+        query.setFlushMode(FlushModeType.COMMIT);
+
+        // Every task of the tree has the project id of the project, so the rows contain the whole tree regardless of its depth.
+        Map<Integer, List<Object[]>> rowsByParentTaskId = groupByParentTaskId(query.getResultList());
+
+        return createViews(projectId, null, rowsByParentTaskId);
+    }
+
+    @Override
+    public TaskPage getPageOf(int projectId, TaskCursor cursor, int limit) {
+        Session session = sessionFactory.getCurrentSession();
+        // The top-level tasks are read in the order of the (project_id, sort_key) index, starting after the cursor instead of skipping the previous pages.
+        String keysetCondition = cursor == null ? "" : " and (t.sortKey>:sortKey or (t.sortKey=:sortKey and t.id>:id))";
+        Query query = session.createQuery("select t.id, t.parentTaskId, t.taskString, t.completed, t.sortKey from Task t"
+                + " where t.projectId=:projectId and t.parentTaskId is null" + keysetCondition + " order by t.sortKey, t.id");
+        query.setParameter("projectId", projectId);
+        if (cursor != null) {
+            query.setParameter("sortKey", cursor.getSortKey());
+            query.setParameter("id", cursor.getId());
+        }
+        query.setFlushMode(FlushModeType.COMMIT);
+        // One extra task tells whether there is a next page.
+        query.setMaxResults(limit + 1);
+
+        List<Object[]> topLevelRows = new ArrayList<>();
+        for (Object row : query.getResultList()) {
+            topLevelRows.add((Object[]) row);
+        }
+
+        boolean hasNextPage = topLevelRows.size() > limit;
+        if (hasNextPage) {
+            topLevelRows.remove(limit);
+        }
+
+        if (topLevelRows.isEmpty()) {
+            return new TaskPage(Collections.emptyList(), null);
+        }
+
+        Map<Integer, List<Object[]>> rowsByParentTaskId = groupByParentTaskId(getDetailRowsOf(session, topLevelRows));
+
+        int firstPosition = cursor == null ? 0 : cursor.getPosition();
+        List<TaskView> tasks = new ArrayList<>(topLevelRows.size());
+        for (Object[] columns : topLevelRows) {
+            int id = (Integer) columns[0];
+            List<TaskView> details = createViews(projectId, id, rowsByParentTaskId);
+            tasks.add(new TaskView(id, projectId, (String) columns[2], null, details, firstPosition + tasks.size(), (Boolean) columns[3]));
+        }
+
+        String nextCursor = null;
+        if (hasNextPage) {
+            Object[] lastRow = topLevelRows.get(topLevelRows.size() - 1);
+            nextCursor = new TaskCursor((Long) lastRow[4], (Integer) lastRow[0], firstPosition + tasks.size()).toToken();
+        }
+
+        return new TaskPage(tasks, nextCursor);
+    }
+
+    @Override
+    public void scrollTasksOf(int projectId, TaskRowCallback callback) throws IOException {
+        Session session = sessionFactory.getCurrentSession();
+        // A path sorts before the paths of the details under it, so parent tasks are read before their details.
+        org.hibernate.query.Query<?> query = session.createQuery("select t.id, t.parentTaskId, t.taskString, t.completed, t.sortKey from Task t where t.projectId=:projectId order by t.path");
+        query.setParameter("projectId", projectId);
+        query.setFlushMode(FlushModeType.COMMIT);
+        query.setFetchSize(SCROLL_FETCH_SIZE);
+
+        try (ScrollableResults results = query.scroll(ScrollMode.FORWARD_ONLY)) {
+            while (results.next()) {
+                Object[] columns = results.get();
+                callback.onRow((Integer) columns[0], (Integer) columns[1], (String) columns[2], (Boolean) columns[3], (Long) columns[4]);
+            }
+        }
+    }
+
+    /**
+     * Returns the rows of the details at every level under the specified top-level tasks ordered by their sort keys.
+     * The details are found by the paths of the top-level tasks, so the rows are read with a single query regardless of the depth of the trees.
+     *
+     * @param session Current session.
+     * @param topLevelRows Rows of the top-level tasks.
+     * @return A list containing the rows of the details under the specified top-level tasks ordered by their sort keys.
+     */
+    private List<?> getDetailRowsOf(Session session, List<Object[]> topLevelRows) {
+        StringBuilder pathCondition = new StringBuilder();
+        for (int i = 0; i < topLevelRows.size(); i++) {
+            pathCondition.append(i == 0 ? "" : " or ").append("t.path like :path").append(i);
+        }
+
+        Query query = session.createQuery("select t.id, t.parentTaskId, t.taskString, t.completed from Task t"
+                + " where t.parentTaskId is not null and (" + pathCondition + ") order by t.sortKey, t.id");
+        for (int i = 0; i < topLevelRows.size(); i++) {
+            // The path of a top-level task is its id followed by a slash.
+            query.setParameter("path" + i, topLevelRows.get(i)[0] + "/%");
+        }
+        query.setFlushMode(FlushModeType.COMMIT);
+
+        return query.getResultList();
+    }
+
+    /**
+     * Groups the specified rows by the ids of the parent tasks of the tasks, keeping the order of the rows within each group.
+     *
+     * @param rows Rows of tasks with the parent task id as the second column.
+     * @return The rows grouped by the ids of the parent tasks. The rows of top-level tasks are under the null key.
+     */
+    private Map<Integer, List<Object[]>> groupByParentTaskId(List<?> rows) {
+        Map<Integer, List<Object[]>> rowsByParentTaskId = new HashMap<>();
+        for (Object row : rows) {
+            Object[] columns = (Object[]) row;
+            rowsByParentTaskId.computeIfAbsent((Integer) columns[1], parentTaskId -> new ArrayList<>()).add(columns);
+        }
+
+        return rowsByParentTaskId;
+    }
+
+    /**
+     * Creates the views of the tasks under the specified parent task, with the views of their details.
+     *
+     * @param projectId Id of the project of the tasks.
+     * @param parentTaskId Id of the parent task of the tasks. Null for top-level tasks.
+     * @param rowsByParentTaskId Rows of the tasks of the project ordered by their sort keys, grouped by the ids of their parent tasks.
+     * @return A list containing the views of the tasks under the specified parent task ordered by their position.
+     */
+    private List<TaskView> createViews(int projectId, Integer parentTaskId, Map<Integer, List<Object[]>> rowsByParentTaskId) {
+        List<Object[]> rows = rowsByParentTaskId.getOrDefault(parentTaskId, Collections.emptyList());
+
+        List<TaskView> views = new ArrayList<>(rows.size());
+        for (Object[] columns : rows) {
+            int id = (Integer) columns[0];
+            List<TaskView> details = createViews(projectId, id, rowsByParentTaskId);
+            views.add(new TaskView(id, projectId, (String) columns[2], parentTaskId, details, views.size(), (Boolean) columns[3]));
+        }
+
+        return views;
+    }
+
     @Override
     public Task getById(int taskId) {
         Session session = sessionFactory.getCurrentSession();
-        TypedQuery<Task> query = session.createQuery("from Task t where t.id=:taskId");
+
+        return session.get(Task.class, taskId);
+    }
+
+    @Override
+    public Integer getProjectIdOf(int taskId) {
+        Session session = sessionFactory.getCurrentSession();
+        TypedQuery<Integer> query = session.createQuery("select t.projectId from Task t where t.id=:taskId", Integer.class);
         query.setParameter("taskId", taskId);
 
         try {
@@ -41,15 +211,207 @@ public class TasksDaoImpl implements TasksDao {
         }
     }
 
+    @Override
+    public Map<Integer, Integer> getCommittedProjectIdsOf(Collection<Integer> taskIds) {
+        Map<Integer, Integer> projectIds = new HashMap<>();
+        if (taskIds.isEmpty()) {
+            return projectIds;
+        }
+
+        // A stateless session takes a connection of its own and returns it to the pool when closed.
+        try (StatelessSession session = sessionFactory.openStatelessSession()) {
+            TypedQuery<Object[]> query = session.createQuery("select t.id, t.projectId from Task t where t.id in (:taskIds)", Object[].class);
+            query.setParameter("taskIds", taskIds);
+
+            for (Object[] row : query.getResultList()) {
+                projectIds.put((Integer) row[0], (Integer) row[1]);
+            }
+        }
+
+        return projectIds;
+    }
+
+    @Override
+    public boolean existsInProject(int projectId) {
+        Session session = sessionFactory.getCurrentSession();
+        TypedQuery<Integer> query = session.createQuery("select t.id from Task t where t.projectId=:projectId", Integer.class);
+        query.setParameter("projectId", projectId);
+        query.setMaxResults(1);
+
+        return !query.getResultList().isEmpty();
+    }
+
+    @Override
+    public long getNextSortKeyOf(int projectId, Integer parentTaskId) {
+        Session session = sessionFactory.getCurrentSession();
+        TypedQuery<Long> query = session.createQuery("select coalesce(max(t.sortKey), 0) from Task t where " + getSiblingsCondition(parentTaskId), Long.class);
+        setSiblingsParameters(query, projectId, parentTaskId);
+
+        return SortKeys.after(query.getSingleResult());
+    }
+
+    /**
+     * Returns the condition selecting the siblings with the specified parentTaskId.
+     *
+     * @param parentTaskId Id of the parent task of the siblings. Null if the siblings are top-level tasks.
+     * @return The condition selecting the siblings with the specified parentTaskId.
+     */
+    private String getSiblingsCondition(Integer parentTaskId) {
+        if (parentTaskId == null) {
+            return "t.projectId=:projectId and t.parentTaskId is null";
+        }
+
+        return "t.parentTaskId=:parentTaskId";
+    }
+
+    /**
+     * Sets the parameters of the condition returned by {@link #getSiblingsCondition(java.lang.Integer)} to the specified query.
+     *
+     * @param query Query to set the parameters to.
+     * @param projectId Id of the project of the siblings.
+     * @param parentTaskId Id of the parent task of the siblings. Null if the siblings are top-level tasks.
+     */
+    private void setSiblingsParameters(Query query, int projectId, Integer parentTaskId) {
+        if (parentTaskId == null) {
+            query.setParameter("projectId", projectId);
+        } else {
+            query.setParameter("parentTaskId", parentTaskId);
+        }
+    }
+
+    @Override
+    public void moveSubtree(String path, String newPath, int newProjectId) {
+        Session session = sessionFactory.getCurrentSession();
+        Query query = session.createQuery("update Task t set t.projectId = :projectId, t.path = concat(:newPath, substring(t.path, :pathEnd)) where t.path like :pathPrefix");
+        query.setParameter("projectId", newProjectId);
+        query.setParameter("newPath", newPath);
+        query.setParameter("pathEnd", path.length() + 1);
+        // Paths contain only digits and slashes, so they need no escaping in the pattern.
+        query.setParameter("pathPrefix", path + "%");
+
+        query.executeUpdate();
+    }
+
+    @Override
+    public boolean hasTasksBetween(int projectId, Integer parentTaskId, long sortKey, long sortKey2) {
+        Session session = sessionFactory.getCurrentSession();
+        TypedQuery<Integer> query = session.createQuery("select t.id from Task t where " + getSiblingsCondition(parentTaskId) + " and t.sortKey > :lowerSortKey and t.sortKey < :higherSortKey", Integer.class);
+        setSiblingsParameters(query, projectId, parentTaskId);
+        query.setParameter("lowerSortKey", Math.min(sortKey, sortKey2));
+        query.setParameter("higherSortKey", Math.max(sortKey, sortKey2));
+        query.setMaxResults(1);
+
+        return !query.getResultList().isEmpty();
+    }
+
+    @Override
+    public List<Long> getSortKeysOfSiblings(int projectId, Integer parentTaskId, int excludedTaskId, int offset, int limit) {
+        Session session = sessionFactory.getCurrentSession();
+        TypedQuery<Long> query = session.createQuery("select t.sortKey from Task t where " + getSiblingsCondition(parentTaskId) + " and t.id<>:excludedTaskId order by t.sortKey, t.id", Long.class);
+        setSiblingsParameters(query, projectId, parentTaskId);
+        query.setParameter("excludedTaskId", excludedTaskId);
+        query.setFirstResult(offset);
+        query.setMaxResults(limit);
+
+        return query.getResultList();
+    }
+
+    @Override
+    public List<Integer> getIdsOfSiblings(int projectId, Integer parentTaskId) {
+        Session session = sessionFactory.getCurrentSession();
+        TypedQuery<Integer> query = session.createQuery("select t.id from Task t where " + getSiblingsCondition(parentTaskId), Integer.class);
+        setSiblingsParameters(query, projectId, parentTaskId);
+
+        return query.getResultList();
+    }
+
+    @Override
+    public void applyOrder(List<Integer> taskIds) {
+        Session session = sessionFactory.getCurrentSession();
+        // The ids are passed as a single parameter, so the size of the statement does not depend on the number of tasks.
+        NativeQuery<?> query = session.createNativeQuery("update tasks t set sort_key = o.rank * :gap"
+                + " from unnest(cast(string_to_array(:taskIds, ',') as integer[])) with ordinality as o(id, rank) where t.id = o.id");
+        query.setParameter("gap", SortKeys.GAP);
+        query.setParameter("taskIds", taskIds.stream().map(String::valueOf).collect(Collectors.joining(",")));
+
+        executeBulkUpdate(session, query);
+    }
+
+    @Override
+    public List<Integer> getProjectIdsWithCrowdedSortKeys(long minimumGap) {
+        Session session = sessionFactory.getCurrentSession();
+        NativeQuery<?> query = session.createNativeQuery("select distinct project_id from ("
+                + "select project_id, sort_key - lag(sort_key) over (partition by project_id, parent_task_id order by sort_key) as gap from tasks"
+                + ") as gaps where gap < :minimumGap");
+        // Typed explicitly, so the ids are integers whatever numeric type the driver returns the column as.
+        query.addScalar("project_id", IntegerType.INSTANCE);
+        query.setParameter("minimumGap", minimumGap);
+
+        return query.getResultList().stream().map(Integer.class::cast).collect(Collectors.toList());
+    }
+
+    @Override
+    public void rebalanceSortKeysOf(int projectId) {
+        Session session = sessionFactory.getCurrentSession();
+        NativeQuery<?> query = session.createNativeQuery("update tasks t set sort_key = r.rank * :gap from ("
+                + "select id, row_number() over (partition by parent_task_id order by sort_key, id) as rank from tasks where project_id = :projectId"
+                + ") as r where t.id = r.id and t.sort_key <> r.rank * :gap");
+        query.setParameter("gap", SortKeys.GAP);
+        query.setParameter("projectId", projectId);
+
+        executeBulkUpdate(session, query);
+    }
+
+    /**
+     * Executes the specified native update of the sort keys of tasks.
+     * The session is flushed before and cleared after the update, so no task in the session is left with a stale sort key that a later flush would write back.
+     *
+     * @param session Current session.
+     * @param query Update to be executed.
+     */
+    private void executeBulkUpdate(Session session, NativeQuery<?> query) {
+        // Limits the invalidation of the second-level cache to tasks and their details.
+        query.addSynchronizedEntityClass(Task.class);
+
+        session.flush();
+        query.executeUpdate();
+        session.clear();
+    }
+
+    @Override
+    public int nextId() {
+        SessionImplementor session = sessionFactory.getCurrentSession().unwrap(SessionImplementor.class);
+
+        return (Integer) session.getFactory().getIdentifierGenerator(Task.class.getName()).generate(session, null);
+    }
+
     @Override
     public void save(Task task) {
         Session session = sessionFactory.getCurrentSession();
         session.save(task);
+
+        evictDetailsOf(task.getParentTaskId());
     }
 
     @Override
-    public void remove(Task task) {
+    public void removeSubtree(String path) {
         Session session = sessionFactory.getCurrentSession();
-        session.remove(task);
+        NativeQuery<?> query = session.createNativeQuery("delete from tasks where path like :pathPrefix");
+        // Paths contain only digits and slashes, so they need no escaping in the pattern.
+        query.setParameter("pathPrefix", path + "%");
+
+        executeBulkUpdate(session, query);
+    }
+
+    /**
+     * Evicts the cached details of the specified parent task.
+     * The details are owned by the parent task, so the cache is not updated when a detail is saved on its own.
+     *
+     * @param parentTaskId Id of the parent task. Null if there is no parent task.
+     */
+    private void evictDetailsOf(Integer parentTaskId) {
+        if (parentTaskId != null) {
+            sessionFactory.getCache().evictCollection(DETAILS_ROLE, parentTaskId);
+        }
     }
 }
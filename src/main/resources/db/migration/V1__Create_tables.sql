@@ -1,4 +1,4 @@
---Create script for todolist-database
+--Initial schema of the todolist-database
 
 --Table projects
 CREATE TABLE public.projects
@@ -12,9 +12,7 @@ CREATE TABLE public.projects
 WITH (
   OIDS=FALSE
 );
-ALTER TABLE public.projects
-  OWNER TO postgres;
-  
+
 --Table tasks
 CREATE TABLE public.tasks
 (
@@ -35,10 +33,9 @@ CREATE TABLE public.tasks
 WITH (
   OIDS=FALSE
 );
-ALTER TABLE public.tasks
-  OWNER TO postgres;
 
 CREATE INDEX fki_tasks_parent_task_id_fkey
   ON public.tasks
   USING btree
-  (parent_task_id);
\ No newline at end of file
+  (parent_task_id);
+
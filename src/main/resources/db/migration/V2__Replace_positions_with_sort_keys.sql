@@ -0,0 +1,16 @@
+--Sort keys are spaced 65536 apart so that the existing order is kept
+ALTER TABLE public.projects
+  ADD COLUMN sort_key bigint;
+UPDATE public.projects
+  SET sort_key = ("position" + 1) * 65536;
+ALTER TABLE public.projects
+  ALTER COLUMN sort_key SET NOT NULL,
+  DROP COLUMN "position";
+
+ALTER TABLE public.tasks
+  ADD COLUMN sort_key bigint;
+UPDATE public.tasks
+  SET sort_key = ("position" + 1) * 65536;
+ALTER TABLE public.tasks
+  ALTER COLUMN sort_key SET NOT NULL,
+  DROP COLUMN "position";
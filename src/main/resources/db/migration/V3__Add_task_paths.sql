@@ -0,0 +1,23 @@
+--Paths of tasks are built from the top-level tasks downwards
+ALTER TABLE public.tasks
+  ADD COLUMN path text;
+WITH RECURSIVE paths (id, path) AS (
+  SELECT id, id::text || '/'
+    FROM public.tasks
+    WHERE parent_task_id IS NULL
+  UNION ALL
+  SELECT t.id, p.path || t.id::text || '/'
+    FROM public.tasks t
+    JOIN paths p ON t.parent_task_id = p.id
+)
+UPDATE public.tasks t
+  SET path = paths.path
+  FROM paths
+  WHERE t.id = paths.id;
+ALTER TABLE public.tasks
+  ALTER COLUMN path SET NOT NULL;
+
+CREATE INDEX tasks_path_idx
+  ON public.tasks
+  USING btree
+  (path text_pattern_ops);
@@ -0,0 +1,25 @@
+--Top-level tasks of a project in order
+CREATE INDEX tasks_project_id_sort_key_idx
+  ON public.tasks
+  USING btree
+  (project_id, sort_key)
+  WHERE parent_task_id IS NULL;
+
+--Details of a task in order, also used by the foreign key of parent tasks
+CREATE INDEX tasks_parent_task_id_sort_key_idx
+  ON public.tasks
+  USING btree
+  (parent_task_id, sort_key);
+DROP INDEX public.fki_tasks_parent_task_id_fkey;
+
+--All tasks of a project when loading the task tree, also used by the foreign key of projects
+CREATE INDEX tasks_project_id_idx
+  ON public.tasks
+  USING btree
+  (project_id);
+
+--Projects in order
+CREATE INDEX projects_sort_key_idx
+  ON public.projects
+  USING btree
+  (sort_key);
@@ -0,0 +1,5 @@
+--Hibernate reserves ids in blocks of 50, one sequence call per block
+ALTER SEQUENCE public.projects_id_seq
+  INCREMENT BY 50;
+ALTER SEQUENCE public.tasks_id_seq
+  INCREMENT BY 50;
@@ -0,0 +1,7 @@
+--Top-level tasks of a project in the order of the pages, the id breaks ties between equal sort keys
+CREATE INDEX tasks_project_id_sort_key_id_idx
+  ON public.tasks
+  USING btree
+  (project_id, sort_key, id)
+  WHERE parent_task_id IS NULL;
+DROP INDEX public.tasks_project_id_sort_key_idx;
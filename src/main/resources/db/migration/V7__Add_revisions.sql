@@ -0,0 +1,26 @@
+--Revisions counted up by every change of the tasks of a project and of the list of projects, used as the ETags of their listings
+
+--Table project_revisions, a project without a row is at revision 0
+CREATE TABLE public.project_revisions
+(
+  project_id integer NOT NULL,
+  revision bigint NOT NULL,
+  CONSTRAINT project_revisions_pkey PRIMARY KEY (project_id),
+  CONSTRAINT project_revisions_project_id_fkey FOREIGN KEY (project_id)
+      REFERENCES public.projects (id) MATCH SIMPLE
+      ON UPDATE NO ACTION ON DELETE CASCADE
+)
+WITH (
+  OIDS=FALSE
+);
+
+--Table project_list_revision, always a single row
+CREATE TABLE public.project_list_revision
+(
+  revision bigint NOT NULL
+)
+WITH (
+  OIDS=FALSE
+);
+
+INSERT INTO public.project_list_revision (revision) VALUES (0);
@@ -0,0 +1,44 @@
+--Change logs of the tasks of each project and of the list of projects
+--Each task and project has at most one row, the one of its latest change, so the logs are compacted as they are written
+
+--Changes up to the compacted revision may have been purged, clients that synchronized before it must reload
+ALTER TABLE public.project_revisions ADD COLUMN compacted_revision bigint NOT NULL DEFAULT 0;
+ALTER TABLE public.project_list_revision ADD COLUMN compacted_revision bigint NOT NULL DEFAULT 0;
+
+--Table task_changes
+CREATE TABLE public.task_changes
+(
+  project_id integer NOT NULL,
+  task_id integer NOT NULL,
+  revision bigint NOT NULL,
+  changed_at timestamp with time zone NOT NULL,
+  CONSTRAINT task_changes_pkey PRIMARY KEY (project_id, task_id),
+  CONSTRAINT task_changes_project_id_fkey FOREIGN KEY (project_id)
+      REFERENCES public.projects (id) MATCH SIMPLE
+      ON UPDATE NO ACTION ON DELETE CASCADE
+)
+WITH (
+  OIDS=FALSE
+);
+
+CREATE INDEX task_changes_project_id_revision_idx
+  ON public.task_changes
+  USING btree
+  (project_id, revision);
+
+--Table project_changes, without a foreign key so that removals of projects are kept
+CREATE TABLE public.project_changes
+(
+  project_id integer NOT NULL,
+  revision bigint NOT NULL,
+  changed_at timestamp with time zone NOT NULL,
+  CONSTRAINT project_changes_pkey PRIMARY KEY (project_id)
+)
+WITH (
+  OIDS=FALSE
+);
+
+CREATE INDEX project_changes_revision_idx
+  ON public.project_changes
+  USING btree
+  (revision);
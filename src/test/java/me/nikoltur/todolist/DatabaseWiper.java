@@ -18,11 +18,10 @@ public class DatabaseWiper {
         try (Session session = sessionFactory.openSession()) {
             session.beginTransaction();
             try {
+                // The sequences are not restarted because Hibernate keeps handing out ids from the blocks it has already reserved.
                 deleteTasks(session);
-                restartTasksSequence(session);
-
                 deleteProjects(session);
-                restartProjectsSequence(session);
+                deleteProjectChanges(session);
 
                 session.getTransaction().commit();
             } catch (Exception ex) {
@@ -40,14 +39,6 @@ public class DatabaseWiper {
         deleteQuery.executeUpdate();
     }
 
-    /**
-     * Restarts the id sequence of tasks.
-     */
-    private void restartTasksSequence(Session session) {
-        Query restartSequenceQuery = session.createNativeQuery("alter sequence tasks_id_seq restart");
-        restartSequenceQuery.executeUpdate();
-    }
-
     /**
      * Deletes all projects.
      */
@@ -57,10 +48,10 @@ public class DatabaseWiper {
     }
 
     /**
-     * Restarts the id sequence of projects.
+     * Deletes the change log of projects. The changes of tasks are deleted with their projects.
      */
-    private void restartProjectsSequence(Session session) {
-        Query restartSequenceQuery = session.createNativeQuery("alter sequence projects_id_seq restart");
-        restartSequenceQuery.executeUpdate();
+    private void deleteProjectChanges(Session session) {
+        Query deleteQuery = session.createNativeQuery("delete from project_changes");
+        deleteQuery.executeUpdate();
     }
 }
@@ -0,0 +1,126 @@
+package me.nikoltur.todolist.batch;
+
+import java.util.Arrays;
+import java.util.List;
+import me.nikoltur.todolist.Application;
+import me.nikoltur.todolist.DatabaseWiper;
+import me.nikoltur.todolist.projects.ProjectsResource;
+import me.nikoltur.todolist.projects.da.ProjectView;
+import me.nikoltur.todolist.tasks.TasksResource;
+import me.nikoltur.todolist.tasks.TasksResponses;
+import me.nikoltur.todolist.tasks.da.TaskView;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.web.context.request.ServletWebRequest;
+
+/**
+ *
+ * @author Nikolas Turunen
+ */
+@RunWith(SpringRunner.class)
+@TestPropertySource("classpath:application.properties")
+@ContextConfiguration(classes = {Application.class})
+public class BatchResourceIT {
+
+    @Autowired
+    private DatabaseWiper databaseWiper;
+    @Autowired
+    private BatchResource batchResource;
+    @Autowired
+    private ProjectsResource projectsResource;
+    @Autowired
+    private TasksResource tasksResource;
+
+    @Before
+    public void setUp() {
+        databaseWiper.wipeDatabase();
+    }
+
+    @Test
+    public void testExecuteAppliesEveryOperation() {
+        projectsResource.createProject("Project");
+        ProjectView project = getProjects().get(0);
+
+        List<BatchOperationResult> results = batchResource.execute(Arrays.asList(
+                createTask(project.getId(), "Task1"),
+                createTask(project.getId(), "Task2"),
+                createTask(project.getId(), "Task3")));
+
+        Assert.assertEquals("There should be a result for each operation", 3, results.size());
+        List<TaskView> tasks = TasksResponses.getTasks(tasksResource, project.getId());
+        Assert.assertEquals("Every task should be created", 3, tasks.size());
+        Assert.assertEquals("Tasks should be created in the order of the operations", "Task3", tasks.get(2).getTaskString());
+
+        BatchOperation swapTasks = new BatchOperation();
+        swapTasks.setType(BatchOperationType.SWAP_TASKS);
+        swapTasks.setTaskId(tasks.get(0).getId());
+        swapTasks.setTaskId2(tasks.get(1).getId());
+        BatchOperation swapTasksAgain = new BatchOperation();
+        swapTasksAgain.setType(BatchOperationType.SWAP_TASKS);
+        swapTasksAgain.setTaskId(tasks.get(0).getId());
+        swapTasksAgain.setTaskId2(tasks.get(2).getId());
+
+        batchResource.execute(Arrays.asList(swapTasks, swapTasksAgain));
+
+        List<TaskView> reorderedTasks = TasksResponses.getTasks(tasksResource, project.getId());
+        Assert.assertEquals("First task should be moved two slots down", "Task1", reorderedTasks.get(2).getTaskString());
+        Assert.assertEquals("Second task should be first", "Task2", reorderedTasks.get(0).getTaskString());
+    }
+
+    @Test
+    public void testExecuteAppliesNothingIfAnOperationFails() {
+        projectsResource.createProject("Project");
+        ProjectView project = getProjects().get(0);
+
+        BatchOperation removeMissingTask = new BatchOperation();
+        removeMissingTask.setType(BatchOperationType.REMOVE_TASK);
+        removeMissingTask.setTaskId(Integer.MAX_VALUE);
+        BatchOperation createProject = new BatchOperation();
+        createProject.setType(BatchOperationType.CREATE_PROJECT);
+        createProject.setName("Project2");
+
+        try {
+            batchResource.execute(Arrays.asList(createTask(project.getId(), "Task"), createProject, removeMissingTask));
+            Assert.fail();
+        } catch (BatchOperationFailedException ex) {
+        }
+
+        Assert.assertTrue("Task of the failed batch should not be created", TasksResponses.getTasks(tasksResource, project.getId()).isEmpty());
+        Assert.assertEquals("Project of the failed batch should not be created", 1, getProjects().size());
+    }
+
+    /**
+     * Creates an operation creating a task for the specified project with the specified taskString.
+     *
+     * @param projectId Id of the project.
+     * @param taskString Task string for the task.
+     * @return The created operation.
+     */
+    private BatchOperation createTask(int projectId, String taskString) {
+        BatchOperation operation = new BatchOperation();
+        operation.setType(BatchOperationType.CREATE_TASK);
+        operation.setProjectId(projectId);
+        operation.setTask(taskString);
+
+        return operation;
+    }
+
+    /**
+     * Returns all projects, as listed to a request without conditional headers.
+     *
+     * @return All projects.
+     */
+    private List<ProjectView> getProjects() {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        return projectsResource.getProjects(new ServletWebRequest(new MockHttpServletRequest(), response), response);
+    }
+}
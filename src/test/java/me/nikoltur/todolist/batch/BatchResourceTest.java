@@ -0,0 +1,40 @@
+package me.nikoltur.todolist.batch;
+
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.MockitoAnnotations;
+
+/**
+ *
+ * @author Nikolas Turunen
+ */
+public class BatchResourceTest {
+
+    @InjectMocks
+    private BatchResource batchResource;
+    @Mock
+    private BatchService batchService;
+
+    @Before
+    public void initMocks() {
+        batchResource = new BatchResource();
+
+        MockitoAnnotations.initMocks(this);
+    }
+
+    @Test
+    public void testExecute() {
+        List<BatchOperation> operations = new ArrayList<>();
+        List<BatchOperationResult> results = new ArrayList<>();
+
+        Mockito.doReturn(results).when(batchService).execute(operations);
+
+        Assert.assertSame("Returned results should be the same as the results returned from the service", results, batchResource.execute(operations));
+    }
+}
@@ -0,0 +1,239 @@
+package me.nikoltur.todolist.batch;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import me.nikoltur.todolist.locking.ProjectLockManager;
+import me.nikoltur.todolist.locking.StripedProjectLockManager;
+import me.nikoltur.todolist.projects.ProjectsService;
+import me.nikoltur.todolist.tasks.TaskDoesNotExistException;
+import me.nikoltur.todolist.tasks.TasksService;
+import me.nikoltur.todolist.tasks.da.TasksDao;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
+import org.mockito.InjectMocks;
+import static org.mockito.Matchers.anyInt;
+import static org.mockito.Matchers.anyString;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import org.mockito.MockitoAnnotations;
+import org.mockito.Spy;
+
+/**
+ *
+ * @author Nikolas Turunen
+ */
+public class BatchServiceTest {
+
+    @InjectMocks
+    private BatchServiceImpl batchService;
+    @Mock
+    private TasksService tasksService;
+    @Mock
+    private ProjectsService projectsService;
+    @Mock
+    private TasksDao tasksDao;
+    @Spy
+    private ProjectLockManager projectLockManager = new StripedProjectLockManager();
+
+    @Before
+    public void initMocks() {
+        MockitoAnnotations.initMocks(this);
+
+        // Unless stubbed otherwise, the committed project ids of tasks are those read within the transaction.
+        Mockito.doAnswer(invocation -> {
+            Map<Integer, Integer> projectIds = new HashMap<>();
+            for (Object taskId : (Collection<?>) invocation.getArguments()[0]) {
+                Integer projectId = tasksDao.getProjectIdOf((Integer) taskId);
+                if (projectId != null) {
+                    projectIds.put((Integer) taskId, projectId);
+                }
+            }
+            return projectIds;
+        }).when(tasksDao).getCommittedProjectIdsOf(Mockito.anyCollectionOf(Integer.class));
+    }
+
+    @Test
+    public void testExecuteRunsOperationsInOrder() {
+        Mockito.doReturn(1).when(tasksDao).getProjectIdOf(5);
+
+        BatchOperation createTask = operation(BatchOperationType.CREATE_TASK);
+        createTask.setProjectId(1);
+        createTask.setTask("Task");
+        BatchOperation editTask = operation(BatchOperationType.EDIT_TASK);
+        editTask.setTaskId(5);
+        editTask.setNewTask("Edited");
+        BatchOperation completeTask = operation(BatchOperationType.COMPLETE_TASK);
+        completeTask.setTaskId(5);
+
+        List<BatchOperationResult> results = batchService.execute(Arrays.asList(createTask, editTask, completeTask));
+
+        InOrder inOrder = Mockito.inOrder(tasksService);
+        inOrder.verify(tasksService).createTask(1, "Task");
+        inOrder.verify(tasksService).editTask(5, "Edited");
+        inOrder.verify(tasksService).completeTask(5);
+
+        Assert.assertEquals("There should be a result for each operation", 3, results.size());
+        Assert.assertEquals("Index of the last result should match", 2, results.get(2).getIndex());
+        Assert.assertEquals("Type of the last result should match", BatchOperationType.COMPLETE_TASK, results.get(2).getType());
+    }
+
+    @Test
+    public void testExecuteLocksEveryProjectOnceBeforeFirstOperation() {
+        Mockito.doReturn(1).when(tasksDao).getProjectIdOf(5);
+        Mockito.doReturn(2).when(tasksDao).getProjectIdOf(6);
+
+        BatchOperation swapTasks = operation(BatchOperationType.SWAP_TASKS);
+        swapTasks.setTaskId(5);
+        swapTasks.setTaskId2(6);
+        BatchOperation moveTask = operation(BatchOperationType.MOVE_TASK);
+        moveTask.setTaskId(5);
+        moveTask.setNewProjectId(3);
+
+        batchService.execute(Arrays.asList(swapTasks, moveTask));
+
+        ArgumentCaptor<Collection> argumentCaptor = ArgumentCaptor.forClass(Collection.class);
+        InOrder inOrder = Mockito.inOrder(projectLockManager, tasksService);
+        inOrder.verify(projectLockManager).lockProjects(argumentCaptor.capture());
+        inOrder.verify(tasksService).swapPositionsOfTasks(5, 6);
+        Mockito.verify(projectLockManager, times(1)).lockProjects(Mockito.any(Collection.class));
+        Mockito.verify(projectLockManager, never()).lockProjectList();
+
+        List<Integer> lockedProjectIds = new ArrayList<>(argumentCaptor.getValue());
+        Collections.sort(lockedProjectIds);
+        Assert.assertEquals("Projects of the tasks and the new project should be locked", Arrays.asList(1, 2, 3), lockedProjectIds);
+    }
+
+    @Test
+    public void testExecuteLocksProjectListForProjectOperations() {
+        BatchOperation createProject = operation(BatchOperationType.CREATE_PROJECT);
+        createProject.setName("Project");
+        BatchOperation removeProject = operation(BatchOperationType.REMOVE_PROJECT);
+        removeProject.setProjectId(4);
+
+        batchService.execute(Arrays.asList(createProject, removeProject));
+
+        InOrder inOrder = Mockito.inOrder(projectLockManager, projectsService);
+        inOrder.verify(projectLockManager).lockProjectList();
+        inOrder.verify(projectLockManager).lockProjects(Collections.singleton(4));
+        inOrder.verify(projectsService).createProject("Project");
+        inOrder.verify(projectsService).removeProject(4);
+    }
+
+    @Test
+    public void testExecuteLocksAgainIfTaskWasMovedWhileWaiting() {
+        Mockito.when(tasksDao.getProjectIdOf(5)).thenReturn(1, 2, 2, 2);
+
+        BatchOperation removeTask = operation(BatchOperationType.REMOVE_TASK);
+        removeTask.setTaskId(5);
+
+        batchService.execute(Collections.singletonList(removeTask));
+
+        Mockito.verify(projectLockManager).lockProjects(Collections.singleton(1));
+        Mockito.verify(projectLockManager).lockProjects(Collections.singleton(2));
+        Mockito.verify(tasksService).removeTask(5);
+    }
+
+    @Test
+    public void testExecuteStopsAtFailedOperation() {
+        Mockito.doThrow(new TaskDoesNotExistException("No task")).when(tasksService).removeTask(7);
+
+        BatchOperation createTask = operation(BatchOperationType.CREATE_TASK);
+        createTask.setProjectId(1);
+        createTask.setTask("Task");
+        BatchOperation removeTask = operation(BatchOperationType.REMOVE_TASK);
+        removeTask.setTaskId(7);
+        BatchOperation createDetail = operation(BatchOperationType.CREATE_DETAIL);
+        createDetail.setTaskId(8);
+        createDetail.setDetail("Detail");
+
+        try {
+            batchService.execute(Arrays.asList(createTask, removeTask, createDetail));
+            Assert.fail();
+        } catch (BatchOperationFailedException ex) {
+            Assert.assertTrue("Cause should be the exception of the failed operation", ex.getCause() instanceof TaskDoesNotExistException);
+            Assert.assertTrue("Message should contain the index of the failed operation", ex.getMessage().startsWith("Operation 1 "));
+        }
+
+        Mockito.verify(tasksService, never()).createDetail(anyInt(), anyString());
+    }
+
+    @Test
+    public void testExecuteFailsForMissingParameter() {
+        BatchOperation swapTasks = operation(BatchOperationType.SWAP_TASKS);
+        swapTasks.setTaskId(5);
+
+        try {
+            batchService.execute(Collections.singletonList(swapTasks));
+            Assert.fail();
+        } catch (BatchOperationFailedException ex) {
+            Assert.assertTrue("Cause should tell that a parameter is missing", ex.getCause() instanceof IllegalArgumentException);
+        }
+
+        Mockito.verify(tasksService, never()).swapPositionsOfTasks(anyInt(), anyInt());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testExecuteThrowsForEmptyBatch() {
+        batchService.execute(new ArrayList<>());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testExecuteThrowsForTooManyOperations() {
+        List<BatchOperation> operations = new ArrayList<>();
+        for (int i = 0; i <= BatchService.MAX_OPERATIONS; i++) {
+            operations.add(operation(BatchOperationType.COMPLETE_TASK));
+        }
+
+        batchService.execute(operations);
+    }
+
+    @Test
+    public void testExecuteLocksProjectOfFirstTaskForReorder() {
+        Mockito.doReturn(4).when(tasksDao).getProjectIdOf(7);
+
+        BatchOperation reorderTasks = operation(BatchOperationType.REORDER_TASKS);
+        reorderTasks.setTaskIds(Arrays.asList(7, 8));
+        BatchOperation moveTaskToIndex = operation(BatchOperationType.MOVE_TASK_TO_INDEX);
+        moveTaskToIndex.setTaskId(7);
+        moveTaskToIndex.setIndex(0);
+
+        batchService.execute(Arrays.asList(reorderTasks, moveTaskToIndex));
+
+        Mockito.verify(projectLockManager).lockProjects(Collections.singleton(4));
+        Mockito.verify(tasksService).reorderTasks(Arrays.asList(7, 8));
+        Mockito.verify(tasksService).moveTaskToIndex(7, 0);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testExecuteThrowsForOperationWithoutType() {
+        batchService.execute(Collections.singletonList(new BatchOperation()));
+    }
+
+    @Test(expected = NullPointerException.class)
+    public void testExecuteThrowsForNullOperations() {
+        batchService.execute(null);
+    }
+
+    /**
+     * Creates an operation of the specified type without parameters.
+     *
+     * @param type Type of the operation.
+     * @return The created operation.
+     */
+    private BatchOperation operation(BatchOperationType type) {
+        BatchOperation operation = new BatchOperation();
+        operation.setType(type);
+
+        return operation;
+    }
+}
@@ -0,0 +1,85 @@
+package me.nikoltur.todolist.caching;
+
+import java.util.List;
+import net.sf.ehcache.Cache;
+import net.sf.ehcache.CacheManager;
+import net.sf.ehcache.Element;
+import net.sf.ehcache.config.CacheConfiguration;
+import net.sf.ehcache.config.Configuration;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.InjectMocks;
+import org.mockito.MockitoAnnotations;
+import org.mockito.Spy;
+
+/**
+ *
+ * @author Nikolas Turunen
+ */
+public class CacheStatisticsResourceTest {
+
+    private static final String CACHE_MANAGER_NAME = "CacheStatisticsResourceTest";
+    private static final String REGION_NAME = "region";
+    private CacheManager cacheManager;
+    @InjectMocks
+    private final CacheStatisticsResource cacheStatisticsResource = new CacheStatisticsResource(CACHE_MANAGER_NAME);
+    @Spy
+    private ResponseCache responseCache = new ResponseCache(1024);
+
+    @Before
+    public void createCacheManager() {
+        MockitoAnnotations.initMocks(this);
+
+        cacheManager = new CacheManager(new Configuration().name(CACHE_MANAGER_NAME));
+        cacheManager.addCache(new Cache(new CacheConfiguration(REGION_NAME, 100)));
+    }
+
+    @After
+    public void shutdownCacheManager() {
+        cacheManager.shutdown();
+    }
+
+    @Test
+    public void testGetStatisticsReturnsHitRatioOfRegion() {
+        cacheManager.getCache(REGION_NAME).put(new Element(1, "Cached"));
+        cacheManager.getCache(REGION_NAME).get(1);
+        cacheManager.getCache(REGION_NAME).get(2);
+        cacheManager.getCache(REGION_NAME).get(1);
+        cacheManager.getCache(REGION_NAME).get(1);
+
+        List<CacheRegionStatistics> statistics = cacheStatisticsResource.getStatistics();
+
+        Assert.assertEquals("There should be statistics of one region", 1, statistics.size());
+        CacheRegionStatistics regionStatistics = statistics.get(0);
+        Assert.assertEquals("Name of the region should match", REGION_NAME, regionStatistics.getName());
+        Assert.assertEquals("Size of the region should match", 1, regionStatistics.getSize());
+        Assert.assertEquals("Hits should be counted", 3, regionStatistics.getHits());
+        Assert.assertEquals("Misses should be counted", 1, regionStatistics.getMisses());
+        Assert.assertEquals("Hit ratio should be the share of hits of all lookups", 0.75, regionStatistics.getHitRatio(), 0.0001);
+    }
+
+    @Test
+    public void testGetStatisticsReturnsZeroHitRatioWithoutLookups() {
+        List<CacheRegionStatistics> statistics = cacheStatisticsResource.getStatistics();
+
+        Assert.assertEquals("Hit ratio should be zero without lookups", 0, statistics.get(0).getHitRatio(), 0);
+    }
+
+    @Test
+    public void testGetStatisticsReturnsEmptyListWithoutCacheManager() {
+        Assert.assertTrue("There should be no statistics without a cache manager", new CacheStatisticsResource("NotStarted").getStatistics().isEmpty());
+    }
+
+    @Test
+    public void testGetResponseStatistics() {
+        responseCache.put(1, responseCache.getStamp(1), 3, new byte[10]);
+        responseCache.get(1);
+
+        ResponseCacheStatistics statistics = cacheStatisticsResource.getResponseStatistics();
+
+        Assert.assertEquals("Cached response should be counted", 1, statistics.getEntries());
+        Assert.assertEquals("Hit should be counted", 1, statistics.getHits());
+    }
+}
@@ -0,0 +1,103 @@
+package me.nikoltur.todolist.caching;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionSynchronizationUtils;
+
+/**
+ *
+ * @author Nikolas Turunen
+ */
+public class ResponseCacheTest {
+
+    private static final int PROJECT_ID = 1;
+    private final ResponseCache responseCache = new ResponseCache(3 * (100 + ResponseCache.ENTRY_OVERHEAD));
+
+    @After
+    public void clearSynchronization() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    public void testGetReturnsCachedResponse() {
+        byte[] body = new byte[100];
+        responseCache.put(PROJECT_ID, responseCache.getStamp(PROJECT_ID), 3, body);
+
+        CachedResponse response = responseCache.get(PROJECT_ID);
+
+        Assert.assertSame("Cached body should be returned", body, response.getBody());
+        Assert.assertEquals("Revision of the body should be returned", 3, response.getRevision());
+        Assert.assertNull("Nothing should be cached for another project", responseCache.get(PROJECT_ID + 1));
+
+        ResponseCacheStatistics statistics = responseCache.getStatistics();
+        Assert.assertEquals("Hit should be counted", 1, statistics.getHits());
+        Assert.assertEquals("Miss should be counted", 1, statistics.getMisses());
+        Assert.assertEquals("Hit ratio should be the share of hits of all lookups", 0.5, statistics.getHitRatio(), 0.0001);
+        Assert.assertEquals("Size should be the size of the body with the overhead of the entry", 100 + ResponseCache.ENTRY_OVERHEAD, statistics.getSize());
+    }
+
+    @Test
+    public void testPutEvictsLeastRecentlyUsedResponsesBySize() {
+        for (int projectId = 1; projectId <= 3; projectId++) {
+            responseCache.put(projectId, responseCache.getStamp(projectId), 1, new byte[100]);
+        }
+
+        responseCache.get(1);
+        responseCache.put(4, responseCache.getStamp(4), 1, new byte[150]);
+
+        Assert.assertNotNull("Recently used response should be kept", responseCache.get(1));
+        Assert.assertNull("Least recently used response should be evicted", responseCache.get(2));
+        Assert.assertNull("Responses should be evicted until the new response fits", responseCache.get(3));
+        Assert.assertNotNull("New response should be cached", responseCache.get(4));
+        Assert.assertEquals("Evictions should be counted", 2, responseCache.getStatistics().getEvictions());
+        Assert.assertEquals("Size should not count evicted responses", 250 + 2 * ResponseCache.ENTRY_OVERHEAD, responseCache.getStatistics().getSize());
+    }
+
+    @Test
+    public void testPutIgnoresResponseLargerThanCache() {
+        responseCache.put(PROJECT_ID, responseCache.getStamp(PROJECT_ID), 1, new byte[1000]);
+
+        Assert.assertNull("Response larger than the cache should not be cached", responseCache.get(PROJECT_ID));
+    }
+
+    @Test
+    public void testPutIgnoresResponseReadBeforeInvalidation() {
+        long stamp = responseCache.getStamp(PROJECT_ID);
+        responseCache.invalidate(PROJECT_ID);
+
+        responseCache.put(PROJECT_ID, stamp, 1, new byte[100]);
+
+        Assert.assertNull("Response read before the invalidation should not be cached", responseCache.get(PROJECT_ID));
+    }
+
+    @Test
+    public void testInvalidateAfterCommit() {
+        responseCache.put(PROJECT_ID, responseCache.getStamp(PROJECT_ID), 1, new byte[100]);
+        TransactionSynchronizationManager.initSynchronization();
+
+        responseCache.invalidateAfterCommit(PROJECT_ID);
+        Assert.assertNotNull("Response should be kept until commit", responseCache.get(PROJECT_ID));
+
+        TransactionSynchronizationUtils.triggerAfterCommit();
+        TransactionSynchronizationUtils.triggerAfterCompletion(TransactionSynchronization.STATUS_COMMITTED);
+
+        Assert.assertNull("Response should be invalidated after commit", responseCache.get(PROJECT_ID));
+        Assert.assertEquals("Size should not count invalidated responses", 0, responseCache.getStatistics().getSize());
+    }
+
+    @Test
+    public void testInvalidateAfterCommitKeepsResponseAfterRollback() {
+        responseCache.put(PROJECT_ID, responseCache.getStamp(PROJECT_ID), 1, new byte[100]);
+        TransactionSynchronizationManager.initSynchronization();
+
+        responseCache.invalidateAfterCommit(PROJECT_ID);
+        TransactionSynchronizationUtils.triggerAfterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK);
+
+        Assert.assertNotNull("Response should be kept after rollback", responseCache.get(PROJECT_ID));
+    }
+}
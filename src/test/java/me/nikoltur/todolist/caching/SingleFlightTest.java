@@ -0,0 +1,143 @@
+package me.nikoltur.todolist.caching;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Test;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionSynchronizationUtils;
+
+/**
+ *
+ * @author Nikolas Turunen
+ */
+public class SingleFlightTest {
+
+    private final SingleFlight<Integer, String> singleFlight = new SingleFlight<>();
+    private final ExecutorService executor = Executors.newFixedThreadPool(2);
+
+    @After
+    public void shutdown() {
+        executor.shutdownNow();
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    public void testConcurrentLoadsShareOneLoad() throws Exception {
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger loads = new AtomicInteger();
+
+        Future<String> leader = executor.submit(() -> singleFlight.load(1, () -> {
+            loads.incrementAndGet();
+            loading.countDown();
+            await(release);
+            return "Loaded";
+        }));
+        Assert.assertTrue(loading.await(10, TimeUnit.SECONDS));
+
+        Future<String> follower = executor.submit(() -> singleFlight.load(1, () -> {
+            loads.incrementAndGet();
+            return "Loaded again";
+        }));
+        while (singleFlight.getCoalescedLoads() == 0) {
+            Thread.sleep(1);
+        }
+
+        release.countDown();
+
+        Assert.assertEquals("Follower should get the value of the leader", "Loaded", follower.get(10, TimeUnit.SECONDS));
+        Assert.assertEquals("Leader should get its value", "Loaded", leader.get(10, TimeUnit.SECONDS));
+        Assert.assertEquals("Value should be loaded once", 1, loads.get());
+    }
+
+    @Test
+    public void testSequentialLoadsAreNotShared() {
+        Assert.assertEquals("First", singleFlight.load(1, () -> "First"));
+        Assert.assertEquals("Finished load should not be shared", "Second", singleFlight.load(1, () -> "Second"));
+        Assert.assertEquals("No load should be coalesced", 0, singleFlight.getCoalescedLoads());
+    }
+
+    @Test
+    public void testFailedLoadIsNotShared() {
+        try {
+            singleFlight.load(1, () -> {
+                throw new IllegalStateException();
+            });
+            Assert.fail();
+        } catch (IllegalStateException ex) {
+        }
+
+        Assert.assertEquals("Failed load should be forgotten", "Loaded", singleFlight.load(1, () -> "Loaded"));
+    }
+
+    @Test
+    public void testFollowerGetsFailureOfLoad() throws Exception {
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        executor.submit(() -> singleFlight.load(1, () -> {
+            loading.countDown();
+            await(release);
+            throw new IllegalStateException();
+        }));
+        Assert.assertTrue(loading.await(10, TimeUnit.SECONDS));
+
+        Thread releaser = new Thread(() -> {
+            while (singleFlight.getCoalescedLoads() == 0) {
+                Thread.yield();
+            }
+            release.countDown();
+        });
+        releaser.start();
+
+        try {
+            singleFlight.load(1, () -> "Loaded");
+            Assert.fail();
+        } catch (IllegalStateException ex) {
+        }
+        releaser.join(10000);
+    }
+
+    @Test
+    public void testForgetAfterCommitStartsNewLoad() throws Exception {
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        Future<String> leader = executor.submit(() -> singleFlight.load(1, () -> {
+            loading.countDown();
+            await(release);
+            return "Old";
+        }));
+        Assert.assertTrue(loading.await(10, TimeUnit.SECONDS));
+
+        TransactionSynchronizationManager.initSynchronization();
+        singleFlight.forgetAfterCommit(1);
+        TransactionSynchronizationUtils.triggerAfterCommit();
+
+        Assert.assertEquals("Load after the commit should not share the load in flight", "New", singleFlight.load(1, () -> "New"));
+
+        release.countDown();
+        Assert.assertEquals("Load in flight should still complete", "Old", leader.get(10, TimeUnit.SECONDS));
+    }
+
+    /**
+     * Waits for the specified latch to be released.
+     *
+     * @param latch Latch to wait for.
+     */
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(10, TimeUnit.SECONDS);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
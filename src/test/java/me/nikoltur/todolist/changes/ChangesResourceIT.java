@@ -0,0 +1,206 @@
+package me.nikoltur.todolist.changes;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.List;
+import me.nikoltur.todolist.Application;
+import me.nikoltur.todolist.DatabaseWiper;
+import me.nikoltur.todolist.changes.da.ChangesDao;
+import me.nikoltur.todolist.changes.da.ProjectChanges;
+import me.nikoltur.todolist.changes.da.TaskChanges;
+import me.nikoltur.todolist.projects.ProjectsResource;
+import me.nikoltur.todolist.projects.da.ProjectView;
+import me.nikoltur.todolist.tasks.TasksResource;
+import me.nikoltur.todolist.tasks.TasksResponses;
+import me.nikoltur.todolist.tasks.da.TaskView;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.context.request.ServletWebRequest;
+
+/**
+ *
+ * @author Nikolas Turunen
+ */
+@RunWith(SpringRunner.class)
+@TestPropertySource("classpath:application.properties")
+@ContextConfiguration(classes = {Application.class})
+public class ChangesResourceIT {
+
+    @Autowired
+    private DatabaseWiper databaseWiper;
+    @Autowired
+    private ChangesResource changesResource;
+    @Autowired
+    private ProjectsResource projectsResource;
+    @Autowired
+    private TasksResource tasksResource;
+    @Autowired
+    private ChangesDao changesDao;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Before
+    public void setUp() {
+        databaseWiper.wipeDatabase();
+    }
+
+    @Test
+    public void testGetTaskChangesReturnsOnlyChangesSinceRevision() {
+        projectsResource.createProject("Project");
+        ProjectView project = getProjects().get(0);
+        tasksResource.createTask(project.getId(), "Task1");
+        tasksResource.createTask(project.getId(), "Task2");
+        List<TaskView> tasks = getTasks(project.getId());
+        long revision = getRevisionOfTasks(project.getId());
+
+        tasksResource.editTask(tasks.get(0).getId(), "Edited");
+        tasksResource.removeTask(tasks.get(1).getId());
+        tasksResource.createDetail(tasks.get(0).getId(), "Detail");
+
+        TaskChanges changes = changesResource.getTaskChanges(project.getId(), revision);
+
+        Assert.assertFalse("Reload should not be required", changes.isReloadRequired());
+        Assert.assertEquals("Revision should be three changes later", revision + 3, changes.getRevision());
+        Assert.assertEquals("Edited task and the new detail should be changed", 2, changes.getTasks().size());
+        Assert.assertEquals("Edited task should be before its detail", "Edited", changes.getTasks().get(0).getTaskString());
+        Assert.assertEquals("Detail should be under the edited task", (Integer) tasks.get(0).getId(), changes.getTasks().get(1).getParentTaskId());
+        Assert.assertEquals("Removed task should be listed", Collections.singletonList(tasks.get(1).getId()), changes.getRemovedTaskIds());
+
+        TaskChanges noChanges = changesResource.getTaskChanges(project.getId(), changes.getRevision());
+        Assert.assertTrue("There should be no changes since the latest revision", noChanges.getTasks().isEmpty() && noChanges.getRemovedTaskIds().isEmpty());
+    }
+
+    @Test
+    public void testGetTaskChangesOfMoveToAnotherProject() {
+        projectsResource.createProject("Project1");
+        projectsResource.createProject("Project2");
+        List<ProjectView> projects = getProjects();
+        int projectId1 = projects.get(0).getId();
+        int projectId2 = projects.get(1).getId();
+        tasksResource.createTask(projectId1, "Task");
+        TaskView task = getTasks(projectId1).get(0);
+        tasksResource.createDetail(task.getId(), "Detail");
+        int detailId = getTasks(projectId1).get(0).getDetails().get(0).getId();
+        long revision1 = getRevisionOfTasks(projectId1);
+        long revision2 = getRevisionOfTasks(projectId2);
+
+        tasksResource.moveTask(task.getId(), null, projectId2);
+
+        Assert.assertEquals("Task and its detail should be removed from the first project", new HashSet<>(Arrays.asList(task.getId(), detailId)),
+                new HashSet<>(changesResource.getTaskChanges(projectId1, revision1).getRemovedTaskIds()));
+        Assert.assertEquals("Task and its detail should be added to the second project", 2, changesResource.getTaskChanges(projectId2, revision2).getTasks().size());
+    }
+
+    @Test
+    public void testGetTaskChangesOfRemovalListsDetailsAsRemoved() {
+        projectsResource.createProject("Project");
+        int projectId = getProjects().get(0).getId();
+        tasksResource.createTask(projectId, "Task");
+        TaskView task = getTasks(projectId).get(0);
+        tasksResource.createDetail(task.getId(), "Detail");
+        TaskView detail = getTasks(projectId).get(0).getDetails().get(0);
+        tasksResource.createDetail(detail.getId(), "Detail of detail");
+        int detailOfDetailId = getTasks(projectId).get(0).getDetails().get(0).getDetails().get(0).getId();
+        long revision = getRevisionOfTasks(projectId);
+
+        tasksResource.removeTask(task.getId());
+
+        Assert.assertEquals("Task and its details at every level should be removed", new HashSet<>(Arrays.asList(task.getId(), detail.getId(), detailOfDetailId)),
+                new HashSet<>(changesResource.getTaskChanges(projectId, revision).getRemovedTaskIds()));
+    }
+
+    @Test
+    public void testGetProjectChanges() {
+        projectsResource.createProject("Project1");
+        projectsResource.createProject("Project2");
+        List<ProjectView> projects = getProjects();
+        long revision = getRevisionOfProjects();
+
+        projectsResource.renameProject(projects.get(0).getId(), "Renamed");
+        projectsResource.removeProject(projects.get(1).getId());
+
+        ProjectChanges changes = changesResource.getProjectChanges(revision);
+        Assert.assertEquals("Renamed project should be changed", "Renamed", changes.getProjects().get(0).getName());
+        Assert.assertEquals("Removed project should be listed", Collections.singletonList(projects.get(1).getId()), changes.getRemovedProjectIds());
+    }
+
+    @Test
+    public void testPurgedRemovalsRequireReload() {
+        projectsResource.createProject("Project");
+        int projectId = getProjects().get(0).getId();
+        tasksResource.createTask(projectId, "Task");
+        long revision = getRevisionOfTasks(projectId);
+        tasksResource.removeTask(getTasks(projectId).get(0).getId());
+
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        transactionTemplate.execute(status -> changesDao.purgeRemovalsBefore(new Date(System.currentTimeMillis() + 60000)));
+
+        Assert.assertTrue("Reload should be required after the removal has been purged", changesResource.getTaskChanges(projectId, revision).isReloadRequired());
+        Assert.assertFalse("Reload should not be required from the latest revision", changesResource.getTaskChanges(projectId, revision + 1).isReloadRequired());
+    }
+
+    /**
+     * Returns all projects.
+     *
+     * @return All projects.
+     */
+    private List<ProjectView> getProjects() {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        return projectsResource.getProjects(new ServletWebRequest(new MockHttpServletRequest(), response), response);
+    }
+
+    /**
+     * Returns the tasks of the specified project.
+     *
+     * @param projectId Id of the project.
+     * @return The tasks of the specified project.
+     */
+    private List<TaskView> getTasks(int projectId) {
+        return TasksResponses.getTasks(tasksResource, projectId);
+    }
+
+    /**
+     * Returns the revision of the tasks of the specified project from the ETag of the listing of the tasks.
+     *
+     * @param projectId Id of the project.
+     * @return The revision of the tasks of the specified project.
+     */
+    private long getRevisionOfTasks(int projectId) {
+        return parseETag(TasksResponses.getResponse(tasksResource, projectId, new MockHttpServletRequest("GET", "")).getHeader("ETag"));
+    }
+
+    /**
+     * Returns the revision of the list of projects from the ETag of the listing of the projects.
+     *
+     * @return The revision of the list of projects.
+     */
+    private long getRevisionOfProjects() {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        projectsResource.getProjects(new ServletWebRequest(new MockHttpServletRequest("GET", ""), response), response);
+
+        return parseETag(response.getHeader("ETag"));
+    }
+
+    /**
+     * Returns the revision in the specified ETag.
+     *
+     * @param eTag ETag of a listing.
+     * @return The revision in the specified ETag.
+     */
+    private long parseETag(String eTag) {
+        return Long.parseLong(eTag.replace("\"", ""));
+    }
+}
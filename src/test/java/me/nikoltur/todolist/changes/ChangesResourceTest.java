@@ -0,0 +1,47 @@
+package me.nikoltur.todolist.changes;
+
+import java.util.Collections;
+import me.nikoltur.todolist.changes.da.ProjectChanges;
+import me.nikoltur.todolist.changes.da.TaskChanges;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.MockitoAnnotations;
+
+/**
+ *
+ * @author Nikolas Turunen
+ */
+public class ChangesResourceTest {
+
+    @InjectMocks
+    private ChangesResource changesResource;
+    @Mock
+    private ChangesService changesService;
+
+    @Before
+    public void initMocks() {
+        changesResource = new ChangesResource();
+
+        MockitoAnnotations.initMocks(this);
+    }
+
+    @Test
+    public void testGetTaskChanges() {
+        TaskChanges changes = new TaskChanges(3, false, Collections.emptyList(), Collections.emptyList());
+        Mockito.doReturn(changes).when(changesService).getTaskChanges(1, 2);
+
+        Assert.assertSame("Returned changes should be the changes returned from the service", changes, changesResource.getTaskChanges(1, 2));
+    }
+
+    @Test
+    public void testGetProjectChanges() {
+        ProjectChanges changes = new ProjectChanges(3, false, Collections.emptyList(), Collections.emptyList());
+        Mockito.doReturn(changes).when(changesService).getProjectChanges(2);
+
+        Assert.assertSame("Returned changes should be the changes returned from the service", changes, changesResource.getProjectChanges(2));
+    }
+}
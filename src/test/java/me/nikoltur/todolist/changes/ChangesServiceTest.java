@@ -0,0 +1,115 @@
+package me.nikoltur.todolist.changes;
+
+import java.util.Collections;
+import me.nikoltur.todolist.changes.da.ChangesDao;
+import me.nikoltur.todolist.changes.da.ProjectChanges;
+import me.nikoltur.todolist.changes.da.TaskChanges;
+import me.nikoltur.todolist.projects.ProjectDoesNotExistException;
+import me.nikoltur.todolist.projects.da.Project;
+import me.nikoltur.todolist.projects.da.ProjectsDao;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import static org.mockito.Matchers.anyInt;
+import static org.mockito.Matchers.anyLong;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import static org.mockito.Mockito.never;
+import org.mockito.MockitoAnnotations;
+
+/**
+ *
+ * @author Nikolas Turunen
+ */
+public class ChangesServiceTest {
+
+    private static final int PROJECT_ID = 1;
+    @InjectMocks
+    private ChangesService changesService = new ChangesServiceImpl();
+    @Mock
+    private ChangesDao changesDao;
+    @Mock
+    private ProjectsDao projectsDao;
+
+    @Before
+    public void initMocks() {
+        MockitoAnnotations.initMocks(this);
+    }
+
+    @Test
+    public void testGetTaskChanges() {
+        TaskChanges changes = new TaskChanges(5, false, Collections.emptyList(), Collections.singletonList(3));
+        Mockito.doReturn(new Project()).when(projectsDao).getById(PROJECT_ID);
+        Mockito.doReturn(5L).when(projectsDao).getRevisionOf(PROJECT_ID);
+        Mockito.doReturn(changes).when(changesDao).getTaskChangesOf(PROJECT_ID, 2, 5);
+        Mockito.doReturn(1L).when(changesDao).getCompactedRevisionOf(PROJECT_ID);
+
+        Assert.assertSame("Changes should be the changes returned from the dao", changes, changesService.getTaskChanges(PROJECT_ID, 2));
+    }
+
+    @Test
+    public void testGetTaskChangesRequiresReloadBeforeCompactedRevision() {
+        Mockito.doReturn(new Project()).when(projectsDao).getById(PROJECT_ID);
+        Mockito.doReturn(5L).when(projectsDao).getRevisionOf(PROJECT_ID);
+        Mockito.doReturn(new TaskChanges(5, false, Collections.emptyList(), Collections.emptyList())).when(changesDao).getTaskChangesOf(PROJECT_ID, 2, 5);
+        Mockito.doReturn(3L).when(changesDao).getCompactedRevisionOf(PROJECT_ID);
+
+        TaskChanges changes = changesService.getTaskChanges(PROJECT_ID, 2);
+
+        Assert.assertTrue("Reload should be required", changes.isReloadRequired());
+        Assert.assertEquals("Revision should be the current revision", 5, changes.getRevision());
+    }
+
+    @Test
+    public void testGetTaskChangesRequiresReloadAfterCurrentRevision() {
+        Mockito.doReturn(new Project()).when(projectsDao).getById(PROJECT_ID);
+        Mockito.doReturn(5L).when(projectsDao).getRevisionOf(PROJECT_ID);
+
+        Assert.assertTrue("Reload should be required for an unknown revision", changesService.getTaskChanges(PROJECT_ID, 6).isReloadRequired());
+        Mockito.verify(changesDao, never()).getTaskChangesOf(anyInt(), anyLong(), anyLong());
+    }
+
+    @Test(expected = ProjectDoesNotExistException.class)
+    public void testGetTaskChangesThrowsForNonExistingProject() {
+        changesService.getTaskChanges(PROJECT_ID, 0);
+    }
+
+    @Test
+    public void testGetTaskChangesThrowsForInvalidArguments() {
+        try {
+            changesService.getTaskChanges(0, 0);
+            Assert.fail();
+        } catch (IllegalArgumentException ex) {
+        }
+
+        try {
+            changesService.getTaskChanges(PROJECT_ID, -1);
+            Assert.fail();
+        } catch (IllegalArgumentException ex) {
+        }
+    }
+
+    @Test
+    public void testGetProjectChanges() {
+        ProjectChanges changes = new ProjectChanges(4, false, Collections.emptyList(), Collections.emptyList());
+        Mockito.doReturn(4L).when(projectsDao).getListRevision();
+        Mockito.doReturn(changes).when(changesDao).getProjectChanges(4, 4);
+
+        Assert.assertSame("Changes should be the changes returned from the dao", changes, changesService.getProjectChanges(4));
+    }
+
+    @Test
+    public void testGetProjectChangesRequiresReloadBeforeCompactedRevision() {
+        Mockito.doReturn(4L).when(projectsDao).getListRevision();
+        Mockito.doReturn(new ProjectChanges(4, false, Collections.emptyList(), Collections.emptyList())).when(changesDao).getProjectChanges(0, 4);
+        Mockito.doReturn(2L).when(changesDao).getCompactedListRevision();
+
+        Assert.assertTrue("Reload should be required", changesService.getProjectChanges(0).isReloadRequired());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testGetProjectChangesThrowsForNegativeRevision() {
+        changesService.getProjectChanges(-1);
+    }
+}
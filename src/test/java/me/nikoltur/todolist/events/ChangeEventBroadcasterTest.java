@@ -0,0 +1,240 @@
+package me.nikoltur.todolist.events;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import static org.mockito.Matchers.any;
+import org.mockito.Mockito;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+/**
+ *
+ * @author Nikolas Turunen
+ */
+public class ChangeEventBroadcasterTest {
+
+    private static final int PROJECT_ID = 1;
+    private static final long SEND_TIMEOUT = 1000;
+    private ExecutorService executor;
+    private List<RecordingEmitter> emitters;
+    private ChangeEventBroadcaster broadcaster;
+    private long currentTime;
+    /**
+     * Latch the sends of new emitters wait for, null if sends return immediately.
+     */
+    private CountDownLatch stalledSends;
+
+    @Before
+    public void init() {
+        executor = Mockito.mock(ExecutorService.class);
+        Mockito.doAnswer(invocation -> {
+            ((Runnable) invocation.getArguments()[0]).run();
+            return null;
+        }).when(executor).execute(any(Runnable.class));
+
+        emitters = new ArrayList<>();
+        broadcaster = createBroadcaster(32);
+    }
+
+    @Test
+    public void testSubscribeToProjectSendsCurrentRevision() {
+        broadcaster.subscribeToProject(PROJECT_ID, () -> 3);
+
+        Assert.assertEquals("Subscriber should receive the current revision", Collections.singletonList("event:tasks\ndata:3\n\n"), emitters.get(0).events);
+        Assert.assertEquals("Subscriber should be registered", 1, broadcaster.getSubscriberCount());
+    }
+
+    @Test
+    public void testSubscribeToProjectUnsubscribesIfRevisionCannotBeRead() {
+        try {
+            broadcaster.subscribeToProject(PROJECT_ID, () -> {
+                throw new IllegalArgumentException();
+            });
+            Assert.fail();
+        } catch (IllegalArgumentException ex) {
+        }
+
+        Assert.assertEquals("Subscriber should not be registered", 0, broadcaster.getSubscriberCount());
+    }
+
+    @Test
+    public void testPublishTasksChangedReachesSubscribersOfProjectOnly() {
+        broadcaster.subscribeToProject(PROJECT_ID, () -> 3);
+        broadcaster.subscribeToProject(PROJECT_ID + 1, () -> 7);
+        broadcaster.subscribeToProjectList(() -> 2);
+
+        broadcaster.publishTasksChanged(PROJECT_ID, 4);
+
+        Assert.assertEquals("Subscriber of the project should receive the new revision", Arrays.asList("event:tasks\ndata:3\n\n", "event:tasks\ndata:4\n\n"), emitters.get(0).events);
+        Assert.assertEquals("Subscriber of another project should not receive the new revision", 1, emitters.get(1).events.size());
+        Assert.assertEquals("Subscriber of the project list should not receive the new revision", 1, emitters.get(2).events.size());
+    }
+
+    @Test
+    public void testPublishProjectsChanged() {
+        broadcaster.subscribeToProject(PROJECT_ID, () -> 3);
+        broadcaster.subscribeToProjectList(() -> 2);
+
+        broadcaster.publishProjectsChanged(5);
+
+        Assert.assertEquals("Subscriber of a project should not receive the new revision", 1, emitters.get(0).events.size());
+        Assert.assertEquals("Subscriber of the project list should receive the new revision", Arrays.asList("event:projects\ndata:2\n\n", "event:projects\ndata:5\n\n"), emitters.get(1).events);
+    }
+
+    @Test
+    public void testSendHeartbeats() {
+        broadcaster.subscribeToProject(PROJECT_ID, () -> 3);
+        broadcaster.subscribeToProjectList(() -> 2);
+
+        broadcaster.sendHeartbeats();
+
+        for (RecordingEmitter emitter : emitters) {
+            Assert.assertEquals("Last event should be a heartbeat", ":heartbeat\n\n", emitter.events.get(emitter.events.size() - 1));
+        }
+    }
+
+    @Test
+    public void testSlowSubscriberIsDisconnected() {
+        // The events are never sent, so they pile up in the queue.
+        Mockito.reset(executor);
+        broadcaster = createBroadcaster(2);
+        broadcaster.subscribeToProject(PROJECT_ID, () -> 3);
+
+        broadcaster.publishTasksChanged(PROJECT_ID, 4);
+        Assert.assertEquals("Subscriber with room in its queue should be kept", 1, broadcaster.getSubscriberCount());
+
+        broadcaster.publishTasksChanged(PROJECT_ID, 5);
+        Assert.assertEquals("Subscriber with a full queue should be disconnected", 0, broadcaster.getSubscriberCount());
+        Mockito.verify(executor, Mockito.times(1)).execute(any(Runnable.class));
+    }
+
+    @Test
+    public void testSubscriberWithLongWaitingEventIsDisconnected() {
+        // The events are never sent, so the current revision waits in the queue.
+        Mockito.reset(executor);
+        broadcaster.subscribeToProject(PROJECT_ID, () -> 3);
+
+        currentTime = SEND_TIMEOUT;
+        broadcaster.sendHeartbeats();
+        Assert.assertEquals("Subscriber whose oldest event has waited for the send timeout should be kept", 1, broadcaster.getSubscriberCount());
+
+        currentTime = SEND_TIMEOUT + 1;
+        broadcaster.sendHeartbeats();
+        Assert.assertEquals("Subscriber whose oldest event has waited longer than the send timeout should be disconnected", 0, broadcaster.getSubscriberCount());
+    }
+
+    @Test(timeout = 5000)
+    public void testSubscriberWithStalledSendIsDisconnectedWithoutWaitingForSend() throws Exception {
+        executor = Executors.newSingleThreadExecutor();
+        broadcaster = createBroadcaster(32);
+        try {
+            stalledSends = new CountDownLatch(1);
+            broadcaster.subscribeToProject(PROJECT_ID, () -> 3);
+            RecordingEmitter emitter = emitters.get(0);
+            emitter.sendStarted.await();
+
+            currentTime = SEND_TIMEOUT + 1;
+            broadcaster.sendHeartbeats();
+
+            Assert.assertEquals("Subscriber whose send has stalled for longer than the send timeout should be disconnected", 0, broadcaster.getSubscriberCount());
+            Assert.assertFalse("Emitter should not be completed while the send is blocked", emitter.completed);
+
+            stalledSends.countDown();
+            executor.shutdown();
+            executor.awaitTermination(1, TimeUnit.SECONDS);
+
+            Assert.assertTrue("Emitter should be completed once the send returns", emitter.completed);
+            Assert.assertEquals("No event should be sent after the disconnection", 1, emitter.events.size());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testFailedSubscriberIsDisconnected() {
+        broadcaster.subscribeToProject(PROJECT_ID, () -> 3);
+        emitters.get(0).failing = true;
+
+        broadcaster.publishTasksChanged(PROJECT_ID, 4);
+
+        Assert.assertEquals("Subscriber whose connection failed should be disconnected", 0, broadcaster.getSubscriberCount());
+        Assert.assertTrue("Emitter of the subscriber should be completed", emitters.get(0).completed);
+    }
+
+    @Test
+    public void testShutdown() {
+        broadcaster.subscribeToProject(PROJECT_ID, () -> 3);
+        broadcaster.subscribeToProjectList(() -> 2);
+
+        broadcaster.shutdown();
+
+        Assert.assertEquals("Every subscriber should be disconnected", 0, broadcaster.getSubscriberCount());
+        Mockito.verify(executor).shutdown();
+    }
+
+    private ChangeEventBroadcaster createBroadcaster(int queueCapacity) {
+        return new ChangeEventBroadcaster(executor, queueCapacity, SEND_TIMEOUT, 0) {
+            @Override
+            protected SseEmitter createEmitter() {
+                RecordingEmitter emitter = new RecordingEmitter();
+                emitter.stalled = stalledSends;
+                emitters.add(emitter);
+
+                return emitter;
+            }
+
+            @Override
+            protected long currentTimeMillis() {
+                return currentTime;
+            }
+        };
+    }
+
+    /**
+     * Emitter recording the events sent to it.
+     */
+    private static class RecordingEmitter extends SseEmitter {
+
+        private final List<String> events = new ArrayList<>();
+        private final CountDownLatch sendStarted = new CountDownLatch(1);
+        private boolean failing;
+        /**
+         * Latch a send waits for before returning, null if sends return immediately.
+         */
+        private CountDownLatch stalled;
+        private volatile boolean completed;
+
+        @Override
+        public void send(SseEventBuilder builder) throws IOException {
+            sendStarted.countDown();
+            if (failing) {
+                throw new IOException("Connection reset");
+            }
+
+            events.add(builder.build().stream().map(data -> data.getData().toString()).collect(Collectors.joining()));
+            if (stalled != null) {
+                try {
+                    stalled.await();
+                } catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        }
+
+        @Override
+        public void complete() {
+            completed = true;
+            super.complete();
+        }
+    }
+}
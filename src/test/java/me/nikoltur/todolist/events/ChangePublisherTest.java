@@ -0,0 +1,86 @@
+package me.nikoltur.todolist.events;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import static org.mockito.Matchers.anyInt;
+import static org.mockito.Matchers.anyLong;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.MockitoAnnotations;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionSynchronizationUtils;
+
+/**
+ *
+ * @author Nikolas Turunen
+ */
+public class ChangePublisherTest {
+
+    @InjectMocks
+    private ChangePublisher changePublisher;
+    @Mock
+    private ChangeEventBroadcaster broadcaster;
+
+    @Before
+    public void initMocks() {
+        changePublisher = new ChangePublisher();
+
+        MockitoAnnotations.initMocks(this);
+    }
+
+    @After
+    public void clearSynchronization() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    public void testPublishesImmediatelyWithoutTransaction() {
+        changePublisher.publishTasksChanged(1, 3);
+        changePublisher.publishProjectsChanged(2);
+
+        Mockito.verify(broadcaster).publishTasksChanged(1, 3);
+        Mockito.verify(broadcaster).publishProjectsChanged(2);
+    }
+
+    @Test
+    public void testPublishesLastRevisionsAfterCommit() {
+        TransactionSynchronizationManager.initSynchronization();
+
+        changePublisher.publishTasksChanged(1, 3);
+        changePublisher.publishTasksChanged(1, 4);
+        changePublisher.publishTasksChanged(2, 8);
+        changePublisher.publishProjectsChanged(5);
+        changePublisher.publishProjectsChanged(6);
+
+        Mockito.verifyZeroInteractions(broadcaster);
+
+        TransactionSynchronizationUtils.triggerAfterCommit();
+        TransactionSynchronizationUtils.triggerAfterCompletion(TransactionSynchronization.STATUS_COMMITTED);
+
+        Mockito.verify(broadcaster).publishTasksChanged(1, 4);
+        Mockito.verify(broadcaster).publishTasksChanged(2, 8);
+        Mockito.verify(broadcaster).publishProjectsChanged(6);
+        Mockito.verifyNoMoreInteractions(broadcaster);
+        Assert.assertNull("Pending changes should be unbound after completion", TransactionSynchronizationManager.getResource(changePublisher));
+    }
+
+    @Test
+    public void testPublishesNothingAfterRollback() {
+        TransactionSynchronizationManager.initSynchronization();
+
+        changePublisher.publishTasksChanged(1, 3);
+        changePublisher.publishProjectsChanged(5);
+
+        TransactionSynchronizationUtils.triggerAfterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK);
+
+        Mockito.verify(broadcaster, Mockito.never()).publishTasksChanged(anyInt(), anyLong());
+        Mockito.verify(broadcaster, Mockito.never()).publishProjectsChanged(anyLong());
+        Assert.assertNull("Pending changes should be unbound after completion", TransactionSynchronizationManager.getResource(changePublisher));
+    }
+}
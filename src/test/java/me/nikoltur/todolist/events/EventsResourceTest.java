@@ -0,0 +1,60 @@
+package me.nikoltur.todolist.events;
+
+import java.util.function.LongSupplier;
+import me.nikoltur.todolist.projects.ProjectsService;
+import me.nikoltur.todolist.tasks.TasksService;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import static org.mockito.Matchers.eq;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.MockitoAnnotations;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+/**
+ *
+ * @author Nikolas Turunen
+ */
+public class EventsResourceTest {
+
+    @InjectMocks
+    private EventsResource eventsResource;
+    @Mock
+    private ChangeEventBroadcaster broadcaster;
+    @Mock
+    private TasksService tasksService;
+    @Mock
+    private ProjectsService projectsService;
+
+    @Before
+    public void initMocks() {
+        eventsResource = new EventsResource();
+
+        MockitoAnnotations.initMocks(this);
+    }
+
+    @Test
+    public void testSubscribeToProject() {
+        SseEmitter emitter = new SseEmitter();
+        ArgumentCaptor<LongSupplier> argumentCaptor = ArgumentCaptor.forClass(LongSupplier.class);
+        Mockito.doReturn(emitter).when(broadcaster).subscribeToProject(eq(1), argumentCaptor.capture());
+        Mockito.doReturn(3L).when(tasksService).getRevision(1);
+
+        Assert.assertSame("Returned emitter should be the emitter of the subscription", emitter, eventsResource.subscribeToProject(1));
+        Assert.assertEquals("Current revision should be the revision of the tasks of the project", 3, argumentCaptor.getValue().getAsLong());
+    }
+
+    @Test
+    public void testSubscribeToProjectList() {
+        SseEmitter emitter = new SseEmitter();
+        ArgumentCaptor<LongSupplier> argumentCaptor = ArgumentCaptor.forClass(LongSupplier.class);
+        Mockito.doReturn(emitter).when(broadcaster).subscribeToProjectList(argumentCaptor.capture());
+        Mockito.doReturn(2L).when(projectsService).getRevision();
+
+        Assert.assertSame("Returned emitter should be the emitter of the subscription", emitter, eventsResource.subscribeToProjectList());
+        Assert.assertEquals("Current revision should be the revision of the list of projects", 2, argumentCaptor.getValue().getAsLong());
+    }
+}
@@ -0,0 +1,121 @@
+package me.nikoltur.todolist.locking;
+
+import java.sql.Connection;
+import java.sql.Savepoint;
+import java.util.Arrays;
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.hibernate.jdbc.ReturningWork;
+import org.hibernate.jdbc.Work;
+import org.hibernate.query.NativeQuery;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
+import org.mockito.InjectMocks;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyString;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import org.mockito.MockitoAnnotations;
+
+/**
+ *
+ * @author Nikolas Turunen
+ */
+public class AdvisoryProjectLockManagerTest {
+
+    @InjectMocks
+    private AdvisoryProjectLockManager lockManager = new AdvisoryProjectLockManager();
+    @Mock
+    private SessionFactory sessionFactory;
+    @Mock
+    private Session session;
+    @Mock
+    private NativeQuery<?> query;
+    @Mock
+    private Connection connection;
+    @Mock
+    private Savepoint savepoint;
+
+    @Before
+    public void initMocks() {
+        MockitoAnnotations.initMocks(this);
+
+        Mockito.doReturn(session).when(sessionFactory).getCurrentSession();
+        Mockito.doReturn(query).when(session).createNativeQuery(anyString());
+        Mockito.doReturn(savepoint).when(session).doReturningWork(Mockito.<ReturningWork<Savepoint>>any());
+    }
+
+    @Test
+    public void testLockProjectAcquiresAdvisoryLockOfProject() {
+        lockManager.lockProject(5);
+
+        Mockito.verify(query).setParameter("keySpace", AdvisoryProjectLockManager.PROJECT_KEY_SPACE);
+        Mockito.verify(query).setParameter("key", 5);
+        Mockito.verify(query, times(1)).getSingleResult();
+    }
+
+    @Test
+    public void testLockProjectsAcquiresLowerProjectIdFirst() {
+        lockManager.lockProjects(7, 3);
+
+        InOrder inOrder = Mockito.inOrder(query);
+        inOrder.verify(query).setParameter("key", 3);
+        inOrder.verify(query).getSingleResult();
+        inOrder.verify(query).setParameter("key", 7);
+        inOrder.verify(query).getSingleResult();
+    }
+
+    @Test
+    public void testLockProjectsOfSameProjectAcquiresLockOnce() {
+        lockManager.lockProjects(3, 3);
+
+        Mockito.verify(query, times(1)).getSingleResult();
+    }
+
+    @Test
+    public void testLockProjectsOfCollectionAcquiresEachProjectOnceInOrder() {
+        lockManager.lockProjects(Arrays.asList(7, 3, 7, 5));
+
+        InOrder inOrder = Mockito.inOrder(query);
+        inOrder.verify(query).setParameter("key", 3);
+        inOrder.verify(query).getSingleResult();
+        inOrder.verify(query).setParameter("key", 5);
+        inOrder.verify(query).getSingleResult();
+        inOrder.verify(query).setParameter("key", 7);
+        inOrder.verify(query).getSingleResult();
+        Mockito.verify(query, times(3)).getSingleResult();
+    }
+
+    @Test
+    public void testLockProjectListUsesSeparateKeySpace() {
+        lockManager.lockProjectList();
+
+        Mockito.verify(query).setParameter("keySpace", AdvisoryProjectLockManager.PROJECT_LIST_KEY_SPACE);
+        Mockito.verify(query, never()).setParameter("keySpace", AdvisoryProjectLockManager.PROJECT_KEY_SPACE);
+    }
+
+    @Test
+    public void testCloseDoesNotReleaseLockBeforeTransactionEnds() {
+        lockManager.lockProject(5).close();
+
+        Mockito.verify(session, times(1)).createNativeQuery(anyString());
+    }
+
+    @Test
+    public void testReleaseRollsBackToSavepointSetBeforeLocking() throws Exception {
+        lockManager.lockProjects(7, 3).release();
+
+        InOrder inOrder = Mockito.inOrder(session, query);
+        inOrder.verify(session).doReturningWork(Mockito.<ReturningWork<Savepoint>>any());
+        inOrder.verify(query, times(2)).getSingleResult();
+        ArgumentCaptor<Work> rollback = ArgumentCaptor.forClass(Work.class);
+        inOrder.verify(session).doWork(rollback.capture());
+
+        rollback.getValue().execute(connection);
+        Mockito.verify(connection).rollback(savepoint);
+    }
+}
@@ -0,0 +1,261 @@
+package me.nikoltur.todolist.locking;
+
+import java.util.Arrays;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ *
+ * @author Nikolas Turunen
+ */
+public class StripedProjectLockManagerTest {
+
+    private final StripedProjectLockManager lockManager = new StripedProjectLockManager(4);
+    private final ExecutorService executor = Executors.newCachedThreadPool();
+
+    @After
+    public void shutdownExecutor() {
+        executor.shutdownNow();
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testConstructorThrowsForZeroStripes() {
+        new StripedProjectLockManager(0);
+    }
+
+    @Test
+    public void testConsecutiveProjectsMapToDifferentStripes() {
+        Assert.assertNotEquals("Consecutive project ids should map to different stripes", lockManager.stripeOf(1), lockManager.stripeOf(2));
+        Assert.assertEquals("Project ids should wrap around the stripes", lockManager.stripeOf(1), lockManager.stripeOf(5));
+    }
+
+    @Test(timeout = 5000)
+    public void testLockOfDifferentProjectCanBeAcquiredWhileLocked() throws Exception {
+        try (ProjectLock lock = lockManager.lockProject(1)) {
+            Future<?> future = executor.submit(() -> lockManager.lockProject(2).close());
+
+            future.get(1, TimeUnit.SECONDS);
+        }
+    }
+
+    @Test(timeout = 5000)
+    public void testLockOfSameProjectBlocksUntilReleased() throws Exception {
+        Future<?> future;
+        try (ProjectLock lock = lockManager.lockProject(1)) {
+            future = executor.submit(() -> lockManager.lockProject(1).close());
+
+            try {
+                future.get(200, TimeUnit.MILLISECONDS);
+                Assert.fail("Lock of the same project should not be acquired while it is held");
+            } catch (TimeoutException expected) {
+            }
+        }
+
+        future.get(1, TimeUnit.SECONDS);
+    }
+
+    @Test(timeout = 5000)
+    public void testLockProjectsBlocksWhileEitherProjectIsLocked() throws Exception {
+        Future<?> future;
+        try (ProjectLock lock = lockManager.lockProject(2)) {
+            future = executor.submit(() -> lockManager.lockProjects(1, 2).close());
+
+            try {
+                future.get(200, TimeUnit.MILLISECONDS);
+                Assert.fail("Locks should not be acquired while one of the projects is locked");
+            } catch (TimeoutException expected) {
+            }
+        }
+
+        future.get(1, TimeUnit.SECONDS);
+    }
+
+    @Test(timeout = 10000)
+    public void testLockProjectsInOppositeOrderDoesNotDeadlock() throws Exception {
+        int iterations = 10000;
+        CountDownLatch start = new CountDownLatch(1);
+
+        Future<?> future = executor.submit(() -> {
+            start.await();
+            for (int i = 0; i < iterations; i++) {
+                lockManager.lockProjects(1, 2).close();
+            }
+
+            return null;
+        });
+        Future<?> future2 = executor.submit(() -> {
+            start.await();
+            for (int i = 0; i < iterations; i++) {
+                lockManager.lockProjects(2, 1).close();
+            }
+
+            return null;
+        });
+
+        start.countDown();
+        future.get();
+        future2.get();
+    }
+
+    @Test(timeout = 5000)
+    public void testLockProjectsOfSameStripeReleasesLock() throws Exception {
+        lockManager.lockProjects(1, 5).close();
+
+        Future<?> future = executor.submit(() -> lockManager.lockProject(1).close());
+
+        future.get(1, TimeUnit.SECONDS);
+    }
+
+    @Test(timeout = 5000)
+    public void testLockProjectsOfCollectionBlocksWhileAnyProjectIsLocked() throws Exception {
+        Future<?> future;
+        try (ProjectLock lock = lockManager.lockProject(3)) {
+            future = executor.submit(() -> lockManager.lockProjects(Arrays.asList(1, 2, 3)).close());
+
+            try {
+                future.get(200, TimeUnit.MILLISECONDS);
+                Assert.fail("Locks should not be acquired while one of the projects is locked");
+            } catch (TimeoutException expected) {
+            }
+        }
+
+        future.get(1, TimeUnit.SECONDS);
+    }
+
+    @Test(timeout = 5000)
+    public void testLockProjectsOfCollectionReleasesEveryLock() throws Exception {
+        // Projects 1 and 5 share a stripe.
+        lockManager.lockProjects(Arrays.asList(5, 2, 1, 2)).close();
+
+        Future<?> future = executor.submit(() -> {
+            lockManager.lockProject(1).close();
+            lockManager.lockProject(2).close();
+        });
+
+        future.get(1, TimeUnit.SECONDS);
+    }
+
+    @Test(timeout = 10000)
+    public void testLockProjectsOfCollectionInOppositeOrderDoesNotDeadlock() throws Exception {
+        int iterations = 10000;
+        CountDownLatch start = new CountDownLatch(1);
+
+        Future<?> future = executor.submit(() -> {
+            start.await();
+            for (int i = 0; i < iterations; i++) {
+                lockManager.lockProjects(Arrays.asList(1, 2, 3)).close();
+            }
+
+            return null;
+        });
+        Future<?> future2 = executor.submit(() -> {
+            start.await();
+            for (int i = 0; i < iterations; i++) {
+                lockManager.lockProjects(Arrays.asList(3, 2, 1)).close();
+            }
+
+            return null;
+        });
+
+        start.countDown();
+        future.get();
+        future2.get();
+    }
+
+    @Test(timeout = 5000)
+    public void testLockAcquiredInTransactionIsHeldUntilTransactionCompletes() throws Exception {
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            lockManager.lockProjects(1, 2).close();
+
+            Future<?> future = executor.submit(() -> lockManager.lockProject(2).close());
+            try {
+                future.get(200, TimeUnit.MILLISECONDS);
+                Assert.fail("Lock should be held after closing it until the transaction completes");
+            } catch (TimeoutException expected) {
+            }
+
+            for (TransactionSynchronization synchronization : TransactionSynchronizationManager.getSynchronizations()) {
+                synchronization.afterCompletion(TransactionSynchronization.STATUS_COMMITTED);
+            }
+
+            future.get(1, TimeUnit.SECONDS);
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test(timeout = 5000)
+    public void testLockAcquiredInTransactionIsHeldWhileTransactionCommits() throws Exception {
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            lockManager.lockProject(1).close();
+
+            for (TransactionSynchronization synchronization : TransactionSynchronizationManager.getSynchronizations()) {
+                synchronization.beforeCommit(false);
+                synchronization.beforeCompletion();
+                synchronization.afterCommit();
+            }
+
+            Future<?> future = executor.submit(() -> lockManager.lockProject(1).close());
+            try {
+                future.get(200, TimeUnit.MILLISECONDS);
+                Assert.fail("Lock should be held until the commit has completed");
+            } catch (TimeoutException expected) {
+            }
+
+            for (TransactionSynchronization synchronization : TransactionSynchronizationManager.getSynchronizations()) {
+                synchronization.afterCompletion(TransactionSynchronization.STATUS_COMMITTED);
+            }
+
+            future.get(1, TimeUnit.SECONDS);
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test(timeout = 5000)
+    public void testReleaseInTransactionReleasesLockImmediately() throws Exception {
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            lockManager.lockProjects(1, 2).release();
+
+            Future<?> future = executor.submit(() -> lockManager.lockProjects(2, 1).close());
+            future.get(1, TimeUnit.SECONDS);
+
+            // The locks have already been released, so completing the transaction must not release them again.
+            for (TransactionSynchronization synchronization : TransactionSynchronizationManager.getSynchronizations()) {
+                synchronization.afterCompletion(TransactionSynchronization.STATUS_COMMITTED);
+            }
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test(timeout = 5000)
+    public void testLockProjectListAcquiredInTransactionIsReleasedOnRollback() throws Exception {
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            lockManager.lockProjectList().close();
+
+            for (TransactionSynchronization synchronization : TransactionSynchronizationManager.getSynchronizations()) {
+                synchronization.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK);
+            }
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+
+        Future<?> future = executor.submit(() -> lockManager.lockProjectList().close());
+
+        future.get(1, TimeUnit.SECONDS);
+    }
+}
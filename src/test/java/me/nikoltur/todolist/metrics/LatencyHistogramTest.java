@@ -0,0 +1,69 @@
+package me.nikoltur.todolist.metrics;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ *
+ * @author Nikolas Turunen
+ */
+public class LatencyHistogramTest {
+
+    @Test
+    public void testIndexOfCountsSmallLatenciesExactly() {
+        for (int nanos = 0; nanos < LatencyHistogram.SUB_BUCKETS; nanos++) {
+            Assert.assertEquals("Small latency should have a bucket of its own", nanos, LatencyHistogram.indexOf(nanos));
+            Assert.assertEquals("Bucket of a small latency should only count it", nanos, LatencyHistogram.highestValueOf(nanos));
+        }
+    }
+
+    @Test
+    public void testBucketsContainTheirLatencies() {
+        long[] latencies = {32, 33, 63, 64, 65, 1000, 123456789, Long.MAX_VALUE};
+        for (long nanos : latencies) {
+            int index = LatencyHistogram.indexOf(nanos);
+            long highest = LatencyHistogram.highestValueOf(index);
+
+            Assert.assertTrue("Index should be within the buckets", index < LatencyHistogram.BUCKETS);
+            Assert.assertTrue("Bucket should contain the latency", highest >= nanos);
+            Assert.assertTrue("Bucket should be narrower than the precision", highest - nanos <= nanos / LatencyHistogram.SUB_BUCKETS);
+        }
+        Assert.assertEquals("Highest latency should be in the last bucket", LatencyHistogram.BUCKETS - 1, LatencyHistogram.indexOf(Long.MAX_VALUE));
+    }
+
+    @Test
+    public void testSnapshotReturnsQuantiles() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (int i = 1; i <= 1000; i++) {
+            histogram.record(i * 1000L);
+        }
+
+        LatencyHistogram.Snapshot snapshot = histogram.snapshot();
+
+        Assert.assertEquals("Every latency should be counted", 1000, snapshot.getCount());
+        Assert.assertEquals("Latencies should be summed", 500500000L, snapshot.getTotalNanos());
+        assertWithinPrecision("Median should match", 500000, snapshot.getValueAtQuantile(0.5));
+        assertWithinPrecision("99th percentile should match", 990000, snapshot.getValueAtQuantile(0.99));
+        assertWithinPrecision("Maximum should match", 1000000, snapshot.getValueAtQuantile(1));
+    }
+
+    @Test
+    public void testSnapshotOfEmptyHistogram() {
+        LatencyHistogram.Snapshot snapshot = new LatencyHistogram().snapshot();
+
+        Assert.assertEquals("Nothing should be counted", 0, snapshot.getCount());
+        Assert.assertEquals("Quantile should be zero without latencies", 0, snapshot.getValueAtQuantile(0.99));
+    }
+
+    @Test
+    public void testRecordTreatsNegativeLatencyAsZero() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        histogram.record(-5);
+
+        Assert.assertEquals("Negative latency should be recorded as zero", 0, histogram.snapshot().getValueAtQuantile(1));
+    }
+
+    private static void assertWithinPrecision(String message, long expected, long actual) {
+        Assert.assertTrue(message + ", expected " + expected + " but was " + actual, actual >= expected && actual - expected <= expected / LatencyHistogram.SUB_BUCKETS);
+    }
+}
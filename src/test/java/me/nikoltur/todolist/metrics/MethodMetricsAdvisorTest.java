@@ -0,0 +1,76 @@
+package me.nikoltur.todolist.metrics;
+
+import me.nikoltur.todolist.errorhandling.ErrorResource;
+import me.nikoltur.todolist.projects.ProjectsServiceImpl;
+import me.nikoltur.todolist.tasks.da.TasksDaoImpl;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.aop.framework.ProxyFactory;
+
+/**
+ *
+ * @author Nikolas Turunen
+ */
+public class MethodMetricsAdvisorTest {
+
+    private MethodMetricsRegistry registry;
+    private ExampleResource resource;
+
+    @Before
+    public void createProxy() {
+        registry = new MethodMetricsRegistry();
+
+        ProxyFactory proxyFactory = new ProxyFactory(new ExampleResource());
+        proxyFactory.setProxyTargetClass(true);
+        proxyFactory.addAdvisor(new MethodMetricsAdvisor(registry));
+        resource = (ExampleResource) proxyFactory.getProxy();
+    }
+
+    @Test
+    public void testLayerOf() {
+        Assert.assertEquals("Resource should be in the resource layer", MethodMetricsAdvisor.RESOURCE_LAYER, MethodMetricsAdvisor.layerOf(ExampleResource.class));
+        Assert.assertEquals("Service should be in the service layer", MethodMetricsAdvisor.SERVICE_LAYER, MethodMetricsAdvisor.layerOf(ProjectsServiceImpl.class));
+        Assert.assertEquals("DAO should be in the DAO layer", MethodMetricsAdvisor.DAO_LAYER, MethodMetricsAdvisor.layerOf(TasksDaoImpl.class));
+        Assert.assertNull("Error resource should not be instrumented", MethodMetricsAdvisor.layerOf(ErrorResource.class));
+        Assert.assertNull("Metrics resource should not be instrumented", MethodMetricsAdvisor.layerOf(MetricsResource.class));
+        Assert.assertNull("Other classes should not be instrumented", MethodMetricsAdvisor.layerOf(String.class));
+    }
+
+    @Test
+    public void testCallsAreRecorded() {
+        resource.getValue();
+        resource.getValue();
+
+        Assert.assertEquals("Called method should have metrics", 1, registry.getAllMetrics().size());
+        MethodMetrics metrics = registry.getAllMetrics().get(0);
+        Assert.assertEquals("Name should include the class", "ExampleResource.getValue", metrics.getName());
+        Assert.assertEquals("Layer should match", MethodMetricsAdvisor.RESOURCE_LAYER, metrics.getLayer());
+        Assert.assertEquals("Calls should be counted", 2, metrics.getLatencies().snapshot().getCount());
+        Assert.assertEquals("No errors should be counted", 0, metrics.getErrors());
+    }
+
+    @Test
+    public void testErrorsAreRecorded() {
+        try {
+            resource.fail();
+            Assert.fail("Exception should be rethrown");
+        } catch (IllegalStateException ex) {
+        }
+
+        MethodMetrics metrics = registry.getAllMetrics().get(0);
+        Assert.assertEquals("Failed call should be counted", 1, metrics.getLatencies().snapshot().getCount());
+        Assert.assertEquals("Error should be counted", 1, metrics.getErrors());
+    }
+
+    public static class ExampleResource {
+
+        public int getValue() {
+            return 1;
+        }
+
+        public void fail() {
+            throw new IllegalStateException();
+        }
+    }
+}
@@ -0,0 +1,75 @@
+package me.nikoltur.todolist.metrics;
+
+import java.lang.reflect.Method;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.MockitoAnnotations;
+import org.mockito.Spy;
+
+/**
+ *
+ * @author Nikolas Turunen
+ */
+public class MetricsResourceTest {
+
+    @InjectMocks
+    private MetricsResource metricsResource;
+    @Spy
+    private MethodMetricsRegistry registry = new MethodMetricsRegistry();
+    @Mock
+    private SessionFactory sessionFactory;
+    @Mock
+    private Statistics statistics;
+
+    @Before
+    public void initMocks() {
+        MockitoAnnotations.initMocks(this);
+
+        Mockito.when(sessionFactory.getStatistics()).thenReturn(statistics);
+    }
+
+    @Test
+    public void testGetMetrics() throws NoSuchMethodException {
+        Method method = MetricsResourceTest.class.getMethod("testGetMetrics");
+        MethodMetrics metrics = registry.register(method, MethodMetricsAdvisor.SERVICE_LAYER, MetricsResourceTest.class);
+        metrics.record(2000000, false);
+        metrics.record(3000000, true);
+
+        String text = metricsResource.getMetrics();
+
+        String labels = "{layer=\"service\",method=\"MetricsResourceTest.testGetMetrics\"";
+        Assert.assertTrue("Summary should be typed", text.contains("# TYPE todolist_method_duration_seconds summary\n"));
+        Assert.assertTrue("Median should be reported in seconds", text.contains("todolist_method_duration_seconds" + labels + ",quantile=\"0.5\"} 0.002"));
+        Assert.assertTrue("Sum should be reported in seconds", text.contains("todolist_method_duration_seconds_sum" + labels + "} 0.005000000\n"));
+        Assert.assertTrue("Count should be reported", text.contains("todolist_method_duration_seconds_count" + labels + "} 2\n"));
+        Assert.assertTrue("Errors should be reported", text.contains("todolist_method_errors_total" + labels + "} 1\n"));
+    }
+
+    @Test
+    public void testGetMetricsWithoutCalls() {
+        Assert.assertFalse("No methods should be reported without calls", metricsResource.getMetrics().contains("method="));
+    }
+
+    @Test
+    public void testGetMetricsIncludesHibernateStatisticsWhenEnabled() {
+        Mockito.when(statistics.isStatisticsEnabled()).thenReturn(true);
+        Mockito.when(statistics.getPrepareStatementCount()).thenReturn(12L);
+        Mockito.when(statistics.getCollectionFetchCount()).thenReturn(3L);
+
+        String text = metricsResource.getMetrics();
+
+        Assert.assertTrue("Statements should be reported", text.contains("todolist_hibernate_statements_total 12\n"));
+        Assert.assertTrue("Collection fetches should be reported", text.contains("todolist_hibernate_collection_fetches_total 3\n"));
+    }
+
+    @Test
+    public void testGetMetricsExcludesHibernateStatisticsWhenDisabled() {
+        Assert.assertFalse("Statistics of Hibernate should not be reported when disabled", metricsResource.getMetrics().contains("todolist_hibernate"));
+    }
+}
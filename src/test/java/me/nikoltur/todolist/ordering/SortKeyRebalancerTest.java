@@ -0,0 +1,86 @@
+package me.nikoltur.todolist.ordering;
+
+import java.util.Arrays;
+import java.util.Collections;
+import me.nikoltur.todolist.caching.ResponseCache;
+import me.nikoltur.todolist.changes.da.ChangesDao;
+import me.nikoltur.todolist.events.ChangePublisher;
+import me.nikoltur.todolist.locking.ProjectLockManager;
+import me.nikoltur.todolist.locking.StripedProjectLockManager;
+import me.nikoltur.todolist.projects.da.ProjectsDao;
+import me.nikoltur.todolist.tasks.da.TasksDao;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.InjectMocks;
+import static org.mockito.Matchers.anyInt;
+import org.mockito.Mock;
+import static org.mockito.Mockito.never;
+import org.mockito.Mockito;
+import org.mockito.MockitoAnnotations;
+import org.mockito.Spy;
+import org.springframework.transaction.PlatformTransactionManager;
+
+/**
+ *
+ * @author Nikolas Turunen
+ */
+public class SortKeyRebalancerTest {
+
+    @InjectMocks
+    private SortKeyRebalancer sortKeyRebalancer = new SortKeyRebalancer();
+    @Mock
+    private TasksDao tasksDao;
+    @Mock
+    private ProjectsDao projectsDao;
+    @Mock
+    private ChangesDao changesDao;
+    @Mock
+    private ChangePublisher changePublisher;
+    @Mock
+    private ResponseCache responseCache;
+    @Spy
+    private ProjectLockManager projectLockManager = new StripedProjectLockManager();
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @Before
+    public void initMocks() {
+        MockitoAnnotations.initMocks(this);
+    }
+
+    @Test
+    public void testRebalanceRebalancesProjectsWithCrowdedSortKeys() {
+        Mockito.doReturn(Arrays.asList(1, 3)).when(tasksDao).getProjectIdsWithCrowdedSortKeys(SortKeys.MINIMUM_GAP);
+
+        sortKeyRebalancer.rebalance();
+
+        Mockito.verify(tasksDao).rebalanceSortKeysOf(1);
+        Mockito.verify(tasksDao).rebalanceSortKeysOf(3);
+        Mockito.verify(changesDao).recordTaskChangesOf(1);
+        Mockito.verify(changesDao).recordTaskChangesOf(3);
+        Mockito.verify(projectLockManager).lockProject(1);
+        Mockito.verify(projectLockManager).lockProject(3);
+    }
+
+    @Test
+    public void testRebalanceDoesNothingWithoutCrowdedSortKeys() {
+        Mockito.doReturn(Collections.emptyList()).when(tasksDao).getProjectIdsWithCrowdedSortKeys(SortKeys.MINIMUM_GAP);
+        Mockito.doReturn(false).when(projectsDao).hasCrowdedSortKeys(SortKeys.MINIMUM_GAP);
+
+        sortKeyRebalancer.rebalance();
+
+        Mockito.verify(tasksDao, never()).rebalanceSortKeysOf(anyInt());
+        Mockito.verify(projectsDao, never()).rebalanceSortKeys();
+    }
+
+    @Test
+    public void testRebalanceRebalancesCrowdedProjects() {
+        Mockito.doReturn(Collections.emptyList()).when(tasksDao).getProjectIdsWithCrowdedSortKeys(SortKeys.MINIMUM_GAP);
+        Mockito.doReturn(true).when(projectsDao).hasCrowdedSortKeys(SortKeys.MINIMUM_GAP);
+
+        sortKeyRebalancer.rebalance();
+
+        Mockito.verify(projectsDao).rebalanceSortKeys();
+        Mockito.verify(projectLockManager).lockProjectList();
+    }
+}
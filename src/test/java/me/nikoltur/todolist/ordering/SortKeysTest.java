@@ -0,0 +1,48 @@
+package me.nikoltur.todolist.ordering;
+
+import java.util.Arrays;
+import java.util.Collections;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ *
+ * @author Nikolas Turunen
+ */
+public class SortKeysTest {
+
+    @Test
+    public void testBetweenReturnsMidpoint() {
+        Assert.assertEquals("Sort key should be halfway between the keys", 150, SortKeys.between(100L, 200L));
+    }
+
+    @Test
+    public void testBetweenWithoutNeighbours() {
+        Assert.assertEquals("Sort key should be one gap after the preceding key", 100 + SortKeys.GAP, SortKeys.between(100L, null));
+        Assert.assertEquals("Sort key should be one gap before the following key", 100 - SortKeys.GAP, SortKeys.between(null, 100L));
+        Assert.assertEquals("Sort key should be one gap after zero", SortKeys.GAP, SortKeys.between(null, null));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testBetweenThrowsForAdjacentKeys() {
+        SortKeys.between(100L, 101L);
+    }
+
+    @Test
+    public void testForIndex() {
+        Assert.assertEquals("Sort key for the start should be before the first sibling", Long.valueOf(0), SortKeys.forIndex(0, Arrays.asList(SortKeys.GAP, 2 * SortKeys.GAP), 5));
+        Assert.assertEquals("Sort key should be between the neighbours", Long.valueOf(150), SortKeys.forIndex(3, Arrays.asList(100L, 200L), 5));
+        Assert.assertEquals("Sort key for the end should be after the last sibling", Long.valueOf(100 + SortKeys.GAP), SortKeys.forIndex(3, Collections.singletonList(100L), 5));
+        Assert.assertEquals("Sort key should be kept without siblings", Long.valueOf(5), SortKeys.forIndex(0, Collections.emptyList(), 5));
+    }
+
+    @Test
+    public void testForIndexReturnsNullForCrowdedNeighbours() {
+        Assert.assertNull("No sort key should fit between adjacent keys", SortKeys.forIndex(1, Arrays.asList(100L, 101L), 5));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testForIndexThrowsForIndexPastLastSibling() {
+        SortKeys.forIndex(4, Collections.emptyList(), 5);
+    }
+}
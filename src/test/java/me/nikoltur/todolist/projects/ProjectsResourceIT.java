@@ -1,17 +1,21 @@
 package me.nikoltur.todolist.projects;
 
+import java.util.Arrays;
 import java.util.List;
 import me.nikoltur.todolist.Application;
 import me.nikoltur.todolist.DatabaseWiper;
-import me.nikoltur.todolist.projects.da.Project;
+import me.nikoltur.todolist.projects.da.ProjectView;
 import org.junit.Assert;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
 import org.springframework.test.context.ContextConfiguration;
 import org.springframework.test.context.TestPropertySource;
 import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.web.context.request.ServletWebRequest;
 
 /**
  *
@@ -34,7 +38,7 @@ public class ProjectsResourceIT {
 
     @Test
     public void testNoProjectsInitially() {
-        Assert.assertTrue("Should be an empty list of projects", projectsResource.getProjects().isEmpty());
+        Assert.assertTrue("Should be an empty list of projects", getProjects().isEmpty());
     }
 
     @Test
@@ -42,11 +46,11 @@ public class ProjectsResourceIT {
         String projectName = "Test";
         projectsResource.createProject(projectName);
 
-        List<Project> projects = projectsResource.getProjects();
+        List<ProjectView> projects = getProjects();
 
         Assert.assertEquals("Size should be 1", 1, projects.size());
         Assert.assertEquals("Name of first project should match", projectName, projects.get(0).getName());
-        Assert.assertEquals("Id of first project should match", 1, projects.get(0).getId());
+        Assert.assertTrue("Id of first project should be assigned", projects.get(0).getId() > 0);
     }
 
     @Test
@@ -67,14 +71,14 @@ public class ProjectsResourceIT {
         projectsResource.createProject("p1");
         projectsResource.createProject(nameOfProjectToBeRemoved);
 
-        List<Project> projects = projectsResource.getProjects();
-        for (Project project : projects) {
+        List<ProjectView> projects = getProjects();
+        for (ProjectView project : projects) {
             if (project.getName().equals(nameOfProjectToBeRemoved)) {
                 projectsResource.removeProject(project.getId());
             }
         }
 
-        List<Project> projectsAfterRemoval = projectsResource.getProjects();
+        List<ProjectView> projectsAfterRemoval = getProjects();
         Assert.assertEquals("Size should be 1", 1, projectsAfterRemoval.size());
         Assert.assertNotEquals("Name of the single project left should not be the same as of the removed project", nameOfProjectToBeRemoved, projectsAfterRemoval.get(0).getName());
     }
@@ -97,11 +101,11 @@ public class ProjectsResourceIT {
         String newName = "New Project Name";
 
         projectsResource.createProject(name);
-        Project project = projectsResource.getProjects().get(0);
+        ProjectView project = getProjects().get(0);
 
         projectsResource.renameProject(project.getId(), newName);
 
-        List<Project> projects = projectsResource.getProjects();
+        List<ProjectView> projects = getProjects();
         Assert.assertEquals("Size of projects should be 1", 1, projects.size());
         Assert.assertEquals("Name of project should be the new name", newName, projects.get(0).getName());
     }
@@ -118,7 +122,7 @@ public class ProjectsResourceIT {
 
         projectsResource.createProject(projectName);
         projectsResource.createProject(newProjectName);
-        for (Project project : projectsResource.getProjects()) {
+        for (ProjectView project : getProjects()) {
             if (project.getName().equals(projectName)) {
                 projectsResource.renameProject(project.getId(), newProjectName);
             }
@@ -131,7 +135,7 @@ public class ProjectsResourceIT {
         String secondProjectName = "Name2";
         projectsResource.createProject(firstProjectName);
         projectsResource.createProject(secondProjectName);
-        List<Project> projects = projectsResource.getProjects();
+        List<ProjectView> projects = getProjects();
         Assert.assertEquals("Position of first project should be 0", 0, projects.get(0).getPosition());
         Assert.assertEquals("Position of second project should be 1", 1, projects.get(1).getPosition());
     }
@@ -140,11 +144,11 @@ public class ProjectsResourceIT {
     public void testSwapPositionsOfProjects() {
         String firstProjectName = "Name1";
         String secondProjectName = "Name2";
-        Project project1 = createProject(firstProjectName);
-        Project project2 = createProject(secondProjectName);
+        ProjectView project1 = createProject(firstProjectName);
+        ProjectView project2 = createProject(secondProjectName);
         projectsResource.swapPositionsOfProjects(project1.getId(), project2.getId());
-        List<Project> projects = projectsResource.getProjects();
-        for (Project project : projects) {
+        List<ProjectView> projects = getProjects();
+        for (ProjectView project : projects) {
             if (project.getName().equals(firstProjectName)) {
                 Assert.assertEquals("Position of first project should now be 1", 1, project.getPosition());
             } else if (project.getName().equals(secondProjectName)) {
@@ -155,14 +159,33 @@ public class ProjectsResourceIT {
         }
     }
 
+    @Test
+    public void testMoveAndReorderProjects() {
+        ProjectView project1 = createProject("Name1");
+        ProjectView project2 = createProject("Name2");
+        ProjectView project3 = createProject("Name3");
+
+        projectsResource.moveProjectToIndex(project1.getId(), 2);
+
+        List<ProjectView> projects = getProjects();
+        Assert.assertEquals("Moved project should be last", project1.getId(), projects.get(2).getId());
+
+        projectsResource.reorderProjects(Arrays.asList(project3.getId(), project1.getId(), project2.getId()));
+
+        projects = getProjects();
+        Assert.assertEquals("Project3 should be first", project3.getId(), projects.get(0).getId());
+        Assert.assertEquals("Project1 should be second", project1.getId(), projects.get(1).getId());
+        Assert.assertEquals("Project2 should be last", project2.getId(), projects.get(2).getId());
+    }
+
     @Test
     public void testGetProjectsOrdersProjectsByPosition() {
         String firstProjectName = "Name1";
         String secondProjectName = "Name2";
-        Project project1 = createProject(firstProjectName);
-        Project project2 = createProject(secondProjectName);
+        ProjectView project1 = createProject(firstProjectName);
+        ProjectView project2 = createProject(secondProjectName);
         projectsResource.swapPositionsOfProjects(project1.getId(), project2.getId());
-        List<Project> projects = projectsResource.getProjects();
+        List<ProjectView> projects = getProjects();
         Assert.assertEquals("Name of first project in the list should be the name of the second project after swap", secondProjectName, projects.get(0).getName());
         Assert.assertEquals("Position of first project in the list should be 0 after swap", 0, projects.get(0).getPosition());
         Assert.assertEquals("Name of second project in the list should be the name of the first project after swap", firstProjectName, projects.get(1).getName());
@@ -178,13 +201,13 @@ public class ProjectsResourceIT {
         projectsResource.createProject(secondProjectName);
         projectsResource.createProject(thirdProjectName);
 
-        for (Project project : projectsResource.getProjects()) {
+        for (ProjectView project : getProjects()) {
             if (project.getName().equals(firstProjectName)) {
                 projectsResource.removeProject(project.getId());
             }
         }
 
-        List<Project> projects = projectsResource.getProjects();
+        List<ProjectView> projects = getProjects();
         Assert.assertEquals("Position of the first project of the returned list should be 0", 0, projects.get(0).getPosition());
         Assert.assertEquals("Position of the second project of the returned list should be 1", 1, projects.get(1).getPosition());
     }
@@ -195,9 +218,9 @@ public class ProjectsResourceIT {
      * @param name Name of the project to be created.
      * @return The created project.
      */
-    private Project createProject(String name) {
+    private ProjectView createProject(String name) {
         projectsResource.createProject(name);
-        for (Project project : projectsResource.getProjects()) {
+        for (ProjectView project : getProjects()) {
             if (project.getName().equals(name)) {
                 return project;
             }
@@ -205,4 +228,15 @@ public class ProjectsResourceIT {
 
         throw new IllegalStateException("The created project was not found");
     }
+
+    /**
+     * Returns all projects, as listed to a request without conditional headers.
+     *
+     * @return All projects.
+     */
+    private List<ProjectView> getProjects() {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        return projectsResource.getProjects(new ServletWebRequest(new MockHttpServletRequest(), response), response);
+    }
 }
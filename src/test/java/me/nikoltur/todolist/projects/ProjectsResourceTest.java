@@ -1,16 +1,21 @@
 package me.nikoltur.todolist.projects;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
-import me.nikoltur.todolist.projects.da.Project;
+import me.nikoltur.todolist.caching.Revisioned;
+import me.nikoltur.todolist.projects.da.ProjectView;
 import org.junit.Assert;
 import org.junit.Before;
 import org.junit.Test;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
-import org.mockito.Mockito;
 import static org.mockito.Mockito.times;
+import org.mockito.Mockito;
 import org.mockito.MockitoAnnotations;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.context.request.ServletWebRequest;
 
 /**
  *
@@ -32,12 +37,40 @@ public class ProjectsResourceTest {
 
     @Test
     public void testGetProjects() {
-        List<Project> list = new ArrayList<>();
-        Mockito.when(projectsService.getProjects()).thenReturn(list);
+        List<ProjectView> list = new ArrayList<>();
+        Mockito.when(projectsService.getProjects()).thenReturn(new Revisioned<>(7L, list));
+        Mockito.when(projectsService.getRevision()).thenReturn(7L);
 
-        List<Project> projects = projectsResource.getProjects();
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        List<ProjectView> projects = projectsResource.getProjects(new ServletWebRequest(new MockHttpServletRequest("GET", ""), response), response);
 
         Assert.assertSame("Returned list should match the list that is returned from the service", list, projects);
+        Assert.assertEquals("ETag should be the revision of the list of projects", "\"7\"", response.getHeader("ETag"));
+    }
+
+    @Test
+    public void testGetProjectsSendsRevisionOfReadProjectsRatherThanCurrentRevision() {
+        // The projects were read by a shared load that began before the list was changed to revision 8.
+        Mockito.when(projectsService.getProjects()).thenReturn(new Revisioned<>(7L, new ArrayList<>()));
+        Mockito.when(projectsService.getRevision()).thenReturn(8L);
+
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        projectsResource.getProjects(new ServletWebRequest(new MockHttpServletRequest("GET", ""), response), response);
+
+        Assert.assertEquals("ETag should be the revision the projects were read at", "\"7\"", response.getHeader("ETag"));
+    }
+
+    @Test
+    public void testGetProjectsIsNotModifiedForCurrentRevision() {
+        Mockito.when(projectsService.getRevision()).thenReturn(7L);
+
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "");
+        request.addHeader("If-None-Match", "\"7\"");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        Assert.assertNull("Nothing should be returned", projectsResource.getProjects(new ServletWebRequest(request, response), response));
+        Assert.assertEquals("Response should be 304 Not Modified", 304, response.getStatus());
+        Mockito.verify(projectsService, Mockito.never()).getProjects();
     }
 
     @Test
@@ -74,4 +107,23 @@ public class ProjectsResourceTest {
 
         Mockito.verify(projectsService, times(1)).swapPositionsOfProjects(projectId, projectId2);
     }
+
+    @Test
+    public void testMoveProjectToIndex() {
+        int projectId = 1;
+        int index = 2;
+
+        projectsResource.moveProjectToIndex(projectId, index);
+
+        Mockito.verify(projectsService, times(1)).moveProjectToIndex(projectId, index);
+    }
+
+    @Test
+    public void testReorderProjects() {
+        List<Integer> projectIds = Arrays.asList(2, 1);
+
+        projectsResource.reorderProjects(projectIds);
+
+        Mockito.verify(projectsService, times(1)).reorderProjects(projectIds);
+    }
 }
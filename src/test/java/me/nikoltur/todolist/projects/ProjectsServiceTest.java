@@ -1,11 +1,19 @@
 package me.nikoltur.todolist.projects;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import me.nikoltur.todolist.Application;
+import me.nikoltur.todolist.caching.ResponseCache;
+import me.nikoltur.todolist.caching.Revisioned;
+import me.nikoltur.todolist.changes.da.ChangesDao;
+import me.nikoltur.todolist.events.ChangePublisher;
+import me.nikoltur.todolist.locking.ProjectLockManager;
+import me.nikoltur.todolist.locking.StripedProjectLockManager;
+import me.nikoltur.todolist.ordering.SortKeys;
 import me.nikoltur.todolist.projects.da.Project;
+import me.nikoltur.todolist.projects.da.ProjectView;
 import me.nikoltur.todolist.projects.da.ProjectsDao;
-import me.nikoltur.todolist.tasks.da.Task;
 import me.nikoltur.todolist.tasks.da.TasksDao;
 import org.junit.Assert;
 import org.junit.Before;
@@ -14,21 +22,24 @@ import org.junit.runner.RunWith;
 import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import static org.mockito.Matchers.anyInt;
+import static org.mockito.Matchers.anyLong;
 import static org.mockito.Matchers.anyObject;
 import org.mockito.Mock;
-import org.mockito.Mockito;
 import static org.mockito.Mockito.times;
+import org.mockito.Mockito;
 import org.mockito.MockitoAnnotations;
+import org.mockito.Spy;
 import org.springframework.test.context.ContextConfiguration;
 import org.springframework.test.context.TestPropertySource;
 import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.transaction.PlatformTransactionManager;
 
 /**
  *
  * @author Nikolas Turunen
  */
 @RunWith(SpringRunner.class)
-@TestPropertySource("classpath:application.properties")
+@TestPropertySource(locations = "classpath:application.properties", properties = "flyway.enabled=false")
 @ContextConfiguration(classes = Application.class)
 public class ProjectsServiceTest {
 
@@ -38,7 +49,17 @@ public class ProjectsServiceTest {
     @Mock
     private ProjectsDao projectsDao;
     @Mock
+    private ChangesDao changesDao;
+    @Mock
+    private ChangePublisher changePublisher;
+    @Mock
+    private ResponseCache responseCache;
+    @Mock
+    private PlatformTransactionManager transactionManager;
+    @Mock
     private TasksDao tasksDao;
+    @Spy
+    private ProjectLockManager projectLockManager = new StripedProjectLockManager();
 
     public ProjectsServiceTest() {
     }
@@ -50,16 +71,18 @@ public class ProjectsServiceTest {
 
     @Test
     public void testGetProjects() {
-        List<Project> projects = new ArrayList<>();
-        Project project = new Project();
-        project.setName("Test");
+        List<ProjectView> projects = new ArrayList<>();
+        ProjectView project = new ProjectView(1, "Test", 0);
         projects.add(project);
 
         Mockito.doReturn(projects).when(projectsDao).getAll();
+        Mockito.doReturn(4L).when(projectsDao).getListRevision();
 
-        Assert.assertEquals("Size should be 1", 1, projectsService.getProjects().size());
+        Revisioned<List<ProjectView>> readProjects = projectsService.getProjects();
 
-        Assert.assertSame("Project should match", project, projectsService.getProjects().get(0));
+        Assert.assertEquals("Size should be 1", 1, readProjects.getValue().size());
+        Assert.assertSame("Project should match", project, readProjects.getValue().get(0));
+        Assert.assertEquals("Revision should be the revision of the list of projects", 4, readProjects.getRevision());
     }
 
     @Test
@@ -118,11 +141,10 @@ public class ProjectsServiceTest {
         ArgumentCaptor<Project> argumentCaptor = ArgumentCaptor.forClass(Project.class);
         Mockito.doNothing().when(projectsDao).remove(argumentCaptor.capture());
 
-        Mockito.doReturn(new ArrayList<>()).when(tasksDao).getAllOf(project.getId());
-
         projectsService.removeProject(PROJECT_ID);
         Mockito.verify(projectsDao, times(1)).remove(anyObject());
         Assert.assertEquals("Project name should be equal to the specified", projectName, argumentCaptor.getValue().getName());
+        Mockito.verify(responseCache).invalidateAfterCommit(PROJECT_ID);
     }
 
     @Test
@@ -166,11 +188,7 @@ public class ProjectsServiceTest {
 
         Mockito.doReturn(project).when(projectsDao).getById(PROJECT_ID);
 
-        List<Task> tasks = new ArrayList<>();
-        Task task = new Task();
-        tasks.add(task);
-
-        Mockito.doReturn(tasks).when(tasksDao).getAllOf(anyInt());
+        Mockito.doReturn(true).when(tasksDao).existsInProject(PROJECT_ID);
         projectsService.removeProject(PROJECT_ID);
     }
 
@@ -262,18 +280,18 @@ public class ProjectsServiceTest {
 
     @Test
     public void testSwapPositionOfProjects() {
-        int position1 = 1;
-        int position2 = 2;
+        long sortKey1 = SortKeys.GAP;
+        long sortKey2 = 2 * SortKeys.GAP;
 
         int projectId2 = 2;
 
         Project project1 = new Project();
         project1.setName("Project1");
-        project1.setPosition(position1);
+        project1.setSortKey(sortKey1);
 
         Project project2 = new Project();
         project2.setName("Project2");
-        project2.setPosition(position2);
+        project2.setSortKey(sortKey2);
 
         Mockito.doReturn(project1).when(projectsDao).getById(PROJECT_ID);
         Mockito.doReturn(project2).when(projectsDao).getById(projectId2);
@@ -287,9 +305,9 @@ public class ProjectsServiceTest {
         List<Project> capturedArguments = argumentCaptor.getAllValues();
         for (Project argument : capturedArguments) {
             if (argument == project1) {
-                Assert.assertEquals("Position of saved project1 should be the position of project2", position2, argument.getPosition());
+                Assert.assertEquals("Sort key of saved project1 should be the sort key of project2", sortKey2, argument.getSortKey());
             } else if (argument == project2) {
-                Assert.assertEquals("Position of saved project2 should be the position of project1", position1, argument.getPosition());
+                Assert.assertEquals("Sort key of saved project2 should be the sort key of project1", sortKey1, argument.getSortKey());
             } else {
                 Assert.fail("Should only save the specified projects");
             }
@@ -375,14 +393,17 @@ public class ProjectsServiceTest {
         int projectId2 = 2;
 
         Project project1 = new Project();
-        project1.setPosition(1);
+        project1.setSortKey(SortKeys.GAP);
 
         Project project2 = new Project();
-        project2.setPosition(3);
+        project2.setSortKey(3 * SortKeys.GAP);
 
         Mockito.doReturn(project1).when(projectsDao).getById(PROJECT_ID);
         Mockito.doReturn(project2).when(projectsDao).getById(projectId2);
 
+        Mockito.doReturn(true).when(projectsDao).hasProjectsBetween(SortKeys.GAP, 3 * SortKeys.GAP);
+        Mockito.doReturn(true).when(projectsDao).hasProjectsBetween(3 * SortKeys.GAP, SortKeys.GAP);
+
         try {
             projectsService.swapPositionsOfProjects(PROJECT_ID, projectId2);
             Assert.fail("Should throw IllegalArgumentException if project2 is not previous or next from project1");
@@ -397,89 +418,127 @@ public class ProjectsServiceTest {
     }
 
     @Test
-    public void testCreateProjectSetsPositionOfZeroForFirstProject() {
-        Mockito.doReturn(new ArrayList<>()).when(projectsDao).getAll();
+    public void testCreateProjectSetsSortKeyAfterLastProject() {
+        long nextSortKey = 5 * SortKeys.GAP;
+        Mockito.doReturn(nextSortKey).when(projectsDao).getNextSortKey();
 
         ArgumentCaptor<Project> argumentCaptor = ArgumentCaptor.forClass(Project.class);
         Mockito.doNothing().when(projectsDao).save(argumentCaptor.capture());
 
         projectsService.createProject("Project");
 
-        Assert.assertEquals("Position of zero should be assigned to the first project", 0, argumentCaptor.getValue().getPosition());
+        Assert.assertEquals("Next sort key should be assigned to the created project", nextSortKey, argumentCaptor.getValue().getSortKey());
+        Mockito.verify(projectsDao, times(0)).getAll();
     }
 
     @Test
-    public void testCreateProjectSetsPositionOfOneForSecondProject() {
-        List<Project> projects = new ArrayList<>();
-        projects.add(new Project());
-        Mockito.doReturn(projects).when(projectsDao).getAll();
+    public void testRemoveProjectDoesNotUpdateOtherProjects() {
+        int projectIdToRemove = 1;
 
-        ArgumentCaptor<Project> argumentCaptor = ArgumentCaptor.forClass(Project.class);
-        Mockito.doNothing().when(projectsDao).save(argumentCaptor.capture());
+        Project projectToRemove = new Project();
+        projectToRemove.setName("Project to remove");
+        projectToRemove.setSortKey(SortKeys.GAP);
 
-        projectsService.createProject("Project");
+        Mockito.doReturn(projectToRemove).when(projectsDao).getById(projectIdToRemove);
+
+        projectsService.removeProject(projectIdToRemove);
 
-        Assert.assertEquals("Position of 1 should be assigned to the second project", 1, argumentCaptor.getValue().getPosition());
+        Mockito.verify(projectsDao, times(1)).remove(projectToRemove);
+        Mockito.verify(projectsDao, times(0)).save(anyObject());
     }
 
     @Test
-    public void testRemoveProjectUpdatesPositions() {
-        List<Project> projects = new ArrayList<>();
+    public void testRemoveProjectThatIsLastDoesNotSaveAnything() {
+        Project project = new Project();
+        project.setName("Name");
 
-        int projectIdToRemove = 1;
+        Mockito.doReturn(project).when(projectsDao).getById(PROJECT_ID);
 
-        Project projectToRemove = new Project();
-        projectToRemove.setName("Project to remove");
-        projectToRemove.setPosition(1);
+        Mockito.doReturn(new ArrayList<>()).when(projectsDao).getAll();
 
-        Project project1 = new Project();
-        project1.setName("Project1");
-        project1.setPosition(0);
-        projects.add(project1);
+        projectsService.removeProject(PROJECT_ID);
 
-        Project project3 = new Project();
-        project3.setName("Project3");
-        project3.setPosition(2);
-        projects.add(project3);
+        Mockito.verify(projectsDao, times(0)).save(anyObject());
+    }
 
-        Project project4 = new Project();
-        project4.setName("Project4");
-        project4.setPosition(3);
-        projects.add(project4);
+    @Test
+    public void testMoveProjectToIndex() {
+        Project project = new Project();
+        project.setSortKey(3 * SortKeys.GAP);
+        Mockito.doReturn(project).when(projectsDao).getById(PROJECT_ID);
+        Mockito.doReturn(Arrays.asList(SortKeys.GAP)).when(projectsDao).getSortKeys(project.getId(), 0, SortKeys.NEIGHBOURS);
 
-        ArgumentCaptor<Project> argumentCaptor = ArgumentCaptor.forClass(Project.class);
-        Mockito.doNothing().when(projectsDao).save(argumentCaptor.capture());
+        projectsService.moveProjectToIndex(PROJECT_ID, 0);
 
-        Mockito.doReturn(projectToRemove).when(projectsDao).getById(projectIdToRemove);
+        Mockito.verify(projectsDao).save(project);
+        Assert.assertEquals("Sort key should be before the new following project", 0, project.getSortKey());
+        Mockito.verify(projectLockManager).lockProjectList();
+    }
 
-        Mockito.doReturn(projects).when(projectsDao).getAll();
+    @Test
+    public void testMoveProjectToIndexRebalancesCrowdedNeighbours() {
+        Project project = new Project();
+        Project reloadedProject = new Project();
+        Mockito.when(projectsDao.getById(PROJECT_ID)).thenReturn(project, reloadedProject);
+        Mockito.when(projectsDao.getSortKeys(project.getId(), 0, SortKeys.NEIGHBOURS))
+                .thenReturn(Arrays.asList(5L, 6L), Arrays.asList(SortKeys.GAP, 2 * SortKeys.GAP));
 
-        projectsService.removeProject(projectIdToRemove);
+        projectsService.moveProjectToIndex(PROJECT_ID, 1);
 
-        Mockito.verify(projectsDao, times(2)).save(anyObject());
+        Mockito.verify(projectsDao).rebalanceSortKeys();
+        Mockito.verify(projectsDao).save(reloadedProject);
+        Assert.assertEquals("Sort key should be between the rebalanced neighbours", SortKeys.GAP + SortKeys.GAP / 2, reloadedProject.getSortKey());
+    }
 
-        for (Project argument : argumentCaptor.getAllValues()) {
-            if (argument == project3) {
-                Assert.assertEquals("Position of project 3 should be saved to 1", 1, argument.getPosition());
-            } else if (argument == project4) {
-                Assert.assertEquals("Position of project 4 should be saved to 2", 2, argument.getPosition());
-            } else {
-                Assert.fail("Should not save any other projects");
-            }
-        }
+    @Test(expected = ProjectDoesNotExistException.class)
+    public void testMoveProjectToIndexThrowsForNonExistingProject() {
+        projectsService.moveProjectToIndex(PROJECT_ID, 0);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testMoveProjectToIndexThrowsForNegativeIndex() {
+        projectsService.moveProjectToIndex(PROJECT_ID, -1);
     }
 
     @Test
-    public void testRemoveProjectThatIsLastDoesNotSaveAnything() {
-        Project project = new Project();
-        project.setName("Name");
+    public void testReorderProjects() {
+        List<Integer> projectIds = Arrays.asList(2, 1);
+        Mockito.doReturn(Arrays.asList(1, 2)).when(projectsDao).getIds();
 
-        Mockito.doReturn(project).when(projectsDao).getById(PROJECT_ID);
+        projectsService.reorderProjects(projectIds);
 
-        Mockito.doReturn(new ArrayList<>()).when(projectsDao).getAll();
+        Mockito.verify(projectsDao).applyOrder(projectIds);
+        Mockito.verify(projectsDao).incrementListRevision();
+    }
 
-        projectsService.removeProject(PROJECT_ID);
+    @Test
+    public void testReorderProjectsPublishesNewRevision() {
+        Mockito.doReturn(Arrays.asList(1, 2)).when(projectsDao).getIds();
+        Mockito.doReturn(4L).when(projectsDao).incrementListRevision();
 
-        Mockito.verify(projectsDao, times(0)).save(anyObject());
+        projectsService.reorderProjects(Arrays.asList(2, 1));
+
+        Mockito.verify(changePublisher).publishProjectsChanged(4L);
+    }
+
+    @Test
+    public void testReorderProjectsThrowsForMissingProject() {
+        Mockito.doReturn(Arrays.asList(1, 2, 3)).when(projectsDao).getIds();
+
+        try {
+            projectsService.reorderProjects(Arrays.asList(2, 1));
+            Assert.fail();
+        } catch (IllegalArgumentException ex) {
+        }
+
+        try {
+            projectsService.reorderProjects(Arrays.asList(2, 1, 1));
+            Assert.fail();
+        } catch (IllegalArgumentException ex) {
+        }
+
+        Mockito.verify(projectsDao, Mockito.never()).applyOrder(anyObject());
+        Mockito.verify(projectsDao, Mockito.never()).incrementListRevision();
+        Mockito.verify(changePublisher, Mockito.never()).publishProjectsChanged(anyLong());
     }
 }
@@ -0,0 +1,65 @@
+package me.nikoltur.todolist.queries;
+
+import java.util.Collections;
+import java.util.Map;
+import me.nikoltur.todolist.tasks.TasksResource;
+import org.junit.Assert;
+import org.junit.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.method.HandlerMethod;
+
+/**
+ *
+ * @author Nikolas Turunen
+ */
+public class QueryBudgetInterceptorTest {
+
+    private final QueryTracker queryTracker = new QueryTracker();
+    private final QueryBudgetInterceptor queryBudgetInterceptor = new QueryBudgetInterceptor(queryTracker, 10, Collections.singletonMap("TasksResource.getTasks", 4));
+
+    @Test
+    public void testRequestsToHandlerMethodsAreTracked() throws NoSuchMethodException {
+        HandlerMethod handler = new HandlerMethod(new TasksResource(), "createTask", int.class, String.class);
+
+        queryBudgetInterceptor.preHandle(new MockHttpServletRequest(), new MockHttpServletResponse(), handler);
+        queryTracker.inspect("select 1");
+        queryBudgetInterceptor.afterCompletion(new MockHttpServletRequest(), new MockHttpServletResponse(), handler, null);
+
+        Assert.assertNull("Tracking should be stopped after the request", queryTracker.stop());
+        Assert.assertEquals("Endpoint should be named by resource and method", "TasksResource.createTask", QueryBudgetInterceptor.getEndpointName(handler));
+    }
+
+    @Test
+    public void testOtherHandlersAreNotTracked() {
+        queryBudgetInterceptor.preHandle(new MockHttpServletRequest(), new MockHttpServletResponse(), new Object());
+
+        Assert.assertNull("Requests to other handlers should not be tracked", queryTracker.stop());
+    }
+
+    @Test
+    public void testGetBudget() {
+        Assert.assertEquals("Budget of the endpoint should be used", 4, queryBudgetInterceptor.getBudget("TasksResource.getTasks"));
+        Assert.assertEquals("Default budget should be used for other endpoints", 10, queryBudgetInterceptor.getBudget("ProjectsResource.getProjects"));
+    }
+
+    @Test
+    public void testParseBudgets() {
+        Map<String, Integer> budgets = QueryBudgetInterceptor.parseBudgets("TasksResource.getTasks:4, ProjectsResource.getProjects : 2");
+
+        Assert.assertEquals("Both budgets should be parsed", 2, budgets.size());
+        Assert.assertEquals("Budget should be parsed", Integer.valueOf(4), budgets.get("TasksResource.getTasks"));
+        Assert.assertEquals("Whitespace should be ignored", Integer.valueOf(2), budgets.get("ProjectsResource.getProjects"));
+        Assert.assertTrue("Empty budgets should be parsed", QueryBudgetInterceptor.parseBudgets("").isEmpty());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testParseBudgetsThrowsForMissingNumber() {
+        QueryBudgetInterceptor.parseBudgets("TasksResource.getTasks");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testParseBudgetsThrowsForNegativeNumber() {
+        QueryBudgetInterceptor.parseBudgets("TasksResource.getTasks:-1");
+    }
+}
@@ -0,0 +1,44 @@
+package me.nikoltur.todolist.queries;
+
+import java.util.function.Supplier;
+import org.junit.Assert;
+
+/**
+ * Assertions on the number of statements made by code under test, to catch N+1 selects in the integration tests.
+ *
+ * @author Nikolas Turunen
+ */
+public class QueryBudgets {
+
+    private static final int REPORTED_SHAPES = 5;
+
+    private QueryBudgets() {
+    }
+
+    /**
+     * Runs the specified action on the current thread and fails if it makes more statements than the specified budget.
+     *
+     * @param <T> Type of the result of the action.
+     * @param queryTracker Tracker of the queries of the application under test.
+     * @param budget Maximum number of statements.
+     * @param action Action to run.
+     * @return The result of the action.
+     */
+    public static <T> T assertWithinBudget(QueryTracker queryTracker, int budget, Supplier<T> action) {
+        queryTracker.start();
+        T result;
+        RequestQueries queries;
+        try {
+            result = action.get();
+        } finally {
+            queries = queryTracker.stop();
+        }
+
+        if (queries.getStatements() > budget) {
+            Assert.fail("Made " + queries.getStatements() + " statements, over the budget of " + budget + ", with " + queries.getEntityLoads() + " entity loads and "
+                    + queries.getCollectionFetches() + " collection fetches. Most repeated: " + queries.getMostRepeatedShapes(REPORTED_SHAPES));
+        }
+
+        return result;
+    }
+}
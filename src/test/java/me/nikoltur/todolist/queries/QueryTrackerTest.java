@@ -0,0 +1,69 @@
+package me.nikoltur.todolist.queries;
+
+import java.util.Arrays;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ *
+ * @author Nikolas Turunen
+ */
+public class QueryTrackerTest {
+
+    private static final String SELECT_DETAILS = "select * from tasks where parent_task_id=?";
+    private final QueryTracker queryTracker = new QueryTracker();
+
+    @Test
+    public void testStatementsAreTrackedUntilStopped() {
+        RequestQueries queries = queryTracker.start();
+        Assert.assertEquals("Statement should be returned unchanged", SELECT_DETAILS, queryTracker.inspect(SELECT_DETAILS));
+        queryTracker.inspect(SELECT_DETAILS);
+        queryTracker.inspect("select * from projects");
+
+        Assert.assertSame("Stopping should return the tracked queries", queries, queryTracker.stop());
+        queryTracker.inspect(SELECT_DETAILS);
+
+        Assert.assertEquals("Statements should be counted until stopped", 3, queries.getStatements());
+        Assert.assertEquals("Most repeated statement should be first", Arrays.asList("2x " + SELECT_DETAILS), queries.getMostRepeatedShapes(1));
+    }
+
+    @Test
+    public void testStopWithoutTrackingReturnsNull() {
+        Assert.assertNull("Nothing should be returned without tracking", queryTracker.stop());
+    }
+
+    @Test
+    public void testStatementsAreNotTrackedOnOtherThreads() throws InterruptedException {
+        RequestQueries queries = queryTracker.start();
+
+        Thread thread = new Thread(() -> queryTracker.inspect(SELECT_DETAILS));
+        thread.start();
+        thread.join();
+
+        Assert.assertEquals("Statements of other threads should not be counted", 0, queryTracker.stop().getStatements());
+        Assert.assertEquals("Statements of other threads should not be counted", 0, queries.getStatements());
+    }
+
+    @Test
+    public void testCollectionFetchesAreCountedByRole() {
+        RequestQueries queries = new RequestQueries();
+        queries.recordCollectionFetch("Task.details");
+        queries.recordCollectionFetch("Task.details");
+        queries.recordEntityLoad();
+
+        Assert.assertEquals("Collection fetches should be counted", 2, queries.getCollectionFetches());
+        Assert.assertEquals("Entity loads should be counted", 1, queries.getEntityLoads());
+        Assert.assertEquals("Fetched collection should be reported", Arrays.asList("2x Task.details"), queries.getMostRepeatedShapes(5));
+    }
+
+    @Test
+    public void testDistinctShapesAreLimited() {
+        RequestQueries queries = new RequestQueries();
+        for (int i = 0; i < RequestQueries.MAX_SHAPES + 10; i++) {
+            queries.recordStatement("select " + i);
+        }
+
+        Assert.assertEquals("Every statement should be counted", RequestQueries.MAX_SHAPES + 10, queries.getStatements());
+        Assert.assertEquals("Distinct statements should be limited", RequestQueries.MAX_SHAPES, queries.getMostRepeatedShapes(Integer.MAX_VALUE).size());
+    }
+}
@@ -0,0 +1,115 @@
+package me.nikoltur.todolist.queries;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import javax.sql.DataSource;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.MockitoAnnotations;
+
+/**
+ *
+ * @author Nikolas Turunen
+ */
+public class SlowStatementLogTest {
+
+    private static final String SELECT_TASKS = "select * from tasks where project_id=?";
+    @Mock
+    private DataSource dataSource;
+    @Mock
+    private Connection connection;
+    @Mock
+    private PreparedStatement statement;
+    @Mock
+    private ResultSet resultSet;
+    private SlowStatementLog slowStatementLog;
+
+    @Before
+    public void initMocks() throws Exception {
+        MockitoAnnotations.initMocks(this);
+
+        Mockito.when(dataSource.getConnection()).thenReturn(connection);
+        Mockito.when(connection.prepareStatement(Mockito.anyString())).thenReturn(statement);
+        Mockito.when(statement.executeQuery()).thenReturn(resultSet);
+        Mockito.when(resultSet.next()).thenReturn(true, false);
+        Mockito.when(resultSet.getString(1)).thenReturn("Seq Scan on tasks");
+        slowStatementLog = new SlowStatementLog(dataSource, 100, 1, false);
+    }
+
+    @After
+    public void shutdown() {
+        slowStatementLog.shutdown();
+    }
+
+    @Test
+    public void testSlowSelectIsExplainedWithItsParameters() throws Exception {
+        slowStatementLog.statementExecuted(SELECT_TASKS, Collections.singletonMap(1, 5), 200000000);
+
+        Mockito.verify(connection, Mockito.timeout(5000)).rollback();
+        Mockito.verify(connection).setReadOnly(true);
+        Mockito.verify(connection).prepareStatement("EXPLAIN (ANALYZE, BUFFERS) " + SELECT_TASKS);
+        Mockito.verify(statement).setObject(1, 5);
+        Mockito.verify(connection, Mockito.timeout(5000)).close();
+    }
+
+    @Test
+    public void testFastSelectIsNotExplained() throws Exception {
+        slowStatementLog.statementExecuted(SELECT_TASKS, Collections.emptyMap(), 50000000);
+        slowStatementLog.shutdown();
+
+        Mockito.verify(dataSource, Mockito.never()).getConnection();
+    }
+
+    @Test
+    public void testNothingIsExplainedWithoutSampling() throws Exception {
+        SlowStatementLog unsampledLog = new SlowStatementLog(dataSource, 100, 0, false);
+        unsampledLog.statementExecuted(SELECT_TASKS, Collections.emptyMap(), 200000000);
+        unsampledLog.shutdown();
+
+        Mockito.verify(dataSource, Mockito.never()).getConnection();
+    }
+
+    @Test
+    public void testDescribeReturnsTypesOfParameters() {
+        Map<Integer, Object> parameters = new HashMap<>();
+        parameters.put(1, "Private task");
+        parameters.put(2, null);
+        parameters.put(3, 7);
+
+        Map<Integer, Object> expected = new HashMap<>();
+        expected.put(1, "String");
+        expected.put(2, null);
+        expected.put(3, "Integer");
+        Assert.assertEquals("Only the types of the parameters should be logged", expected, slowStatementLog.describe(parameters));
+    }
+
+    @Test
+    public void testDescribeReturnsValuesOfParametersIfEnabled() {
+        SlowStatementLog valueLog = new SlowStatementLog(dataSource, 100, 0, true);
+        Map<Integer, Object> parameters = Collections.singletonMap(1, "Private task");
+
+        Assert.assertEquals("Values of the parameters should be logged", parameters, valueLog.describe(parameters));
+        valueLog.shutdown();
+    }
+
+    @Test
+    public void testIsExplainable() {
+        Assert.assertTrue("Select should be explainable", SlowStatementLog.isExplainable(" SELECT * from tasks"));
+        Assert.assertFalse("Update should not be explainable", SlowStatementLog.isExplainable("update tasks set completed=?"));
+        Assert.assertFalse("Select taking row locks should not be explainable", SlowStatementLog.isExplainable("select * from tasks for update"));
+        Assert.assertFalse("Select taking advisory locks should not be explainable", SlowStatementLog.isExplainable("select 1 from (select pg_advisory_xact_lock(?, ?)) as acquired"));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testConstructorThrowsForInvalidSampleRate() {
+        new SlowStatementLog(dataSource, 100, 1.5, false);
+    }
+}
@@ -0,0 +1,127 @@
+package me.nikoltur.todolist.queries;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Types;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import javax.sql.DataSource;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.MockitoAnnotations;
+
+/**
+ *
+ * @author Nikolas Turunen
+ */
+public class StatementTimingDataSourceTest {
+
+    private static final String UPDATE_TASK = "update tasks set task=?, parent_task_id=? where id=?";
+    @Mock
+    private DataSource targetDataSource;
+    @Mock
+    private Connection targetConnection;
+    @Mock
+    private PreparedStatement targetPreparedStatement;
+    @Mock
+    private Statement targetStatement;
+    @Mock
+    private SlowStatementLog slowStatementLog;
+    private StatementTimingDataSource dataSource;
+
+    @Before
+    public void initMocks() throws SQLException {
+        MockitoAnnotations.initMocks(this);
+
+        Mockito.when(targetDataSource.getConnection()).thenReturn(targetConnection);
+        Mockito.when(targetConnection.prepareStatement(UPDATE_TASK)).thenReturn(targetPreparedStatement);
+        Mockito.when(targetConnection.createStatement()).thenReturn(targetStatement);
+        Mockito.when(targetPreparedStatement.executeUpdate()).thenReturn(1);
+        dataSource = new StatementTimingDataSource(targetDataSource, slowStatementLog);
+    }
+
+    @Test
+    public void testPreparedStatementIsTimedWithItsParameters() throws SQLException {
+        try (Connection connection = dataSource.getConnection();
+                PreparedStatement statement = connection.prepareStatement(UPDATE_TASK)) {
+            statement.setString(1, "Task");
+            statement.setNull(2, Types.INTEGER);
+            statement.setInt(3, 7);
+
+            Assert.assertEquals("Result of the statement should be returned", 1, statement.executeUpdate());
+        }
+
+        Map<Integer, Object> parameters = new HashMap<>();
+        parameters.put(1, "Task");
+        parameters.put(2, null);
+        parameters.put(3, 7);
+        Mockito.verify(slowStatementLog).statementExecuted(Mockito.eq(UPDATE_TASK), Mockito.eq(parameters), Mockito.anyLong());
+        Mockito.verify(targetPreparedStatement).setNull(2, Types.INTEGER);
+        Mockito.verify(targetPreparedStatement).close();
+        Mockito.verify(targetConnection).close();
+    }
+
+    @Test
+    public void testStatementIsTimedWithItsSql() throws SQLException {
+        try (Connection connection = dataSource.getConnection();
+                Statement statement = connection.createStatement()) {
+            statement.execute("select 1");
+        }
+
+        Mockito.verify(slowStatementLog).statementExecuted(Mockito.eq("select 1"), Mockito.eq(Collections.emptyMap()), Mockito.anyLong());
+    }
+
+    @Test
+    public void testBatchIsTimedWithItsSize() throws SQLException {
+        Mockito.when(targetPreparedStatement.executeBatch()).thenReturn(new int[]{1, 1, 1});
+
+        try (Connection connection = dataSource.getConnection();
+                PreparedStatement statement = connection.prepareStatement(UPDATE_TASK)) {
+            for (int i = 1; i <= 3; i++) {
+                statement.setString(1, "Task " + i);
+                statement.setNull(2, Types.INTEGER);
+                statement.setInt(3, i);
+                statement.addBatch();
+            }
+
+            statement.executeBatch();
+            statement.addBatch();
+            statement.executeBatch();
+        }
+
+        Mockito.verify(slowStatementLog).batchExecuted(Mockito.eq(UPDATE_TASK), Mockito.eq(3), Mockito.anyLong());
+        Mockito.verify(slowStatementLog).batchExecuted(Mockito.eq(UPDATE_TASK), Mockito.eq(1), Mockito.anyLong());
+        Mockito.verify(slowStatementLog, Mockito.never()).statementExecuted(Mockito.anyString(), Mockito.anyMapOf(Integer.class, Object.class), Mockito.anyLong());
+        Mockito.verify(targetPreparedStatement, Mockito.times(4)).addBatch();
+    }
+
+    @Test
+    public void testFailedStatementIsTimed() throws SQLException {
+        SQLException failure = new SQLException("Failed");
+        Mockito.when(targetPreparedStatement.executeUpdate()).thenThrow(failure);
+
+        try (Connection connection = dataSource.getConnection();
+                PreparedStatement statement = connection.prepareStatement(UPDATE_TASK)) {
+            statement.executeUpdate();
+            Assert.fail("Exception should be rethrown");
+        } catch (SQLException ex) {
+            Assert.assertSame("Exception of the statement should be rethrown as is", failure, ex);
+        }
+
+        Mockito.verify(slowStatementLog).statementExecuted(Mockito.eq(UPDATE_TASK), Mockito.anyMapOf(Integer.class, Object.class), Mockito.anyLong());
+    }
+
+    @Test
+    public void testConnectionsEqualOnlyThemselves() throws SQLException {
+        Connection connection = dataSource.getConnection();
+
+        Assert.assertEquals("Connection should equal itself", connection, connection);
+        Assert.assertNotEquals("Connection should not equal another connection", connection, dataSource.getConnection());
+    }
+}
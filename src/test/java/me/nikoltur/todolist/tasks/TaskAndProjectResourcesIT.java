@@ -1,21 +1,33 @@
 package me.nikoltur.todolist.tasks;
 
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 import me.nikoltur.todolist.Application;
 import me.nikoltur.todolist.DatabaseWiper;
 import me.nikoltur.todolist.projects.ProjectDoesNotExistException;
 import me.nikoltur.todolist.projects.ProjectHasTasksException;
 import me.nikoltur.todolist.projects.ProjectsResource;
-import me.nikoltur.todolist.projects.da.Project;
-import me.nikoltur.todolist.tasks.da.Task;
+import me.nikoltur.todolist.projects.da.ProjectView;
+import me.nikoltur.todolist.queries.QueryBudgets;
+import me.nikoltur.todolist.queries.QueryTracker;
+import me.nikoltur.todolist.tasks.da.TaskPage;
+import me.nikoltur.todolist.tasks.da.TaskView;
 import org.junit.Assert;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
 import org.springframework.test.context.ContextConfiguration;
 import org.springframework.test.context.TestPropertySource;
 import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.web.context.request.ServletWebRequest;
 
 /**
  *
@@ -32,6 +44,8 @@ public class TaskAndProjectResourcesIT {
     private ProjectsResource projectsResource;
     @Autowired
     private TasksResource tasksResource;
+    @Autowired
+    private QueryTracker queryTracker;
 
     @Before
     public void setUp() {
@@ -40,19 +54,19 @@ public class TaskAndProjectResourcesIT {
 
     @Test
     public void testCreateTaskForProject() {
-        Project project = createProject("Project");
+        ProjectView project = createProject("Project");
 
         String taskString = "Do this and do that";
 
-        Assert.assertEquals("Size of tasks should be initially zero", 0, tasksResource.getTasks(project.getId()).size());
+        Assert.assertEquals("Size of tasks should be initially zero", 0, TasksResponses.getTasks(tasksResource, project.getId()).size());
 
         tasksResource.createTask(project.getId(), taskString);
 
-        List<Task> tasks = tasksResource.getTasks(project.getId());
+        List<TaskView> tasks = TasksResponses.getTasks(tasksResource, project.getId());
         Assert.assertEquals("Size of tasks should be 1 after creation", 1, tasks.size());
 
-        Task task = tasks.get(0);
-        Assert.assertEquals("Id of the single task should be 1", 1, task.getId());
+        TaskView task = tasks.get(0);
+        Assert.assertTrue("Id of the single task should be assigned", task.getId() > 0);
         Assert.assertEquals("Project id of the single task should match the created task", (Integer) project.getId(), task.getProjectId());
         Assert.assertEquals("Task string of the single task should match the created task", taskString, task.getTaskString());
     }
@@ -64,20 +78,20 @@ public class TaskAndProjectResourcesIT {
 
     @Test(expected = ProjectHasTasksException.class)
     public void testProjectRemovalWithTasks() {
-        Project project = createProject("Project");
+        ProjectView project = createProject("Project");
         tasksResource.createTask(project.getId(), "Mytask");
         projectsResource.removeProject(project.getId());
     }
 
     @Test
     public void testRemoveTask() {
-        Project project = createProject("Project");
+        ProjectView project = createProject("Project");
 
-        Task task = createTask(project.getId(), "Mytask");
+        TaskView task = createTask(project.getId(), "Mytask");
 
         tasksResource.removeTask(task.getId());
 
-        List<Task> tasksAfterRemoval = tasksResource.getTasks(project.getId());
+        List<TaskView> tasksAfterRemoval = TasksResponses.getTasks(tasksResource, project.getId());
 
         Assert.assertTrue("Tasks should be empty after the created task was removed", tasksAfterRemoval.isEmpty());
     }
@@ -87,13 +101,13 @@ public class TaskAndProjectResourcesIT {
         String taskStringForRemoval = "Mytask";
         String taskStringNotForRemoval = "Mytask2";
 
-        Project project = createProject("Project");
-        Task taskForRemoval = createTask(project.getId(), taskStringForRemoval);
+        ProjectView project = createProject("Project");
+        TaskView taskForRemoval = createTask(project.getId(), taskStringForRemoval);
         createTask(project.getId(), taskStringNotForRemoval);
 
         tasksResource.removeTask(taskForRemoval.getId());
 
-        List<Task> tasksAfterRemoval = tasksResource.getTasks(project.getId());
+        List<TaskView> tasksAfterRemoval = TasksResponses.getTasks(tasksResource, project.getId());
 
         Assert.assertEquals("One task should remain", 1, tasksAfterRemoval.size());
         Assert.assertEquals("Task string of the remaining task should match the task that was not deleted", taskStringNotForRemoval, tasksAfterRemoval.get(0).getTaskString());
@@ -106,12 +120,12 @@ public class TaskAndProjectResourcesIT {
 
     @Test
     public void testProjectAndTaskCreateAndRemove() {
-        Project project = createProject("Project");
-        Task task = createTask(project.getId(), "Task");
+        ProjectView project = createProject("Project");
+        TaskView task = createTask(project.getId(), "Task");
         tasksResource.removeTask(task.getId());
         projectsResource.removeProject(project.getId());
 
-        Assert.assertTrue("Projects should be empty after removal of task and project", projectsResource.getProjects().isEmpty());
+        Assert.assertTrue("Projects should be empty after removal of task and project", getProjects().isEmpty());
     }
 
     @Test
@@ -122,12 +136,12 @@ public class TaskAndProjectResourcesIT {
         projectsResource.createProject(project1Name);
         projectsResource.createProject(project2Name);
 
-        List<Project> projects = projectsResource.getProjects();
+        List<ProjectView> projects = getProjects();
 
-        Project project1 = null;
-        Project project2 = null;
+        ProjectView project1 = null;
+        ProjectView project2 = null;
 
-        for (Project project : projects) {
+        for (ProjectView project : projects) {
             switch (project.getName()) {
                 case project1Name:
                     project1 = project;
@@ -149,11 +163,11 @@ public class TaskAndProjectResourcesIT {
         tasksResource.createTask(project1.getId(), task1Name);
         tasksResource.createTask(project2.getId(), task2Name);
 
-        List<Task> tasks1 = tasksResource.getTasks(project1.getId());
+        List<TaskView> tasks1 = TasksResponses.getTasks(tasksResource, project1.getId());
         Assert.assertEquals("First project should have 1 task", 1, tasks1.size());
         Assert.assertEquals("The single task of first project should have the specified task string", task1Name, tasks1.get(0).getTaskString());
 
-        List<Task> tasks2 = tasksResource.getTasks(project2.getId());
+        List<TaskView> tasks2 = TasksResponses.getTasks(tasksResource, project2.getId());
         Assert.assertEquals("Second project should have 1 task", 1, tasks2.size());
         Assert.assertEquals("The single task of second project should have the specified task string", task2Name, tasks2.get(0).getTaskString());
     }
@@ -162,11 +176,11 @@ public class TaskAndProjectResourcesIT {
     public void testEditTask() {
         String newTask = "Do this instead";
 
-        Project project = createProject("Project");
-        Task task = createTask(project.getId(), "Task");
+        ProjectView project = createProject("Project");
+        TaskView task = createTask(project.getId(), "Task");
         tasksResource.editTask(task.getId(), newTask);
 
-        Task editedTask = tasksResource.getTasks(project.getId()).get(0);
+        TaskView editedTask = TasksResponses.getTasks(tasksResource, project.getId()).get(0);
         Assert.assertEquals("Edited task should have the new task string", newTask, editedTask.getTaskString());
     }
 
@@ -177,8 +191,8 @@ public class TaskAndProjectResourcesIT {
 
     @Test
     public void testDetailsIsInitiallyEmpty() {
-        Project project = createProject("Project");
-        Task task = createTask(project.getId(), "Task");
+        ProjectView project = createProject("Project");
+        TaskView task = createTask(project.getId(), "Task");
 
         Assert.assertTrue("Details of task should initially be empty", task.getDetails().isEmpty());
     }
@@ -187,10 +201,10 @@ public class TaskAndProjectResourcesIT {
     public void testCreateDetailAndGetTasksDoesNotReturnDetailDirectly() {
         String taskString = "Task";
 
-        Project project = createProject("Project");
-        Task task = createTask(project.getId(), taskString);
+        ProjectView project = createProject("Project");
+        TaskView task = createTask(project.getId(), taskString);
         tasksResource.createDetail(task.getId(), "Task detail");
-        List<Task> tasks = tasksResource.getTasks(project.getId());
+        List<TaskView> tasks = TasksResponses.getTasks(tasksResource, project.getId());
         Assert.assertEquals("Size of tasks should be 1 because it should not contain the created detail", 1, tasks.size());
         Assert.assertEquals("The single task should be the created task", taskString, tasks.get(0).getTaskString());
     }
@@ -199,34 +213,52 @@ public class TaskAndProjectResourcesIT {
     public void testCreatedDetailIsInDetails() {
         String detailString = "Task detail";
 
-        Project project = createProject("Project");
-        Task task = createTask(project.getId(), "Task");
+        ProjectView project = createProject("Project");
+        TaskView task = createTask(project.getId(), "Task");
         tasksResource.createDetail(task.getId(), detailString);
-        List<Task> details = task.getDetails();
+        List<TaskView> details = TasksResponses.getTasks(tasksResource, project.getId()).get(0).getDetails();
         Assert.assertEquals("Size of details should be 1 after creation of a single detail for the task", 1, details.size());
         Assert.assertEquals("The task string of the single detail should equal the created detail", detailString, details.get(0).getTaskString());
     }
 
     @Test
     public void testCreateMultipleDetails() {
-        Project project = createProject("Project");
-        Task task = createTask(project.getId(), "Task");
+        ProjectView project = createProject("Project");
+        TaskView task = createTask(project.getId(), "Task");
         createDetailForTask(task, "Detail1");
         createDetailForTask(task, "Detail2");
         createDetailForTask(task, "Detail3");
         createDetailForTask(task, "Detail4");
 
-        Assert.assertEquals("Should contain 4 details", 4, tasksResource.getTasks(project.getId()).get(0).getDetails().size());
+        Assert.assertEquals("Should contain 4 details", 4, TasksResponses.getTasks(tasksResource, project.getId()).get(0).getDetails().size());
+    }
+
+    @Test
+    public void testGetTasksWithDetailsIsWithinQueryBudget() {
+        ProjectView project = createProject("Project");
+        for (int i = 0; i < 5; i++) {
+            tasksResource.createTask(project.getId(), "Task" + i);
+        }
+        for (TaskView task : TasksResponses.getTasks(tasksResource, project.getId())) {
+            tasksResource.createDetail(task.getId(), "Detail1");
+            tasksResource.createDetail(task.getId(), "Detail2");
+        }
+
+        // The details were created after the last listing, so the tasks are read rather than served from the response cache.
+        List<TaskView> tasks = QueryBudgets.assertWithinBudget(queryTracker, 4, () -> TasksResponses.getTasks(tasksResource, project.getId()));
+
+        Assert.assertEquals("Every task should be listed", 5, tasks.size());
+        Assert.assertEquals("Details should be listed", 2, tasks.get(0).getDetails().size());
     }
 
     @Test
     public void testDetailCanBeRemoved() {
-        Project project = createProject("Project");
-        Task task = createTask(project.getId(), "Task");
-        Task detail = createDetailForTask(task, "Detail");
+        ProjectView project = createProject("Project");
+        TaskView task = createTask(project.getId(), "Task");
+        TaskView detail = createDetailForTask(task, "Detail");
         tasksResource.removeTask(detail.getId());
 
-        Task updatedTask = tasksResource.getTasks(project.getId()).get(0);
+        TaskView updatedTask = TasksResponses.getTasks(tasksResource, project.getId()).get(0);
         Assert.assertTrue("Details of task should be empty after the single detail is removed", updatedTask.getDetails().isEmpty());
     }
 
@@ -234,38 +266,38 @@ public class TaskAndProjectResourcesIT {
     public void testDetailCanBeEdited() {
         String newDetailString = "NewDetail";
 
-        Project project = createProject("Project");
-        Task task = createTask(project.getId(), "Task");
-        Task detail = createDetailForTask(task, "Detail");
+        ProjectView project = createProject("Project");
+        TaskView task = createTask(project.getId(), "Task");
+        TaskView detail = createDetailForTask(task, "Detail");
         tasksResource.editTask(detail.getId(), newDetailString);
 
-        Task updatedTask = tasksResource.getTasks(project.getId()).get(0);
+        TaskView updatedTask = TasksResponses.getTasks(tasksResource, project.getId()).get(0);
         Assert.assertEquals("Detail should have the new task string after edit", newDetailString, updatedTask.getDetails().get(0).getTaskString());
     }
 
     @Test
     public void testTaskCanBeRemovedWithDetails() {
-        Project project = createProject("Project");
-        Task task = createTask(project.getId(), "Task");
+        ProjectView project = createProject("Project");
+        TaskView task = createTask(project.getId(), "Task");
         createDetailForTask(task, "Detail");
         createDetailForTask(task, "Detail2");
         createDetailForTask(task, "Detail3");
         tasksResource.removeTask(task.getId());
 
-        Assert.assertTrue("Task should be removed even if if it has details", tasksResource.getTasks(project.getId()).isEmpty());
+        Assert.assertTrue("Task should be removed even if if it has details", TasksResponses.getTasks(tasksResource, project.getId()).isEmpty());
     }
 
     @Test
     public void testCreateDetailForDetail() {
         String detailOfDetailString = "Detail of detail";
 
-        Project project = createProject("Project");
-        Task task = createTask(project.getId(), "Task");
-        Task detail = createDetailForTask(task, "Detail");
+        ProjectView project = createProject("Project");
+        TaskView task = createTask(project.getId(), "Task");
+        TaskView detail = createDetailForTask(task, "Detail");
         createDetailForDetail(detail, detailOfDetailString);
 
-        Task updatedTask = tasksResource.getTasks(project.getId()).get(0);
-        Task updatedDetail = updatedTask.getDetails().get(0);
+        TaskView updatedTask = TasksResponses.getTasks(tasksResource, project.getId()).get(0);
+        TaskView updatedDetail = updatedTask.getDetails().get(0);
         Assert.assertEquals("Size of details of detail should be 1", 1, updatedDetail.getDetails().size());
         Assert.assertEquals("Task string of detail of detail should match the created detail", detailOfDetailString, updatedDetail.getDetails().get(0).getTaskString());
     }
@@ -277,16 +309,16 @@ public class TaskAndProjectResourcesIT {
 
         String projectName = "Project";
 
-        Project project = createProject(projectName);
-        Task task1 = createTask(project.getId(), taskString1);
-        Task task2 = createTask(project.getId(), taskString2);
+        ProjectView project = createProject(projectName);
+        TaskView task1 = createTask(project.getId(), taskString1);
+        TaskView task2 = createTask(project.getId(), taskString2);
         int task1Position = task1.getPosition();
         int task2Position = task2.getPosition();
 
         tasksResource.swapPositionsOfTasks(task1.getId(), task2.getId());
 
-        List<Task> tasks = tasksResource.getTasks(project.getId());
-        for (Task task : tasks) {
+        List<TaskView> tasks = TasksResponses.getTasks(tasksResource, project.getId());
+        for (TaskView task : tasks) {
             if (task.getTaskString().equals(taskString1)) {
                 Assert.assertEquals("Position of task1 should be updated to position of task2", task2Position, task.getPosition());
             } else if (task.getTaskString().equals(taskString2)) {
@@ -299,53 +331,98 @@ public class TaskAndProjectResourcesIT {
 
     @Test
     public void testGetTasksOrdersByPosition() {
-        Project project = createProject("Project");
-        Task task1 = createTask(project.getId(), "Task1");
-        Task task2 = createTask(project.getId(), "Task2");
+        ProjectView project = createProject("Project");
+        TaskView task1 = createTask(project.getId(), "Task1");
+        TaskView task2 = createTask(project.getId(), "Task2");
 
         tasksResource.swapPositionsOfTasks(task1.getId(), task2.getId());
 
-        List<Task> tasks = tasksResource.getTasks(project.getId());
+        List<TaskView> tasks = TasksResponses.getTasks(tasksResource, project.getId());
 
         Assert.assertEquals("First task should have the task string of task2 task after swap", task2.getTaskString(), tasks.get(0).getTaskString());
         Assert.assertEquals("Second task should have the task string of task task after swap", task1.getTaskString(), tasks.get(1).getTaskString());
     }
 
+    @Test
+    public void testMoveTaskToIndex() {
+        ProjectView project = createProject("Project");
+        TaskView task1 = createTask(project.getId(), "Task1");
+        TaskView task2 = createTask(project.getId(), "Task2");
+        TaskView task3 = createTask(project.getId(), "Task3");
+
+        tasksResource.moveTaskToIndex(task3.getId(), 1);
+
+        List<TaskView> tasks = TasksResponses.getTasks(tasksResource, project.getId());
+        Assert.assertEquals("Task1 should stay first", task1.getId(), tasks.get(0).getId());
+        Assert.assertEquals("Task3 should be moved to index 1", task3.getId(), tasks.get(1).getId());
+        Assert.assertEquals("Task2 should be last", task2.getId(), tasks.get(2).getId());
+        Assert.assertEquals("Position of the moved task should be 1", 1, tasks.get(1).getPosition());
+    }
+
+    @Test
+    public void testReorderTasks() {
+        ProjectView project = createProject("Project");
+        TaskView task1 = createTask(project.getId(), "Task1");
+        TaskView task2 = createTask(project.getId(), "Task2");
+        TaskView task3 = createTask(project.getId(), "Task3");
+
+        tasksResource.reorderTasks(Arrays.asList(task2.getId(), task3.getId(), task1.getId()));
+
+        List<TaskView> tasks = TasksResponses.getTasks(tasksResource, project.getId());
+        Assert.assertEquals("Task2 should be first", task2.getId(), tasks.get(0).getId());
+        Assert.assertEquals("Task3 should be second", task3.getId(), tasks.get(1).getId());
+        Assert.assertEquals("Task1 should be last", task1.getId(), tasks.get(2).getId());
+    }
+
+    @Test
+    public void testGetTasksIsNotModifiedUntilTasksChange() {
+        ProjectView project = createProject("Project");
+        TaskView task = createTask(project.getId(), "Task");
+
+        String eTag = TasksResponses.getResponse(tasksResource, project.getId(), new MockHttpServletRequest("GET", "")).getHeader("ETag");
+
+        Assert.assertEquals("Tasks should not be returned again without changes", 304, TasksResponses.getResponse(tasksResource, project.getId(), conditionalRequest(eTag)).getStatus());
+
+        tasksResource.completeTask(task.getId());
+
+        Assert.assertEquals("Tasks should be returned after a change", 200, TasksResponses.getResponse(tasksResource, project.getId(), conditionalRequest(eTag)).getStatus());
+    }
+
     @Test
     public void testCreateTaskSavesPosition() {
-        Project project = createProject("Project");
+        ProjectView project = createProject("Project");
         createTask(project.getId(), "Task1");
         createTask(project.getId(), "Task2");
 
-        List<Task> tasks = tasksResource.getTasks(project.getId());
+        List<TaskView> tasks = TasksResponses.getTasks(tasksResource, project.getId());
         Assert.assertEquals("Position of first task should be 0", 0, tasks.get(0).getPosition());
         Assert.assertEquals("Position of second task should be 1", 1, tasks.get(1).getPosition());
     }
 
     @Test
     public void testRemoveTaskUpdatesPositions() {
-        Project project = createProject("Project");
+        ProjectView project = createProject("Project");
         createTask(project.getId(), "Task1");
-        Task taskToRemove = createTask(project.getId(), "Task2");
+        TaskView taskToRemove = createTask(project.getId(), "Task2");
         createTask(project.getId(), "Task3");
         tasksResource.removeTask(taskToRemove.getId());
 
-        List<Task> tasks = tasksResource.getTasks(project.getId());
+        List<TaskView> tasks = TasksResponses.getTasks(tasksResource, project.getId());
         Assert.assertEquals("Position of first task should still be 0", 0, tasks.get(0).getPosition());
         Assert.assertEquals("Position of second task should be updated to 1", 1, tasks.get(1).getPosition());
     }
 
     @Test
     public void testSwapPositionsOfTasksDetails() {
-        Project project = createProject("Project");
-        Task task = createTask(project.getId(), "Task");
-        Task detail1 = createDetailForTask(task, "Detail1");
-        Task detail2 = createDetailForTask(task, "Detail2");
+        ProjectView project = createProject("Project");
+        TaskView task = createTask(project.getId(), "Task");
+        TaskView detail1 = createDetailForTask(task, "Detail1");
+        TaskView detail2 = createDetailForTask(task, "Detail2");
 
         tasksResource.swapPositionsOfTasks(detail1.getId(), detail2.getId());
 
-        Task updatedTask = tasksResource.getTasks(project.getId()).get(0);
-        List<Task> details = updatedTask.getDetails();
+        TaskView updatedTask = TasksResponses.getTasks(tasksResource, project.getId()).get(0);
+        List<TaskView> details = updatedTask.getDetails();
         Assert.assertEquals("Position of first detail should be 0 after swap", 0, details.get(0).getPosition());
         Assert.assertEquals("Task string of first detail should be the task string of the other detail after swap", detail2.getTaskString(), details.get(0).getTaskString());
 
@@ -355,7 +432,7 @@ public class TaskAndProjectResourcesIT {
         // Swap again
         tasksResource.swapPositionsOfTasks(detail1.getId(), detail2.getId());
 
-        updatedTask = tasksResource.getTasks(project.getId()).get(0);
+        updatedTask = TasksResponses.getTasks(tasksResource, project.getId()).get(0);
         details = updatedTask.getDetails();
         Assert.assertEquals("Position of first detail should be 0 after swap", 0, details.get(0).getPosition());
         Assert.assertEquals("Task string of first detail should be the task string of the other detail after swap", detail1.getTaskString(), details.get(0).getTaskString());
@@ -366,53 +443,126 @@ public class TaskAndProjectResourcesIT {
 
     @Test
     public void testCompleteTask() {
-        Project project = createProject("Project");
-        Task task = createTask(project.getId(), "Task");
+        ProjectView project = createProject("Project");
+        TaskView task = createTask(project.getId(), "Task");
         tasksResource.completeTask(task.getId());
 
-        Task completedTask = tasksResource.getTasks(project.getId()).get(0);
+        TaskView completedTask = TasksResponses.getTasks(tasksResource, project.getId()).get(0);
         Assert.assertTrue("Task should be completed", completedTask.isCompleted());
     }
 
     @Test
     public void testCompleteUncompleteTask() {
-        Project project = createProject("Project");
-        Task task = createTask(project.getId(), "Task");
+        ProjectView project = createProject("Project");
+        TaskView task = createTask(project.getId(), "Task");
         tasksResource.completeTask(task.getId());
 
         tasksResource.uncompleteTask(task.getId());
 
-        Task completedTask = tasksResource.getTasks(project.getId()).get(0);
+        TaskView completedTask = TasksResponses.getTasks(tasksResource, project.getId()).get(0);
         Assert.assertFalse("Task should not be completed", completedTask.isCompleted());
     }
 
     @Test
     public void testMoveTask() {
-        Project project = createProject("Project");
-        Task task = createTask(project.getId(), "Task to be moved");
+        ProjectView project = createProject("Project");
+        TaskView task = createTask(project.getId(), "Task to be moved");
 
-        Task newParentTask = createTask(project.getId(), "New parent");
+        TaskView newParentTask = createTask(project.getId(), "New parent");
 
         tasksResource.moveTask(task.getId(), newParentTask.getId(), null);
 
-        List<Task> tasks = tasksResource.getTasks(project.getId());
+        List<TaskView> tasks = TasksResponses.getTasks(tasksResource, project.getId());
         Assert.assertEquals("Tasks should only contain one task after the other one is moved", 1, tasks.size());
 
-        Task updatedTask = tasks.get(0);
+        TaskView updatedTask = tasks.get(0);
         Assert.assertEquals("There should be 1 task detail under the single task", 1, updatedTask.getDetails().size());
 
         Assert.assertSame("The single task detail should be the task that was moved", task.getId(), updatedTask.getDetails().get(0).getId());
     }
 
+    @Test
+    public void testGetTasksReturnsNestedDetailsInOrder() {
+        ProjectView project = createProject("Project");
+        TaskView task = createTask(project.getId(), "Task");
+        TaskView detail = createDetailForTask(task, "Detail");
+        createDetailForTask(task, "Detail2");
+        createDetailForDetail(detail, "Detail of detail");
+        createDetailForDetail(detail, "Detail of detail2");
+        createTask(project.getId(), "Task2");
+
+        List<TaskView> tasks = TasksResponses.getTasks(tasksResource, project.getId());
+        Assert.assertEquals("Only the top-level tasks should be returned", 2, tasks.size());
+        Assert.assertEquals("Top-level tasks should be ordered by position", "Task2", tasks.get(1).getTaskString());
+
+        List<TaskView> details = tasks.get(0).getDetails();
+        Assert.assertEquals("Details should be ordered by position", "Detail2", details.get(1).getTaskString());
+
+        List<TaskView> detailsOfDetail = details.get(0).getDetails();
+        Assert.assertEquals("Details of the detail should be loaded", 2, detailsOfDetail.size());
+        Assert.assertEquals("Details of the detail should be ordered by position", "Detail of detail2", detailsOfDetail.get(1).getTaskString());
+        Assert.assertTrue("Details of the deepest level should be loaded as empty", detailsOfDetail.get(0).getDetails().isEmpty());
+    }
+
+    @Test
+    public void testGetTaskPageContinuesAfterCursor() {
+        ProjectView project = createProject("Project");
+        TaskView task = createTask(project.getId(), "Task1");
+        TaskView detail = createDetailForTask(task, "Detail");
+        createDetailForDetail(detail, "Detail of detail");
+        createTask(project.getId(), "Task2");
+        TaskView lastTask = createTask(project.getId(), "Task3");
+        createDetailForTask(lastTask, "Detail of last task");
+
+        TaskPage firstPage = tasksResource.getTaskPage(project.getId(), null, 2);
+        Assert.assertEquals("First page should contain two tasks", 2, firstPage.getTasks().size());
+        Assert.assertEquals("First task of the first page should be the first task", "Task1", firstPage.getTasks().get(0).getTaskString());
+        Assert.assertEquals("Position of the second task of the first page should be 1", 1, firstPage.getTasks().get(1).getPosition());
+        Assert.assertEquals("Details of the details should be on the page", "Detail of detail",
+                firstPage.getTasks().get(0).getDetails().get(0).getDetails().get(0).getTaskString());
+        Assert.assertNotNull("First page should have a cursor to the next page", firstPage.getNextCursor());
+
+        TaskPage secondPage = tasksResource.getTaskPage(project.getId(), firstPage.getNextCursor(), 2);
+        Assert.assertEquals("Second page should contain the remaining task", 1, secondPage.getTasks().size());
+        Assert.assertEquals("Task of the second page should be the last task", "Task3", secondPage.getTasks().get(0).getTaskString());
+        Assert.assertEquals("Position of the task of the second page should continue from the first page", 2, secondPage.getTasks().get(0).getPosition());
+        Assert.assertEquals("Details of the task should be on the page", 1, secondPage.getTasks().get(0).getDetails().size());
+        Assert.assertNull("Last page should not have a cursor", secondPage.getNextCursor());
+    }
+
+    @Test
+    public void testExportTasksWritesParentsBeforeDetails() throws IOException {
+        ProjectView project = createProject("Project");
+        TaskView task = createTask(project.getId(), "Task");
+        TaskView detail = createDetailForTask(task, "Detail");
+        createDetailForDetail(detail, "Detail of detail");
+        createTask(project.getId(), "Task2");
+
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        tasksResource.exportTasks(project.getId(), response);
+
+        JsonNode export = new ObjectMapper().readTree(response.getContentAsByteArray());
+        Assert.assertEquals("Name of the project should be exported", "Project", export.get("project").get("name").asText());
+        JsonNode tasks = export.get("tasks");
+        Assert.assertEquals("Every task of the project should be exported", 4, tasks.size());
+
+        Set<Integer> exportedIds = new HashSet<>();
+        for (JsonNode exportedTask : tasks) {
+            JsonNode parentTaskId = exportedTask.get("parentTaskId");
+            Assert.assertTrue("Parent task should be exported before its details", parentTaskId.isNull() || exportedIds.contains(parentTaskId.asInt()));
+            exportedIds.add(exportedTask.get("id").asInt());
+        }
+    }
+
     /**
      * Creates a project with the specified name and returns the created project.
      *
      * @param name Name of the project to be created.
      * @return The created project.
      */
-    private Project createProject(String name) {
+    private ProjectView createProject(String name) {
         projectsResource.createProject(name);
-        for (Project project : projectsResource.getProjects()) {
+        for (ProjectView project : getProjects()) {
             if (project.getName().equals(name)) {
                 return project;
             }
@@ -427,9 +577,9 @@ public class TaskAndProjectResourcesIT {
      * @param taskString Task string for the task.
      * @return The created task.
      */
-    private Task createTask(int projectId, String taskString) {
+    private TaskView createTask(int projectId, String taskString) {
         tasksResource.createTask(projectId, taskString);
-        for (Task task : tasksResource.getTasks(projectId)) {
+        for (TaskView task : TasksResponses.getTasks(tasksResource, projectId)) {
             if (task.getTaskString().equals(taskString)) {
                 return task;
             }
@@ -445,14 +595,14 @@ public class TaskAndProjectResourcesIT {
      * @param detailString Task string for the detail
      * @return The created detail.
      */
-    private Task createDetailForTask(Task task, String detailString) {
+    private TaskView createDetailForTask(TaskView task, String detailString) {
         tasksResource.createDetail(task.getId(), detailString);
 
-        List<Task> tasks = tasksResource.getTasks(task.getProjectId());
+        List<TaskView> tasks = TasksResponses.getTasks(tasksResource, task.getProjectId());
 
-        for (Task updatedTask : tasks) {
+        for (TaskView updatedTask : tasks) {
             if (updatedTask.getId() == task.getId()) {
-                for (Task detail : updatedTask.getDetails()) {
+                for (TaskView detail : updatedTask.getDetails()) {
                     if (detail.getTaskString().equals(detailString)) {
                         return detail;
                     }
@@ -469,7 +619,31 @@ public class TaskAndProjectResourcesIT {
      * @param detail Detail for the detail to be created for.
      * @param detailString Detail string of the detail to be created.
      */
-    private void createDetailForDetail(Task detail, String detailString) {
+    private void createDetailForDetail(TaskView detail, String detailString) {
         tasksResource.createDetail(detail.getId(), detailString);
     }
+
+    /**
+     * Returns all projects, as listed to a request without conditional headers.
+     *
+     * @return All projects.
+     */
+    private List<ProjectView> getProjects() {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        return projectsResource.getProjects(new ServletWebRequest(new MockHttpServletRequest(), response), response);
+    }
+
+    /**
+     * Returns a new request that has the specified eTag in the If-None-Match header.
+     *
+     * @param eTag ETag of the listing the client already has.
+     * @return A new request that has the specified eTag in the If-None-Match header.
+     */
+    private MockHttpServletRequest conditionalRequest(String eTag) {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "");
+        request.addHeader("If-None-Match", eTag);
+
+        return request;
+    }
 }
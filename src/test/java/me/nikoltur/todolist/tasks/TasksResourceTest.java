@@ -1,16 +1,32 @@
 package me.nikoltur.todolist.tasks;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
-import me.nikoltur.todolist.tasks.da.Task;
+import me.nikoltur.todolist.caching.ResponseCache;
+import me.nikoltur.todolist.caching.Revisioned;
+import me.nikoltur.todolist.tasks.da.TaskPage;
+import me.nikoltur.todolist.tasks.da.TaskView;
 import org.junit.Assert;
 import org.junit.Before;
 import org.junit.Test;
 import org.mockito.InjectMocks;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyLong;
+import static org.mockito.Matchers.eq;
 import org.mockito.Mock;
-import org.mockito.Mockito;
 import static org.mockito.Mockito.times;
+import org.mockito.Mockito;
 import org.mockito.MockitoAnnotations;
+import org.mockito.Spy;
+import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.context.request.ServletWebRequest;
 
 /**
  *
@@ -22,6 +38,10 @@ public class TasksResourceTest {
     private TasksResource tasksResource;
     @Mock
     private TasksService tasksService;
+    @Spy
+    private ResponseCache responseCache = new ResponseCache(1024);
+    @Spy
+    private ObjectMapper objectMapper = new ObjectMapper();
 
     @Before
     public void initMocks() {
@@ -31,13 +51,100 @@ public class TasksResourceTest {
     }
 
     @Test
-    public void testGetTasks() {
+    public void testGetTasks() throws IOException {
+        int projectId = 1;
+        List<TaskView> tasks = Collections.singletonList(new TaskView(2, projectId, "Task", null, Collections.emptyList(), 0, false));
+
+        Mockito.doReturn(new Revisioned<>(3L, tasks)).when(tasksService).getTasks(projectId);
+
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        tasksResource.getTasks(projectId, new ServletWebRequest(new MockHttpServletRequest("GET", ""), response), response);
+
+        Assert.assertEquals("Response should be the tasks returned from the service as JSON", objectMapper.writeValueAsString(tasks), response.getContentAsString());
+        Assert.assertEquals("Content type should be JSON", MediaType.APPLICATION_JSON_UTF8_VALUE, response.getContentType());
+        Assert.assertEquals("ETag should be the revision of the tasks", "\"3\"", response.getHeader("ETag"));
+        Mockito.verify(responseCache).put(eq(projectId), anyLong(), eq(3L), any(byte[].class));
+    }
+
+    @Test
+    public void testGetTasksWritesCachedResponse() throws IOException {
+        int projectId = 1;
+        byte[] body = "[]".getBytes(StandardCharsets.UTF_8);
+        responseCache.put(projectId, responseCache.getStamp(projectId), 3, body);
+
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        tasksResource.getTasks(projectId, new ServletWebRequest(new MockHttpServletRequest("GET", ""), response), response);
+
+        Assert.assertArrayEquals("Response should be the cached body", body, response.getContentAsByteArray());
+        Assert.assertEquals("ETag should be the revision of the cached body", "\"3\"", response.getHeader("ETag"));
+        Mockito.verifyZeroInteractions(tasksService);
+    }
+
+    @Test
+    public void testGetTasksIsNotModifiedForRevisionOfReadTasks() throws IOException {
+        int projectId = 1;
+        Mockito.doReturn(new Revisioned<>(3L, Collections.emptyList())).when(tasksService).getTasks(projectId);
+
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "");
+        request.addHeader("If-None-Match", "\"3\"");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        tasksResource.getTasks(projectId, new ServletWebRequest(request, response), response);
+
+        Assert.assertEquals("Response should be 304 Not Modified", 304, response.getStatus());
+        Assert.assertEquals("Nothing should be written", 0, response.getContentLength());
+        Mockito.verify(responseCache).put(eq(projectId), anyLong(), eq(3L), any(byte[].class));
+    }
+
+    @Test
+    public void testGetTasksSendsRevisionOfReadTasksRatherThanCurrentRevision() throws IOException {
+        int projectId = 1;
+        // The tasks were read by a shared load that began before the project was changed to revision 4.
+        Mockito.doReturn(new Revisioned<>(3L, Collections.emptyList())).when(tasksService).getTasks(projectId);
+        Mockito.doReturn(4L).when(tasksService).getRevision(projectId);
+
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        tasksResource.getTasks(projectId, new ServletWebRequest(new MockHttpServletRequest("GET", ""), response), response);
+
+        Assert.assertEquals("ETag should be the revision the tasks were read at", "\"3\"", response.getHeader("ETag"));
+        Assert.assertEquals("Tasks should be cached under the revision they were read at", 3, responseCache.get(projectId).getRevision());
+    }
+
+    @Test
+    public void testGetTasksIsNotModifiedForRevisionOfCachedResponse() throws IOException {
+        int projectId = 1;
+        responseCache.put(projectId, responseCache.getStamp(projectId), 3, new byte[10]);
+
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "");
+        request.addHeader("If-None-Match", "\"3\"");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        tasksResource.getTasks(projectId, new ServletWebRequest(request, response), response);
+
+        Assert.assertEquals("Response should be 304 Not Modified", 304, response.getStatus());
+        Mockito.verifyZeroInteractions(tasksService);
+    }
+
+    @Test
+    public void testGetTaskPage() {
+        int projectId = 1;
+        String cursor = "cursor";
+        TaskPage page = new TaskPage(new ArrayList<>(), null);
+
+        Mockito.doReturn(page).when(tasksService).getTaskPage(projectId, cursor, 20);
+
+        Assert.assertSame("Returned page should be the same as the page returned from the service", page, tasksResource.getTaskPage(projectId, cursor, 20));
+    }
+
+    @Test
+    public void testExportTasks() throws IOException {
         int projectId = 1;
-        List<Task> tasks = new ArrayList<>();
+        MockHttpServletResponse response = new MockHttpServletResponse();
 
-        Mockito.doReturn(tasks).when(tasksService).getTasks(projectId);
+        tasksResource.exportTasks(projectId, response);
 
-        Assert.assertSame("Returned list should be the same as the list returned from the service", tasks, tasksResource.getTasks(projectId));
+        Assert.assertEquals("Content type should be JSON", MediaType.APPLICATION_JSON_UTF8_VALUE, response.getContentType());
+        Mockito.verify(tasksService).exportTasks(projectId, response.getOutputStream());
     }
 
     @Test
@@ -117,4 +224,23 @@ public class TasksResourceTest {
 
         Mockito.verify(tasksService).moveTask(taskId, newParentTaskId, newProjectId);
     }
+
+    @Test
+    public void testMoveTaskToIndex() {
+        int taskId = 1;
+        int index = 2;
+
+        tasksResource.moveTaskToIndex(taskId, index);
+
+        Mockito.verify(tasksService).moveTaskToIndex(taskId, index);
+    }
+
+    @Test
+    public void testReorderTasks() {
+        List<Integer> taskIds = Arrays.asList(2, 1);
+
+        tasksResource.reorderTasks(taskIds);
+
+        Mockito.verify(tasksService).reorderTasks(taskIds);
+    }
 }
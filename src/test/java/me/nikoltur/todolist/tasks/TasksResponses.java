@@ -0,0 +1,62 @@
+package me.nikoltur.todolist.tasks;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.List;
+import me.nikoltur.todolist.tasks.da.TaskView;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.context.request.ServletWebRequest;
+
+/**
+ * Reads the listings of tasks written by {@link TasksResource}.
+ *
+ * @author Nikolas Turunen
+ */
+public class TasksResponses {
+
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+
+    private TasksResponses() {
+    }
+
+    /**
+     * Returns the tasks of the specified project as read from the JSON written by the specified resource.
+     *
+     * @param tasksResource Resource to get the tasks from.
+     * @param projectId Id of the project.
+     * @return The tasks of the specified project.
+     */
+    public static List<TaskView> getTasks(TasksResource tasksResource, int projectId) {
+        MockHttpServletResponse response = getResponse(tasksResource, projectId, new MockHttpServletRequest("GET", ""));
+
+        try {
+            return OBJECT_MAPPER.readValue(response.getContentAsByteArray(), new TypeReference<List<TaskView>>() {
+            });
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    /**
+     * Returns the response of the specified resource to the specified request for the tasks of the specified project.
+     *
+     * @param tasksResource Resource to get the tasks from.
+     * @param projectId Id of the project.
+     * @param request Request for the tasks.
+     * @return The response of the resource.
+     */
+    public static MockHttpServletResponse getResponse(TasksResource tasksResource, int projectId, MockHttpServletRequest request) {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        try {
+            tasksResource.getTasks(projectId, new ServletWebRequest(request, response), response);
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+
+        return response;
+    }
+}
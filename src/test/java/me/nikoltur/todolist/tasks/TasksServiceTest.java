@@ -1,26 +1,60 @@
 package me.nikoltur.todolist.tasks;
 
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.IntUnaryOperator;
+import me.nikoltur.todolist.caching.ResponseCache;
+import me.nikoltur.todolist.caching.Revisioned;
+import me.nikoltur.todolist.changes.da.ChangesDao;
+import me.nikoltur.todolist.events.ChangePublisher;
+import me.nikoltur.todolist.locking.ProjectLockManager;
+import me.nikoltur.todolist.locking.StripedProjectLockManager;
+import me.nikoltur.todolist.ordering.SortKeys;
 import me.nikoltur.todolist.projects.ProjectDoesNotExistException;
 import me.nikoltur.todolist.projects.da.Project;
 import me.nikoltur.todolist.projects.da.ProjectsDao;
 import me.nikoltur.todolist.tasks.da.Task;
+import me.nikoltur.todolist.tasks.da.TaskCursor;
+import me.nikoltur.todolist.tasks.da.TaskPage;
+import me.nikoltur.todolist.tasks.da.TaskRowCallback;
+import me.nikoltur.todolist.tasks.da.TaskView;
 import me.nikoltur.todolist.tasks.da.TasksDao;
-import org.junit.Assert;
 import static org.junit.Assert.fail;
+import org.junit.Assert;
 import org.junit.Before;
 import org.junit.Test;
 import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
 import org.mockito.InjectMocks;
 import static org.mockito.Matchers.anyInt;
 import static org.mockito.Matchers.anyObject;
 import org.mockito.Mock;
-import org.mockito.Mockito;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.spy;
 import static org.mockito.Mockito.times;
+import org.mockito.Mockito;
 import org.mockito.MockitoAnnotations;
+import org.mockito.Spy;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 /**
  *
@@ -29,34 +63,59 @@ import org.mockito.MockitoAnnotations;
 public class TasksServiceTest {
 
     private static final int PROJECT_ID = 1;
+    private int createdTasks;
     @InjectMocks
     private TasksService tasksService = new TasksServiceImpl();
     @Mock
     private TasksDao tasksDao;
     @Mock
     private ProjectsDao projectsDao;
+    @Mock
+    private ChangesDao changesDao;
+    @Mock
+    private ChangePublisher changePublisher;
+    @Mock
+    private ResponseCache responseCache;
+    @Mock
+    private PlatformTransactionManager transactionManager;
+    @Spy
+    private ProjectLockManager projectLockManager = new StripedProjectLockManager();
 
     @Before
     public void initMocks() {
         MockitoAnnotations.initMocks(this);
+
+        // Unless stubbed otherwise, the committed project ids of tasks are those read within the transaction.
+        Mockito.doAnswer(invocation -> {
+            Map<Integer, Integer> projectIds = new HashMap<>();
+            for (Object taskId : (Collection<?>) invocation.getArguments()[0]) {
+                Integer projectId = tasksDao.getProjectIdOf((Integer) taskId);
+                if (projectId != null) {
+                    projectIds.put((Integer) taskId, projectId);
+                }
+            }
+            return projectIds;
+        }).when(tasksDao).getCommittedProjectIdsOf(Mockito.anyCollectionOf(Integer.class));
     }
 
     @Test
     public void testGetTasks() {
         String taskString = "Do this and do that";
 
-        List<Task> tasks = new ArrayList<>();
-        Task task = createTask(PROJECT_ID);
-        task.setTaskString(taskString);
-        tasks.add(task);
+        List<TaskView> tasks = new ArrayList<>();
+        tasks.add(new TaskView(1, PROJECT_ID, taskString, null, new ArrayList<>(), 0, false));
 
         Project project = new Project();
         Mockito.doReturn(project).when(projectsDao).getById(PROJECT_ID);
 
-        Mockito.doReturn(tasks).when(tasksDao).getAllOf(PROJECT_ID);
+        Mockito.doReturn(tasks).when(tasksDao).getTreeOf(PROJECT_ID);
+        Mockito.doReturn(4L).when(projectsDao).getRevisionOf(PROJECT_ID);
 
-        Assert.assertEquals("Size should be 1", 1, tasksService.getTasks(1).size());
-        Assert.assertEquals("Task string should match", taskString, tasksService.getTasks(1).get(0).getTaskString());
+        Revisioned<List<TaskView>> readTasks = tasksService.getTasks(1);
+
+        Assert.assertEquals("Size should be 1", 1, readTasks.getValue().size());
+        Assert.assertEquals("Task string should match", taskString, readTasks.getValue().get(0).getTaskString());
+        Assert.assertEquals("Revision should be the revision of the project", 4, readTasks.getRevision());
     }
 
     @Test(expected = ProjectDoesNotExistException.class)
@@ -90,6 +149,126 @@ public class TasksServiceTest {
         }
     }
 
+    @Test
+    public void testGetRevision() {
+        Mockito.doReturn(new Project()).when(projectsDao).getById(PROJECT_ID);
+        Mockito.doReturn(4L).when(projectsDao).getRevisionOf(PROJECT_ID);
+
+        Assert.assertEquals("Revision should be the revision of the project", 4, tasksService.getRevision(PROJECT_ID));
+        Mockito.verifyZeroInteractions(tasksDao);
+    }
+
+    @Test(expected = ProjectDoesNotExistException.class)
+    public void testGetRevisionThrowsForNonExistingProject() {
+        tasksService.getRevision(PROJECT_ID);
+    }
+
+    @Test
+    public void testGetTaskPage() {
+        TaskPage page = new TaskPage(new ArrayList<>(), null);
+        Mockito.doReturn(new Project()).when(projectsDao).getById(PROJECT_ID);
+        Mockito.doReturn(page).when(tasksDao).getPageOf(PROJECT_ID, null, 10);
+
+        Assert.assertSame("Page should be the page returned from the dao", page, tasksService.getTaskPage(PROJECT_ID, null, 10));
+    }
+
+    @Test
+    public void testGetTaskPageContinuesAfterCursor() {
+        String cursor = new TaskCursor(SortKeys.GAP * 3, 7, 3).toToken();
+        Mockito.doReturn(new Project()).when(projectsDao).getById(PROJECT_ID);
+
+        tasksService.getTaskPage(PROJECT_ID, cursor, 10);
+
+        ArgumentCaptor<TaskCursor> argumentCaptor = ArgumentCaptor.forClass(TaskCursor.class);
+        Mockito.verify(tasksDao).getPageOf(Mockito.eq(PROJECT_ID), argumentCaptor.capture(), Mockito.eq(10));
+        TaskCursor taskCursor = argumentCaptor.getValue();
+        Assert.assertEquals("Sort key of the cursor should match", SortKeys.GAP * 3, taskCursor.getSortKey());
+        Assert.assertEquals("Id of the cursor should match", 7, taskCursor.getId());
+        Assert.assertEquals("Position of the cursor should match", 3, taskCursor.getPosition());
+    }
+
+    @Test(expected = ProjectDoesNotExistException.class)
+    public void testGetTaskPageThrowsForNonExistingProject() {
+        tasksService.getTaskPage(PROJECT_ID, null, 10);
+    }
+
+    @Test
+    public void testGetTaskPageThrowsForInvalidLimit() {
+        Mockito.doReturn(new Project()).when(projectsDao).getById(PROJECT_ID);
+
+        try {
+            tasksService.getTaskPage(PROJECT_ID, null, 0);
+            Assert.fail();
+        } catch (IllegalArgumentException ex) {
+        }
+
+        try {
+            tasksService.getTaskPage(PROJECT_ID, null, TasksService.MAX_PAGE_SIZE + 1);
+            Assert.fail();
+        } catch (IllegalArgumentException ex) {
+        }
+
+        Mockito.verify(tasksDao, never()).getPageOf(anyInt(), anyObject(), anyInt());
+    }
+
+    @Test
+    public void testGetTaskPageThrowsForInvalidCursor() {
+        Mockito.doReturn(new Project()).when(projectsDao).getById(PROJECT_ID);
+
+        for (String cursor : new String[]{"", "not a cursor", "MTIzOmFiYw", "MTp4"}) {
+            try {
+                tasksService.getTaskPage(PROJECT_ID, cursor, 10);
+                Assert.fail("Cursor " + cursor + " should be invalid");
+            } catch (IllegalArgumentException ex) {
+            }
+        }
+
+        Mockito.verify(tasksDao, never()).getPageOf(anyInt(), anyObject(), anyInt());
+    }
+
+    @Test
+    public void testExportTasks() throws IOException {
+        Project project = new Project();
+        project.setName("Project");
+        Mockito.doReturn(project).when(projectsDao).getById(PROJECT_ID);
+        Mockito.doAnswer(invocation -> {
+            TaskRowCallback callback = (TaskRowCallback) invocation.getArguments()[1];
+            callback.onRow(1, null, "Task", false, SortKeys.GAP);
+            callback.onRow(2, 1, "Detail", true, SortKeys.GAP);
+            return null;
+        }).when(tasksDao).scrollTasksOf(Mockito.eq(PROJECT_ID), anyObject());
+
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        tasksService.exportTasks(PROJECT_ID, outputStream);
+
+        JsonNode export = new ObjectMapper().readTree(outputStream.toByteArray());
+        Assert.assertEquals("Name of the project should be exported", "Project", export.get("project").get("name").asText());
+        JsonNode tasks = export.get("tasks");
+        Assert.assertEquals("Every task should be exported", 2, tasks.size());
+        Assert.assertTrue("Parent task id of a top-level task should be null", tasks.get(0).get("parentTaskId").isNull());
+        Assert.assertEquals("Parent task id of a detail should be exported", 1, tasks.get(1).get("parentTaskId").asInt());
+        Assert.assertEquals("Task string should be exported", "Detail", tasks.get(1).get("taskString").asText());
+        Assert.assertTrue("Completion should be exported", tasks.get(1).get("completed").asBoolean());
+        Assert.assertEquals("Sort key should be exported", SortKeys.GAP, tasks.get(1).get("sortKey").asLong());
+    }
+
+    @Test(expected = ProjectDoesNotExistException.class)
+    public void testExportTasksThrowsForNonExistingProject() throws IOException {
+        tasksService.exportTasks(PROJECT_ID, new ByteArrayOutputStream());
+    }
+
+    @Test
+    public void testExportTasksThrowsForNegativeId() throws IOException {
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        try {
+            tasksService.exportTasks(-1, outputStream);
+            Assert.fail();
+        } catch (IllegalArgumentException ex) {
+        }
+
+        Assert.assertEquals("Nothing should be written", 0, outputStream.size());
+    }
+
     @Test
     public void testCreateTask() {
         String taskString = "Hello world";
@@ -149,18 +328,28 @@ public class TasksServiceTest {
     public void testRemoveTask() {
         int taskId = 1;
 
-        ArgumentCaptor<Task> argumentCaptor = ArgumentCaptor.forClass(Task.class);
-        Mockito.doNothing().when(tasksDao).remove(argumentCaptor.capture());
-
         Task task = createTask(PROJECT_ID);
         task.setTaskString("Do this and that");
 
         Mockito.doReturn(task).when(tasksDao).getById(taskId);
 
         tasksService.removeTask(taskId);
-        Mockito.verify(tasksDao, times(1)).remove(anyObject());
 
-        Assert.assertSame("Removed task should be the same that was returned from getById", task, argumentCaptor.getValue());
+        Mockito.verify(tasksDao, times(1)).removeSubtree(task.getPath());
+    }
+
+    @Test
+    public void testRemoveTaskRecordsEveryTaskOfSubtreeAsChangedBeforeRemovingIt() {
+        int taskId = 1;
+        Task task = createTask(PROJECT_ID);
+        Mockito.doReturn(task).when(tasksDao).getById(taskId);
+
+        tasksService.removeTask(taskId);
+
+        InOrder inOrder = Mockito.inOrder(projectsDao, changesDao, tasksDao);
+        inOrder.verify(projectsDao).incrementRevisionOf(PROJECT_ID);
+        inOrder.verify(changesDao).recordTaskChangesOfSubtree(PROJECT_ID, task.getPath());
+        inOrder.verify(tasksDao).removeSubtree(task.getPath());
     }
 
     @Test
@@ -213,6 +402,18 @@ public class TasksServiceTest {
         Mockito.verify(tasksDao, times(1)).save(anyObject());
         Assert.assertSame("Saved task should be the same as the task to be edited", task, argumentCaptor.getValue());
         Assert.assertEquals("Saved task should have the specified newTask", newTask, argumentCaptor.getValue().getTaskString());
+        Mockito.verify(projectsDao).incrementRevisionOf(PROJECT_ID);
+    }
+
+    @Test
+    public void testEditTaskPublishesNewRevisionAndInvalidatesResponse() {
+        Mockito.doReturn(createTask(PROJECT_ID)).when(tasksDao).getById(1);
+        Mockito.doReturn(8L).when(projectsDao).incrementRevisionOf(PROJECT_ID);
+
+        tasksService.editTask(1, "Do this now!");
+
+        Mockito.verify(changePublisher).publishTasksChanged(PROJECT_ID, 8L);
+        Mockito.verify(responseCache).invalidateAfterCommit(PROJECT_ID);
     }
 
     @Test
@@ -278,6 +479,40 @@ public class TasksServiceTest {
         Assert.assertEquals("Detail of the saved task should be the specified detail", detailString, argumentCaptor.getValue().getTaskString());
     }
 
+    @Test
+    public void testCreateDetailSetsPathUnderParentTask() {
+        int parentTaskId = 1;
+
+        Task parentTask = spy(createTask(PROJECT_ID));
+        parentTask.setPath("7/1/");
+        Mockito.doReturn(parentTask).when(tasksDao).getById(parentTaskId);
+
+        Mockito.when(parentTask.getDetails()).thenReturn(new ArrayList<>());
+
+        ArgumentCaptor<Task> argumentCaptor = ArgumentCaptor.forClass(Task.class);
+        Mockito.doNothing().when(tasksDao).save(argumentCaptor.capture());
+
+        tasksService.createDetail(parentTaskId, "Detail");
+
+        Task savedDetail = argumentCaptor.getValue();
+        Assert.assertEquals("Path of the detail should be the path of the parent task followed by the id of the detail", "7/1/" + savedDetail.getId() + "/", savedDetail.getPath());
+    }
+
+    @Test
+    public void testCreateTaskSavesTaskWithIdAndCompletePath() {
+        Mockito.doReturn(new Project()).when(projectsDao).getById(PROJECT_ID);
+        Mockito.when(tasksDao.nextId()).thenReturn(9);
+
+        ArgumentCaptor<Task> argumentCaptor = ArgumentCaptor.forClass(Task.class);
+        Mockito.doNothing().when(tasksDao).save(argumentCaptor.capture());
+
+        tasksService.createTask(PROJECT_ID, "Task");
+
+        Task savedTask = argumentCaptor.getValue();
+        Assert.assertEquals("Id should be taken before the task is saved", 9, savedTask.getId());
+        Assert.assertEquals("Path should be complete when the task is saved", "9/", savedTask.getPath());
+    }
+
     @Test
     public void testCreateDetailThrowsForIllegalTaskId() {
         String newTask = "Do this now!";
@@ -317,17 +552,14 @@ public class TasksServiceTest {
 
     @Test
     public void testSwapPositionsOfTasks() {
-        int positionOfTask = 1;
-        int positionOfTask2 = 2;
+        long sortKeyOfTask = SortKeys.GAP;
+        long sortKeyOfTask2 = 2 * SortKeys.GAP;
 
         int taskId = 1;
         int taskId2 = 2;
 
-        Task task = createTask(PROJECT_ID);
-        task.setPosition(positionOfTask);
-
-        Task task2 = createTask(PROJECT_ID);
-        task2.setPosition(positionOfTask2);
+        Task task = createTask(PROJECT_ID, sortKeyOfTask);
+        Task task2 = createTask(PROJECT_ID, sortKeyOfTask2);
 
         Mockito.doReturn(task).when(tasksDao).getById(taskId);
         Mockito.doReturn(task2).when(tasksDao).getById(taskId2);
@@ -340,9 +572,9 @@ public class TasksServiceTest {
         Mockito.verify(tasksDao, times(2)).save(anyObject());
         for (Task argument : argumentCaptor.getAllValues()) {
             if (argument == task) {
-                Assert.assertEquals("Position of saved task should be the position of task2 after swap", positionOfTask2, argument.getPosition());
+                Assert.assertEquals("Sort key of saved task should be the sort key of task2 after swap", sortKeyOfTask2, argument.getSortKey());
             } else if (argument == task2) {
-                Assert.assertEquals("Position of saved task2 should be the position of task after swap", positionOfTask, argument.getPosition());
+                Assert.assertEquals("Sort key of saved task2 should be the sort key of task after swap", sortKeyOfTask, argument.getSortKey());
             } else {
                 Assert.fail("Save should not have been called with an unexpected argument");
             }
@@ -467,15 +699,15 @@ public class TasksServiceTest {
         int taskId1 = 1;
         int taskId2 = 2;
 
-        Task task1 = createTask(PROJECT_ID);
-        task1.setPosition(1);
-
-        Task task2 = createTask(PROJECT_ID);
-        task2.setPosition(3);
+        Task task1 = createTask(PROJECT_ID, SortKeys.GAP);
+        Task task2 = createTask(PROJECT_ID, 3 * SortKeys.GAP);
 
         Mockito.doReturn(task1).when(tasksDao).getById(taskId1);
         Mockito.doReturn(task2).when(tasksDao).getById(taskId2);
 
+        Mockito.doReturn(true).when(tasksDao).hasTasksBetween(PROJECT_ID, null, SortKeys.GAP, 3 * SortKeys.GAP);
+        Mockito.doReturn(true).when(tasksDao).hasTasksBetween(PROJECT_ID, null, 3 * SortKeys.GAP, SortKeys.GAP);
+
         try {
             tasksService.swapPositionsOfTasks(taskId1, taskId2);
             Assert.fail("Should throw IllegalArgumentException if task2 is not previous or next from task1");
@@ -487,155 +719,75 @@ public class TasksServiceTest {
             Assert.fail("Should throw IllegalArgumentException if task1 is not previous or next from task2");
         } catch (IllegalArgumentException ex) {
         }
+
+        Mockito.verify(tasksDao, never()).save(anyObject());
     }
 
     @Test
-    public void testCreateTaskSetsCorrectPosition() {
-        String projectName = "Name";
-        String taskString = "Task";
+    public void testCreateTaskSetsSortKeyAfterLastTask() {
+        long nextSortKey = 6 * SortKeys.GAP;
 
         Project project = new Project();
-        project.setName(projectName);
-
         Mockito.doReturn(project).when(projectsDao).getById(PROJECT_ID);
 
-        ArgumentCaptor<Task> argumentCaptorForFirstTask = ArgumentCaptor.forClass(Task.class);
-        Mockito.doNothing().when(tasksDao).save(argumentCaptorForFirstTask.capture());
-
-        Mockito.doReturn(new ArrayList<>()).when(tasksDao).getAllOf(PROJECT_ID);
-
-        tasksService.createTask(PROJECT_ID, taskString);
-        Assert.assertEquals("Position of the created task should be set to 0", 0, argumentCaptorForFirstTask.getValue().getPosition());
-
-        ArgumentCaptor<Task> argumentCaptorForSecondTask = ArgumentCaptor.forClass(Task.class);
-        Mockito.doNothing().when(tasksDao).save(argumentCaptorForSecondTask.capture());
+        ArgumentCaptor<Task> argumentCaptor = ArgumentCaptor.forClass(Task.class);
+        Mockito.doNothing().when(tasksDao).save(argumentCaptor.capture());
 
-        List<Task> tasks = new ArrayList<>();
-        tasks.add(createTask(PROJECT_ID));
+        Mockito.doReturn(nextSortKey).when(tasksDao).getNextSortKeyOf(PROJECT_ID, null);
 
-        Mockito.doReturn(tasks).when(tasksDao).getAllOf(PROJECT_ID);
+        tasksService.createTask(PROJECT_ID, "Task");
 
-        tasksService.createTask(PROJECT_ID, taskString);
-        Assert.assertEquals("Position of the created task should be set to 1", 1, argumentCaptorForSecondTask.getValue().getPosition());
+        Assert.assertEquals("Sort key of the created task should be the next sort key of the top-level tasks", nextSortKey, argumentCaptor.getValue().getSortKey());
+        Mockito.verify(tasksDao, never()).getAllOf(anyInt());
     }
 
     @Test
-    public void testCreateDetailSetsCorrectPosition() {
+    public void testCreateDetailSetsSortKeyAfterLastDetail() {
         int parentTaskId = 1;
+        long nextSortKey = 3 * SortKeys.GAP;
 
-        Task parentTask = mock(Task.class);
+        Task parentTask = spy(createTask(PROJECT_ID));
         Mockito.doReturn(parentTask).when(tasksDao).getById(parentTaskId);
 
-        Mockito.when(parentTask.getDetails()).thenReturn(new ArrayList<>());
+        ArgumentCaptor<Task> argumentCaptor = ArgumentCaptor.forClass(Task.class);
+        Mockito.doNothing().when(tasksDao).save(argumentCaptor.capture());
 
-        ArgumentCaptor<Task> argumentCaptorForFirstDetail = ArgumentCaptor.forClass(Task.class);
-        Mockito.doNothing().when(tasksDao).save(argumentCaptorForFirstDetail.capture());
+        Mockito.doReturn(nextSortKey).when(tasksDao).getNextSortKeyOf(PROJECT_ID, parentTaskId);
 
         tasksService.createDetail(parentTaskId, "Detail");
 
-        Assert.assertEquals("Position of the created detail should be set to 0", 0, argumentCaptorForFirstDetail.getValue().getPosition());
-
-        List<Task> details = new ArrayList<>();
-        details.add(createTask(PROJECT_ID));
-        Mockito.when(parentTask.getDetails()).thenReturn(details);
-
-        ArgumentCaptor<Task> argumentCaptorForSecondDetail = ArgumentCaptor.forClass(Task.class);
-        Mockito.doNothing().when(tasksDao).save(argumentCaptorForSecondDetail.capture());
-
-        tasksService.createDetail(parentTaskId, "Detail2");
-
-        Assert.assertEquals("Position of the created detail should be set to 1", 1, argumentCaptorForSecondDetail.getValue().getPosition());
+        Assert.assertEquals("Sort key of the created detail should be the next sort key of the details", nextSortKey, argumentCaptor.getValue().getSortKey());
+        Mockito.verify(parentTask, never()).getDetails();
     }
 
     @Test
-    public void testRemoveTaskDecrementsPositionsOfTasksWithHigherPosition() {
+    public void testRemoveTaskDoesNotUpdateOtherTasks() {
         int taskId = 1;
 
-        Task taskToRemove = createTask(PROJECT_ID);
-        taskToRemove.setPosition(1);
-
-        List<Task> tasks = new ArrayList<>();
-        Task task1 = createTask(PROJECT_ID);
-        task1.setPosition(0);
-        tasks.add(task1);
-        Task task3 = createTask(PROJECT_ID);
-        task3.setPosition(2);
-        tasks.add(task3);
-        Task task4 = createTask(PROJECT_ID);
-        task4.setPosition(3);
-        tasks.add(task4);
-
-        Mockito.doReturn(tasks).when(tasksDao).getAllOf(PROJECT_ID);
+        Task taskToRemove = createTask(PROJECT_ID, SortKeys.GAP);
 
         Mockito.doReturn(taskToRemove).when(tasksDao).getById(taskId);
 
-        ArgumentCaptor<Task> argumentCaptor = ArgumentCaptor.forClass(Task.class);
-        Mockito.doNothing().when(tasksDao).save(argumentCaptor.capture());
-
         tasksService.removeTask(taskId);
 
-        Mockito.verify(tasksDao, times(2)).save(anyObject());
-
-        for (Task argument : argumentCaptor.getAllValues()) {
-            if (argument == task3) {
-                Assert.assertEquals("Position of task3 should be updated to 1", 1, argument.getPosition());
-            } else if (argument == task4) {
-                Assert.assertEquals("Position of task4 should be updated to 2", 2, argument.getPosition());
-            } else {
-                Assert.fail("Unexpected tasks should not be saved");
-            }
-        }
+        Mockito.verify(tasksDao, times(1)).removeSubtree(taskToRemove.getPath());
+        Mockito.verify(tasksDao, never()).save(anyObject());
     }
 
     @Test
-    public void testRemoveTaskDecrementsPositionsOfOtherDetailsWithHigherPosition() {
+    public void testRemoveTaskDoesNotUpdateOtherDetails() {
         int parentTaskId = 1;
         int taskIdOfDetailToRemove = 10;
 
-        int detail3Position = 2;
-        int detail4Position = 3;
-
-        Task parentTask = mock(Task.class);
-
-        Task detailToRemove = createTask(PROJECT_ID);
+        Task detailToRemove = createTask(PROJECT_ID, SortKeys.GAP);
         detailToRemove.setParentTaskId(parentTaskId);
-        detailToRemove.setPosition(1);
-
-        List<Task> details = new ArrayList<>();
-        Task detail1 = createTask(PROJECT_ID);
-        detail1.setParentTaskId(parentTaskId);
-        detail1.setPosition(0);
-        details.add(detail1);
-        Task detail3 = createTask(PROJECT_ID);
-        detail3.setParentTaskId(parentTaskId);
-        detail3.setPosition(detail3Position);
-        details.add(detail3);
-        Task detail4 = createTask(PROJECT_ID);
-        detail4.setParentTaskId(parentTaskId);
-        detail4.setPosition(detail4Position);
-        details.add(detail4);
-
-        Mockito.when(parentTask.getDetails()).thenReturn(details);
 
-        Mockito.doReturn(parentTask).when(tasksDao).getById(parentTaskId);
         Mockito.doReturn(detailToRemove).when(tasksDao).getById(taskIdOfDetailToRemove);
 
-        ArgumentCaptor<Task> argumentCaptor = ArgumentCaptor.forClass(Task.class);
-        Mockito.doNothing().when(tasksDao).save(argumentCaptor.capture());
-
         tasksService.removeTask(taskIdOfDetailToRemove);
 
-        Mockito.verify(tasksDao, times(2)).save(anyObject());
-
-        for (Task argument : argumentCaptor.getAllValues()) {
-            if (argument == detail3) {
-                Assert.assertEquals("Position of detail3 should be updated to 1", 1, argument.getPosition());
-            } else if (argument == detail4) {
-                Assert.assertEquals("Position of detail4 should be updated to 2", 2, argument.getPosition());
-            } else {
-                Assert.fail("Unexpected tasks should not be saved");
-            }
-        }
+        Mockito.verify(tasksDao, times(1)).removeSubtree(detailToRemove.getPath());
+        Mockito.verify(tasksDao, never()).save(anyObject());
     }
 
     @Test
@@ -657,6 +809,22 @@ public class TasksServiceTest {
         Assert.assertTrue("The task should be set as completed", savedTask.isCompleted());
     }
 
+    @Test
+    public void testCompleteTaskLocksProjectBeforeFirstStatementOfTransaction() {
+        int taskId = 1;
+        Mockito.doReturn(Collections.singletonMap(taskId, PROJECT_ID)).when(tasksDao).getCommittedProjectIdsOf(Collections.singleton(taskId));
+        Mockito.doReturn(PROJECT_ID).when(tasksDao).getProjectIdOf(taskId);
+        Mockito.doReturn(createTask(PROJECT_ID)).when(tasksDao).getById(taskId);
+
+        tasksService.completeTask(taskId);
+
+        InOrder inOrder = Mockito.inOrder(tasksDao, projectLockManager);
+        inOrder.verify(tasksDao).getCommittedProjectIdsOf(Collections.singleton(taskId));
+        inOrder.verify(projectLockManager).lockProject(PROJECT_ID);
+        inOrder.verify(tasksDao).getProjectIdOf(taskId);
+        inOrder.verify(tasksDao).getById(taskId);
+    }
+
     @Test
     public void testCompleteTaskThrowsForIllegalTaskId() {
         try {
@@ -757,6 +925,127 @@ public class TasksServiceTest {
         tasksService.uncompleteTask(taskId);
     }
 
+    @Test
+    public void testMoveTaskToIndex() {
+        int taskId = 1;
+        Task task = createTask(PROJECT_ID, SortKeys.GAP);
+        Mockito.doReturn(task).when(tasksDao).getById(taskId);
+        Mockito.doReturn(PROJECT_ID).when(tasksDao).getProjectIdOf(taskId);
+        Mockito.doReturn(Arrays.asList(2 * SortKeys.GAP, 3 * SortKeys.GAP)).when(tasksDao).getSortKeysOfSiblings(PROJECT_ID, null, task.getId(), 0, SortKeys.NEIGHBOURS);
+
+        tasksService.moveTaskToIndex(taskId, 1);
+
+        Mockito.verify(tasksDao).save(task);
+        Assert.assertEquals("Sort key should be between the new neighbours", 2 * SortKeys.GAP + SortKeys.GAP / 2, task.getSortKey());
+        Mockito.verify(tasksDao, never()).rebalanceSortKeysOf(anyInt());
+    }
+
+    @Test
+    public void testMoveTaskToIndexRebalancesCrowdedNeighbours() {
+        int taskId = 1;
+        Task task = createTask(PROJECT_ID, 1);
+        Task reloadedTask = createTask(PROJECT_ID, SortKeys.GAP);
+        Mockito.when(tasksDao.getById(taskId)).thenReturn(task, reloadedTask);
+        Mockito.doReturn(PROJECT_ID).when(tasksDao).getProjectIdOf(taskId);
+        Mockito.when(tasksDao.getSortKeysOfSiblings(PROJECT_ID, null, task.getId(), 0, SortKeys.NEIGHBOURS))
+                .thenReturn(Arrays.asList(2L, 3L), Arrays.asList(2 * SortKeys.GAP, 3 * SortKeys.GAP));
+
+        tasksService.moveTaskToIndex(taskId, 1);
+
+        Mockito.verify(tasksDao).rebalanceSortKeysOf(PROJECT_ID);
+        Mockito.verify(tasksDao).save(reloadedTask);
+        Assert.assertEquals("Sort key should be between the rebalanced neighbours", 2 * SortKeys.GAP + SortKeys.GAP / 2, reloadedTask.getSortKey());
+    }
+
+    @Test
+    public void testMoveTaskToIndexThrowsForIndexPastLastSibling() {
+        int taskId = 1;
+        Mockito.doReturn(createTask(PROJECT_ID, SortKeys.GAP)).when(tasksDao).getById(taskId);
+        Mockito.doReturn(PROJECT_ID).when(tasksDao).getProjectIdOf(taskId);
+        Mockito.doReturn(new ArrayList<>()).when(tasksDao).getSortKeysOfSiblings(anyInt(), anyObject(), anyInt(), anyInt(), anyInt());
+
+        try {
+            tasksService.moveTaskToIndex(taskId, 5);
+            Assert.fail();
+        } catch (IllegalArgumentException ex) {
+        }
+
+        Mockito.verify(tasksDao, never()).save(anyObject());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testMoveTaskToIndexThrowsForNegativeIndex() {
+        tasksService.moveTaskToIndex(1, -1);
+    }
+
+    @Test(expected = TaskDoesNotExistException.class)
+    public void testMoveTaskToIndexThrowsForNonExistingTask() {
+        Mockito.doReturn(null).when(tasksDao).getProjectIdOf(1);
+
+        tasksService.moveTaskToIndex(1, 0);
+    }
+
+    @Test
+    public void testReorderTasks() {
+        List<Integer> taskIds = Arrays.asList(3, 1, 2);
+        Mockito.doReturn(createTask(PROJECT_ID)).when(tasksDao).getById(3);
+        Mockito.doReturn(PROJECT_ID).when(tasksDao).getProjectIdOf(3);
+        Mockito.doReturn(Arrays.asList(1, 2, 3)).when(tasksDao).getIdsOfSiblings(PROJECT_ID, null);
+
+        tasksService.reorderTasks(taskIds);
+
+        Mockito.verify(tasksDao).applyOrder(taskIds);
+    }
+
+    @Test
+    public void testReorderTasksThrowsForMissingSibling() {
+        Mockito.doReturn(createTask(PROJECT_ID)).when(tasksDao).getById(3);
+        Mockito.doReturn(PROJECT_ID).when(tasksDao).getProjectIdOf(3);
+        Mockito.doReturn(Arrays.asList(1, 2, 3)).when(tasksDao).getIdsOfSiblings(PROJECT_ID, null);
+
+        try {
+            tasksService.reorderTasks(Arrays.asList(3, 1));
+            Assert.fail();
+        } catch (IllegalArgumentException ex) {
+        }
+
+        try {
+            tasksService.reorderTasks(Arrays.asList(3, 1, 4));
+            Assert.fail();
+        } catch (IllegalArgumentException ex) {
+        }
+
+        Mockito.verify(tasksDao, never()).applyOrder(anyObject());
+    }
+
+    @Test
+    public void testReorderTasksThrowsForInvalidTaskIds() {
+        try {
+            tasksService.reorderTasks(new ArrayList<>());
+            Assert.fail();
+        } catch (IllegalArgumentException ex) {
+        }
+
+        try {
+            tasksService.reorderTasks(Arrays.asList(1, 2, 1));
+            Assert.fail();
+        } catch (IllegalArgumentException ex) {
+        }
+
+        try {
+            tasksService.reorderTasks(Arrays.asList(1, 0));
+            Assert.fail();
+        } catch (IllegalArgumentException ex) {
+        }
+
+        Mockito.verify(tasksDao, never()).applyOrder(anyObject());
+    }
+
+    @Test(expected = NullPointerException.class)
+    public void testReorderTasksThrowsForNullTaskIds() {
+        tasksService.reorderTasks(null);
+    }
+
     @Test
     public void testMoveTask() {
         int taskId = 1;
@@ -815,8 +1104,13 @@ public class TasksServiceTest {
         Project newProject = mock(Project.class);
         Mockito.when(projectsDao.getById(newProjectId)).thenReturn(newProject);
 
+        String path = task.getPath();
         tasksService.moveTask(taskId, newParentTaskId, newProjectId);
 
+        Mockito.verify(projectsDao).incrementRevisionOf(PROJECT_ID);
+        Mockito.verify(projectsDao).incrementRevisionOf(newProjectId);
+        Mockito.verify(changesDao).recordTaskChangesOfSubtree(PROJECT_ID, path);
+        Mockito.verify(changesDao).recordTaskChangesOfSubtree(newProjectId, task.getId() + "/");
         Task savedTask = savedTaskCaptor.getValue();
         Assert.assertSame("The moved task should be saved", task, savedTask);
         Assert.assertEquals("Project id of the specified task should be changed", newProjectId, (int) savedTask.getProjectId());
@@ -886,7 +1180,7 @@ public class TasksServiceTest {
     }
 
     @Test
-    public void testMoveTaskWithNewProjectIdUpdatesPositionsOfTasksWithHigherPositionAtOldLocation() {
+    public void testMoveTaskWithNewProjectIdDoesNotUpdateTasksAtOldLocation() {
         int taskId = 1;
         Integer newParentTaskId = null;
 
@@ -896,50 +1190,22 @@ public class TasksServiceTest {
         Mockito.doNothing().when(tasksDao).save(savedTaskCaptor.capture());
 
         Task task = spy(createTask(PROJECT_ID));
-        task.setPosition(1);
         Mockito.when(tasksDao.getById(taskId)).thenReturn(task);
 
         Mockito.when(task.getDetails()).thenReturn(new ArrayList<>());
 
-        List<Task> tasksOfProject = new ArrayList<>();
-        tasksOfProject.add(createTask(PROJECT_ID));
-        tasksOfProject.add(createTask(PROJECT_ID));
-        tasksOfProject.add(createTask(PROJECT_ID));
-        Mockito.when(tasksDao.getAllOf(PROJECT_ID)).thenReturn(tasksOfProject);
-
-        List<Task> tasksOfCurrentProject = new ArrayList<>();
-        Task task1 = createTask(PROJECT_ID);
-        task1.setPosition(0);
-        tasksOfCurrentProject.add(task1);
-        tasksOfCurrentProject.add(task);
-        Task task2 = createTask(PROJECT_ID);
-        task2.setPosition(2);
-        tasksOfCurrentProject.add(task2);
-        Task task3 = createTask(PROJECT_ID);
-        task3.setPosition(3);
-        tasksOfCurrentProject.add(task3);
-        Mockito.when(tasksDao.getAllOf(PROJECT_ID)).thenReturn(tasksOfCurrentProject);
-
         Project newProject = mock(Project.class);
         Mockito.when(projectsDao.getById(newProjectId)).thenReturn(newProject);
 
         tasksService.moveTask(taskId, newParentTaskId, newProjectId);
 
-        Assert.assertFalse("Task 1 should not be saved", savedTaskCaptor.getAllValues().contains(task1));
-        Assert.assertTrue("Task 2 should be saved", savedTaskCaptor.getAllValues().contains(task2));
-        Assert.assertTrue("Task 3 should be saved", savedTaskCaptor.getAllValues().contains(task3));
-
-        for (Task savedTask : savedTaskCaptor.getAllValues()) {
-            if (savedTask == task2) {
-                Assert.assertEquals("Position of task 2 should be updated to 1", 1, savedTask.getPosition());
-            } else if (savedTask == task3) {
-                Assert.assertEquals("Position of task 3 should be updated to 2", 2, savedTask.getPosition());
-            }
-        }
+        Assert.assertEquals("Only the moved task should be saved", 1, savedTaskCaptor.getAllValues().size());
     }
 
     @Test
-    public void testMoveTaskWithNewProjectIdUpdatesPositionToLast() {
+    public void testMoveTaskWithNewProjectIdUpdatesSortKeyToLast() {
+        long expectedSortKey = 4 * SortKeys.GAP;
+
         int taskId = 1;
         Integer newParentTaskId = null;
 
@@ -956,11 +1222,7 @@ public class TasksServiceTest {
 
         Mockito.when(task.getDetails()).thenReturn(new ArrayList<>());
 
-        List<Task> tasksOfProject = new ArrayList<>();
-        tasksOfProject.add(createTask(PROJECT_ID));
-        tasksOfProject.add(createTask(PROJECT_ID));
-        tasksOfProject.add(createTask(PROJECT_ID));
-        Mockito.when(tasksDao.getAllOf(newProjectId)).thenReturn(tasksOfProject);
+        Mockito.when(tasksDao.getNextSortKeyOf(newProjectId, null)).thenReturn(expectedSortKey);
 
         Task currentParentTask = mock(Task.class);
         Mockito.when(tasksDao.getById(currentParentTaskId)).thenReturn(currentParentTask);
@@ -972,15 +1234,13 @@ public class TasksServiceTest {
 
         tasksService.moveTask(taskId, newParentTaskId, newProjectId);
 
-        int expectedPosition = tasksOfProject.size();
-
         Task savedTask = savedTaskCaptor.getValue();
         Assert.assertSame("The moved task should be saved", task, savedTask);
-        Assert.assertEquals("Position of the saved task should be updated to be the last", expectedPosition, savedTask.getPosition());
+        Assert.assertEquals("Sort key of the saved task should be updated to be after the last", expectedSortKey, savedTask.getSortKey());
     }
 
     @Test
-    public void testMoveTaskWithNewProjectIdUpdatesProjectIdsOfDetails() {
+    public void testMoveTaskWithNewProjectIdMovesSubtreeToNewProject() {
         int taskId = 1;
         Integer newParentTaskId = null;
 
@@ -988,65 +1248,22 @@ public class TasksServiceTest {
 
         int newProjectId = 5;
 
-        ArgumentCaptor<Task> savedTaskCaptor = ArgumentCaptor.forClass(Task.class);
-        Mockito.doNothing().when(tasksDao).save(savedTaskCaptor.capture());
-
         Task task = spy(createTask(PROJECT_ID));
+        Mockito.when(task.getId()).thenReturn(taskId);
         task.setParentTaskId(currentParentTaskId);
+        task.setPath("3/1/");
         Mockito.when(tasksDao.getById(taskId)).thenReturn(task);
 
-        List<Task> detailsOfTask = new ArrayList<>();
-        Task detail1 = spy(createTask(PROJECT_ID));
-        Mockito.when(detail1.getId()).thenReturn(1001);
-        Mockito.when(detail1.getDetails()).thenReturn(new ArrayList<>());
-        detailsOfTask.add(detail1);
-
-        Task detail2 = spy(createTask(PROJECT_ID));
-        Mockito.when(detail2.getId()).thenReturn(1002);
-        List<Task> nestedDetailsOfDetail2 = new ArrayList<>();
-
-        Task nestedDetail1 = spy(createTask(PROJECT_ID));
-        Mockito.when(nestedDetail1.getId()).thenReturn(1003);
-        Mockito.when(nestedDetail1.getDetails()).thenReturn(new ArrayList<>());
-        nestedDetailsOfDetail2.add(nestedDetail1);
-
-        Task nestedDetail2 = spy(createTask(PROJECT_ID));
-        Mockito.when(nestedDetail2.getId()).thenReturn(1004);
-        Mockito.when(nestedDetail2.getDetails()).thenReturn(new ArrayList<>());
-        nestedDetailsOfDetail2.add(nestedDetail2);
-        Mockito.when(detail2.getDetails()).thenReturn(nestedDetailsOfDetail2);
-        detailsOfTask.add(detail2);
-
-        Mockito.when(task.getDetails()).thenReturn(detailsOfTask);
-
-        List<Task> tasksOfProject = new ArrayList<>();
-        tasksOfProject.add(createTask(PROJECT_ID));
-        tasksOfProject.add(createTask(PROJECT_ID));
-        tasksOfProject.add(createTask(PROJECT_ID));
-        Mockito.when(tasksDao.getAllOf(newProjectId)).thenReturn(tasksOfProject);
-
-        Task currentParentTask = mock(Task.class);
-        Mockito.when(tasksDao.getById(currentParentTaskId)).thenReturn(currentParentTask);
-
-        Mockito.when(currentParentTask.getDetails()).thenReturn(new ArrayList<>());
+        Mockito.when(tasksDao.getAllOf(newProjectId)).thenReturn(new ArrayList<>());
 
         Project newProject = mock(Project.class);
         Mockito.when(projectsDao.getById(newProjectId)).thenReturn(newProject);
 
         tasksService.moveTask(taskId, newParentTaskId, newProjectId);
 
-        List<Task> savedTasks = savedTaskCaptor.getAllValues();
-        Assert.assertTrue("Detail 1 should be saved", savedTasks.contains(detail1));
-        Assert.assertEquals("Project id of detail 1 should be updated", newProjectId, (int) detail1.getProjectId());
-
-        Assert.assertTrue("Detail 2 should be saved", savedTasks.contains(detail2));
-        Assert.assertEquals("Project id of detail 2 should be updated", newProjectId, (int) detail2.getProjectId());
-
-        Assert.assertTrue("Nested detail 1 should be saved", savedTasks.contains(nestedDetail1));
-        Assert.assertEquals("Project id of nested detail 1 should be updated", newProjectId, (int) nestedDetail1.getProjectId());
-
-        Assert.assertTrue("Nested detail 2 should be saved", savedTasks.contains(nestedDetail2));
-        Assert.assertEquals("Project id of nested detail 2 should be updated", newProjectId, (int) nestedDetail2.getProjectId());
+        Mockito.verify(tasksDao, times(1)).moveSubtree("3/1/", "1/", newProjectId);
+        Mockito.verify(task, never()).getDetails();
+        Assert.assertEquals("Path of the moved task should be updated", "1/", task.getPath());
     }
 
     @Test(expected = ProjectDoesNotExistException.class)
@@ -1100,7 +1317,9 @@ public class TasksServiceTest {
     }
 
     @Test
-    public void testMoveTaskWithNullNewParentTaskIdUpdatesPositionToLast() {
+    public void testMoveTaskWithNullNewParentTaskIdUpdatesSortKeyToLast() {
+        long expectedSortKey = 4 * SortKeys.GAP;
+
         int taskId = 1;
         Integer newParentTaskId = null;
 
@@ -1115,11 +1334,7 @@ public class TasksServiceTest {
 
         Mockito.when(task.getDetails()).thenReturn(new ArrayList<>());
 
-        List<Task> tasksOfProject = new ArrayList<>();
-        tasksOfProject.add(createTask(PROJECT_ID));
-        tasksOfProject.add(createTask(PROJECT_ID));
-        tasksOfProject.add(createTask(PROJECT_ID));
-        Mockito.when(tasksDao.getAllOf(PROJECT_ID)).thenReturn(tasksOfProject);
+        Mockito.when(tasksDao.getNextSortKeyOf(PROJECT_ID, null)).thenReturn(expectedSortKey);
 
         Task currentParentTask = mock(Task.class);
         Mockito.when(tasksDao.getById(currentParentTaskId)).thenReturn(currentParentTask);
@@ -1128,15 +1343,13 @@ public class TasksServiceTest {
 
         tasksService.moveTask(taskId, newParentTaskId, null);
 
-        int expectedPosition = tasksOfProject.size();
-
         Task savedTask = savedTaskCaptor.getValue();
         Assert.assertSame("The moved task should be saved", task, savedTask);
-        Assert.assertEquals("Position of the saved task should be updated to be the last", expectedPosition, savedTask.getPosition());
+        Assert.assertEquals("Sort key of the saved task should be updated to be after the last", expectedSortKey, savedTask.getSortKey());
     }
 
     @Test
-    public void testMoveTaskWithNullNewParentTaskIdUpdatesPositionsOfTasksWithHigherPositionAtOldLocation() {
+    public void testMoveTaskWithNullNewParentTaskIdDoesNotUpdateTasksAtOldLocation() {
         int taskId = 1;
         Integer newParentTaskId = null;
 
@@ -1146,47 +1359,14 @@ public class TasksServiceTest {
         int currentParentTaskId = 3;
 
         Task task = spy(createTask(PROJECT_ID));
-        task.setPosition(1);
         task.setParentTaskId(currentParentTaskId);
         Mockito.when(tasksDao.getById(taskId)).thenReturn(task);
 
         Mockito.when(task.getDetails()).thenReturn(new ArrayList<>());
 
-        List<Task> tasksOfProject = new ArrayList<>();
-        tasksOfProject.add(createTask(PROJECT_ID));
-        tasksOfProject.add(createTask(PROJECT_ID));
-        tasksOfProject.add(createTask(PROJECT_ID));
-        Mockito.when(tasksDao.getAllOf(PROJECT_ID)).thenReturn(tasksOfProject);
-
-        Task currentParentTask = mock(Task.class);
-        Mockito.when(tasksDao.getById(currentParentTaskId)).thenReturn(currentParentTask);
-
-        List<Task> detailsOfParentTaskOfSource = new ArrayList<>();
-        Task task1 = createTask(PROJECT_ID);
-        task1.setPosition(0);
-        detailsOfParentTaskOfSource.add(task1);
-        detailsOfParentTaskOfSource.add(task);
-        Task task2 = createTask(PROJECT_ID);
-        task2.setPosition(2);
-        detailsOfParentTaskOfSource.add(task2);
-        Task task3 = createTask(PROJECT_ID);
-        task3.setPosition(3);
-        detailsOfParentTaskOfSource.add(task3);
-        Mockito.when(currentParentTask.getDetails()).thenReturn(detailsOfParentTaskOfSource);
-
         tasksService.moveTask(taskId, newParentTaskId, null);
 
-        Assert.assertFalse("Task 1 should not be saved", savedTaskCaptor.getAllValues().contains(task1));
-        Assert.assertTrue("Task 2 should be saved", savedTaskCaptor.getAllValues().contains(task2));
-        Assert.assertTrue("Task 3 should be saved", savedTaskCaptor.getAllValues().contains(task3));
-
-        for (Task savedTask : savedTaskCaptor.getAllValues()) {
-            if (savedTask == task2) {
-                Assert.assertEquals("Position of task 2 should be updated to 1", 1, savedTask.getPosition());
-            } else if (savedTask == task3) {
-                Assert.assertEquals("Position of task 3 should be updated to 2", 2, savedTask.getPosition());
-            }
-        }
+        Assert.assertEquals("Only the moved task should be saved", 1, savedTaskCaptor.getAllValues().size());
     }
 
     @Test(expected = TaskDoesNotHaveParentException.class)
@@ -1239,7 +1419,9 @@ public class TasksServiceTest {
     }
 
     @Test
-    public void testMoveTaskUpdatesPositionToLast() {
+    public void testMoveTaskUpdatesSortKeyToLast() {
+        long expectedSortKey = 4 * SortKeys.GAP;
+
         int taskId = 1;
         int newParentTaskId = 2;
 
@@ -1257,11 +1439,7 @@ public class TasksServiceTest {
         Task newParentTask = spy(createTask(PROJECT_ID));
         Mockito.when(tasksDao.getById(newParentTaskId)).thenReturn(newParentTask);
 
-        List<Task> detailsOfNewParentTask = new ArrayList<>();
-        detailsOfNewParentTask.add(createTask(PROJECT_ID));
-        detailsOfNewParentTask.add(createTask(PROJECT_ID));
-        detailsOfNewParentTask.add(createTask(PROJECT_ID));
-        Mockito.when(newParentTask.getDetails()).thenReturn(detailsOfNewParentTask);
+        Mockito.when(tasksDao.getNextSortKeyOf(PROJECT_ID, newParentTaskId)).thenReturn(expectedSortKey);
 
         Task currentParentTask = mock(Task.class);
         Mockito.when(tasksDao.getById(currentParentTaskId)).thenReturn(currentParentTask);
@@ -1270,15 +1448,13 @@ public class TasksServiceTest {
 
         tasksService.moveTask(taskId, newParentTaskId, null);
 
-        int expectedPosition = detailsOfNewParentTask.size();
-
         Task savedTask = savedTaskCaptor.getValue();
         Assert.assertSame("The moved task should be saved", task, savedTask);
-        Assert.assertEquals("Position of the saved task should be updated to be the last", expectedPosition, savedTask.getPosition());
+        Assert.assertEquals("Sort key of the saved task should be updated to be after the last", expectedSortKey, savedTask.getSortKey());
     }
 
     @Test
-    public void testMoveTaskUpdatesPositionsOfTasksWithHigherPositionAtOldLocation() {
+    public void testMoveTaskDoesNotUpdateTasksAtOldLocation() {
         int taskId = 1;
         int newParentTaskId = 2;
 
@@ -1288,7 +1464,6 @@ public class TasksServiceTest {
         int currentParentTaskId = 3;
 
         Task task = spy(createTask(PROJECT_ID));
-        task.setPosition(1);
         task.setParentTaskId(currentParentTaskId);
         Mockito.when(tasksDao.getById(taskId)).thenReturn(task);
 
@@ -1299,39 +1474,13 @@ public class TasksServiceTest {
 
         Mockito.when(newParentTask.getDetails()).thenReturn(new ArrayList<>());
 
-        Task currentParentTask = mock(Task.class);
-        Mockito.when(tasksDao.getById(currentParentTaskId)).thenReturn(currentParentTask);
-
-        List<Task> detailsOfParentTaskOfSource = new ArrayList<>();
-        Task task1 = createTask(PROJECT_ID);
-        task1.setPosition(0);
-        detailsOfParentTaskOfSource.add(task1);
-        detailsOfParentTaskOfSource.add(task);
-        Task task2 = createTask(PROJECT_ID);
-        task2.setPosition(2);
-        detailsOfParentTaskOfSource.add(task2);
-        Task task3 = createTask(PROJECT_ID);
-        task3.setPosition(3);
-        detailsOfParentTaskOfSource.add(task3);
-        Mockito.when(currentParentTask.getDetails()).thenReturn(detailsOfParentTaskOfSource);
-
         tasksService.moveTask(taskId, newParentTaskId, null);
 
-        Assert.assertFalse("Task 1 should not be saved", savedTaskCaptor.getAllValues().contains(task1));
-        Assert.assertTrue("Task 2 should be saved", savedTaskCaptor.getAllValues().contains(task2));
-        Assert.assertTrue("Task 3 should be saved", savedTaskCaptor.getAllValues().contains(task3));
-
-        for (Task savedTask : savedTaskCaptor.getAllValues()) {
-            if (savedTask == task2) {
-                Assert.assertEquals("Position of task 2 should be updated to 1", 1, savedTask.getPosition());
-            } else if (savedTask == task3) {
-                Assert.assertEquals("Position of task 3 should be updated to 2", 2, savedTask.getPosition());
-            }
-        }
+        Assert.assertEquals("Only the moved task should be saved", 1, savedTaskCaptor.getAllValues().size());
     }
 
     @Test
-    public void testMoveTaskWithNoParentTaskUpdatesPositionsOfTasksWithHigherPositionAtOldLocation() {
+    public void testMoveTaskWithNoParentTaskDoesNotUpdateTasksAtOldLocation() {
         int taskId = 1;
         int newParentTaskId = 2;
 
@@ -1339,7 +1488,6 @@ public class TasksServiceTest {
         Mockito.doNothing().when(tasksDao).save(savedTaskCaptor.capture());
 
         Task task = spy(createTask(PROJECT_ID));
-        task.setPosition(1);
         Mockito.when(tasksDao.getById(taskId)).thenReturn(task);
 
         Mockito.when(task.getDetails()).thenReturn(new ArrayList<>());
@@ -1349,32 +1497,9 @@ public class TasksServiceTest {
 
         Mockito.when(newParentTask.getDetails()).thenReturn(new ArrayList<>());
 
-        List<Task> tasksOfCurrentProject = new ArrayList<>();
-        Task task1 = createTask(PROJECT_ID);
-        task1.setPosition(0);
-        tasksOfCurrentProject.add(task1);
-        tasksOfCurrentProject.add(task);
-        Task task2 = createTask(PROJECT_ID);
-        task2.setPosition(2);
-        tasksOfCurrentProject.add(task2);
-        Task task3 = createTask(PROJECT_ID);
-        task3.setPosition(3);
-        tasksOfCurrentProject.add(task3);
-        Mockito.when(tasksDao.getAllOf(PROJECT_ID)).thenReturn(tasksOfCurrentProject);
-
         tasksService.moveTask(taskId, newParentTaskId, null);
 
-        Assert.assertFalse("Task 1 should not be saved", savedTaskCaptor.getAllValues().contains(task1));
-        Assert.assertTrue("Task 2 should be saved", savedTaskCaptor.getAllValues().contains(task2));
-        Assert.assertTrue("Task 3 should be saved", savedTaskCaptor.getAllValues().contains(task3));
-
-        for (Task savedTask : savedTaskCaptor.getAllValues()) {
-            if (savedTask == task2) {
-                Assert.assertEquals("Position of task 2 should be updated to 1", 1, savedTask.getPosition());
-            } else if (savedTask == task3) {
-                Assert.assertEquals("Position of task 3 should be updated to 2", 2, savedTask.getPosition());
-            }
-        }
+        Assert.assertEquals("Only the moved task should be saved", 1, savedTaskCaptor.getAllValues().size());
     }
 
     @Test
@@ -1406,70 +1531,31 @@ public class TasksServiceTest {
     }
 
     @Test
-    public void testMoveTaskWithNewParentTaskInDifferentProjectUpdatesProjectIdsOfDetails() {
+    public void testMoveTaskWithNewParentTaskInDifferentProjectMovesSubtreeUnderNewParentTask() {
         int taskId = 1;
         Integer newParentTaskId = 2;
 
         int currentParentTaskId = 3;
 
-        ArgumentCaptor<Task> savedTaskCaptor = ArgumentCaptor.forClass(Task.class);
-        Mockito.doNothing().when(tasksDao).save(savedTaskCaptor.capture());
-
         Task task = spy(createTask(PROJECT_ID));
+        Mockito.when(task.getId()).thenReturn(taskId);
         task.setParentTaskId(currentParentTaskId);
+        task.setPath("3/1/");
         Mockito.when(tasksDao.getById(taskId)).thenReturn(task);
 
-        List<Task> detailsOfTask = new ArrayList<>();
-        Task detail1 = spy(createTask(PROJECT_ID));
-        Mockito.when(detail1.getId()).thenReturn(1001);
-        Mockito.when(detail1.getDetails()).thenReturn(new ArrayList<>());
-        detailsOfTask.add(detail1);
-
-        Task detail2 = spy(createTask(PROJECT_ID));
-        Mockito.when(detail2.getId()).thenReturn(1002);
-        List<Task> nestedDetailsOfDetail2 = new ArrayList<>();
-
-        Task nestedDetail1 = spy(createTask(PROJECT_ID));
-        Mockito.when(nestedDetail1.getId()).thenReturn(1003);
-        Mockito.when(nestedDetail1.getDetails()).thenReturn(new ArrayList<>());
-        nestedDetailsOfDetail2.add(nestedDetail1);
-
-        Task nestedDetail2 = spy(createTask(PROJECT_ID));
-        Mockito.when(nestedDetail2.getId()).thenReturn(1004);
-        Mockito.when(nestedDetail2.getDetails()).thenReturn(new ArrayList<>());
-        nestedDetailsOfDetail2.add(nestedDetail2);
-        Mockito.when(detail2.getDetails()).thenReturn(nestedDetailsOfDetail2);
-        detailsOfTask.add(detail2);
-
-        Mockito.when(task.getDetails()).thenReturn(detailsOfTask);
-
-        Task currentParentTask = mock(Task.class);
-        Mockito.when(tasksDao.getById(currentParentTaskId)).thenReturn(currentParentTask);
-
-        Mockito.when(currentParentTask.getDetails()).thenReturn(new ArrayList<>());
-
         int projectIdOfNewParentTask = 5;
 
-        Task newParentTask = spy(createTask(PROJECT_ID));
-        Mockito.when(newParentTask.getProjectId()).thenReturn(projectIdOfNewParentTask);
+        Task newParentTask = spy(createTask(projectIdOfNewParentTask));
+        newParentTask.setPath("8/2/");
         Mockito.when(tasksDao.getById(newParentTaskId)).thenReturn(newParentTask);
 
         Mockito.when(newParentTask.getDetails()).thenReturn(new ArrayList<>());
 
         tasksService.moveTask(taskId, newParentTaskId, null);
 
-        List<Task> savedTasks = savedTaskCaptor.getAllValues();
-        Assert.assertTrue("Detail 1 should be saved", savedTasks.contains(detail1));
-        Assert.assertEquals("Project id of detail 1 should be updated", projectIdOfNewParentTask, (int) detail1.getProjectId());
-
-        Assert.assertTrue("Detail 2 should be saved", savedTasks.contains(detail2));
-        Assert.assertEquals("Project id of detail 2 should be updated", projectIdOfNewParentTask, (int) detail2.getProjectId());
-
-        Assert.assertTrue("Nested detail 1 should be saved", savedTasks.contains(nestedDetail1));
-        Assert.assertEquals("Project id of nested detail 1 should be updated", projectIdOfNewParentTask, (int) nestedDetail1.getProjectId());
-
-        Assert.assertTrue("Nested detail 2 should be saved", savedTasks.contains(nestedDetail2));
-        Assert.assertEquals("Project id of nested detail 2 should be updated", projectIdOfNewParentTask, (int) nestedDetail2.getProjectId());
+        Mockito.verify(tasksDao, times(1)).moveSubtree("3/1/", "8/2/1/", projectIdOfNewParentTask);
+        Mockito.verify(task, never()).getDetails();
+        Assert.assertEquals("Path of the moved task should be under the new parent task", "8/2/1/", task.getPath());
     }
 
     @Test(expected = IllegalArgumentException.class)
@@ -1478,26 +1564,35 @@ public class TasksServiceTest {
         int newParentTaskId = 2;
 
         Task task = spy(createTask(PROJECT_ID));
+        task.setPath("1/");
         Mockito.when(tasksDao.getById(taskId)).thenReturn(task);
 
-        Task detailOfTask = spy(createTask(PROJECT_ID));
+        Task newParentTask = spy(createTask(PROJECT_ID));
+        newParentTask.setPath("1/4/2/");
+        Mockito.when(tasksDao.getById(newParentTaskId)).thenReturn(newParentTask);
 
-        List<Task> detailsOfTask = new ArrayList<>();
-        detailsOfTask.add(detailOfTask);
+        tasksService.moveTask(taskId, newParentTaskId, null);
+    }
 
-        Mockito.when(task.getDetails()).thenReturn(detailsOfTask);
+    @Test
+    public void testMoveTaskAllowsNewParentTaskWithIdStartingWithIdOfTask() {
+        int taskId = 1;
+        int newParentTaskId = 12;
+
+        Task task = spy(createTask(PROJECT_ID));
+        Mockito.when(task.getId()).thenReturn(taskId);
+        task.setPath("1/");
+        Mockito.when(tasksDao.getById(taskId)).thenReturn(task);
 
         Task newParentTask = spy(createTask(PROJECT_ID));
+        newParentTask.setPath("12/");
         Mockito.when(tasksDao.getById(newParentTaskId)).thenReturn(newParentTask);
 
         Mockito.when(newParentTask.getDetails()).thenReturn(new ArrayList<>());
 
-        List<Task> detailsOfDetail = new ArrayList<>();
-        detailsOfDetail.add(newParentTask);
-
-        Mockito.when(detailOfTask.getDetails()).thenReturn(detailsOfDetail);
-
         tasksService.moveTask(taskId, newParentTaskId, null);
+
+        Mockito.verify(tasksDao, times(1)).moveSubtree("1/", "12/1/", PROJECT_ID);
     }
 
     @Test(expected = IllegalArgumentException.class)
@@ -1589,6 +1684,129 @@ public class TasksServiceTest {
         }
     }
 
+    @Test(timeout = 10000)
+    public void testCreateTaskWritesToDifferentProjectsInParallel() throws Exception {
+        int projects = 4;
+
+        Mockito.doReturn(new Project()).when(projectsDao).getById(anyInt());
+
+        // Every write waits until a write to each of the projects is in progress at the same time, which is impossible if the writes are serialized.
+        CyclicBarrier writesInProgress = new CyclicBarrier(projects);
+        Mockito.doAnswer(invocation -> writesInProgress.await(5, TimeUnit.SECONDS)).when(tasksDao).save(anyObject());
+
+        runConcurrently(projects, 1, thread -> thread + 1);
+    }
+
+    @Test(timeout = 10000)
+    public void testCreateTaskSerializesWritesToSameProject() throws Exception {
+        int threads = 4;
+
+        Mockito.doReturn(new Project()).when(projectsDao).getById(anyInt());
+
+        // Each write reads the next sort key and then saves, and the writes of other threads must not come in between.
+        List<String> events = Collections.synchronizedList(new ArrayList<>());
+        Mockito.doAnswer(invocation -> {
+            events.add("read");
+            Thread.yield();
+            return 0L;
+        }).when(tasksDao).getNextSortKeyOf(anyInt(), Mockito.<Integer>any());
+        Mockito.doAnswer(invocation -> {
+            events.add("save");
+            return null;
+        }).when(tasksDao).save(anyObject());
+
+        runConcurrently(threads, 25, thread -> PROJECT_ID);
+
+        Assert.assertEquals("Every write should read and save", threads * 25 * 2, events.size());
+        for (int i = 0; i < events.size(); i += 2) {
+            Assert.assertEquals("Write " + i / 2 + " should read the next sort key first", "read", events.get(i));
+            Assert.assertEquals("Write " + i / 2 + " should save before the next write reads", "save", events.get(i + 1));
+        }
+    }
+
+    @Test(timeout = 10000)
+    public void testMoveTaskReleasesLockOfStaleProjectBeforeTransactionEnds() throws Exception {
+        int taskId = 1;
+        int staleProjectId = PROJECT_ID;
+        int currentProjectId = 2;
+        int newProjectId = 3;
+
+        Mockito.doReturn(new Project()).when(projectsDao).getById(anyInt());
+        Task task = createTask(currentProjectId);
+        Mockito.doReturn(task).when(tasksDao).getById(taskId);
+
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            // The task is read in the stale project, and moved to another one while the stale project is being locked.
+            List<Future<?>> waitingWrites = new ArrayList<>();
+            int[] reads = new int[1];
+            Mockito.doAnswer(invocation -> {
+                if (reads[0]++ == 0) {
+                    return staleProjectId;
+                }
+                if (reads[0] == 2) {
+                    Future<?> waitingWrite = executor.submit(() -> tasksService.createTask(staleProjectId, "Task"));
+                    try {
+                        waitingWrite.get(200, TimeUnit.MILLISECONDS);
+                        Assert.fail("Write to the stale project should wait for its lock");
+                    } catch (TimeoutException expected) {
+                    }
+                    waitingWrites.add(waitingWrite);
+                }
+
+                return currentProjectId;
+            }).when(tasksDao).getProjectIdOf(taskId);
+
+            tasksService.moveTask(taskId, null, newProjectId);
+
+            // The lock of the stale project is released before the transaction ends, so the waiting write proceeds while the locks of the move are held.
+            waitingWrites.get(0).get(1, TimeUnit.SECONDS);
+            Assert.assertEquals("Task should be moved to the new project", newProjectId, (int) task.getProjectId());
+        } finally {
+            for (TransactionSynchronization synchronization : TransactionSynchronizationManager.getSynchronizations()) {
+                synchronization.afterCompletion(TransactionSynchronization.STATUS_COMMITTED);
+            }
+            TransactionSynchronizationManager.clearSynchronization();
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Creates tasks concurrently using the specified number of threads.
+     *
+     * @param threads Number of threads.
+     * @param writesPerThread Number of tasks created by each thread.
+     * @param projectIdOfThread Maps the index of a thread to the id of the project the thread creates tasks for.
+     * @throws Exception Thrown if creating a task failed.
+     */
+    private void runConcurrently(int threads, int writesPerThread, IntUnaryOperator projectIdOfThread) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            CyclicBarrier start = new CyclicBarrier(threads + 1);
+            List<Future<Void>> futures = new ArrayList<>();
+            for (int i = 0; i < threads; i++) {
+                int projectId = projectIdOfThread.applyAsInt(i);
+                Callable<Void> writer = () -> {
+                    start.await();
+                    for (int j = 0; j < writesPerThread; j++) {
+                        tasksService.createTask(projectId, "Task " + j);
+                    }
+
+                    return null;
+                };
+                futures.add(executor.submit(writer));
+            }
+
+            start.await();
+            for (Future<Void> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
     /**
      * Creates a new task with the specified projectId.
      *
@@ -1598,6 +1816,14 @@ public class TasksServiceTest {
     private Task createTask(int projectId) {
         Task task = new Task();
         task.setProjectId(projectId);
+        task.setPath(++createdTasks + "/");
+
+        return task;
+    }
+
+    private Task createTask(int projectId, long sortKey) {
+        Task task = createTask(projectId);
+        task.setSortKey(sortKey);
 
         return task;
     }